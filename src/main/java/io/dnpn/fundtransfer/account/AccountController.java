@@ -38,7 +38,7 @@ public class AccountController {
             })
     @GetMapping("/account/{id}")
     public ResponseEntity<Account> getById(@PathVariable long id) {
-        final var account = service.getById(id).map(AccountEntity::toDto);
+        final var account = service.getById(id).map(service::toDto);
         return ResponseEntity.of(account);
     }
 
@@ -56,7 +56,7 @@ public class AccountController {
     })
     @GetMapping("/accounts")
     public ResponseEntity<Page<Account>> getAll(@Parameter(hidden = true) @NonNull Pageable pageable) {
-        var accounts = service.list(pageable).map(AccountEntity::toDto);
+        var accounts = service.list(pageable).map(service::toDto);
         return ResponseEntity.ok(accounts);
     }
 }
@@ -0,0 +1,70 @@
+package io.dnpn.fundtransfer.account;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Updates the balance of accounts with guarded delta statements, without loading the {@link AccountEntity}.
+ * <p>
+ * Each delta is applied by a single statement which only succeeds if the balance stays positive, so the check and the
+ * update cannot be interleaved with a concurrent update of the same account. The version of the account is
+ * incremented so the JPA entities loaded concurrently are still protected by the optimistic locking.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AccountDeltaRepository {
+
+    static final String APPLY_DELTA_SQL = "UPDATE account SET balance = balance + ?, version = version + 1 " +
+            "WHERE id = ? AND balance + ? >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Applies the deltas in a single JDBC batch. The caller is responsible for the transaction, and should roll it
+     * back if any of the deltas has not been applied.
+     *
+     * @param deltas the deltas to apply.
+     * @return for each delta, whether it has been applied. A delta is not applied if the account does not exist or if
+     * the balance would become negative. A delta is deemed applied when the driver does not report its update count
+     * (see {@link #isApplied(int)}).
+     */
+    public boolean[] applyDeltas(@NonNull List<BalanceDelta> deltas) {
+        log.trace("Apply balance deltas: {}", deltas);
+        final var parameters = deltas.stream()
+                .map(delta -> {
+                    final var amount = delta.delta().toBigDecimal();
+                    return new Object[]{amount, delta.accountId(), amount};
+                })
+                .toList();
+
+        final var updateCounts = jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, parameters);
+
+        final var applied = new boolean[updateCounts.length];
+        for (int index = 0; index < updateCounts.length; index++) {
+            applied[index] = isApplied(updateCounts[index]);
+        }
+        log.trace("Update counts of the balance deltas: {}", Arrays.toString(updateCounts));
+        return applied;
+    }
+
+    /**
+     * Whether a statement of a JDBC batch has been applied, given its update count. A driver may report
+     * {@link Statement#SUCCESS_NO_INFO} instead of the number of updated rows (e.g. with the rewriting of the batched
+     * statements): the statement succeeded, and only an update count of 0 or {@link Statement#EXECUTE_FAILED} means
+     * it was not applied.
+     *
+     * @param updateCount the update count of the statement, as returned by {@link JdbcTemplate#batchUpdate}.
+     * @return true if the statement has been applied.
+     */
+    static boolean isApplied(int updateCount) {
+        return updateCount > 0 || updateCount == Statement.SUCCESS_NO_INFO;
+    }
+}
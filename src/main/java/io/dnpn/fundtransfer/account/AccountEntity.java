@@ -1,18 +1,20 @@
 package io.dnpn.fundtransfer.account;
 
+import io.dnpn.fundtransfer.common.Money;
 import io.dnpn.fundtransfer.common.MoneyHandling;
 import io.dnpn.fundtransfer.currency.Currency;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.NonNull;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
 import javax.persistence.Version;
-import java.math.BigDecimal;
 
 @Entity
 @Table(name = "account")
@@ -27,14 +29,50 @@ public class AccountEntity {
     @Version
     private Integer version;
     private Currency currency;
-    @Column(precision = MoneyHandling.PRECISION_FOR_MONEY, scale = MoneyHandling.SCALE_FOR_MONEY)
-    private BigDecimal balance;
+    @Column(name = "balance", precision = MoneyHandling.PRECISION_FOR_MONEY, scale = MoneyHandling.SCALE_FOR_MONEY)
+    @Convert(converter = Money.CentsConverter.class)
+    private long balanceInCents;
+
+    /**
+     * Gets the balance of the account.
+     *
+     * @return the balance, in the currency of the account.
+     */
+    public Money getBalance() {
+        return Money.ofCents(this.balanceInCents, this.currency);
+    }
+
+    /**
+     * Sets the balance of the account.
+     *
+     * @param balance the new balance.
+     * @throws IllegalArgumentException if the balance is not in the currency of the account.
+     */
+    public void setBalance(@NonNull Money balance) {
+        if (balance.currency() != this.currency) {
+            final var message = String.format("Cannot set a balance in %s to the account %d in %s.",
+                    balance.currency(), this.id, this.currency);
+            throw new IllegalArgumentException(message);
+        }
+        this.balanceInCents = balance.amountInCents();
+    }
 
     public Account toDto() {
+        return toDto(getBalance());
+    }
+
+    /**
+     * Converts the account to its DTO with the given balance, such as the balance including the stripes of a hot
+     * account (see {@link HotAccountService#getBalance(AccountEntity)}).
+     *
+     * @param balance the balance of the account.
+     * @return the DTO of the account.
+     */
+    public Account toDto(@NonNull Money balance) {
         return Account.builder()
                 .accountId(this.id)
                 .currency(this.currency)
-                .balance(this.balance)
+                .balance(balance.toBigDecimal())
                 .build();
     }
 }
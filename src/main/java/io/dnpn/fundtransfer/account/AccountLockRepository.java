@@ -0,0 +1,22 @@
+package io.dnpn.fundtransfer.account;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository fragment to load accounts with a pessimistic write lock ({@code SELECT ... FOR UPDATE}).
+ */
+public interface AccountLockRepository {
+
+    /**
+     * Locks the accounts matching the given identifiers until the end of the current transaction. The accounts are
+     * always locked one by one in ascending identifier order, so 2 transactions locking the same accounts cannot
+     * deadlock.
+     *
+     * @param ids         the unique identifiers. Identifiers without a matching account are ignored.
+     * @param lockTimeout the maximum time to wait for each lock.
+     * @return the locked accounts, in ascending identifier order.
+     */
+    List<AccountEntity> lockAllById(Collection<Long> ids, Duration lockTimeout);
+}
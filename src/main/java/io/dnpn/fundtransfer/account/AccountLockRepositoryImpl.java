@@ -0,0 +1,48 @@
+package io.dnpn.fundtransfer.account;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@RequiredArgsConstructor
+class AccountLockRepositoryImpl implements AccountLockRepository {
+
+    static final String LOCK_TIMEOUT_HINT = "javax.persistence.lock.timeout";
+    static final String H2_PRODUCT_NAME = "H2";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<AccountEntity> lockAllById(Collection<Long> ids, Duration lockTimeout) {
+        applyH2LockTimeout(lockTimeout);
+        final Map<String, Object> hints = Map.of(LOCK_TIMEOUT_HINT, lockTimeout.toMillis());
+
+        return ids.stream()
+                .distinct()
+                .sorted()
+                .map(id -> entityManager.find(AccountEntity.class, id, LockModeType.PESSIMISTIC_WRITE, hints))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * The H2 dialect of Hibernate ignores the lock timeout hint, H2 only supports the lock timeout as a setting of the
+     * session. The setting stays on the pooled connection, which is fine as it is applied before every lock.
+     */
+    private void applyH2LockTimeout(Duration lockTimeout) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            if (H2_PRODUCT_NAME.equals(connection.getMetaData().getDatabaseProductName())) {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("SET LOCK_TIMEOUT " + lockTimeout.toMillis());
+                }
+            }
+        });
+    }
+}
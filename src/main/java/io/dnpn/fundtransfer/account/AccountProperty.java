@@ -0,0 +1,96 @@
+package io.dnpn.fundtransfer.account;
+
+import io.dnpn.fundtransfer.common.annotation.VisibleForTesting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Account properties (used in the file `application.properties`).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountProperty {
+
+    /**
+     * Prefix of all properties related to the accounts.
+     */
+    private static final String PROPERTY_PREFIX = "account.";
+    /**
+     * Prefix of all properties related to the hot accounts, whose balance is split in stripes.
+     */
+    private static final String HOT_PREFIX = PROPERTY_PREFIX + "hot.";
+
+    public static final String HOT_REBALANCE_INTERVAL = HOT_PREFIX + "rebalanceIntervalMs";
+    public static final long DEFAULT_HOT_REBALANCE_INTERVAL_MS = 100;
+
+    @VisibleForTesting
+    static final String HOT_IDS = HOT_PREFIX + "ids";
+    @VisibleForTesting
+    static final String HOT_STRIPES = HOT_PREFIX + "stripes";
+
+    @VisibleForTesting
+    static final int DEFAULT_HOT_STRIPES = 8;
+
+    private final Environment environment;
+
+    /**
+     * Gets the identifiers of the hot accounts, receiving their credits in stripes instead of the account itself.
+     *
+     * @return the identifiers of the hot accounts, empty if there is none.
+     */
+    public Set<Long> getHotIds() {
+        final var valueAsString = environment.getProperty(HOT_IDS);
+        return Optional.ofNullable(valueAsString)
+                .map(value -> parseIds(value, HOT_IDS))
+                .orElse(Set.of());
+    }
+
+    /**
+     * Gets the number of stripes of each hot account.
+     *
+     * @return the number of stripes.
+     */
+    public int getHotStripes() {
+        final var valueAsString = environment.getProperty(HOT_STRIPES);
+        return Optional.ofNullable(valueAsString)
+                .map(value -> parsePositiveInt(value, HOT_STRIPES))
+                .orElse(DEFAULT_HOT_STRIPES);
+    }
+
+    private Set<Long> parseIds(String value, String propertyName) {
+        try {
+            return Arrays.stream(value.split(","))
+                    .map(String::trim)
+                    .filter(id -> !id.isEmpty())
+                    .map(Long::valueOf)
+                    .collect(Collectors.toUnmodifiableSet());
+
+        } catch (RuntimeException exception) {
+            log.error("Invalid value for <{}>. Expected a comma-separated list of account identifiers but got <{}>.",
+                    propertyName, value);
+            throw exception;
+        }
+    }
+
+    private int parsePositiveInt(String value, String propertyName) {
+        try {
+            final var parsedValue = Integer.parseInt(value);
+            if (parsedValue <= 0) {
+                throw new IllegalArgumentException("The value must be positive.");
+            }
+            return parsedValue;
+
+        } catch (RuntimeException exception) {
+            log.error("Invalid value for <{}>. Expected a positive integer but got <{}>.", propertyName, value);
+            throw exception;
+        }
+    }
+}
@@ -7,6 +7,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -15,6 +18,7 @@ import java.util.Optional;
 public class AccountService {
 
     private final AccountRepository repository;
+    private final HotAccountService hotAccountService;
 
     public Page<AccountEntity> list(@NonNull Pageable pageable) {
         log.trace("List the accounts with paging options: {}", pageable);
@@ -26,8 +30,54 @@ public class AccountService {
         return repository.findById(id);
     }
 
+    /**
+     * Gets all the accounts matching the given identifiers with a single query. Identifiers without a matching
+     * account are ignored.
+     *
+     * @param ids the unique identifiers.
+     * @return the accounts found.
+     */
+    public List<AccountEntity> getByIds(@NonNull Collection<Long> ids) {
+        log.trace("Get accounts {}", ids);
+        return repository.findAllById(ids);
+    }
+
+    /**
+     * Gets the accounts matching the given identifiers and locks them until the end of the current transaction. The
+     * locks are taken in ascending identifier order (see {@link AccountLockRepository}).
+     *
+     * @param ids         the unique identifiers.
+     * @param lockTimeout the maximum time to wait for each lock.
+     * @return the locked accounts found.
+     */
+    public List<AccountEntity> lockByIds(@NonNull Collection<Long> ids, @NonNull Duration lockTimeout) {
+        log.trace("Lock accounts {}", ids);
+        return repository.lockAllById(ids, lockTimeout);
+    }
+
+    /**
+     * Converts an account to its DTO. The balance of a hot account includes the balance of its stripes.
+     *
+     * @param account the account.
+     * @return the DTO of the account.
+     */
+    public Account toDto(@NonNull AccountEntity account) {
+        return account.toDto(hotAccountService.getBalance(account));
+    }
+
     public void update(@NonNull AccountEntity account) {
         log.trace("Persist account data: {}", account);
         repository.save(account);
     }
+
+    /**
+     * Persists several accounts at once.
+     *
+     * @param accounts the accounts to persist.
+     * @return the persisted accounts, they should be used instead of the given ones for any further update.
+     */
+    public List<AccountEntity> updateAll(@NonNull Collection<AccountEntity> accounts) {
+        log.trace("Persist the data of {} accounts", accounts.size());
+        return repository.saveAll(accounts);
+    }
 }
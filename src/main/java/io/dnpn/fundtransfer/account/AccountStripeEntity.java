@@ -0,0 +1,50 @@
+package io.dnpn.fundtransfer.account;
+
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.common.MoneyHandling;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * Part of the balance of a hot account, receiving a share of its credits (see {@link HotAccountService}). The stripes
+ * are updated with SQL statements by the {@link AccountStripeRepository}, the entity defines their table.
+ */
+@Entity
+@Table(name = "account_stripe")
+@IdClass(AccountStripeEntity.Key.class)
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+class AccountStripeEntity {
+
+    @Id
+    private long accountId;
+    @Id
+    private int stripe;
+    @Column(name = "balance", nullable = false, precision = MoneyHandling.PRECISION_FOR_MONEY,
+            scale = MoneyHandling.SCALE_FOR_MONEY)
+    @Convert(converter = Money.CentsConverter.class)
+    private long balanceInCents;
+
+    /**
+     * Identifier of a stripe: the account and the index of the stripe in the account.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Key implements Serializable {
+        private long accountId;
+        private int stripe;
+    }
+}
@@ -0,0 +1,139 @@
+package io.dnpn.fundtransfer.account;
+
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.common.MoneyHandling;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Updates the stripes of the hot accounts with SQL statements, without loading the {@link AccountStripeEntity}. The
+ * caller is responsible for the transaction.
+ * <p>
+ * A stripe is only debited by {@link #moveToAccount(long, List)}, which moves its funds to the account with guarded
+ * statements: the funds credited concurrently stay in the stripe and the balance of a stripe cannot become negative.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AccountStripeRepository {
+
+    static final String CREATE_STRIPE_SQL = "INSERT INTO account_stripe (account_id, stripe, balance) " +
+            "SELECT ?, ?, 0 WHERE NOT EXISTS (SELECT 1 FROM account_stripe WHERE account_id = ? AND stripe = ?)";
+    static final String CREDIT_STRIPE_SQL = "UPDATE account_stripe SET balance = balance + ? " +
+            "WHERE account_id = ? AND stripe = ?";
+    static final String SUM_STRIPES_SQL = "SELECT COALESCE(SUM(balance), 0) FROM account_stripe WHERE account_id = ?";
+    static final String FIND_FUNDED_STRIPES_SQL = "SELECT stripe, balance FROM account_stripe " +
+            "WHERE account_id = ? AND balance > 0 ORDER BY stripe";
+    static final String WITHDRAW_STRIPE_SQL = "UPDATE account_stripe SET balance = balance - ? " +
+            "WHERE account_id = ? AND stripe = ? AND balance >= ?";
+    static final String DEPOSIT_TO_ACCOUNT_SQL = "UPDATE account SET balance = balance + ?, version = version + 1 " +
+            "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the stripes of an account which do not exist yet, with an empty balance.
+     *
+     * @param accountId the hot account.
+     * @param stripes   the number of stripes of the account.
+     */
+    public void createStripes(long accountId, int stripes) {
+        log.trace("Create {} stripes for the account {}", stripes, accountId);
+        final var parameters = IntStream.range(0, stripes)
+                .mapToObj(stripe -> new Object[]{accountId, stripe, accountId, stripe})
+                .toList();
+        jdbcTemplate.batchUpdate(CREATE_STRIPE_SQL, parameters);
+    }
+
+    /**
+     * Credits a stripe of an account.
+     *
+     * @param accountId the hot account.
+     * @param stripe    the index of the stripe.
+     * @param amount    the amount to credit, in the currency of the account.
+     * @return whether the stripe has been credited, false if it does not exist.
+     */
+    public boolean credit(long accountId, int stripe, @NonNull Money amount) {
+        log.trace("Credit {} to the stripe {} of the account {}", amount, stripe, accountId);
+        return jdbcTemplate.update(CREDIT_STRIPE_SQL, amount.toBigDecimal(), accountId, stripe) > 0;
+    }
+
+    /**
+     * Gets the sum of the balances of the stripes of an account.
+     *
+     * @param accountId the hot account.
+     * @return the balance of the stripes, in cents of the currency of the account.
+     */
+    public long sumBalanceInCents(long accountId) {
+        final var sum = jdbcTemplate.queryForObject(SUM_STRIPES_SQL, BigDecimal.class, accountId);
+        return sum == null ? 0 : Money.toCents(sum);
+    }
+
+    /**
+     * Gets the stripes of an account holding funds.
+     *
+     * @param accountId the hot account.
+     * @return the stripes with a positive balance, in stripe order.
+     */
+    public List<StripeBalance> findFundedStripes(long accountId) {
+        return jdbcTemplate.query(FIND_FUNDED_STRIPES_SQL,
+                (resultSet, rowNumber) -> StripeBalance.builder()
+                        .stripe(resultSet.getInt(1))
+                        .balanceInCents(Money.toCents(resultSet.getBigDecimal(2)))
+                        .build(),
+                accountId);
+    }
+
+    /**
+     * Withdraws the given balances from the stripes and deposits their sum to the account. A stripe is only withdrawn
+     * if it still holds at least the given balance, which is always the case unless another transaction withdrew it
+     * concurrently.
+     *
+     * @param accountId the hot account.
+     * @param balances  the balances to withdraw, as returned by {@link #findFundedStripes(long)}.
+     * @return the amount moved to the account, in cents of the currency of the account.
+     * @throws IllegalStateException if the account does not exist, the caller should roll the transaction back.
+     */
+    public long moveToAccount(long accountId, @NonNull List<StripeBalance> balances) {
+        final var parameters = balances.stream()
+                .map(balance -> {
+                    final var amount = BigDecimal.valueOf(balance.balanceInCents(), MoneyHandling.SCALE_FOR_MONEY);
+                    return new Object[]{amount, accountId, balance.stripe(), amount};
+                })
+                .toList();
+        final var updateCounts = jdbcTemplate.batchUpdate(WITHDRAW_STRIPE_SQL, parameters);
+
+        var movedInCents = 0L;
+        for (int index = 0; index < updateCounts.length; index++) {
+            if (AccountDeltaRepository.isApplied(updateCounts[index])) {
+                movedInCents += balances.get(index).balanceInCents();
+            }
+        }
+        if (movedInCents > 0) {
+            final var amount = BigDecimal.valueOf(movedInCents, MoneyHandling.SCALE_FOR_MONEY);
+            if (jdbcTemplate.update(DEPOSIT_TO_ACCOUNT_SQL, amount, accountId) == 0) {
+                throw new IllegalStateException("The hot account " + accountId + " does not exist.");
+            }
+        }
+        log.trace("Moved {} cents from the stripes to the account {}", movedInCents, accountId);
+        return movedInCents;
+    }
+
+    /**
+     * Balance of a stripe of an account.
+     *
+     * @param stripe         the index of the stripe.
+     * @param balanceInCents the balance of the stripe, in cents of the currency of the account.
+     */
+    @Builder
+    public record StripeBalance(int stripe, long balanceInCents) {
+    }
+}
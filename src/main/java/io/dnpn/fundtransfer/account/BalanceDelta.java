@@ -0,0 +1,18 @@
+package io.dnpn.fundtransfer.account;
+
+import io.dnpn.fundtransfer.common.Money;
+import lombok.Builder;
+import lombok.NonNull;
+
+/**
+ * Change to apply to the balance of an account.
+ *
+ * @param accountId the account to update.
+ * @param delta     the amount to add to the balance, negative for a debit.
+ */
+@Builder
+public record BalanceDelta(
+        long accountId,
+        @NonNull Money delta
+) {
+}
@@ -0,0 +1,126 @@
+package io.dnpn.fundtransfer.account;
+
+import io.dnpn.fundtransfer.common.Money;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits the balance of the hot accounts (see {@link AccountProperty#getHotIds()}), which receive a large share of the
+ * credits, in several stripes so their credits do not all update the same row.
+ * <p>
+ * The balance of a hot account is the balance of its {@link AccountEntity} plus the balances of its stripes. The
+ * credits go to the stripes in round-robin, while the debits are only checked against and applied to the account
+ * itself. The rebalancer periodically moves the funds of the stripes to the account, so they can be debited.
+ */
+@Slf4j
+@Service
+public class HotAccountService {
+
+    private final AccountStripeRepository stripeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> hotIds;
+    private final int stripes;
+    private final Map<Long, AtomicInteger> nextStripes = new ConcurrentHashMap<>();
+
+    public HotAccountService(@NonNull AccountStripeRepository stripeRepository,
+                             @NonNull TransactionTemplate transactionTemplate,
+                             @NonNull AccountProperty accountProperty) {
+        this.stripeRepository = stripeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.hotIds = accountProperty.getHotIds();
+        this.stripes = accountProperty.getHotStripes();
+    }
+
+    /**
+     * Creates the missing stripes of the hot accounts. This is done once the application is ready, so the table of the
+     * stripes exists; the credits received in the meantime go to the accounts themselves.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void createStripes() {
+        if (hotIds.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                hotIds.forEach(accountId -> stripeRepository.createStripes(accountId, stripes)));
+        log.info("Balance of the hot accounts {} split in {} stripes", hotIds, stripes);
+    }
+
+    /**
+     * Whether the balance of an account is split in stripes.
+     *
+     * @param accountId the account.
+     * @return true if the account is hot.
+     */
+    public boolean isHot(long accountId) {
+        return hotIds.contains(accountId);
+    }
+
+    /**
+     * Credits the next stripe of a hot account. The caller is responsible for the transaction.
+     *
+     * @param accountId the account to credit.
+     * @param amount    the amount to credit, in the currency of the account.
+     * @return whether the amount has been credited to a stripe. If not, because the account is not hot or its stripes
+     * are not created yet, the caller has to credit the account itself.
+     */
+    public boolean credit(long accountId, @NonNull Money amount) {
+        if (!isHot(accountId)) {
+            return false;
+        }
+        final var counter = nextStripes.computeIfAbsent(accountId, id -> new AtomicInteger());
+        final var stripe = Math.floorMod(counter.getAndIncrement(), stripes);
+        return stripeRepository.credit(accountId, stripe, amount);
+    }
+
+    /**
+     * Gets the balance of an account, including the balance of its stripes if it is hot.
+     *
+     * @param account the account.
+     * @return the balance of the account.
+     */
+    public Money getBalance(@NonNull AccountEntity account) {
+        if (!isHot(account.getId())) {
+            return account.getBalance();
+        }
+        final var stripedBalance = Money.ofCents(stripeRepository.sumBalanceInCents(account.getId()),
+                account.getCurrency());
+        return account.getBalance().add(stripedBalance);
+    }
+
+    /**
+     * Moves the funds of the stripes of each hot account to the account, each account in its own transaction.
+     */
+    @Scheduled(fixedDelayString = "${" + AccountProperty.HOT_REBALANCE_INTERVAL + ":"
+            + AccountProperty.DEFAULT_HOT_REBALANCE_INTERVAL_MS + "}")
+    void rebalance() {
+        for (var accountId : hotIds) {
+            try {
+                rebalance(accountId);
+
+            } catch (RuntimeException exception) {
+                log.warn("Failed to move the funds of the stripes of the hot account {}, they will be moved with the " +
+                        "next rebalance: {}", accountId, exception.getMessage());
+            }
+        }
+    }
+
+    private void rebalance(long accountId) {
+        final var balances = stripeRepository.findFundedStripes(accountId);
+        if (balances.isEmpty()) {
+            return;
+        }
+        final var movedInCents = transactionTemplate.execute(status ->
+                stripeRepository.moveToAccount(accountId, balances));
+        log.debug("{} cents moved from the stripes to the hot account {}", movedInCents, accountId);
+    }
+}
@@ -11,8 +11,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Pageable;
 
-import java.math.BigDecimal;
-
 /**
  * Create mock accounts for a development environment.
  */
@@ -34,25 +32,25 @@ public class SqlAccountDevSetup {
     private void createMockAccounts(AccountRepository repository) {
         repository.save(AccountEntity.builder()
                 .id(123)
-                .balance(new BigDecimal("1234.56"))
+                .balanceInCents(123456)
                 .currency(Currency.USD)
                 .build());
 
         repository.save(AccountEntity.builder()
                 .id(456)
-                .balance(new BigDecimal("450001.78"))
+                .balanceInCents(45000178)
                 .currency(Currency.GBP)
                 .build());
 
         repository.save(AccountEntity.builder()
                 .id(789)
-                .balance(new BigDecimal("1000000.00"))
+                .balanceInCents(100000000)
                 .currency(Currency.JPY)
                 .build());
 
         repository.save(AccountEntity.builder()
                 .id(101)
-                .balance(new BigDecimal("41200"))
+                .balanceInCents(4120000)
                 .currency(Currency.JPY)
                 .build());
 
@@ -0,0 +1,154 @@
+package io.dnpn.fundtransfer.common;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * Exchange rate converting amounts to be credited to a client, with the result rounded down to cents (see
+ * {@link MoneyHandling#ROUNDING_MODE_FOR_CLIENT_CREDIT}).
+ * <p>
+ * The rate is turned once into a fixed-point multiplier: a {@code long} and a number of decimals. An amount in cents is
+ * then converted with a multiplication and a floor division on {@code long} values, without allocating any object (see
+ * {@link #convertCents(long)}); converting a {@link BigDecimal} amount with 2 decimals only allocates the result. The
+ * result is exactly the one of {@code amount.multiply(rate).setScale(2, RoundingMode.FLOOR)}. When the rate has too
+ * many significant digits to fit in a {@code long}, when the amount has another scale, or when the product overflows,
+ * the conversion falls back to {@link BigDecimal}.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public final class FixedPointExchangeRate {
+
+    /**
+     * Maximum number of decimals of a fixed-point multiplier.
+     */
+    private static final int MAX_RATE_SCALE = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_RATE_SCALE + 1];
+    /**
+     * Value returned by the fixed-point multiplication when its result does not fit in a {@code long}. It is never
+     * the result of a conversion, since the amounts have at most {@link MoneyHandling#PRECISION_FOR_MONEY} digits.
+     */
+    private static final long OVERFLOW = Long.MIN_VALUE;
+    /**
+     * Maximum number of digits of an amount in cents converted to a {@code long} without overflow.
+     */
+    private static final int MAX_CENTS_PRECISION = 18;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    @ToString.Include
+    @EqualsAndHashCode.Include
+    private final BigDecimal rate;
+    private final boolean fixedPoint;
+    private final long multiplier;
+    private final long divisor;
+
+    private FixedPointExchangeRate(BigDecimal rate, boolean fixedPoint, long multiplier, int scale) {
+        this.rate = rate;
+        this.fixedPoint = fixedPoint;
+        this.multiplier = multiplier;
+        this.divisor = POWERS_OF_TEN[scale];
+    }
+
+    /**
+     * Precomputes the fixed-point multiplier of the rate.
+     *
+     * @param rate the exchange rate.
+     * @return the fixed-point exchange rate, which converts with {@link BigDecimal} if the rate cannot be represented
+     * by a {@code long} with at most 18 decimals.
+     */
+    public static FixedPointExchangeRate of(@NonNull BigDecimal rate) {
+        final var normalizedRate = rate.stripTrailingZeros();
+        final var scale = Math.max(normalizedRate.scale(), 0);
+        if (scale > MAX_RATE_SCALE) {
+            return new FixedPointExchangeRate(rate, false, 0, 0);
+        }
+        final var unscaledRate = normalizedRate.setScale(scale).unscaledValue();
+        if (unscaledRate.bitLength() >= Long.SIZE) {
+            return new FixedPointExchangeRate(rate, false, 0, 0);
+        }
+        return new FixedPointExchangeRate(rate, true, unscaledRate.longValue(), scale);
+    }
+
+    /**
+     * Gets the exchange rate.
+     *
+     * @return the rate this object was built from.
+     */
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    /**
+     * Whether the conversions use the fixed-point multiplier.
+     *
+     * @return false if the rate has too many significant digits, so all the conversions use {@link BigDecimal}.
+     */
+    public boolean isFixedPoint() {
+        return fixedPoint;
+    }
+
+    /**
+     * Converts an amount and rounds the result down to cents.
+     *
+     * @param amount the amount to convert.
+     * @return the converted amount, with {@link MoneyHandling#SCALE_FOR_MONEY} decimals.
+     */
+    public BigDecimal convert(@NonNull BigDecimal amount) {
+        if (fixedPoint && amount.scale() == MoneyHandling.SCALE_FOR_MONEY
+                && amount.precision() <= MAX_CENTS_PRECISION) {
+            // Unlike unscaledValue(), does not build a BigInteger: the intermediate BigDecimal can be scalar replaced
+            final var amountInCents = amount.scaleByPowerOfTen(MoneyHandling.SCALE_FOR_MONEY).longValueExact();
+            final var convertedInCents = multiplyAndFloor(amountInCents);
+            if (convertedInCents != OVERFLOW) {
+                return BigDecimal.valueOf(convertedInCents, MoneyHandling.SCALE_FOR_MONEY);
+            }
+        }
+        return convertWithBigDecimal(amount);
+    }
+
+    /**
+     * Converts an amount expressed in cents, and rounds the result down to cents.
+     *
+     * @param amountInCents the amount to convert, in cents.
+     * @return the converted amount, in cents.
+     * @throws ArithmeticException if the converted amount does not fit in a {@code long}.
+     */
+    public long convertCents(long amountInCents) {
+        if (fixedPoint) {
+            final var convertedInCents = multiplyAndFloor(amountInCents);
+            if (convertedInCents != OVERFLOW) {
+                return convertedInCents;
+            }
+        }
+        return convertWithBigDecimal(BigDecimal.valueOf(amountInCents, MoneyHandling.SCALE_FOR_MONEY))
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    /**
+     * Multiplies the amount by the rate then rounds down: floor(amount * multiplier / 10^scale).
+     *
+     * @return the result, or {@link #OVERFLOW} if the product does not fit in a {@code long}.
+     */
+    private long multiplyAndFloor(long amountInCents) {
+        final var high = Math.multiplyHigh(amountInCents, multiplier);
+        final var low = amountInCents * multiplier;
+        if (high != (low >> (Long.SIZE - 1))) {
+            return OVERFLOW;
+        }
+        return Math.floorDiv(low, divisor);
+    }
+
+    private BigDecimal convertWithBigDecimal(BigDecimal amount) {
+        return amount.multiply(rate)
+                .setScale(MoneyHandling.SCALE_FOR_MONEY, MoneyHandling.ROUNDING_MODE_FOR_CLIENT_CREDIT);
+    }
+}
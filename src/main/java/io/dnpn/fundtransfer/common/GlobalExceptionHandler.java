@@ -38,7 +38,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<String> responseStatusExceptionHandler(ResponseStatusException exception) {
-        return new ResponseEntity(exception.getReason(), exception.getStatus());
+        return new ResponseEntity(exception.getReason(), exception.getResponseHeaders(), exception.getStatus());
     }
 
     @ExceptionHandler(Exception.class)
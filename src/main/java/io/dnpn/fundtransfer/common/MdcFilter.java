@@ -15,7 +15,8 @@ import java.util.UUID;
 /**
  * Filter leveraging {@link MDC} so we can easily regroup the logs from a same request even if several requests are
  * executed concurrently. If the header `Request-Id` is set then we reuse this value, otherwise we set a new one. The
- * request ID can be retrieved in the response header `Request-Id`.
+ * request ID can be retrieved in the response header `Request-Id`. A client reusing the same request ID when it retries
+ * a transfer also makes it idempotent, see {@code TransferController}.
  */
 @Slf4j
 @Component
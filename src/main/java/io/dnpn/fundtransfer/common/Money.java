@@ -0,0 +1,212 @@
+package io.dnpn.fundtransfer.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.NonNull;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money in a currency, stored as a number of cents (see {@link MoneyHandling#SCALE_FOR_MONEY}).
+ * <p>
+ * The arithmetic is done on {@code long} values: it does not allocate anything but the result, and it fails with an
+ * {@link ArithmeticException} instead of silently overflowing. {@link BigDecimal} is only used at the boundaries of the
+ * application, see {@link #of(BigDecimal, Currency)} and {@link #toBigDecimal()}. In JSON, an amount is an object with
+ * the decimal {@code amount} and the {@code currency}; in the database, the cents are stored in a decimal column by the
+ * {@link CentsConverter}.
+ *
+ * @param amountInCents the amount, in cents.
+ * @param currency      the currency of the amount.
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public record Money(long amountInCents, @NonNull Currency currency) {
+
+    private static final String AMOUNT_FIELD = "amount";
+    private static final String CURRENCY_FIELD = "currency";
+
+    /**
+     * Creates an amount from a number of cents.
+     *
+     * @param amountInCents the amount, in cents.
+     * @param currency      the currency of the amount.
+     * @return the amount.
+     */
+    public static Money ofCents(long amountInCents, @NonNull Currency currency) {
+        return new Money(amountInCents, currency);
+    }
+
+    /**
+     * Creates an amount from its decimal value.
+     *
+     * @param amount   the decimal amount.
+     * @param currency the currency of the amount.
+     * @return the amount.
+     * @throws ArithmeticException if the amount has more than 2 decimals or does not fit in a {@code long} of cents.
+     */
+    public static Money of(@NonNull BigDecimal amount, @NonNull Currency currency) {
+        return new Money(toCents(amount), currency);
+    }
+
+    /**
+     * Converts a decimal amount to cents.
+     *
+     * @param amount the decimal amount.
+     * @return the amount, in cents.
+     * @throws ArithmeticException if the amount has more than 2 decimals or does not fit in a {@code long} of cents.
+     */
+    public static long toCents(@NonNull BigDecimal amount) {
+        return amount.setScale(MoneyHandling.SCALE_FOR_MONEY, RoundingMode.UNNECESSARY)
+                .scaleByPowerOfTen(MoneyHandling.SCALE_FOR_MONEY)
+                .longValueExact();
+    }
+
+    /**
+     * Converts the amount to a decimal value.
+     *
+     * @return the amount, with {@link MoneyHandling#SCALE_FOR_MONEY} decimals.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(amountInCents, MoneyHandling.SCALE_FOR_MONEY);
+    }
+
+    /**
+     * Adds an amount of the same currency.
+     *
+     * @param other the amount to add.
+     * @return the sum.
+     * @throws IllegalArgumentException if the currencies are different.
+     * @throws ArithmeticException      if the sum overflows.
+     */
+    public Money add(@NonNull Money other) {
+        assertSameCurrency(other);
+        return new Money(Math.addExact(amountInCents, other.amountInCents), currency);
+    }
+
+    /**
+     * Subtracts an amount of the same currency.
+     *
+     * @param other the amount to subtract.
+     * @return the difference.
+     * @throws IllegalArgumentException if the currencies are different.
+     * @throws ArithmeticException      if the difference overflows.
+     */
+    public Money subtract(@NonNull Money other) {
+        assertSameCurrency(other);
+        return new Money(Math.subtractExact(amountInCents, other.amountInCents), currency);
+    }
+
+    /**
+     * Negates the amount.
+     *
+     * @return the opposite amount.
+     * @throws ArithmeticException if the amount is the minimum {@code long} value.
+     */
+    public Money negate() {
+        return new Money(Math.negateExact(amountInCents), currency);
+    }
+
+    /**
+     * Whether the amount is strictly positive.
+     *
+     * @return true if the amount is greater than zero.
+     */
+    public boolean isPositive() {
+        return amountInCents > 0;
+    }
+
+    /**
+     * Compares with an amount of the same currency.
+     *
+     * @param other the amount to compare with.
+     * @return true if this amount is strictly greater than the other one.
+     * @throws IllegalArgumentException if the currencies are different.
+     */
+    public boolean isGreaterThan(@NonNull Money other) {
+        assertSameCurrency(other);
+        return amountInCents > other.amountInCents;
+    }
+
+    private void assertSameCurrency(Money other) {
+        if (currency != other.currency) {
+            final var message = String.format("Cannot combine an amount in %s with an amount in %s.", currency,
+                    other.currency);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    /**
+     * Stores an amount in cents in a decimal column with {@link MoneyHandling#SCALE_FOR_MONEY} decimals, so the column
+     * keeps the same type and can still be updated by SQL arithmetic.
+     */
+    @Converter
+    public static class CentsConverter implements AttributeConverter<Long, BigDecimal> {
+        @Override
+        public BigDecimal convertToDatabaseColumn(Long amountInCents) {
+            return amountInCents == null ? null : BigDecimal.valueOf(amountInCents, MoneyHandling.SCALE_FOR_MONEY);
+        }
+
+        @Override
+        public Long convertToEntityAttribute(BigDecimal amount) {
+            return amount == null ? null : toCents(amount);
+        }
+    }
+
+    /**
+     * Serializes the amount as an object with its decimal value and its currency.
+     */
+    public static class Serializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator jsonGenerator, SerializerProvider serializerProvider)
+                throws IOException {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeNumberField(AMOUNT_FIELD, value.toBigDecimal());
+            jsonGenerator.writeStringField(CURRENCY_FIELD, value.currency().name());
+            jsonGenerator.writeEndObject();
+        }
+    }
+
+    /**
+     * Deserializes an object with a decimal amount and a currency. As for {@link MoneyHandling.Deserializer}, the
+     * amount is rounded half-up to cents.
+     */
+    public static class Deserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser jsonParser, DeserializationContext deserializationContext)
+                throws IOException {
+            final JsonNode node = jsonParser.readValueAsTree();
+            final var amount = node.get(AMOUNT_FIELD);
+            final var currency = node.get(CURRENCY_FIELD);
+            if (amount == null || !amount.isNumber() || currency == null || !currency.isTextual()) {
+                throw JsonMappingException.from(jsonParser, "An amount of money must have a numeric '"
+                        + AMOUNT_FIELD + "' and a textual '" + CURRENCY_FIELD + "'.");
+            }
+            try {
+                final var scaledAmount = amount.decimalValue()
+                        .setScale(MoneyHandling.SCALE_FOR_MONEY, RoundingMode.HALF_UP);
+                return Money.of(scaledAmount, Currency.valueOf(currency.textValue()));
+
+            } catch (IllegalArgumentException | ArithmeticException exception) {
+                throw JsonMappingException.from(jsonParser, "Invalid amount of money: " + node, exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.dnpn.fundtransfer.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producer threads and a single consumer thread.
+ * <p>
+ * The elements are stored in a ring of slots whose size is a power of two. Each slot has a sequence number telling
+ * whether it can be written by the producer claiming the position or read by the consumer: a producer claims a
+ * position with a single compare-and-set on the tail, writes its element, then publishes it by advancing the sequence
+ * of the slot. The consumer is the only one moving the head, so it does not need any compare-and-set. Neither side
+ * ever blocks: {@link #offer(Object)} returns false when the ring is full and {@link #poll()} returns null when
+ * it is empty.
+ *
+ * @param <E> the type of the elements.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Next position to read, only written by the consumer thread. It is only read by the other threads to estimate the
+     * size, so it is written with an ordered store rather than a full volatile write.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Creates an empty ring buffer.
+     *
+     * @param capacity the minimum capacity, rounded up to a power of two.
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("The capacity must be between 1 and 2^30 but was " + capacity + ".");
+        }
+        final var size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int index = 0; index < size; index++) {
+            sequences.set(index, index);
+        }
+    }
+
+    /**
+     * Gets the number of slots of the ring.
+     *
+     * @return the capacity, a power of two.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds an element at the tail of the queue. Can be called by any thread.
+     *
+     * @param element the element to add.
+     * @return false if the queue is full.
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("The element cannot be null.");
+        }
+        while (true) {
+            final var position = tail.get();
+            final var index = (int) position & mask;
+            final var difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // Publishes the element: the consumer reads the sequence before the element
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // The slot still holds the element written one lap earlier
+                return false;
+            }
+            // Otherwise another producer claimed the position first, try the next one
+        }
+    }
+
+    /**
+     * Removes the element at the head of the queue. Must only be called by the consumer thread.
+     *
+     * @return the element, or null if the queue is empty.
+     */
+    public E poll() {
+        final var position = head.get();
+        final var index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        final var element = elements.get(index);
+        elements.lazySet(index, null);
+        // Frees the slot for the producer claiming the same index on the next lap
+        sequences.set(index, position + mask + 1);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * Whether the queue is empty. Must only be called by the consumer thread.
+     *
+     * @return true if there is no element to poll.
+     */
+    public boolean isEmpty() {
+        final var position = head.get();
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    /**
+     * Gets an estimation of the number of elements, which may be outdated as soon as it is returned.
+     *
+     * @return the number of elements claimed by the producers and not polled yet.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head.get(), capacity()));
+    }
+}
@@ -0,0 +1,12 @@
+package io.dnpn.fundtransfer.common;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the execution of the {@link org.springframework.scheduling.annotation.Scheduled} methods.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
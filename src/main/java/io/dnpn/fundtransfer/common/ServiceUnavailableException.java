@@ -0,0 +1,35 @@
+package io.dnpn.fundtransfer.common;
+
+import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * {@link ResponseStatusException} for a 503 error telling the client, with the header {@value HttpHeaders#RETRY_AFTER},
+ * when to send its request again.
+ */
+public class ServiceUnavailableException extends ResponseStatusException {
+
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String reason, @NonNull Duration retryAfter, Throwable cause) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the headers of the response, with the delay before retrying rounded up to the second (at least one second).
+     *
+     * @return the headers of the response.
+     */
+    @Override
+    public HttpHeaders getResponseHeaders() {
+        final var retryAfterSeconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        final var headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,42 @@
+package io.dnpn.fundtransfer.currency;
+
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionService;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controller exposing the state of the exchange rates held in memory.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ExchangeRateController {
+
+    private final CurrencyConversionService conversionService;
+
+    /**
+     * Gets the freshness of the exchange rates held in memory.
+     *
+     * @return how old the exchange rate of each currency pair is, and whether it is stale.
+     */
+    @Operation(description = "Gets how old the exchange rates held in memory are.", responses =
+            {
+                    @ApiResponse(responseCode = "200", description = "The freshness of each currency pair, empty if " +
+                            "the exchange rates are not held in memory.",
+                            content = {@Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = ExchangeRateFreshness.class)))})
+            })
+    @GetMapping("/exchangeRates/freshness")
+    public ResponseEntity<List<ExchangeRateFreshness>> getFreshness() {
+        return ResponseEntity.ok(conversionService.getExchangeRateFreshness());
+    }
+}
@@ -1,8 +1,11 @@
 package io.dnpn.fundtransfer.currency.service;
 
+import io.dnpn.fundtransfer.currency.Currency;
 import lombok.NonNull;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service to convert currencies.
@@ -16,4 +19,40 @@ public interface CurrencyConversionService {
      * @return the converted amount.
      */
     BigDecimal convert(@NonNull CurrencyConversionRequest request) throws CurrencyConversionException;
+
+    /**
+     * Gets the exchange rate from one currency to another, so several amounts can be converted with a single lookup
+     * (converted amount = amount * rate).
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @return the exchange rate.
+     */
+    BigDecimal getExchangeRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency) throws CurrencyConversionException;
+
+    /**
+     * Converts an amount from one currency to another without blocking the calling thread while the conversion is in
+     * progress.
+     *
+     * @param request the conversion request.
+     * @return the converted amount, or a failure with a {@link CurrencyConversionException}.
+     */
+    CompletableFuture<BigDecimal> convertAsync(@NonNull CurrencyConversionRequest request);
+
+    /**
+     * Gets the exchange rate from one currency to another without blocking the calling thread while the lookup is in
+     * progress.
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @return the exchange rate, or a failure with a {@link CurrencyConversionException}.
+     */
+    CompletableFuture<BigDecimal> getExchangeRateAsync(@NonNull Currency fromCurrency, @NonNull Currency toCurrency);
+
+    /**
+     * Gets the freshness of the exchange rates held in memory, so the operators can see how old they are.
+     *
+     * @return the freshness of each currency pair, empty if no exchange rate is held in memory.
+     */
+    List<ExchangeRateFreshness> getExchangeRateFreshness();
 }
@@ -0,0 +1,27 @@
+package io.dnpn.fundtransfer.currency.service;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.Builder;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Freshness of the exchange rate of a currency pair held in memory by a {@link CurrencyConversionService}.
+ *
+ * @param fromCurrency source currency.
+ * @param toCurrency   target currency.
+ * @param refreshedAt  when the rate was last retrieved or confirmed, null if no rate is held.
+ * @param age          time elapsed since the rate was last retrieved or confirmed, null if no rate is held.
+ * @param stale        whether the rate is too old to be used without being retrieved again, or is missing.
+ */
+@Builder
+public record ExchangeRateFreshness(
+        @NonNull Currency fromCurrency,
+        @NonNull Currency toCurrency,
+        Instant refreshedAt,
+        Duration age,
+        boolean stale
+) {
+}
@@ -6,8 +6,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
 
 /**
  * Currency conversion properties (used in the file `application.properties`).
@@ -25,10 +28,67 @@ public class CurrencyConversionProperty {
      * Prefix of all properties related to the currency conversion via API.
      */
     private static final String API_PREFIX = PROPERTY_PREFIX + "api.";
+    /**
+     * Prefix of all properties related to the currency conversion via SQL.
+     */
+    private static final String SQL_PREFIX = PROPERTY_PREFIX + "sql.";
+    /**
+     * Prefix of all properties related to the circuit breaker protecting the currency conversion API.
+     */
+    private static final String API_CIRCUIT_BREAKER_PREFIX = API_PREFIX + "circuitBreaker.";
+    private static final String API_HEDGING_PREFIX = API_PREFIX + "hedging.";
+    private static final String API_QUOTA_PREFIX = API_PREFIX + "quota.";
+    private static final String API_SNAPSHOT_PREFIX = API_PREFIX + "snapshot.";
+    /**
+     * Prefix of all properties related to the tiered currency conversion.
+     */
+    private static final String TIERED_PREFIX = PROPERTY_PREFIX + "tiered.";
 
     public static final String MODE = PROPERTY_PREFIX + "mode";
     public static final String SQL_MODE = "sql";
     public static final String API_MODE = "api";
+    public static final String TIERED_MODE = "tiered";
+    /**
+     * Condition of the SQL implementation, which is also a tier of the tiered implementation.
+     */
+    public static final String SQL_TIER_CONDITION = "'${" + MODE + ":}' == '" + SQL_MODE + "' or '${" + MODE + ":}' == '"
+            + TIERED_MODE + "'";
+    /**
+     * Condition of the API implementation, which is also a tier of the tiered implementation.
+     */
+    public static final String API_TIER_CONDITION = "'${" + MODE + ":}' == '" + API_MODE + "' or '${" + MODE + ":}' == '"
+            + TIERED_MODE + "'";
+    /**
+     * Delay between two checks of the exchange rate versions, to refresh the cached exchange rates.
+     */
+    public static final String SQL_REFRESH_INTERVAL = SQL_PREFIX + "refreshIntervalMs";
+    public static final long DEFAULT_SQL_REFRESH_INTERVAL_MS = 1000;
+    /**
+     * Delay between two reports of the statistics of the exchange rates cached in the API mode.
+     */
+    public static final String API_RATE_CACHE_STATISTICS_INTERVAL = API_PREFIX + "rateCache.statisticsIntervalMs";
+    public static final long DEFAULT_API_RATE_CACHE_STATISTICS_INTERVAL_MS = 60_000;
+    /**
+     * Delay between two reports of the status of the quota of calls to the API.
+     */
+    public static final String API_QUOTA_STATUS_INTERVAL = API_QUOTA_PREFIX + "statusIntervalMs";
+    public static final long DEFAULT_API_QUOTA_STATUS_INTERVAL_MS = 60_000;
+    /**
+     * Delay between two writes of the snapshot of the exchange rates retrieved from the API, if they changed.
+     */
+    public static final String API_SNAPSHOT_FLUSH_INTERVAL = API_SNAPSHOT_PREFIX + "flushIntervalMs";
+    public static final long DEFAULT_API_SNAPSHOT_FLUSH_INTERVAL_MS = 10_000;
+    /**
+     * Delay between two reports of the statistics of the tiers in the tiered mode.
+     */
+    public static final String TIERED_STATISTICS_INTERVAL = TIERED_PREFIX + "statisticsIntervalMs";
+    public static final long DEFAULT_TIERED_STATISTICS_INTERVAL_MS = 60_000;
+    /**
+     * Delay between two refreshes from the API of the exchange rates to USD persisted in the database, in the tiered
+     * mode.
+     */
+    public static final String TIERED_REFRESH_INTERVAL = TIERED_PREFIX + "refreshIntervalMs";
+    public static final long DEFAULT_TIERED_REFRESH_INTERVAL_MS = 3_600_000;
 
     @VisibleForTesting
     static final String API_KEY = API_PREFIX + "key";
@@ -36,9 +96,75 @@ public class CurrencyConversionProperty {
     static final String API_BASE_URL = API_PREFIX + "baseUrl";
     @VisibleForTesting
     static final String API_REQUEST_TIMEOUT = API_PREFIX + "requestTimeoutMs";
+    @VisibleForTesting
+    static final String API_RATE_CACHE_TTL = API_PREFIX + "rateCache.ttlMs";
+    @VisibleForTesting
+    static final String API_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = API_CIRCUIT_BREAKER_PREFIX + "failureRateThreshold";
+    @VisibleForTesting
+    static final String API_CIRCUIT_BREAKER_WINDOW_SIZE = API_CIRCUIT_BREAKER_PREFIX + "windowSize";
+    @VisibleForTesting
+    static final String API_CIRCUIT_BREAKER_MINIMUM_CALLS = API_CIRCUIT_BREAKER_PREFIX + "minimumCalls";
+    @VisibleForTesting
+    static final String API_CIRCUIT_BREAKER_OPEN_DURATION = API_CIRCUIT_BREAKER_PREFIX + "openDurationMs";
+    @VisibleForTesting
+    static final String API_CIRCUIT_BREAKER_HALF_OPEN_PROBES = API_CIRCUIT_BREAKER_PREFIX + "halfOpenProbes";
+    @VisibleForTesting
+    static final String API_FALLBACK_MAX_STALENESS = API_PREFIX + "fallback.maxStalenessMs";
+    @VisibleForTesting
+    static final String API_HEDGING_DELAY_PERCENTILE = API_HEDGING_PREFIX + "delayPercentile";
+    @VisibleForTesting
+    static final String API_HEDGING_BUDGET_RATIO = API_HEDGING_PREFIX + "budgetRatio";
+    @VisibleForTesting
+    static final String API_QUOTA_BURST = API_QUOTA_PREFIX + "burst";
+    @VisibleForTesting
+    static final String API_QUOTA_MAX_WAIT = API_QUOTA_PREFIX + "maxWaitMs";
+    @VisibleForTesting
+    static final String API_SNAPSHOT_PATH = API_SNAPSHOT_PREFIX + "path";
+    @VisibleForTesting
+    static final String API_SNAPSHOT_MAX_AGE = API_SNAPSHOT_PREFIX + "maxAgeMs";
+    @VisibleForTesting
+    static final String API_PREFETCH_INTERVAL = API_PREFIX + "prefetch.intervalMs";
+    @VisibleForTesting
+    static final String TIERED_MEMORY_TTL = TIERED_PREFIX + "memoryTtlMs";
 
     @VisibleForTesting
     static final Duration DEFAULT_API_REQUEST_TIMEOUT = Duration.ofSeconds(1);
+    /**
+     * By default the exchange rates are not cached: every conversion calls the API.
+     */
+    @VisibleForTesting
+    static final Duration DEFAULT_API_RATE_CACHE_TTL = Duration.ZERO;
+    @VisibleForTesting
+    static final double DEFAULT_API_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = 0.5;
+    @VisibleForTesting
+    static final int DEFAULT_API_CIRCUIT_BREAKER_WINDOW_SIZE = 20;
+    @VisibleForTesting
+    static final int DEFAULT_API_CIRCUIT_BREAKER_MINIMUM_CALLS = 10;
+    @VisibleForTesting
+    static final Duration DEFAULT_API_CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofSeconds(10);
+    @VisibleForTesting
+    static final int DEFAULT_API_CIRCUIT_BREAKER_HALF_OPEN_PROBES = 3;
+    /**
+     * By default no last-known exchange rate is served when the API cannot be called.
+     */
+    @VisibleForTesting
+    static final Duration DEFAULT_API_FALLBACK_MAX_STALENESS = Duration.ZERO;
+    /**
+     * By default at most one call in ten is hedged.
+     */
+    @VisibleForTesting
+    static final double DEFAULT_API_HEDGING_BUDGET_RATIO = 0.1;
+    @VisibleForTesting
+    static final Duration DEFAULT_API_QUOTA_MAX_WAIT = Duration.ofSeconds(1);
+    @VisibleForTesting
+    static final Duration DEFAULT_API_SNAPSHOT_MAX_AGE = Duration.ofHours(1);
+    /**
+     * By default the exchange rates are only retrieved when a conversion needs them.
+     */
+    @VisibleForTesting
+    static final Duration DEFAULT_API_PREFETCH_INTERVAL = Duration.ZERO;
+    @VisibleForTesting
+    static final Duration DEFAULT_TIERED_MEMORY_TTL = Duration.ofMinutes(1);
 
     private final Environment environment;
 
@@ -66,12 +192,201 @@ public class CurrencyConversionProperty {
      * @return the timeout duration.
      */
     public Duration getApiRequestTimeout() {
-        final var propertyName = CurrencyConversionProperty.API_REQUEST_TIMEOUT;
-        final var timeoutAsString = environment.getProperty(propertyName);
-        return Optional.ofNullable(timeoutAsString)
+        return getDuration(CurrencyConversionProperty.API_REQUEST_TIMEOUT, DEFAULT_API_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Gets the time during which an exchange rate retrieved from the currency conversion API is reused. A zero
+     * duration disables the cache.
+     *
+     * @return the time to live of a cached exchange rate.
+     */
+    public Duration getApiRateCacheTtl() {
+        return getDuration(CurrencyConversionProperty.API_RATE_CACHE_TTL, DEFAULT_API_RATE_CACHE_TTL);
+    }
+
+    /**
+     * Gets the share of failed calls to the currency conversion API, among the last calls, above which the circuit
+     * breaker opens.
+     *
+     * @return the failure rate threshold, between 0 (excluded) and 1.
+     */
+    public double getApiCircuitBreakerFailureRateThreshold() {
+        final var propertyName = CurrencyConversionProperty.API_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD;
+        final var thresholdAsString = environment.getProperty(propertyName);
+        return Optional.ofNullable(thresholdAsString)
+                .map(value -> parseRatio(value, propertyName))
+                .orElse(DEFAULT_API_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD);
+    }
+
+    /**
+     * Gets the number of last calls to the currency conversion API used to compute the failure rate.
+     *
+     * @return the size of the sliding window.
+     */
+    public int getApiCircuitBreakerWindowSize() {
+        return getPositiveInt(CurrencyConversionProperty.API_CIRCUIT_BREAKER_WINDOW_SIZE,
+                DEFAULT_API_CIRCUIT_BREAKER_WINDOW_SIZE);
+    }
+
+    /**
+     * Gets the number of calls to the currency conversion API needed before the failure rate is evaluated.
+     *
+     * @return the minimum number of calls.
+     */
+    public int getApiCircuitBreakerMinimumCalls() {
+        return getPositiveInt(CurrencyConversionProperty.API_CIRCUIT_BREAKER_MINIMUM_CALLS,
+                DEFAULT_API_CIRCUIT_BREAKER_MINIMUM_CALLS);
+    }
+
+    /**
+     * Gets the time during which the open circuit breaker rejects the calls before letting probes through.
+     *
+     * @return the open duration.
+     */
+    public Duration getApiCircuitBreakerOpenDuration() {
+        return getDuration(CurrencyConversionProperty.API_CIRCUIT_BREAKER_OPEN_DURATION,
+                DEFAULT_API_CIRCUIT_BREAKER_OPEN_DURATION);
+    }
+
+    /**
+     * Gets the number of probe calls let through by the half-open circuit breaker. The breaker closes if all of them
+     * succeed.
+     *
+     * @return the number of probes.
+     */
+    public int getApiCircuitBreakerHalfOpenProbes() {
+        return getPositiveInt(CurrencyConversionProperty.API_CIRCUIT_BREAKER_HALF_OPEN_PROBES,
+                DEFAULT_API_CIRCUIT_BREAKER_HALF_OPEN_PROBES);
+    }
+
+    /**
+     * Gets the maximum age of the last-known exchange rate served when the currency conversion API cannot be called.
+     * A zero duration disables the fallback.
+     *
+     * @return the maximum staleness of the fallback rate.
+     */
+    public Duration getApiFallbackMaxStaleness() {
+        return getDuration(CurrencyConversionProperty.API_FALLBACK_MAX_STALENESS, DEFAULT_API_FALLBACK_MAX_STALENESS);
+    }
+
+    /**
+     * Gets the percentile of the latencies of the calls to the currency conversion API after which a call still in
+     * flight is hedged with a second identical call. Hedging is disabled when the property is not set.
+     *
+     * @return the percentile, between 0 (excluded) and 1, or empty if hedging is disabled.
+     */
+    public OptionalDouble getApiHedgingDelayPercentile() {
+        final var propertyName = CurrencyConversionProperty.API_HEDGING_DELAY_PERCENTILE;
+        final var percentileAsString = environment.getProperty(propertyName);
+        return percentileAsString == null
+                ? OptionalDouble.empty()
+                : OptionalDouble.of(parseRatio(percentileAsString, propertyName));
+    }
+
+    /**
+     * Gets the maximum number of hedged calls to the currency conversion API per call, so the hedges cannot multiply
+     * the load on a degraded provider.
+     *
+     * @return the budget ratio, between 0 (excluded) and 1.
+     */
+    public double getApiHedgingBudgetRatio() {
+        final var propertyName = CurrencyConversionProperty.API_HEDGING_BUDGET_RATIO;
+        final var ratioAsString = environment.getProperty(propertyName);
+        return Optional.ofNullable(ratioAsString)
+                .map(value -> parseRatio(value, propertyName))
+                .orElse(DEFAULT_API_HEDGING_BUDGET_RATIO);
+    }
+
+    /**
+     * Gets the maximum number of calls to the currency conversion API that can be made in a burst, i.e. the capacity
+     * of the token bucket spreading the remaining quota of calls over time. The quota is not enforced locally when the
+     * property is not set.
+     *
+     * @return the burst size, or empty if the quota is not enforced.
+     */
+    public OptionalInt getApiQuotaBurst() {
+        final var propertyName = CurrencyConversionProperty.API_QUOTA_BURST;
+        final var burstAsString = environment.getProperty(propertyName);
+        return burstAsString == null
+                ? OptionalInt.empty()
+                : OptionalInt.of(parsePositiveInt(burstAsString, propertyName));
+    }
+
+    /**
+     * Gets the maximum time a conversion waits for the quota of calls to the currency conversion API to allow its
+     * call, before failing.
+     *
+     * @return the maximum wait.
+     */
+    public Duration getApiQuotaMaxWait() {
+        return getDuration(CurrencyConversionProperty.API_QUOTA_MAX_WAIT, DEFAULT_API_QUOTA_MAX_WAIT);
+    }
+
+    /**
+     * Gets the path of the file where the exchange rates retrieved from the currency conversion API are saved, so they
+     * can be reloaded at startup. The rates are not saved when the property is not set.
+     *
+     * @return the path of the snapshot file, or empty if the snapshot is disabled.
+     */
+    public Optional<Path> getApiSnapshotPath() {
+        return Optional.ofNullable(environment.getProperty(CurrencyConversionProperty.API_SNAPSHOT_PATH))
+                .filter(path -> !path.isBlank())
+                .map(Path::of);
+    }
+
+    /**
+     * Gets the maximum age of an exchange rate of the snapshot to be reloaded at startup.
+     *
+     * @return the maximum age of a reloaded rate.
+     */
+    public Duration getApiSnapshotMaxAge() {
+        return getDuration(CurrencyConversionProperty.API_SNAPSHOT_MAX_AGE, DEFAULT_API_SNAPSHOT_MAX_AGE);
+    }
+
+    /**
+     * Gets the interval between two refreshes of the exchange rates of all the currency pairs by the prefetcher. A
+     * zero duration disables the prefetcher.
+     *
+     * @return the prefetch interval.
+     */
+    public Duration getApiPrefetchInterval() {
+        return getDuration(CurrencyConversionProperty.API_PREFETCH_INTERVAL, DEFAULT_API_PREFETCH_INTERVAL);
+    }
+
+    /**
+     * Gets the time during which an exchange rate is answered by the in-process tier of the tiered mode, before the
+     * slower tiers are looked up again.
+     *
+     * @return the time to live of an exchange rate in memory.
+     */
+    public Duration getTieredMemoryTtl() {
+        return getDuration(CurrencyConversionProperty.TIERED_MEMORY_TTL, DEFAULT_TIERED_MEMORY_TTL);
+    }
+
+    /**
+     * Gets the interval between two checks of the exchange rates persisted in the database.
+     *
+     * @return the refresh interval.
+     */
+    public Duration getSqlRefreshInterval() {
+        return getDuration(CurrencyConversionProperty.SQL_REFRESH_INTERVAL,
+                Duration.ofMillis(DEFAULT_SQL_REFRESH_INTERVAL_MS));
+    }
+
+    private Duration getDuration(String propertyName, Duration defaultValue) {
+        final var durationAsString = environment.getProperty(propertyName);
+        return Optional.ofNullable(durationAsString)
                 .map(value -> parseLong(value, propertyName))
                 .map(Duration::ofMillis)
-                .orElse(DEFAULT_API_REQUEST_TIMEOUT);
+                .orElse(defaultValue);
+    }
+
+    private int getPositiveInt(String propertyName, int defaultValue) {
+        final var valueAsString = environment.getProperty(propertyName);
+        return Optional.ofNullable(valueAsString)
+                .map(value -> parsePositiveInt(value, propertyName))
+                .orElse(defaultValue);
     }
 
     private long parseLong(String value, String propertyName) {
@@ -83,4 +398,32 @@ public class CurrencyConversionProperty {
             throw exception;
         }
     }
+
+    private int parsePositiveInt(String value, String propertyName) {
+        try {
+            final var parsedValue = Integer.parseInt(value);
+            if (parsedValue <= 0) {
+                throw new IllegalArgumentException("The value must be positive.");
+            }
+            return parsedValue;
+
+        } catch (RuntimeException exception) {
+            log.error("Invalid value for <{}>. Expected a positive integer but got <{}>.", propertyName, value);
+            throw exception;
+        }
+    }
+
+    private double parseRatio(String value, String propertyName) {
+        try {
+            final var parsedValue = Double.parseDouble(value);
+            if (!(parsedValue > 0 && parsedValue <= 1)) {
+                throw new IllegalArgumentException("The value must be in ]0, 1].");
+            }
+            return parsedValue;
+
+        } catch (RuntimeException exception) {
+            log.error("Invalid value for <{}>. Expected a number in ]0, 1] but got <{}>.", propertyName, value);
+            throw exception;
+        }
+    }
 }
@@ -0,0 +1,15 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+/**
+ * Priority of a call to the currency conversion API when the quota of calls is short (see {@link ApiQuotaManager}).
+ */
+enum ApiCallPriority {
+    /**
+     * A call made on behalf of a conversion, which fails if the call cannot be made.
+     */
+    CONVERSION,
+    /**
+     * A call that can be dropped without failing a conversion (prefetch, hedge).
+     */
+    BACKGROUND
+}
@@ -0,0 +1,169 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker protecting the currency conversion API, so a degraded provider makes the conversions fail fast
+ * instead of waiting for the request timeout.
+ * <ul>
+ *     <li>CLOSED: the calls are let through and their outcome is recorded in a sliding window of the last calls. The
+ *     breaker opens when the failure rate of the window reaches the threshold, once the minimum number of calls is
+ *     recorded.</li>
+ *     <li>OPEN: the calls are rejected until the open duration has elapsed, then the breaker becomes half-open.</li>
+ *     <li>HALF_OPEN: a limited number of probe calls are let through. The breaker closes if all of them succeed and
+ *     opens again as soon as one fails.</li>
+ * </ul>
+ * Only the failures of the provider are counted (errors 5xx and 429, timeouts, connection failures): an error 4xx
+ * caused by the request does not say anything about the health of the provider.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(ApiCurrencyConversionService.class)
+class ApiCircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final Clock clock;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+
+    /**
+     * Outcomes of the last calls in a ring buffer, true for a failure.
+     */
+    private final boolean[] outcomes;
+    private int recordedCalls;
+    private int nextOutcomeIndex;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private Instant openedAt;
+    private int startedProbes;
+    private int succeededProbes;
+
+    ApiCircuitBreaker(CurrencyConversionProperty currencyConversionProperty, Clock clock) {
+        this.clock = clock;
+        this.failureRateThreshold = currencyConversionProperty.getApiCircuitBreakerFailureRateThreshold();
+        this.minimumCalls = currencyConversionProperty.getApiCircuitBreakerMinimumCalls();
+        this.openDuration = currencyConversionProperty.getApiCircuitBreakerOpenDuration();
+        this.halfOpenProbes = currencyConversionProperty.getApiCircuitBreakerHalfOpenProbes();
+        this.outcomes = new boolean[currencyConversionProperty.getApiCircuitBreakerWindowSize()];
+    }
+
+    /**
+     * Asks for the permission to call the API. Every permitted call must be followed by a call to
+     * {@link #onSuccess()} or {@link #onFailure(Throwable)}.
+     *
+     * @return true if the call is permitted, false if it must be rejected.
+     */
+    synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (startedProbes >= halfOpenProbes) {
+                    yield false;
+                }
+                startedProbes++;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Records a successful call.
+     */
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            succeededProbes++;
+            if (succeededProbes >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            recordOutcome(false);
+        }
+    }
+
+    /**
+     * Records a failed call. The failures not caused by the provider are recorded as successes.
+     *
+     * @param failure the failure of the call.
+     */
+    synchronized void onFailure(@NonNull Throwable failure) {
+        if (!isProviderFailure(failure)) {
+            onSuccess();
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            recordOutcome(true);
+            if (recordedCalls >= minimumCalls && (double) failedCalls / recordedCalls >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void recordOutcome(boolean failed) {
+        if (recordedCalls == outcomes.length) {
+            if (outcomes[nextOutcomeIndex]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextOutcomeIndex] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        nextOutcomeIndex = (nextOutcomeIndex + 1) % outcomes.length;
+    }
+
+    private void transitionTo(State newState) {
+        log.warn("Currency conversion API circuit breaker: {} -> {} (failed calls: {}/{})", state, newState,
+                failedCalls, recordedCalls);
+        state = newState;
+        switch (newState) {
+            case OPEN -> openedAt = clock.instant();
+            case HALF_OPEN -> {
+                startedProbes = 0;
+                succeededProbes = 0;
+            }
+            case CLOSED -> {
+                recordedCalls = 0;
+                nextOutcomeIndex = 0;
+                failedCalls = 0;
+            }
+        }
+    }
+
+    private boolean isProviderFailure(Throwable failure) {
+        if (failure instanceof WebClientResponseException responseException) {
+            final var statusCode = responseException.getStatusCode();
+            return statusCode.is5xxServerError() || statusCode == HttpStatus.TOO_MANY_REQUESTS;
+        }
+        return true;
+    }
+}
@@ -1,30 +1,50 @@
 package io.dnpn.fundtransfer.currency.service.impl.api;
 
+import io.dnpn.fundtransfer.currency.Currency;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionRequest;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionService;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
 import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Implementation of {@link CurrencyConversionService} using the `exchangerates` API (see https://exchangeratesapi.io/).
+ * <p>
+ * If the {@link ApiExchangeRateCache} is enabled, the API is only called to retrieve the exchange rate of a currency
+ * pair, which is then reused to convert the amounts locally until it expires. Otherwise each conversion calls the API.
+ * <p>
+ * The calls are protected by the {@link ApiCircuitBreaker}. When the exchange rate of a pair cannot be retrieved
+ * (provider failure or open circuit breaker), the {@link LastKnownExchangeRates} can serve the last rate retrieved
+ * for this pair if it is recent enough.
+ * <p>
+ * If the {@link ApiExchangeRatePrefetcher} is enabled, the cached rates of all the pairs are refreshed in the
+ * background, so the conversions do not call the API themselves.
+ * <p>
+ * If the {@link ApiRequestHedger} is enabled, a call still in flight after the usual latency of the API is hedged with
+ * a second identical call.
+ * <p>
+ * If the {@link ApiQuotaManager} is enabled, the calls are spread over time so the quota of calls of the API is not
+ * exhausted before it is reset: the conversions may be queued, and the calls made in the background are dropped first.
  */
 @Slf4j
 @Service
-@ConditionalOnProperty(
-        name = CurrencyConversionProperty.MODE,
-        havingValue = CurrencyConversionProperty.API_MODE
-)
+@ConditionalOnExpression(CurrencyConversionProperty.API_TIER_CONDITION)
 public class ApiCurrencyConversionService implements CurrencyConversionService {
 
     private static final String API_KEY_HEADER = "apiKey";
@@ -37,10 +57,30 @@ public class ApiCurrencyConversionService implements CurrencyConversionService {
 
     private final WebClient webClient;
     private final Duration requestTimeout;
+    /**
+     * The conversions queued by the {@link ApiQuotaManager} wait for their call longer than the request timeout.
+     */
+    private final Duration waiterTimeout;
     private final ApiCurrencyConversionErrorHandler errorHandler;
+    private final ApiExchangeRateCache rateCache;
+    private final ExchangeRateRequestCoalescer requestCoalescer;
+    private final ApiCircuitBreaker circuitBreaker;
+    private final LastKnownExchangeRates lastKnownRates;
+    private final ApiRateLimitStatus rateLimitStatus;
+    private final ApiRequestHedger requestHedger;
+    private final ApiQuotaManager quotaManager;
+    private final ApiExchangeRateSnapshot rateSnapshot;
 
     public ApiCurrencyConversionService(CurrencyConversionProperty currencyConversionProperty,
-                                        ApiCurrencyConversionErrorHandler errorHandler) {
+                                        ApiCurrencyConversionErrorHandler errorHandler,
+                                        ApiExchangeRateCache rateCache,
+                                        ExchangeRateRequestCoalescer requestCoalescer,
+                                        ApiCircuitBreaker circuitBreaker,
+                                        LastKnownExchangeRates lastKnownRates,
+                                        ApiRateLimitStatus rateLimitStatus,
+                                        ApiRequestHedger requestHedger,
+                                        ApiQuotaManager quotaManager,
+                                        ApiExchangeRateSnapshot rateSnapshot) {
         final var apiKey = currencyConversionProperty.getApiKey();
         final var baseUrl = currencyConversionProperty.getApiBaseUrl();
         this.webClient = WebClient.builder()
@@ -49,27 +89,223 @@ public class ApiCurrencyConversionService implements CurrencyConversionService {
                 .build();
 
         this.errorHandler = errorHandler;
+        this.rateCache = rateCache;
+        this.requestCoalescer = requestCoalescer;
+        this.circuitBreaker = circuitBreaker;
+        this.lastKnownRates = lastKnownRates;
+        this.rateLimitStatus = rateLimitStatus;
+        this.requestHedger = requestHedger;
+        this.quotaManager = quotaManager;
+        this.rateSnapshot = rateSnapshot;
         this.requestTimeout = currencyConversionProperty.getApiRequestTimeout();
+        this.waiterTimeout = requestTimeout.plus(quotaManager.getMaxWait());
     }
 
     @Override
     public BigDecimal convert(@NonNull CurrencyConversionRequest request) throws CurrencyConversionException {
+        if (!rateCache.isEnabled()) {
+            return convertWithApi(request);
+        }
+        final var exchangeRate = getExchangeRate(request.fromCurrency(), request.toCurrency());
+        final var convertedAmount = request.amount().multiply(exchangeRate);
+
+        log.debug("{} {} = {} {} (cached exchange rate: {})",
+                request.amount(), request.fromCurrency(),
+                convertedAmount, request.toCurrency(),
+                exchangeRate);
+        return convertedAmount;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The API does not expose the rate on its own, so it is retrieved by converting a unit amount. The concurrent
+     * lookups of the same currency pair share a single API call (see {@link ExchangeRateRequestCoalescer}).
+     */
+    @Override
+    public BigDecimal getExchangeRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency) throws CurrencyConversionException {
+        if (fromCurrency == toCurrency) {
+            return BigDecimal.ONE;
+        }
+        try {
+            if (!rateCache.isEnabled()) {
+                return fetchExchangeRate(fromCurrency, toCurrency);
+            }
+            return rateCache.getRate(fromCurrency, toCurrency, () -> fetchExchangeRate(fromCurrency, toCurrency));
+
+        } catch (CurrencyConversionException exception) {
+            return findLastKnownRate(fromCurrency, toCurrency, exception)
+                    .orElseThrow(() -> exception);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * No thread is blocked while the API call is in flight.
+     */
+    @Override
+    public CompletableFuture<BigDecimal> convertAsync(@NonNull CurrencyConversionRequest request) {
+        if (!rateCache.isEnabled()) {
+            return convertWithApiAsync(request, ApiCallPriority.CONVERSION)
+                    .toFuture()
+                    .exceptionallyCompose(failure -> CompletableFuture.failedFuture(wrapFailure(request, failure)));
+        }
+        return getExchangeRateAsync(request.fromCurrency(), request.toCurrency())
+                .thenApply(exchangeRate -> request.amount().multiply(exchangeRate));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * No thread is blocked while the API call is in flight.
+     */
+    @Override
+    public CompletableFuture<BigDecimal> getExchangeRateAsync(@NonNull Currency fromCurrency,
+                                                              @NonNull Currency toCurrency) {
+        if (fromCurrency == toCurrency) {
+            return CompletableFuture.completedFuture(BigDecimal.ONE);
+        }
+        final var exchangeRate = rateCache.isEnabled()
+                ? rateCache.getRateAsync(fromCurrency, toCurrency,
+                () -> fetchExchangeRateAsync(fromCurrency, toCurrency, ApiCallPriority.CONVERSION))
+                : fetchExchangeRateAsync(fromCurrency, toCurrency, ApiCallPriority.CONVERSION);
+        return exchangeRate.exceptionallyCompose(failure -> findLastKnownRate(fromCurrency, toCurrency, failure)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> CompletableFuture.failedFuture(failure)));
+    }
+
+    /**
+     * Finds the last-known exchange rate of the pair, to be served instead of failing.
+     */
+    private Optional<BigDecimal> findLastKnownRate(Currency fromCurrency, Currency toCurrency, Throwable failure) {
+        final var lastKnownRate = lastKnownRates.find(new CurrencyPair(fromCurrency, toCurrency));
+        lastKnownRate.ifPresent(rate -> log.warn("Failed to retrieve the exchange rate from {} to {} ({}), the " +
+                "last-known rate {} is used instead.", fromCurrency, toCurrency, failure.getMessage(), rate));
+        return lastKnownRate;
+    }
+
+    private BigDecimal fetchExchangeRate(Currency fromCurrency, Currency toCurrency) throws CurrencyConversionException {
+        final var pair = new CurrencyPair(fromCurrency, toCurrency);
+        final var request = buildUnitRequest(fromCurrency, toCurrency);
+        try {
+            return requestCoalescer.getRate(pair,
+                    () -> fetchExchangeRateWithApi(pair, request, ApiCallPriority.CONVERSION), waiterTimeout);
+
+        } catch (RuntimeException exception) {
+            throw errorHandler.handleAndWrap(request, exception);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rates are only held in memory when the {@link ApiExchangeRateCache} is enabled.
+     */
+    @Override
+    public List<ExchangeRateFreshness> getExchangeRateFreshness() {
+        return rateCache.getFreshness();
+    }
+
+    /**
+     * Retrieves the exchange rate of the pair from the API without looking up the cache, so it can be refreshed in the
+     * background (see {@link ApiExchangeRatePrefetcher}).
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @param priority     the priority of the call to the API.
+     * @return the exchange rate, or a failure with a {@link CurrencyConversionException}.
+     */
+    CompletableFuture<BigDecimal> fetchExchangeRateAsync(Currency fromCurrency, Currency toCurrency,
+                                                         ApiCallPriority priority) {
+        final var pair = new CurrencyPair(fromCurrency, toCurrency);
+        final var request = buildUnitRequest(fromCurrency, toCurrency);
+        return requestCoalescer.getRateAsync(pair, () -> fetchExchangeRateWithApi(pair, request, priority),
+                        waiterTimeout)
+                .exceptionallyCompose(failure -> CompletableFuture.failedFuture(wrapFailure(request, failure)));
+    }
+
+    private Mono<BigDecimal> fetchExchangeRateWithApi(CurrencyPair pair, CurrencyConversionRequest unitRequest,
+                                                      ApiCallPriority priority) {
+        return convertWithApiAsync(unitRequest, priority)
+                .doOnNext(rate -> {
+                    lastKnownRates.record(pair, rate);
+                    rateSnapshot.record(pair, rate);
+                });
+    }
+
+    private CurrencyConversionRequest buildUnitRequest(Currency fromCurrency, Currency toCurrency) {
+        return CurrencyConversionRequest.builder()
+                .fromCurrency(fromCurrency)
+                .toCurrency(toCurrency)
+                .amount(BigDecimal.ONE)
+                .build();
+    }
+
+    /**
+     * Calls the API without blocking, once the quota manager allows it and unless the circuit breaker rejects the
+     * call. Unlike {@link #convertWithApi(CurrencyConversionRequest)} the failures are not wrapped, so the caller
+     * decides when to wrap them.
+     */
+    private Mono<BigDecimal> convertWithApiAsync(CurrencyConversionRequest request, ApiCallPriority priority) {
+        return Mono.defer(() -> {
+            final var quotaDelay = quotaManager.tryAcquire(priority);
+            if (quotaDelay.isEmpty()) {
+                return Mono.error(new ApiQuotaExceededException("The quota of calls to the currency conversion API " +
+                        "is running out, the call has been rejected."));
+            }
+            if (quotaDelay.get().isZero()) {
+                return callWithCircuitBreaker(request);
+            }
+            log.debug("The call to the currency conversion API is delayed by {} ms to save the quota.",
+                    quotaDelay.get().toMillis());
+            return Mono.delay(quotaDelay.get())
+                    .then(callWithCircuitBreaker(request));
+        });
+    }
+
+    private Mono<BigDecimal> callWithCircuitBreaker(CurrencyConversionRequest request) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return Mono.error(new CircuitBreakerOpenException("The currency conversion API is unavailable, the " +
+                        "call has been rejected by the circuit breaker."));
+            }
+            return requestHedger.hedge(() -> callCurrencyConversionApi(request),
+                            () -> quotaManager.tryAcquire(ApiCallPriority.BACKGROUND).isPresent())
+                    .timeout(requestTimeout)
+                    .map(response -> handleResponse(request, response))
+                    .doOnSuccess(convertedAmount -> circuitBreaker.onSuccess())
+                    .doOnError(circuitBreaker::onFailure)
+                    .doOnError(quotaManager::onFailure);
+        });
+    }
+
+    private CurrencyConversionException wrapFailure(CurrencyConversionRequest request, Throwable failure) {
+        final var cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause instanceof CurrencyConversionException currencyConversionException) {
+            return currencyConversionException;
+        }
+        final var runtimeException = cause instanceof RuntimeException exception
+                ? exception
+                : new IllegalStateException(cause.getMessage(), cause);
+        return errorHandler.handleAndWrap(request, runtimeException);
+    }
+
+    private BigDecimal convertWithApi(CurrencyConversionRequest request) throws CurrencyConversionException {
         try {
-            final var response = callCurrencyConversionApi(request);
-            return handleResponse(request, response);
+            return convertWithApiAsync(request, ApiCallPriority.CONVERSION).block();
 
         } catch (RuntimeException exception) {
             throw errorHandler.handleAndWrap(request, exception);
         }
     }
 
-    private ResponseEntity<ApiCurrencyConversionSuccessResponse> callCurrencyConversionApi(CurrencyConversionRequest request) {
+    private Mono<ResponseEntity<ApiCurrencyConversionSuccessResponse>> callCurrencyConversionApi(CurrencyConversionRequest request) {
         final var queryParams = getQueryParam(request);
         return this.webClient.get()
                 .uri(builder -> builder.queryParams(queryParams).build())
                 .retrieve()
-                .toEntity(ApiCurrencyConversionSuccessResponse.class)
-                .block(requestTimeout);
+                .toEntity(ApiCurrencyConversionSuccessResponse.class);
     }
 
     private MultiValueMap<String, String> getQueryParam(CurrencyConversionRequest request) {
@@ -81,7 +317,7 @@ public class ApiCurrencyConversionService implements CurrencyConversionService {
     }
 
     private BigDecimal handleResponse(CurrencyConversionRequest request, ResponseEntity<ApiCurrencyConversionSuccessResponse> response) {
-        logRemainingApiCalls(response);
+        recordRemainingApiCalls(response);
 
         final var convertedAmount = response.getBody().result();
 
@@ -92,9 +328,12 @@ public class ApiCurrencyConversionService implements CurrencyConversionService {
         return convertedAmount;
     }
 
-    private void logRemainingApiCalls(ResponseEntity<ApiCurrencyConversionSuccessResponse> response) {
+    private void recordRemainingApiCalls(ResponseEntity<ApiCurrencyConversionSuccessResponse> response) {
+        final var remainingMonthlyCalls = response.getHeaders().getFirst(REMAINING_MONTHLY_CALLS_HEADER);
+        final var remainingDailyCalls = response.getHeaders().getFirst(REMAINING_DAILY_CALLS_HEADER);
+        rateLimitStatus.record(remainingDailyCalls, remainingMonthlyCalls);
+
         log.info("Currency conversion API remaining calls: [this month: {}; today: {}]",
-                response.getHeaders().getFirst(REMAINING_MONTHLY_CALLS_HEADER),
-                response.getHeaders().getFirst(REMAINING_DAILY_CALLS_HEADER));
+                remainingMonthlyCalls, remainingDailyCalls);
     }
 }
@@ -0,0 +1,222 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the exchange rates retrieved from the currency conversion API, per currency pair.
+ * <p>
+ * A cached rate is reused during {@link CurrencyConversionProperty#getApiRateCacheTtl()}, so the API is called once
+ * per pair and per time to live instead of once per conversion. The hits, misses and stale lookups are counted per
+ * pair and reported periodically (see {@link CurrencyConversionProperty#API_RATE_CACHE_STATISTICS_INTERVAL}).
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(ApiCurrencyConversionService.class)
+class ApiExchangeRateCache {
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<CurrencyPair, CachedRate> cachedRates = new ConcurrentHashMap<>();
+    private final Map<CurrencyPair, PairCounters> counters = new ConcurrentHashMap<>();
+
+    ApiExchangeRateCache(CurrencyConversionProperty currencyConversionProperty, Clock clock) {
+        this.ttl = currencyConversionProperty.getApiRateCacheTtl();
+        this.clock = clock;
+    }
+
+    /**
+     * Whether the exchange rates are cached. If not, every conversion is expected to call the API.
+     *
+     * @return true if the time to live of the cached rates is positive.
+     */
+    boolean isEnabled() {
+        return ttl.compareTo(Duration.ZERO) > 0;
+    }
+
+    /**
+     * Gets the cached exchange rate of the pair, or loads it if no fresh rate is cached.
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @param loader       the loader retrieving the rate from the API.
+     * @return the exchange rate.
+     * @throws CurrencyConversionException if no fresh rate is cached and the loader fails.
+     */
+    BigDecimal getRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency,
+                       @NonNull ExchangeRateLoader loader) throws CurrencyConversionException {
+        final var pair = new CurrencyPair(fromCurrency, toCurrency);
+        final var cachedRate = lookUp(pair);
+        if (cachedRate != null) {
+            return cachedRate;
+        }
+        final var rate = loader.load();
+        store(pair, rate);
+        return rate;
+    }
+
+    /**
+     * Gets the cached exchange rate of the pair, or loads it asynchronously if no fresh rate is cached.
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @param loader       the loader starting the retrieval of the rate from the API.
+     * @return the exchange rate, or the failure of the loader if no fresh rate is cached.
+     */
+    CompletableFuture<BigDecimal> getRateAsync(@NonNull Currency fromCurrency, @NonNull Currency toCurrency,
+                                               @NonNull Supplier<CompletableFuture<BigDecimal>> loader) {
+        final var pair = new CurrencyPair(fromCurrency, toCurrency);
+        final var cachedRate = lookUp(pair);
+        if (cachedRate != null) {
+            return CompletableFuture.completedFuture(cachedRate);
+        }
+        return loader.get()
+                .thenApply(rate -> {
+                    store(pair, rate);
+                    return rate;
+                });
+    }
+
+    /**
+     * Stores a rate retrieved in the background, so the next lookups of the pair find it fresh.
+     *
+     * @param pair the currency pair.
+     * @param rate the exchange rate.
+     */
+    void put(@NonNull CurrencyPair pair, @NonNull BigDecimal rate) {
+        store(pair, rate);
+    }
+
+    /**
+     * Stores a rate retrieved earlier, e.g. reloaded from the {@link ApiExchangeRateSnapshot}, so it expires when it
+     * would have expired if it had been cached when it was retrieved.
+     *
+     * @param pair      the currency pair.
+     * @param rate      the exchange rate.
+     * @param fetchedAt the time the rate was retrieved from the API.
+     */
+    void put(@NonNull CurrencyPair pair, @NonNull BigDecimal rate, @NonNull Instant fetchedAt) {
+        cachedRates.put(pair, new CachedRate(rate, fetchedAt));
+    }
+
+    /**
+     * Gets the freshness of the cached rate of every pair of different currencies.
+     *
+     * @return the freshness of each currency pair, empty if the cache is disabled.
+     */
+    List<ExchangeRateFreshness> getFreshness() {
+        if (!isEnabled()) {
+            return List.of();
+        }
+        final var now = clock.instant();
+        final var freshness = new ArrayList<ExchangeRateFreshness>();
+        for (var pair : CurrencyPair.allPairs()) {
+            final var cachedRate = cachedRates.get(pair);
+            freshness.add(ExchangeRateFreshness.builder()
+                    .fromCurrency(pair.fromCurrency())
+                    .toCurrency(pair.toCurrency())
+                    .refreshedAt(cachedRate == null ? null : cachedRate.fetchedAt())
+                    .age(cachedRate == null ? null : Duration.between(cachedRate.fetchedAt(), now))
+                    .stale(cachedRate == null || isExpired(cachedRate))
+                    .build());
+        }
+        return freshness;
+    }
+
+    /**
+     * Gets the statistics of every currency pair looked up so far.
+     *
+     * @return the statistics by currency pair.
+     */
+    Map<CurrencyPair, ExchangeRateCacheStatistics> getStatistics() {
+        final var now = clock.instant();
+        final var statistics = new TreeMap<CurrencyPair, ExchangeRateCacheStatistics>(
+                Comparator.comparing(CurrencyPair::fromCurrency).thenComparing(CurrencyPair::toCurrency));
+        counters.forEach((pair, pairCounters) -> {
+            final var cachedRate = cachedRates.get(pair);
+            statistics.put(pair, ExchangeRateCacheStatistics.builder()
+                    .hits(pairCounters.hits.sum())
+                    .misses(pairCounters.misses.sum())
+                    .staleLookups(pairCounters.staleLookups.sum())
+                    .cachedRateAge(cachedRate == null ? null : Duration.between(cachedRate.fetchedAt(), now))
+                    .build());
+        });
+        return statistics;
+    }
+
+    @Scheduled(fixedDelayString = "${" + CurrencyConversionProperty.API_RATE_CACHE_STATISTICS_INTERVAL + ":"
+            + CurrencyConversionProperty.DEFAULT_API_RATE_CACHE_STATISTICS_INTERVAL_MS + "}")
+    void logStatistics() {
+        if (isEnabled() && !counters.isEmpty()) {
+            log.info("Exchange rate cache statistics (ttl: {}): {}", ttl, getStatistics());
+        }
+    }
+
+    /**
+     * Looks up the cached rate of the pair and counts the lookup in the statistics of the pair.
+     *
+     * @return the cached rate, null if no fresh rate is cached.
+     */
+    private BigDecimal lookUp(CurrencyPair pair) {
+        final var pairCounters = counters.computeIfAbsent(pair, key -> new PairCounters());
+        final var cachedRate = cachedRates.get(pair);
+
+        if (cachedRate != null && !isExpired(cachedRate)) {
+            pairCounters.hits.increment();
+            return cachedRate.rate();
+        }
+
+        if (cachedRate == null) {
+            pairCounters.misses.increment();
+        } else {
+            pairCounters.staleLookups.increment();
+        }
+        return null;
+    }
+
+    private void store(CurrencyPair pair, BigDecimal rate) {
+        cachedRates.put(pair, new CachedRate(rate, clock.instant()));
+    }
+
+    private boolean isExpired(CachedRate cachedRate) {
+        return !clock.instant().isBefore(cachedRate.fetchedAt().plus(ttl));
+    }
+
+    /**
+     * Retrieves an exchange rate which is not cached.
+     */
+    @FunctionalInterface
+    interface ExchangeRateLoader {
+        BigDecimal load() throws CurrencyConversionException;
+    }
+
+    private record CachedRate(BigDecimal rate, Instant fetchedAt) {
+    }
+
+    private static class PairCounters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder staleLookups = new LongAdder();
+    }
+}
@@ -0,0 +1,167 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.common.annotation.VisibleForTesting;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Refreshes in the background the cached exchange rates of all the currency pairs, so the conversions find them in the
+ * {@link ApiExchangeRateCache} instead of calling the API.
+ * <p>
+ * The rates are refreshed every {@link CurrencyConversionProperty#getApiPrefetchInterval()}, or less often when the
+ * remaining calls reported by the API (see {@link ApiRateLimitStatus}) would not last until the end of the day or of
+ * the month at this pace: the prefetcher only spends half of the remaining calls, the other half is left to the
+ * conversions. When not even a refresh can be afforded, the refresh is skipped.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(ApiCurrencyConversionService.class)
+class ApiExchangeRatePrefetcher {
+
+    /**
+     * Delay between two checks of whether a refresh is due.
+     */
+    @VisibleForTesting
+    static final long CHECK_INTERVAL_MS = 1000;
+    /**
+     * The prefetcher spends at most 1 / QUOTA_SHARE of the remaining calls.
+     */
+    private static final int QUOTA_SHARE = 2;
+
+    private final ApiCurrencyConversionService conversionService;
+    private final ApiExchangeRateCache rateCache;
+    private final ApiRateLimitStatus rateLimitStatus;
+    private final Clock clock;
+    private final Duration interval;
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean();
+    private volatile Instant nextRefreshAt;
+
+    ApiExchangeRatePrefetcher(ApiCurrencyConversionService conversionService, ApiExchangeRateCache rateCache,
+                              ApiRateLimitStatus rateLimitStatus, CurrencyConversionProperty currencyConversionProperty,
+                              Clock clock) {
+        this.conversionService = conversionService;
+        this.rateCache = rateCache;
+        this.rateLimitStatus = rateLimitStatus;
+        this.clock = clock;
+        this.interval = currencyConversionProperty.getApiPrefetchInterval();
+
+        if (isEnabled() && currencyConversionProperty.getApiRateCacheTtl().compareTo(interval) <= 0) {
+            log.warn("The exchange rates are prefetched every {} but cached for {} only, the conversions will call " +
+                    "the API between two refreshes.", interval, currencyConversionProperty.getApiRateCacheTtl());
+        }
+    }
+
+    /**
+     * Whether the exchange rates are prefetched. The prefetched rates are stored in the {@link ApiExchangeRateCache},
+     * so it must be enabled too.
+     *
+     * @return true if the prefetch interval is positive and the cache is enabled.
+     */
+    boolean isEnabled() {
+        return interval.compareTo(Duration.ZERO) > 0 && rateCache.isEnabled();
+    }
+
+    /**
+     * Refreshes the exchange rates if the refresh is due and the previous refresh is over. The first check is done at
+     * startup, so the rates are available before the first conversion.
+     */
+    @Scheduled(fixedDelay = CHECK_INTERVAL_MS)
+    void refreshIfDue() {
+        if (!isEnabled()) {
+            return;
+        }
+        final var now = clock.instant();
+        if (nextRefreshAt != null && now.isBefore(nextRefreshAt)) {
+            return;
+        }
+        if (!refreshInProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        final var pairs = CurrencyPair.allPairs();
+        final var refreshInterval = calculateRefreshInterval(now, pairs.size());
+        nextRefreshAt = now.plus(refreshInterval.orElse(interval));
+        if (refreshInterval.isEmpty()) {
+            log.warn("Not enough remaining calls to the currency conversion API to refresh the {} exchange rates " +
+                    "[this month: {}; today: {}], the refresh is skipped.", pairs.size(),
+                    rateLimitStatus.getRemainingMonthlyCalls(), rateLimitStatus.getRemainingDailyCalls());
+            refreshInProgress.set(false);
+            return;
+        }
+
+        final var failures = new AtomicInteger();
+        final var refreshes = pairs.stream()
+                .map(pair -> conversionService.fetchExchangeRateAsync(pair.fromCurrency(), pair.toCurrency(),
+                                ApiCallPriority.BACKGROUND)
+                        .thenAccept(rate -> rateCache.put(pair, rate))
+                        .exceptionally(failure -> {
+                            failures.incrementAndGet();
+                            log.warn("Failed to prefetch the exchange rate of {}: {}", pair, failure.getMessage());
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(refreshes).whenComplete((result, failure) -> {
+            refreshInProgress.set(false);
+            log.debug("{} exchange rates prefetched ({} failed), next refresh at {}.", pairs.size() - failures.get(),
+                    failures.get(), nextRefreshAt);
+        });
+    }
+
+    /**
+     * Calculates the interval until the next refresh, so the refreshes spend at most their share of the remaining
+     * calls of the day and of the month. The day and the month are assumed to reset at midnight UTC.
+     *
+     * @param now             the current time.
+     * @param callsPerRefresh the number of API calls made by a refresh.
+     * @return the interval, empty if the remaining calls do not allow a single refresh.
+     */
+    Optional<Duration> calculateRefreshInterval(Instant now, int callsPerRefresh) {
+        final var today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        final var endOfDay = today.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        final var endOfMonth = today.withDayOfMonth(1).plusMonths(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+
+        final var dailyInterval = calculateMinimumInterval(rateLimitStatus.getRemainingDailyCalls(),
+                Duration.between(now, endOfDay), callsPerRefresh);
+        final var monthlyInterval = calculateMinimumInterval(rateLimitStatus.getRemainingMonthlyCalls(),
+                Duration.between(now, endOfMonth), callsPerRefresh);
+        if (dailyInterval.isEmpty() || monthlyInterval.isEmpty()) {
+            return Optional.empty();
+        }
+        return Stream.of(interval, dailyInterval.get(), monthlyInterval.get())
+                .max(Comparator.naturalOrder());
+    }
+
+    /**
+     * Calculates the minimum interval between two refreshes so the affordable calls last until the reset.
+     *
+     * @return the interval (zero if the remaining calls are unknown), empty if not even a refresh is affordable.
+     */
+    private Optional<Duration> calculateMinimumInterval(OptionalLong remainingCalls, Duration untilReset,
+                                                        int callsPerRefresh) {
+        if (remainingCalls.isEmpty()) {
+            return Optional.of(Duration.ZERO);
+        }
+        final var affordableRefreshes = remainingCalls.getAsLong() / QUOTA_SHARE / callsPerRefresh;
+        if (affordableRefreshes == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(untilReset.dividedBy(affordableRefreshes));
+    }
+}
@@ -0,0 +1,189 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Snapshot of the last exchange rate retrieved from the currency conversion API for each currency pair, saved to a
+ * local file (see {@link CurrencyConversionProperty#getApiSnapshotPath()}) so a restarted application does not start
+ * with nothing cached and call the API for every pair at once.
+ * <p>
+ * The rates are written to the file periodically when they changed, and when the application stops. The file is
+ * rewritten as a whole, to a temporary file first then moved over the previous one, so a crash cannot leave a
+ * truncated snapshot. At startup, before the application is ready, the rates of the snapshot retrieved less than
+ * {@link CurrencyConversionProperty#getApiSnapshotMaxAge()} ago are loaded into the {@link ApiExchangeRateCache} and the
+ * {@link LastKnownExchangeRates}, with their retrieval time so they expire as if the application had not restarted.
+ * <p>
+ * The file format is binary: a magic number, a version and the number of rates, then for each rate the codes of its
+ * currencies, its retrieval time in milliseconds since the epoch and its exact decimal value.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(ApiCurrencyConversionService.class)
+class ApiExchangeRateSnapshot {
+
+    private static final int MAGIC_NUMBER = 0x46585253;
+    private static final short FORMAT_VERSION = 1;
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private final Optional<Path> path;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final Map<CurrencyPair, SnapshotRate> rates = new ConcurrentHashMap<>();
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    ApiExchangeRateSnapshot(CurrencyConversionProperty currencyConversionProperty, ApiExchangeRateCache rateCache,
+                            LastKnownExchangeRates lastKnownRates, Clock clock) {
+        this.path = currencyConversionProperty.getApiSnapshotPath();
+        this.maxAge = currencyConversionProperty.getApiSnapshotMaxAge();
+        this.clock = clock;
+
+        if (isEnabled()) {
+            load(rateCache, lastKnownRates);
+        }
+    }
+
+    /**
+     * Whether the exchange rates are saved.
+     *
+     * @return true if the path of the snapshot file is configured.
+     */
+    boolean isEnabled() {
+        return path.isPresent();
+    }
+
+    /**
+     * Records the exchange rate of the pair just retrieved from the API, to be saved with the next write.
+     *
+     * @param pair the currency pair.
+     * @param rate the exchange rate.
+     */
+    void record(@NonNull CurrencyPair pair, @NonNull BigDecimal rate) {
+        if (isEnabled()) {
+            rates.put(pair, new SnapshotRate(rate, clock.instant()));
+            changed.set(true);
+        }
+    }
+
+    /**
+     * Writes the snapshot if a rate was recorded since the last write.
+     */
+    @Scheduled(fixedDelayString = "${" + CurrencyConversionProperty.API_SNAPSHOT_FLUSH_INTERVAL + ":"
+            + CurrencyConversionProperty.DEFAULT_API_SNAPSHOT_FLUSH_INTERVAL_MS + "}")
+    @PreDestroy
+    void flush() {
+        if (!isEnabled() || !changed.getAndSet(false)) {
+            return;
+        }
+        try {
+            write(path.get(), Map.copyOf(rates));
+
+        } catch (IOException | RuntimeException exception) {
+            changed.set(true);
+            log.warn("Failed to save the exchange rates snapshot to {}: {}", path.get(), exception.getMessage());
+        }
+    }
+
+    private synchronized void write(Path file, Map<CurrencyPair, SnapshotRate> ratesToWrite) throws IOException {
+        final var absoluteFile = file.toAbsolutePath();
+        Files.createDirectories(absoluteFile.getParent());
+        final var temporaryFile = absoluteFile.resolveSibling(absoluteFile.getFileName() + TEMPORARY_FILE_SUFFIX);
+
+        try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            output.writeInt(MAGIC_NUMBER);
+            output.writeShort(FORMAT_VERSION);
+            output.writeInt(ratesToWrite.size());
+            for (var entry : ratesToWrite.entrySet()) {
+                output.writeUTF(entry.getKey().fromCurrency().name());
+                output.writeUTF(entry.getKey().toCurrency().name());
+                output.writeLong(entry.getValue().retrievedAt().toEpochMilli());
+                output.writeUTF(entry.getValue().rate().toString());
+            }
+        }
+        Files.move(temporaryFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("{} exchange rates saved to {}", ratesToWrite.size(), absoluteFile);
+    }
+
+    /**
+     * Loads the rates of the snapshot which are recent enough. A missing or unreadable snapshot is ignored: the rates
+     * are then retrieved from the API as usual.
+     */
+    private void load(ApiExchangeRateCache rateCache, LastKnownExchangeRates lastKnownRates) {
+        final Map<CurrencyPair, SnapshotRate> savedRates;
+        try {
+            savedRates = read(path.get());
+
+        } catch (NoSuchFileException exception) {
+            log.info("No exchange rates snapshot found at {}, the rates will be retrieved from the API.", path.get());
+            return;
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Failed to load the exchange rates snapshot from {}, the rates will be retrieved from the API: {}",
+                    path.get(), exception.getMessage());
+            return;
+        }
+
+        final var oldestAcceptedRetrieval = clock.instant().minus(maxAge);
+        savedRates.forEach((pair, savedRate) -> {
+            if (savedRate.retrievedAt().isBefore(oldestAcceptedRetrieval)) {
+                return;
+            }
+            rates.put(pair, savedRate);
+            if (rateCache.isEnabled()) {
+                rateCache.put(pair, savedRate.rate(), savedRate.retrievedAt());
+            }
+            lastKnownRates.record(pair, savedRate.rate(), savedRate.retrievedAt());
+        });
+        log.info("{} of the {} exchange rates of the snapshot {} loaded (maximum age: {}).", rates.size(),
+                savedRates.size(), path.get(), maxAge);
+    }
+
+    private Map<CurrencyPair, SnapshotRate> read(Path file) throws IOException {
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC_NUMBER) {
+                throw new IOException("Not an exchange rates snapshot.");
+            }
+            final var version = input.readShort();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ".");
+            }
+            final var count = input.readInt();
+            final var savedRates = new HashMap<CurrencyPair, SnapshotRate>();
+            for (int i = 0; i < count; i++) {
+                final var fromCurrency = Currency.valueOf(input.readUTF());
+                final var toCurrency = Currency.valueOf(input.readUTF());
+                final var retrievedAt = Instant.ofEpochMilli(input.readLong());
+                final var rate = new BigDecimal(input.readUTF());
+                savedRates.put(new CurrencyPair(fromCurrency, toCurrency), new SnapshotRate(rate, retrievedAt));
+            }
+            return savedRates;
+        }
+    }
+
+    private record SnapshotRate(BigDecimal rate, Instant retrievedAt) {
+    }
+}
@@ -0,0 +1,12 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+/**
+ * Thrown when a call to the currency conversion API is rejected by the {@link ApiQuotaManager} to save the quota of
+ * calls.
+ */
+class ApiQuotaExceededException extends RuntimeException {
+
+    ApiQuotaExceededException(String message) {
+        super(message);
+    }
+}
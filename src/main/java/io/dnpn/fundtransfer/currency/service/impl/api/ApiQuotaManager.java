@@ -0,0 +1,275 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.common.annotation.VisibleForTesting;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+/**
+ * Spreads the remaining quota of calls to the currency conversion API over time, so it is not exhausted before it is
+ * reset, instead of waiting for the provider to answer 429 TOO_MANY_REQUESTS.
+ * <p>
+ * The calls take their token from a bucket holding at most {@link CurrencyConversionProperty#getApiQuotaBurst()}
+ * tokens. The bucket is refilled at the pace that makes the remaining calls of the day and of the month (see
+ * {@link ApiRateLimitStatus}) last until their reset, at midnight UTC. The quota is not enforced until a response
+ * reported the remaining calls.
+ * <p>
+ * When the bucket runs low, the conversions have the priority (see {@link ApiCallPriority}):
+ * <ul>
+ *     <li>a background call only takes a token from the upper half of the bucket and is rejected otherwise,</li>
+ *     <li>a conversion can take the last tokens, and when the bucket is empty it is queued until the next tokens are
+ *     added, at most {@link CurrencyConversionProperty#getApiQuotaMaxWait()}, then rejected.</li>
+ * </ul>
+ * The time at which the quota will run out at the current pace of calls is reported periodically.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(ApiCurrencyConversionService.class)
+class ApiQuotaManager {
+
+    /**
+     * Number of last calls used to measure the pace of calls.
+     */
+    @VisibleForTesting
+    static final int PACE_WINDOW_SIZE = 100;
+
+    private final ApiRateLimitStatus rateLimitStatus;
+    private final Clock clock;
+    private final int burst;
+    private final Duration maxWait;
+
+    /**
+     * Can be negative: the tokens reserved by the queued conversions are taken in advance.
+     */
+    private double tokens;
+    private Instant refilledAt;
+
+    /**
+     * Times of the last calls in a ring buffer.
+     */
+    private final Instant[] callTimes = new Instant[PACE_WINDOW_SIZE];
+    private int recordedCalls;
+    private int nextCallIndex;
+
+    ApiQuotaManager(ApiRateLimitStatus rateLimitStatus, CurrencyConversionProperty currencyConversionProperty,
+                    Clock clock) {
+        this.rateLimitStatus = rateLimitStatus;
+        this.clock = clock;
+        this.burst = currencyConversionProperty.getApiQuotaBurst().orElse(0);
+        this.maxWait = isEnabled() ? currencyConversionProperty.getApiQuotaMaxWait() : Duration.ZERO;
+        this.tokens = burst;
+    }
+
+    /**
+     * Whether the quota is enforced locally.
+     *
+     * @return true if a burst size is configured.
+     */
+    boolean isEnabled() {
+        return burst > 0;
+    }
+
+    /**
+     * Gets the maximum time a conversion is queued before its call is made.
+     *
+     * @return the maximum wait, zero if the quota is not enforced.
+     */
+    Duration getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Asks for the permission to call the API. The permitted call must be made after the returned delay.
+     *
+     * @param priority the priority of the call.
+     * @return the delay before making the call (zero unless a conversion is queued), or empty if the call is
+     * rejected.
+     */
+    synchronized Optional<Duration> tryAcquire(@NonNull ApiCallPriority priority) {
+        if (!isEnabled()) {
+            return Optional.of(Duration.ZERO);
+        }
+        final var now = clock.instant();
+        final var refillRate = calculateRefillRate(now);
+        if (refillRate.isEmpty()) {
+            recordCall(now);
+            return Optional.of(Duration.ZERO);
+        }
+        refill(now, refillRate.getAsDouble());
+
+        final var minimumTokens = priority == ApiCallPriority.BACKGROUND ? burst / 2.0 + 1 : 1;
+        if (tokens >= minimumTokens) {
+            tokens--;
+            recordCall(now);
+            return Optional.of(Duration.ZERO);
+        }
+        if (priority == ApiCallPriority.BACKGROUND || refillRate.getAsDouble() == 0) {
+            return Optional.empty();
+        }
+        final var wait = Duration.ofNanos((long) Math.ceil((1 - tokens) / refillRate.getAsDouble() * 1e9));
+        if (wait.compareTo(maxWait) > 0) {
+            return Optional.empty();
+        }
+        tokens--;
+        recordCall(now);
+        return Optional.of(wait);
+    }
+
+    /**
+     * Records a failed call. If the provider reports that the quota is exceeded, the bucket is emptied so the next
+     * calls wait for the refill.
+     *
+     * @param failure the failure of the call.
+     */
+    synchronized void onFailure(@NonNull Throwable failure) {
+        if (isEnabled() && failure instanceof WebClientResponseException exception
+                && exception.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+            tokens = Math.min(tokens, 0);
+        }
+    }
+
+    /**
+     * Gets the time at which the remaining calls of the day or of the month will run out at the pace of the last
+     * calls.
+     *
+     * @return the earliest exhaustion time, or empty if the remaining calls last until their reset or if the pace or
+     * the remaining calls are unknown.
+     */
+    synchronized Optional<Instant> getProjectedExhaustion() {
+        final var now = clock.instant();
+        final var pace = calculatePace(now);
+        if (pace.isEmpty()) {
+            return Optional.empty();
+        }
+        final var today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        return Stream.of(
+                        projectExhaustion(now, rateLimitStatus.getRemainingDailyCalls(), pace.getAsDouble(),
+                                getEndOfDay(today)),
+                        projectExhaustion(now, rateLimitStatus.getRemainingMonthlyCalls(), pace.getAsDouble(),
+                                getEndOfMonth(today)))
+                .flatMap(Optional::stream)
+                .min(Comparator.naturalOrder());
+    }
+
+    @Scheduled(fixedDelayString = "${" + CurrencyConversionProperty.API_QUOTA_STATUS_INTERVAL + ":"
+            + CurrencyConversionProperty.DEFAULT_API_QUOTA_STATUS_INTERVAL_MS + "}")
+    void logStatus() {
+        if (!isEnabled()) {
+            return;
+        }
+        final var projectedExhaustion = getProjectedExhaustion();
+        if (projectedExhaustion.isPresent()) {
+            log.warn("At the current pace, the quota of calls to the currency conversion API will run out at {} " +
+                            "[this month: {}; today: {}].", projectedExhaustion.get(),
+                    rateLimitStatus.getRemainingMonthlyCalls(), rateLimitStatus.getRemainingDailyCalls());
+        } else {
+            log.info("Quota of calls to the currency conversion API: {} tokens available [this month: {}; today: {}].",
+                    getAvailableTokens(), rateLimitStatus.getRemainingMonthlyCalls(),
+                    rateLimitStatus.getRemainingDailyCalls());
+        }
+    }
+
+    /**
+     * Gets the number of calls that can be made right away, after refilling the bucket.
+     *
+     * @return the available tokens, negative if conversions are queued.
+     */
+    synchronized double getAvailableTokens() {
+        final var now = clock.instant();
+        calculateRefillRate(now).ifPresent(refillRate -> refill(now, refillRate));
+        return tokens;
+    }
+
+    /**
+     * Calculates the number of tokens added per second, so the remaining calls of the day and of the month last until
+     * their reset.
+     *
+     * @return the refill rate, or empty if the remaining calls are unknown.
+     */
+    private OptionalDouble calculateRefillRate(Instant now) {
+        final var today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        final var dailyRate = calculateRate(rateLimitStatus.getRemainingDailyCalls(), now, getEndOfDay(today));
+        final var monthlyRate = calculateRate(rateLimitStatus.getRemainingMonthlyCalls(), now, getEndOfMonth(today));
+        if (dailyRate.isEmpty()) {
+            return monthlyRate;
+        }
+        if (monthlyRate.isEmpty()) {
+            return dailyRate;
+        }
+        return OptionalDouble.of(Math.min(dailyRate.getAsDouble(), monthlyRate.getAsDouble()));
+    }
+
+    private OptionalDouble calculateRate(OptionalLong remainingCalls, Instant now, Instant resetAt) {
+        if (remainingCalls.isEmpty()) {
+            return OptionalDouble.empty();
+        }
+        final var secondsUntilReset = Math.max(1, Duration.between(now, resetAt).toSeconds());
+        return OptionalDouble.of((double) remainingCalls.getAsLong() / secondsUntilReset);
+    }
+
+    private void refill(Instant now, double refillRate) {
+        if (refilledAt != null && now.isAfter(refilledAt)) {
+            final var elapsedSeconds = Duration.between(refilledAt, now).toNanos() / 1e9;
+            tokens = Math.min(burst, tokens + elapsedSeconds * refillRate);
+        }
+        if (refilledAt == null || now.isAfter(refilledAt)) {
+            refilledAt = now;
+        }
+    }
+
+    private void recordCall(Instant calledAt) {
+        callTimes[nextCallIndex] = calledAt;
+        nextCallIndex = (nextCallIndex + 1) % callTimes.length;
+        recordedCalls = Math.min(recordedCalls + 1, callTimes.length);
+    }
+
+    /**
+     * Calculates the number of calls per second over the last calls, until now so the pace drops when no call is made.
+     *
+     * @return the pace, or empty if less than two calls were made.
+     */
+    private OptionalDouble calculatePace(Instant now) {
+        if (recordedCalls < 2) {
+            return OptionalDouble.empty();
+        }
+        final var oldestCallIndex = recordedCalls < callTimes.length ? 0 : nextCallIndex;
+        final var elapsedSeconds = Duration.between(callTimes[oldestCallIndex], now).toNanos() / 1e9;
+        if (elapsedSeconds <= 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(recordedCalls / elapsedSeconds);
+    }
+
+    private Optional<Instant> projectExhaustion(Instant now, OptionalLong remainingCalls, double pace,
+                                                Instant resetAt) {
+        if (remainingCalls.isEmpty()) {
+            return Optional.empty();
+        }
+        final var exhaustion = now.plusMillis((long) (remainingCalls.getAsLong() / pace * 1000));
+        return exhaustion.isBefore(resetAt) ? Optional.of(exhaustion) : Optional.empty();
+    }
+
+    private static Instant getEndOfDay(LocalDate today) {
+        return today.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private static Instant getEndOfMonth(LocalDate today) {
+        return today.withDayOfMonth(1).plusMonths(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+}
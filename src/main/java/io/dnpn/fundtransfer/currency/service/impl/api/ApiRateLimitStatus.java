@@ -0,0 +1,68 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+
+/**
+ * Number of calls to the currency conversion API remaining in the current day and month, as reported by the
+ * `x-ratelimit-remaining-*` headers of the last response.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(ApiCurrencyConversionService.class)
+class ApiRateLimitStatus {
+
+    private static final long UNKNOWN = -1;
+
+    private volatile long remainingDailyCalls = UNKNOWN;
+    private volatile long remainingMonthlyCalls = UNKNOWN;
+
+    /**
+     * Records the remaining calls reported by a response. A missing or invalid header keeps the previous value.
+     *
+     * @param remainingDailyCallsHeader   the value of the header of the remaining calls today.
+     * @param remainingMonthlyCallsHeader the value of the header of the remaining calls this month.
+     */
+    void record(String remainingDailyCallsHeader, String remainingMonthlyCallsHeader) {
+        remainingDailyCalls = parse(remainingDailyCallsHeader, remainingDailyCalls);
+        remainingMonthlyCalls = parse(remainingMonthlyCallsHeader, remainingMonthlyCalls);
+    }
+
+    /**
+     * Gets the number of calls remaining today.
+     *
+     * @return the remaining calls, empty if no response reported it yet.
+     */
+    OptionalLong getRemainingDailyCalls() {
+        return toOptional(remainingDailyCalls);
+    }
+
+    /**
+     * Gets the number of calls remaining this month.
+     *
+     * @return the remaining calls, empty if no response reported it yet.
+     */
+    OptionalLong getRemainingMonthlyCalls() {
+        return toOptional(remainingMonthlyCalls);
+    }
+
+    private long parse(String header, long previousValue) {
+        if (header == null) {
+            return previousValue;
+        }
+        try {
+            return Math.max(0, Long.parseLong(header.trim()));
+
+        } catch (NumberFormatException exception) {
+            log.warn("Invalid rate limit header <{}> returned by the currency conversion API.", header);
+            return previousValue;
+        }
+    }
+
+    private OptionalLong toOptional(long remainingCalls) {
+        return remainingCalls == UNKNOWN ? OptionalLong.empty() : OptionalLong.of(remainingCalls);
+    }
+}
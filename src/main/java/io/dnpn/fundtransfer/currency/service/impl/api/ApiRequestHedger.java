@@ -0,0 +1,176 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.common.annotation.VisibleForTesting;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hedges the calls to the currency conversion API to cut their tail latency: when a call has not answered after the
+ * configured percentile of the latencies of the last calls, a second identical call is sent and the first response
+ * wins, the other call being cancelled.
+ * <p>
+ * The hedges are limited by a budget: every call earns a fraction of a hedge (see
+ * {@link CurrencyConversionProperty#getApiHedgingBudgetRatio()}) and a hedge is only sent once a whole one has been
+ * earned, so a slow provider does not receive twice as many calls. No call is hedged until
+ * {@link #MINIMUM_LATENCIES} latencies have been recorded.
+ * <p>
+ * A failure of the first call is returned as is, so the errors are not delayed, while a failure of the hedge is
+ * ignored: the outcome of the first call is awaited instead.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(ApiCurrencyConversionService.class)
+class ApiRequestHedger {
+
+    @VisibleForTesting
+    static final int LATENCY_WINDOW_SIZE = 100;
+    @VisibleForTesting
+    static final int MINIMUM_LATENCIES = 20;
+
+    /**
+     * The budget is counted in thousandths of a hedge, so fractions of a hedge can be earned atomically.
+     */
+    private static final long HEDGE_COST = 1_000;
+    private static final long MAX_SAVED_BUDGET = 10 * HEDGE_COST;
+
+    private final OptionalDouble delayPercentile;
+    private final long budgetEarnedPerCall;
+    private final AtomicLong budget = new AtomicLong();
+
+    /**
+     * Latencies of the last first calls in a ring buffer, in nanoseconds.
+     */
+    private final long[] latencies = new long[LATENCY_WINDOW_SIZE];
+    private int recordedLatencies;
+    private int nextLatencyIndex;
+
+    ApiRequestHedger(CurrencyConversionProperty currencyConversionProperty) {
+        this.delayPercentile = currencyConversionProperty.getApiHedgingDelayPercentile();
+        this.budgetEarnedPerCall = Math.round(currencyConversionProperty.getApiHedgingBudgetRatio() * HEDGE_COST);
+    }
+
+    /**
+     * Whether the calls are hedged.
+     *
+     * @return true if a delay percentile is configured.
+     */
+    boolean isEnabled() {
+        return delayPercentile.isPresent();
+    }
+
+    /**
+     * Makes the call, and hedges it with a second identical call if it is still in flight after the hedge delay and
+     * the budget allows it.
+     *
+     * @param call supplies a new call every time it is invoked; nothing is sent before the subscription.
+     * @param <T>  the type of the response.
+     * @return the response of the first call answering successfully, or the failure of the first call.
+     */
+    <T> Mono<T> hedge(@NonNull Supplier<Mono<T>> call) {
+        return hedge(call, () -> true);
+    }
+
+    /**
+     * Variant of {@link #hedge(Supplier)} where the hedge must also be allowed by the caller when it is due.
+     *
+     * @param call     supplies a new call every time it is invoked; nothing is sent before the subscription.
+     * @param canHedge whether the hedge can be sent, only asked once the hedge budget allows it.
+     * @param <T>      the type of the response.
+     * @return the response of the first call answering successfully, or the failure of the first call.
+     */
+    <T> Mono<T> hedge(@NonNull Supplier<Mono<T>> call, @NonNull BooleanSupplier canHedge) {
+        if (!isEnabled()) {
+            return call.get();
+        }
+        return Mono.defer(() -> {
+            earnBudget();
+            final var firstCall = measureLatency(call.get());
+            final var hedgeDelay = getHedgeDelay();
+            if (hedgeDelay.isEmpty()) {
+                return firstCall;
+            }
+            final var hedgeCall = Mono.delay(hedgeDelay.get())
+                    .filter(ignored -> tryAcquireHedge() && canHedge.getAsBoolean())
+                    .flatMap(ignored -> {
+                        log.debug("The call to the currency conversion API is still in flight after {} ms, it is " +
+                                "hedged.", hedgeDelay.get().toMillis());
+                        return call.get()
+                                .onErrorResume(failure -> {
+                                    log.debug("The hedged call to the currency conversion API failed: {}",
+                                            failure.getMessage());
+                                    return Mono.empty();
+                                });
+                    });
+            return Flux.merge(firstCall, hedgeCall).next();
+        });
+    }
+
+    /**
+     * Gets the delay after which a call is hedged, i.e. the configured percentile of the latencies of the last calls.
+     *
+     * @return the hedge delay, or empty if not enough latencies have been recorded yet.
+     */
+    synchronized Optional<Duration> getHedgeDelay() {
+        if (delayPercentile.isEmpty() || recordedLatencies < MINIMUM_LATENCIES) {
+            return Optional.empty();
+        }
+        final var sortedLatencies = Arrays.copyOf(latencies, recordedLatencies);
+        Arrays.sort(sortedLatencies);
+        final var rank = (int) Math.ceil(delayPercentile.getAsDouble() * recordedLatencies);
+        return Optional.of(Duration.ofNanos(sortedLatencies[Math.max(rank, 1) - 1]));
+    }
+
+    /**
+     * Measures the latency of a first call. The latency of a call cancelled before answering (because its hedge
+     * answered first or because of the request timeout) is recorded when it is cancelled, as a lower bound.
+     */
+    private <T> Mono<T> measureLatency(Mono<T> call) {
+        return Mono.defer(() -> {
+            final var startNanos = System.nanoTime();
+            return call
+                    .doOnSuccess(response -> recordLatency(Duration.ofNanos(System.nanoTime() - startNanos)))
+                    .doOnCancel(() -> recordLatency(Duration.ofNanos(System.nanoTime() - startNanos)));
+        });
+    }
+
+    /**
+     * Records the latency of a first call.
+     *
+     * @param latency the latency.
+     */
+    synchronized void recordLatency(@NonNull Duration latency) {
+        latencies[nextLatencyIndex] = latency.toNanos();
+        nextLatencyIndex = (nextLatencyIndex + 1) % latencies.length;
+        recordedLatencies = Math.min(recordedLatencies + 1, latencies.length);
+    }
+
+    private void earnBudget() {
+        budget.accumulateAndGet(budgetEarnedPerCall, (current, earned) -> Math.min(current + earned, MAX_SAVED_BUDGET));
+    }
+
+    private boolean tryAcquireHedge() {
+        while (true) {
+            final var current = budget.get();
+            if (current < HEDGE_COST) {
+                log.debug("No budget left to hedge the call to the currency conversion API.");
+                return false;
+            }
+            if (budget.compareAndSet(current, current - HEDGE_COST)) {
+                return true;
+            }
+        }
+    }
+}
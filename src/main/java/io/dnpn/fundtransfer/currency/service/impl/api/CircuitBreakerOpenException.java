@@ -0,0 +1,11 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+/**
+ * Thrown when a call to the currency conversion API is rejected by the open {@link ApiCircuitBreaker}.
+ */
+class CircuitBreakerOpenException extends RuntimeException {
+
+    CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
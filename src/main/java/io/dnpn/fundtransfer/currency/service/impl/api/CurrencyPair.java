@@ -0,0 +1,35 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Source and target currencies of a conversion.
+ */
+record CurrencyPair(@NonNull Currency fromCurrency, @NonNull Currency toCurrency) {
+
+    /**
+     * Gets every pair of different currencies, ordered by source then target currency.
+     *
+     * @return the currency pairs.
+     */
+    static List<CurrencyPair> allPairs() {
+        final var pairs = new ArrayList<CurrencyPair>();
+        for (var fromCurrency : Currency.values()) {
+            for (var toCurrency : Currency.values()) {
+                if (fromCurrency != toCurrency) {
+                    pairs.add(new CurrencyPair(fromCurrency, toCurrency));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    @Override
+    public String toString() {
+        return fromCurrency + "/" + toCurrency;
+    }
+}
@@ -0,0 +1,22 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import lombok.Builder;
+
+import java.time.Duration;
+
+/**
+ * Statistics of the cached exchange rate of a currency pair.
+ *
+ * @param hits          number of lookups served by a fresh cached rate.
+ * @param misses        number of lookups without any cached rate.
+ * @param staleLookups  number of lookups finding an expired cached rate, which is then retrieved again.
+ * @param cachedRateAge age of the cached rate, null if no rate is cached.
+ */
+@Builder
+record ExchangeRateCacheStatistics(
+        long hits,
+        long misses,
+        long staleLookups,
+        Duration cachedRateAge
+) {
+}
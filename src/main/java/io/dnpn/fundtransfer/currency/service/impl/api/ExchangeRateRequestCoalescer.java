@@ -0,0 +1,114 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the concurrent requests for the exchange rate of the same currency pair: the first lookup starts the
+ * request to the API, the following ones wait for the result of this in-flight request instead of starting their own.
+ * <p>
+ * The in-flight request is forgotten as soon as it completes, so nothing is cached here (see
+ * {@link ApiExchangeRateCache}). A failure of the request is propagated to every waiter.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(ApiCurrencyConversionService.class)
+class ExchangeRateRequestCoalescer {
+
+    private final Map<CurrencyPair, CompletableFuture<BigDecimal>> inFlightRequests = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the exchange rate of the pair from the in-flight request, or from a new request if none is in flight.
+     *
+     * @param pair          the currency pair.
+     * @param request       the supplier of the request to the API, only called if no request is in flight.
+     * @param waiterTimeout the maximum time to wait for the result.
+     * @return the exchange rate.
+     * @throws RuntimeException the failure of the request, or an {@link IllegalStateException} if the result was not
+     *                          received in time.
+     */
+    BigDecimal getRate(@NonNull CurrencyPair pair, @NonNull Supplier<Mono<BigDecimal>> request,
+                       @NonNull Duration waiterTimeout) {
+        try {
+            return getRateAsync(pair, request, waiterTimeout).join();
+
+        } catch (CompletionException exception) {
+            throw unwrap(pair, waiterTimeout, exception.getCause());
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #getRate(CurrencyPair, Supplier, Duration)}: the caller is not blocked while the
+     * request is in flight.
+     *
+     * @param pair          the currency pair.
+     * @param request       the supplier of the request to the API, only called if no request is in flight.
+     * @param waiterTimeout the maximum time to wait for the result, after which the returned future fails with a
+     *                      {@link TimeoutException}.
+     * @return the exchange rate, or the failure of the request.
+     */
+    CompletableFuture<BigDecimal> getRateAsync(@NonNull CurrencyPair pair, @NonNull Supplier<Mono<BigDecimal>> request,
+                                               @NonNull Duration waiterTimeout) {
+        final var newRequest = new CompletableFuture<BigDecimal>();
+        final var inFlightRequest = inFlightRequests.putIfAbsent(pair, newRequest);
+
+        if (inFlightRequest != null) {
+            log.debug("Waiting for the in-flight exchange rate request of {}", pair);
+            return waitFor(inFlightRequest, waiterTimeout);
+        }
+
+        newRequest.whenComplete((rate, failure) -> inFlightRequests.remove(pair, newRequest));
+        start(request, newRequest);
+        return waitFor(newRequest, waiterTimeout);
+    }
+
+    private void start(Supplier<Mono<BigDecimal>> request, CompletableFuture<BigDecimal> result) {
+        try {
+            request.get()
+                    .toFuture()
+                    .whenComplete((rate, failure) -> {
+                        if (failure != null) {
+                            result.completeExceptionally(failure);
+                        } else {
+                            result.complete(rate);
+                        }
+                    });
+
+        } catch (RuntimeException exception) {
+            result.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * The timeout applies to a copy of the shared request, so a waiter giving up does not fail the other waiters.
+     */
+    private CompletableFuture<BigDecimal> waitFor(CompletableFuture<BigDecimal> request, Duration waiterTimeout) {
+        return request.copy()
+                .orTimeout(waiterTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private RuntimeException unwrap(CurrencyPair pair, Duration waiterTimeout, Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (failure instanceof TimeoutException) {
+            final var message = String.format("No exchange rate received for %s within %d ms.", pair,
+                    waiterTimeout.toMillis());
+            return new IllegalStateException(message, failure);
+        }
+        return new IllegalStateException(failure.getMessage(), failure);
+    }
+}
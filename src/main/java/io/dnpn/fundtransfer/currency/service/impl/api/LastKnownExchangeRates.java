@@ -0,0 +1,78 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.NonNull;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last exchange rate successfully retrieved from the currency conversion API for each currency pair, served as a
+ * fallback when the API cannot be called, as long as it is not older than
+ * {@link CurrencyConversionProperty#getApiFallbackMaxStaleness()}.
+ */
+@Component
+@ConditionalOnBean(ApiCurrencyConversionService.class)
+class LastKnownExchangeRates {
+
+    private final Duration maxStaleness;
+    private final Clock clock;
+    private final Map<CurrencyPair, KnownRate> knownRates = new ConcurrentHashMap<>();
+
+    LastKnownExchangeRates(CurrencyConversionProperty currencyConversionProperty, Clock clock) {
+        this.maxStaleness = currencyConversionProperty.getApiFallbackMaxStaleness();
+        this.clock = clock;
+    }
+
+    /**
+     * Records the exchange rate of the pair just retrieved from the API.
+     *
+     * @param pair the currency pair.
+     * @param rate the exchange rate.
+     */
+    void record(@NonNull CurrencyPair pair, @NonNull BigDecimal rate) {
+        record(pair, rate, clock.instant());
+    }
+
+    /**
+     * Records the exchange rate of the pair retrieved from the API earlier, e.g. reloaded from the
+     * {@link ApiExchangeRateSnapshot}. A more recent rate already recorded is kept.
+     *
+     * @param pair        the currency pair.
+     * @param rate        the exchange rate.
+     * @param retrievedAt the time the rate was retrieved from the API.
+     */
+    void record(@NonNull CurrencyPair pair, @NonNull BigDecimal rate, @NonNull Instant retrievedAt) {
+        if (isEnabled()) {
+            knownRates.merge(pair, new KnownRate(rate, retrievedAt), (knownRate, newRate) ->
+                    newRate.retrievedAt().isBefore(knownRate.retrievedAt()) ? knownRate : newRate);
+        }
+    }
+
+    /**
+     * Finds the last-known exchange rate of the pair.
+     *
+     * @param pair the currency pair.
+     * @return the exchange rate, empty if the fallback is disabled or if the last-known rate is too old.
+     */
+    Optional<BigDecimal> find(@NonNull CurrencyPair pair) {
+        final var oldestAcceptedRetrieval = clock.instant().minus(maxStaleness);
+        return Optional.ofNullable(knownRates.get(pair))
+                .filter(knownRate -> !knownRate.retrievedAt().isBefore(oldestAcceptedRetrieval))
+                .map(KnownRate::rate);
+    }
+
+    private boolean isEnabled() {
+        return maxStaleness.compareTo(Duration.ZERO) > 0;
+    }
+
+    private record KnownRate(BigDecimal rate, Instant retrievedAt) {
+    }
+}
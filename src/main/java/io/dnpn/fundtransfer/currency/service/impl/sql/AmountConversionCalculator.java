@@ -2,7 +2,6 @@ package io.dnpn.fundtransfer.currency.service.impl.sql;
 
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
 import lombok.NonNull;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Component;
 
@@ -10,10 +9,9 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 
 /**
- * Helper class for the {@link SqlCurrencyConversionService} to convert an amount using the exchange rate information
- * retrieved from the database.
+ * Helper class for the {@link SqlCurrencyConversionService} to calculate the exchange rates between currencies using
+ * the exchange rate information retrieved from the database.
  */
-@Slf4j
 @Component
 @ConditionalOnBean(SqlCurrencyConversionService.class)
 class AmountConversionCalculator {
@@ -21,20 +19,17 @@ class AmountConversionCalculator {
     private static final int DIVISION_PRECISION = 10;
     private static final MathContext DIVISION_MATH_CONTEXT = new MathContext(DIVISION_PRECISION);
 
-    BigDecimal convert(@NonNull AmountConversionCalculatorRequest request) throws CurrencyConversionException {
-        final var exchangeRate = getExchangeRate(request);
-        final var convertedAmount = request.amount().multiply(exchangeRate);
-
-        log.debug("{} {} = {} {} (exchange rate: {})",
-                request.amount(), request.sourceExchangeRate().getCurrency(),
-                convertedAmount, request.targetExchangeRate().getCurrency(),
-                exchangeRate);
-        return convertedAmount;
-    }
-
-    private BigDecimal getExchangeRate(AmountConversionCalculatorRequest request) throws CurrencyConversionException {
-        final var sourceCurrencyRateToUsd = validateAndGetRateToUsd(request.sourceExchangeRate());
-        final var targetCurrencyRateToUsd = validateAndGetRateToUsd(request.targetExchangeRate());
+    /**
+     * Calculates the exchange rate from the source currency to the target currency.
+     *
+     * @param sourceExchangeRate the exchange rate of the source currency.
+     * @param targetExchangeRate the exchange rate of the target currency.
+     * @return the exchange rate.
+     */
+    BigDecimal getExchangeRate(@NonNull ExchangeRateEntity sourceExchangeRate,
+                               @NonNull ExchangeRateEntity targetExchangeRate) throws CurrencyConversionException {
+        final var sourceCurrencyRateToUsd = validateAndGetRateToUsd(sourceExchangeRate);
+        final var targetCurrencyRateToUsd = validateAndGetRateToUsd(targetExchangeRate);
         return sourceCurrencyRateToUsd.divide(targetCurrencyRateToUsd, DIVISION_MATH_CONTEXT);
     }
 
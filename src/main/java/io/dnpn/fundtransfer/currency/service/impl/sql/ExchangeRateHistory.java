@@ -0,0 +1,199 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import io.dnpn.fundtransfer.common.annotation.VisibleForTesting;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the effective-dated history of the exchange rates to USD, to find the rate effective at any point in time
+ * (transfer replays, backdated reconciliations, audits) without querying the database.
+ * <p>
+ * The history is append-only, so it is loaded once on first use (or by the first scheduled check), then only the
+ * entries appended since the last load are read, every {@link CurrencyConversionProperty#SQL_REFRESH_INTERVAL} or
+ * right after an entry is appended by this application. The {@link ExchangeRateTimeline} of each currency is
+ * immutable and replaced atomically, so a lookup never waits for a load.
+ * <p>
+ * The concurrent appends (by this application or another instance) can commit in any order, so an entry may become
+ * visible after a more recent one was loaded. Each load therefore reads again the entries recorded during the
+ * {@link #LOAD_OVERLAP} before the last one loaded, and skips the ones already loaded.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(SqlCurrencyConversionService.class)
+class ExchangeRateHistory {
+
+    private final ExchangeRateHistoryRepository repository;
+    private final AmountConversionCalculator calculator;
+    private final Clock clock;
+    /**
+     * Covers the longest transaction appending an entry and the clock skew between the instances of the application.
+     */
+    @VisibleForTesting
+    static final Duration LOAD_OVERLAP = Duration.ofMinutes(1);
+
+    private final AtomicReference<Map<Currency, ExchangeRateTimeline>> timelines = new AtomicReference<>();
+    /**
+     * Time of record of the last entry loaded, guarded by this.
+     */
+    private Instant lastRecordedAt = Instant.EPOCH;
+    /**
+     * Time of record of the entries loaded within the overlap, by identifier, guarded by this.
+     */
+    private final Map<Long, Instant> overlappingEntries = new HashMap<>();
+
+    ExchangeRateHistory(ExchangeRateHistoryRepository repository, AmountConversionCalculator calculator, Clock clock) {
+        this.repository = repository;
+        this.calculator = calculator;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the exchange rate from the source currency to the target currency effective at the given time.
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @param asOf         the time.
+     * @return the exchange rate.
+     * @throws CurrencyConversionException if no valid rate to USD was effective at this time for one of the currencies.
+     */
+    BigDecimal getRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency, @NonNull Instant asOf)
+            throws CurrencyConversionException {
+        if (fromCurrency == toCurrency) {
+            return BigDecimal.ONE;
+        }
+        final var sourceExchangeRate = getExchangeRateToUsd(fromCurrency, asOf);
+        final var targetExchangeRate = getExchangeRateToUsd(toCurrency, asOf);
+        return calculator.getExchangeRate(sourceExchangeRate, targetExchangeRate);
+    }
+
+    /**
+     * Finds the exchange rate to USD of the currency effective at the given time.
+     *
+     * @param currency the currency.
+     * @param asOf     the time.
+     * @return the rate to USD, or empty if no rate was effective yet at this time.
+     */
+    Optional<BigDecimal> findRateToUsd(@NonNull Currency currency, @NonNull Instant asOf) {
+        return getTimelines().getOrDefault(currency, ExchangeRateTimeline.EMPTY).findRateToUsd(asOf);
+    }
+
+    /**
+     * Appends the exchange rate to USD of the currency, effective from now, in the transaction of the caller. The entry
+     * is not loaded, so a rollback leaves no trace of it: the caller {@link #refresh()}es the history once the
+     * transaction is committed.
+     *
+     * @param currency  the currency.
+     * @param rateToUsd the exchange rate to USD.
+     */
+    void appendWithoutLoading(@NonNull Currency currency, @NonNull BigDecimal rateToUsd) {
+        save(currency, rateToUsd, clock.instant());
+    }
+
+    /**
+     * Appends the exchange rate to USD of the currency, effective from the given time, which can be in the past. A
+     * rate effective at the same time as a previous one replaces it.
+     *
+     * @param currency    the currency.
+     * @param rateToUsd   the exchange rate to USD.
+     * @param effectiveAt the time from which the rate applies.
+     */
+    void append(@NonNull Currency currency, @NonNull BigDecimal rateToUsd, @NonNull Instant effectiveAt) {
+        save(currency, rateToUsd, effectiveAt);
+        load();
+    }
+
+    /**
+     * Loads the entries appended to the history since the last load, by this application or another one.
+     */
+    @Scheduled(fixedDelayString = "${" + CurrencyConversionProperty.SQL_REFRESH_INTERVAL + ":"
+            + CurrencyConversionProperty.DEFAULT_SQL_REFRESH_INTERVAL_MS + "}")
+    void refresh() {
+        load();
+    }
+
+    private void save(Currency currency, BigDecimal rateToUsd, Instant effectiveAt) {
+        repository.save(ExchangeRateHistoryEntity.builder()
+                .currency(currency)
+                .rateToUsd(rateToUsd)
+                .effectiveAt(effectiveAt.truncatedTo(ChronoUnit.MICROS))
+                .recordedAt(clock.instant().truncatedTo(ChronoUnit.MICROS))
+                .build());
+    }
+
+    /**
+     * Loads the entries appended since the last load, and adds them to the timelines of their currencies.
+     *
+     * @return the timelines of all the currencies.
+     */
+    private synchronized Map<Currency, ExchangeRateTimeline> load() {
+        final var currentTimelines = timelines.get();
+        final var newEntries = repository.findByRecordedAtGreaterThanEqualOrderByIdAsc(
+                        lastRecordedAt.minus(LOAD_OVERLAP))
+                .stream()
+                .filter(entry -> !overlappingEntries.containsKey(entry.getId()))
+                .toList();
+        if (currentTimelines != null && newEntries.isEmpty()) {
+            return currentTimelines;
+        }
+
+        final var refreshedTimelines = new EnumMap<Currency, ExchangeRateTimeline>(Currency.class);
+        if (currentTimelines != null) {
+            refreshedTimelines.putAll(currentTimelines);
+        }
+        newEntries.stream()
+                .collect(Collectors.groupingBy(ExchangeRateHistoryEntity::getCurrency))
+                .forEach((currency, entries) -> refreshedTimelines.put(currency,
+                        refreshedTimelines.getOrDefault(currency, ExchangeRateTimeline.EMPTY).withEntries(entries)));
+        for (var entry : newEntries) {
+            overlappingEntries.put(entry.getId(), entry.getRecordedAt());
+            if (entry.getRecordedAt().isAfter(lastRecordedAt)) {
+                lastRecordedAt = entry.getRecordedAt();
+            }
+        }
+        final var overlapStart = lastRecordedAt.minus(LOAD_OVERLAP);
+        overlappingEntries.values().removeIf(recordedAt -> recordedAt.isBefore(overlapStart));
+
+        final var unmodifiableTimelines = Collections.unmodifiableMap(refreshedTimelines);
+        timelines.set(unmodifiableTimelines);
+        log.debug("{} exchange rate history entries loaded, last recorded at {}", newEntries.size(), lastRecordedAt);
+        return unmodifiableTimelines;
+    }
+
+    private Map<Currency, ExchangeRateTimeline> getTimelines() {
+        final var currentTimelines = timelines.get();
+        return currentTimelines != null ? currentTimelines : load();
+    }
+
+    private ExchangeRateEntity getExchangeRateToUsd(Currency currency, Instant asOf)
+            throws CurrencyConversionException {
+        final var rateToUsd = findRateToUsd(currency, asOf);
+        if (rateToUsd.isEmpty()) {
+            final var message = String.format("No exchange rate to USD effective at %s for the currency %s", asOf,
+                    currency);
+            throw new CurrencyConversionException(message);
+        }
+        return ExchangeRateEntity.builder()
+                .currency(currency)
+                .rateToUsd(rateToUsd.get())
+                .build();
+    }
+}
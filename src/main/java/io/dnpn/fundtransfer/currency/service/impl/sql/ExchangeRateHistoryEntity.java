@@ -0,0 +1,44 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Exchange rate to USD of a currency effective from a point in time. The history is append-only: a correction is a
+ * new entry, with the same effective time if it replaces a rate. The time the entry was recorded is used to load the
+ * entries appended since the last load.
+ */
+@Entity
+@Table(name = "exchange_rate_history", indexes = {
+        @Index(columnList = "currency, effectiveAt"),
+        @Index(columnList = "recordedAt")
+})
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+class ExchangeRateHistoryEntity {
+    @Id
+    @GeneratedValue
+    private Long id;
+    @Column(nullable = false)
+    private Currency currency;
+    @Column(nullable = false)
+    private Instant effectiveAt;
+    @Column(nullable = false, precision = 20, scale = 10)
+    private BigDecimal rateToUsd;
+    @Column(nullable = false)
+    private Instant recordedAt;
+}
@@ -0,0 +1,19 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+@ConditionalOnBean(SqlCurrencyConversionService.class)
+interface ExchangeRateHistoryRepository extends JpaRepository<ExchangeRateHistoryEntity, Long> {
+
+    /**
+     * Finds the entries recorded from the given time, by increasing identifier.
+     *
+     * @param recordedAt the earliest time of record.
+     * @return the entries recorded since.
+     */
+    List<ExchangeRateHistoryEntity> findByRecordedAtGreaterThanEqualOrderByIdAsc(Instant recordedAt);
+}
@@ -0,0 +1,126 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the exchange rates between every pair of currencies, indexed by {@link Currency#ordinal()}.
+ * <p>
+ * The cross rates are computed once when the snapshot is built, so retrieving a rate costs neither a database query
+ * nor a division. A pair without a valid rate (unknown or invalid rate to USD) holds the reason why it cannot be
+ * converted instead of a rate.
+ */
+final class ExchangeRateMatrix {
+
+    private final BigDecimal[][] rates;
+    private final String[][] unavailabilityReasons;
+    private final Map<Currency, Integer> versions;
+
+    private ExchangeRateMatrix(BigDecimal[][] rates, String[][] unavailabilityReasons,
+                               Map<Currency, Integer> versions) {
+        this.rates = rates;
+        this.unavailabilityReasons = unavailabilityReasons;
+        this.versions = versions;
+    }
+
+    /**
+     * Builds the matrix from the exchange rates to USD.
+     *
+     * @param exchangeRates the exchange rates to USD, at most one per currency.
+     * @param calculator    the calculator of the cross rates.
+     * @return the matrix.
+     */
+    static ExchangeRateMatrix build(@NonNull Collection<ExchangeRateEntity> exchangeRates,
+                                    @NonNull AmountConversionCalculator calculator) {
+        final var ratesByCurrency = exchangeRates.stream()
+                .collect(Collectors.toMap(ExchangeRateEntity::getCurrency, Function.identity()));
+        final var currencies = Currency.values();
+        final var rates = new BigDecimal[currencies.length][currencies.length];
+        final var unavailabilityReasons = new String[currencies.length][currencies.length];
+
+        for (var fromCurrency : currencies) {
+            for (var toCurrency : currencies) {
+                final var from = fromCurrency.ordinal();
+                final var to = toCurrency.ordinal();
+                try {
+                    rates[from][to] = calculateRate(ratesByCurrency, fromCurrency, toCurrency, calculator);
+                } catch (CurrencyConversionException exception) {
+                    unavailabilityReasons[from][to] = exception.getMessage();
+                }
+            }
+        }
+
+        final var versions = new EnumMap<Currency, Integer>(Currency.class);
+        ratesByCurrency.forEach((currency, exchangeRate) -> versions.put(currency, exchangeRate.getVersion()));
+        return new ExchangeRateMatrix(rates, unavailabilityReasons, Collections.unmodifiableMap(versions));
+    }
+
+    private static BigDecimal calculateRate(Map<Currency, ExchangeRateEntity> ratesByCurrency, Currency fromCurrency,
+                                            Currency toCurrency, AmountConversionCalculator calculator)
+            throws CurrencyConversionException {
+        if (fromCurrency == toCurrency) {
+            return BigDecimal.ONE;
+        }
+        final var sourceExchangeRate = getExchangeRateToUsd(ratesByCurrency, fromCurrency);
+        final var targetExchangeRate = getExchangeRateToUsd(ratesByCurrency, toCurrency);
+        return calculator.getExchangeRate(sourceExchangeRate, targetExchangeRate);
+    }
+
+    private static ExchangeRateEntity getExchangeRateToUsd(Map<Currency, ExchangeRateEntity> ratesByCurrency,
+                                                           Currency currency) throws CurrencyConversionException {
+        return Optional.ofNullable(ratesByCurrency.get(currency))
+                .orElseThrow(() -> supplyCurrencyNotFoundException(currency));
+    }
+
+    private static CurrencyConversionException supplyCurrencyNotFoundException(Currency currency) {
+        final var message = String.format("No exchange rate to USD registered for the currency %s", currency);
+        return new CurrencyConversionException(message);
+    }
+
+    /**
+     * Gets the exchange rate from the source currency to the target currency.
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @return the exchange rate.
+     * @throws CurrencyConversionException if no valid exchange rate is registered for one of the currencies.
+     */
+    BigDecimal getRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency)
+            throws CurrencyConversionException {
+        final var rate = rates[fromCurrency.ordinal()][toCurrency.ordinal()];
+        if (rate == null) {
+            throw new CurrencyConversionException(unavailabilityReasons[fromCurrency.ordinal()][toCurrency.ordinal()]);
+        }
+        return rate;
+    }
+
+    /**
+     * Whether the matrix holds a valid exchange rate from the source currency to the target currency.
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @return true if {@link #getRate(Currency, Currency)} returns a rate for this pair.
+     */
+    boolean hasRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency) {
+        return rates[fromCurrency.ordinal()][toCurrency.ordinal()] != null;
+    }
+
+    /**
+     * Gets the version of the exchange rate to USD of each currency the matrix was built from.
+     *
+     * @return the versions by currency.
+     */
+    Map<Currency, Integer> getVersions() {
+        return versions;
+    }
+}
@@ -0,0 +1,140 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link ExchangeRateMatrix}.
+ * <p>
+ * The matrix is built by the first scheduled check (or on first use if a conversion comes first), then the versions of
+ * the exchange rates are polled periodically (see {@link CurrencyConversionProperty#SQL_REFRESH_INTERVAL}): as soon as
+ * one of them changes, a new matrix is built and replaces the previous one atomically. A conversion therefore never
+ * sees a partially refreshed matrix, and never queries the database once the matrix is built.
+ */
+@Slf4j
+@Component
+@ConditionalOnBean(SqlCurrencyConversionService.class)
+class ExchangeRateMatrixCache {
+
+    /**
+     * Number of refresh intervals without a successful check after which the matrix is considered stale.
+     */
+    private static final int MISSED_CHECKS_BEFORE_STALE = 2;
+
+    private final ExchangeRateRepository repository;
+    private final AmountConversionCalculator calculator;
+    private final Clock clock;
+    private final Duration staleAfter;
+    private final AtomicReference<ExchangeRateMatrix> matrix = new AtomicReference<>();
+    /**
+     * When the matrix was last built or confirmed to match the database.
+     */
+    private volatile Instant syncedAt;
+
+    ExchangeRateMatrixCache(ExchangeRateRepository repository, AmountConversionCalculator calculator,
+                            CurrencyConversionProperty currencyConversionProperty, Clock clock) {
+        this.repository = repository;
+        this.calculator = calculator;
+        this.clock = clock;
+        this.staleAfter = currencyConversionProperty.getSqlRefreshInterval().multipliedBy(MISSED_CHECKS_BEFORE_STALE);
+    }
+
+    /**
+     * Gets the current matrix, building it if this is the first use.
+     *
+     * @return the matrix.
+     */
+    ExchangeRateMatrix getMatrix() {
+        final var currentMatrix = matrix.get();
+        return currentMatrix != null ? currentMatrix : refresh();
+    }
+
+    /**
+     * Builds the matrix if it does not exist yet, or rebuilds it if the version of an exchange rate changed, or if an
+     * exchange rate was added or deleted.
+     */
+    @Scheduled(fixedDelayString = "${" + CurrencyConversionProperty.SQL_REFRESH_INTERVAL + ":"
+            + CurrencyConversionProperty.DEFAULT_SQL_REFRESH_INTERVAL_MS + "}")
+    void refreshIfChanged() {
+        final var currentMatrix = matrix.get();
+        if (currentMatrix == null) {
+            refresh();
+            return;
+        }
+        final var checkedAt = clock.instant();
+        if (currentMatrix.getVersions().equals(findVersions())) {
+            syncedAt = checkedAt;
+        } else {
+            refresh();
+        }
+    }
+
+    /**
+     * Gets the freshness of the exchange rate of every pair of different currencies. All the rates are confirmed at
+     * the same time, when the versions are checked.
+     *
+     * @return the freshness of each currency pair, empty if the matrix is not built yet.
+     */
+    List<ExchangeRateFreshness> getFreshness() {
+        final var currentMatrix = matrix.get();
+        final var currentSyncedAt = syncedAt;
+        if (currentMatrix == null || currentSyncedAt == null) {
+            return List.of();
+        }
+        final var age = Duration.between(currentSyncedAt, clock.instant());
+        final var stale = age.compareTo(staleAfter) > 0;
+
+        final var freshness = new ArrayList<ExchangeRateFreshness>();
+        for (var fromCurrency : Currency.values()) {
+            for (var toCurrency : Currency.values()) {
+                if (fromCurrency == toCurrency) {
+                    continue;
+                }
+                final var hasRate = currentMatrix.hasRate(fromCurrency, toCurrency);
+                freshness.add(ExchangeRateFreshness.builder()
+                        .fromCurrency(fromCurrency)
+                        .toCurrency(toCurrency)
+                        .refreshedAt(hasRate ? currentSyncedAt : null)
+                        .age(hasRate ? age : null)
+                        .stale(!hasRate || stale)
+                        .build());
+            }
+        }
+        return freshness;
+    }
+
+    /**
+     * Rebuilds the matrix from the exchange rates currently persisted, without waiting for the next check.
+     *
+     * @return the rebuilt matrix.
+     */
+    synchronized ExchangeRateMatrix refresh() {
+        final var refreshedAt = clock.instant();
+        final var refreshedMatrix = ExchangeRateMatrix.build(repository.findAll(), calculator);
+        matrix.set(refreshedMatrix);
+        syncedAt = refreshedAt;
+        log.debug("Exchange rate matrix refreshed, versions: {}", refreshedMatrix.getVersions());
+        return refreshedMatrix;
+    }
+
+    private Map<Currency, Integer> findVersions() {
+        final var versions = new EnumMap<Currency, Integer>(Currency.class);
+        repository.findAllVersions()
+                .forEach(version -> versions.put(version.getCurrency(), version.getVersion()));
+        return versions;
+    }
+}
@@ -3,7 +3,18 @@ package io.dnpn.fundtransfer.currency.service.impl.sql;
 import io.dnpn.fundtransfer.currency.Currency;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 @ConditionalOnBean(SqlCurrencyConversionService.class)
 interface ExchangeRateRepository extends JpaRepository<ExchangeRateEntity, Currency> {
+
+    /**
+     * Finds the version of every exchange rate.
+     *
+     * @return the versions.
+     */
+    @Query("SELECT e.currency AS currency, e.version AS version FROM ExchangeRateEntity e")
+    List<ExchangeRateVersion> findAllVersions();
 }
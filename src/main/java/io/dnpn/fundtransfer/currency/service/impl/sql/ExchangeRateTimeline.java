@@ -0,0 +1,90 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Immutable history of the exchange rates to USD of one currency, sorted by effective time so the rate effective at a
+ * given time is found by a binary search, without any allocation.
+ * <p>
+ * The effective times are held in a primitive array, in microseconds since the epoch (the precision of the database
+ * timestamps), next to the arrays of the rates and of the identifiers of their entries at the same indexes.
+ */
+final class ExchangeRateTimeline {
+
+    static final ExchangeRateTimeline EMPTY = new ExchangeRateTimeline(new long[0], new BigDecimal[0], new long[0]);
+
+    /**
+     * Identifier given to the entries not saved yet, which are more recent than all the saved ones.
+     */
+    private static final long UNSAVED_ENTRY_ID = Long.MAX_VALUE;
+
+    private final long[] effectiveTimes;
+    private final BigDecimal[] ratesToUsd;
+    private final long[] entryIds;
+
+    private ExchangeRateTimeline(long[] effectiveTimes, BigDecimal[] ratesToUsd, long[] entryIds) {
+        this.effectiveTimes = effectiveTimes;
+        this.ratesToUsd = ratesToUsd;
+        this.entryIds = entryIds;
+    }
+
+    /**
+     * Builds a new timeline holding the rates of this one and the given entries. An entry effective at the same time as
+     * an older one (with a lower identifier) replaces it, whatever the order in which they are added.
+     *
+     * @param entries the entries to add.
+     * @return the new timeline.
+     */
+    ExchangeRateTimeline withEntries(@NonNull Collection<ExchangeRateHistoryEntity> entries) {
+        final var sortedRates = new TreeMap<Long, TimelineRate>();
+        for (int i = 0; i < effectiveTimes.length; i++) {
+            sortedRates.put(effectiveTimes[i], new TimelineRate(entryIds[i], ratesToUsd[i]));
+        }
+        for (var entry : entries) {
+            final var entryId = entry.getId() != null ? entry.getId() : UNSAVED_ENTRY_ID;
+            sortedRates.merge(toEpochMicros(entry.getEffectiveAt()), new TimelineRate(entryId, entry.getRateToUsd()),
+                    (previous, next) -> previous.entryId() > next.entryId() ? previous : next);
+        }
+
+        final var newEffectiveTimes = new long[sortedRates.size()];
+        final var newRatesToUsd = new BigDecimal[sortedRates.size()];
+        final var newEntryIds = new long[sortedRates.size()];
+        int index = 0;
+        for (var sortedRate : sortedRates.entrySet()) {
+            newEffectiveTimes[index] = sortedRate.getKey();
+            newRatesToUsd[index] = sortedRate.getValue().rateToUsd();
+            newEntryIds[index] = sortedRate.getValue().entryId();
+            index++;
+        }
+        return new ExchangeRateTimeline(newEffectiveTimes, newRatesToUsd, newEntryIds);
+    }
+
+    /**
+     * Finds the rate effective at the given time, i.e. the rate with the latest effective time not after it.
+     *
+     * @param asOf the time.
+     * @return the rate to USD, or empty if the first rate of the timeline is effective later.
+     */
+    Optional<BigDecimal> findRateToUsd(@NonNull Instant asOf) {
+        final var index = Arrays.binarySearch(effectiveTimes, toEpochMicros(asOf));
+        if (index >= 0) {
+            return Optional.of(ratesToUsd[index]);
+        }
+        final var insertionPoint = -index - 1;
+        return insertionPoint == 0 ? Optional.empty() : Optional.of(ratesToUsd[insertionPoint - 1]);
+    }
+
+    private static long toEpochMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private record TimelineRate(long entryId, BigDecimal rateToUsd) {
+    }
+}
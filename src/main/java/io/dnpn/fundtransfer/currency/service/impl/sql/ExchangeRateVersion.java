@@ -0,0 +1,14 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import io.dnpn.fundtransfer.currency.Currency;
+
+/**
+ * Projection of an {@link ExchangeRateEntity} on its version, to detect the changes of the exchange rates without
+ * loading them.
+ */
+interface ExchangeRateVersion {
+
+    Currency getCurrency();
+
+    Integer getVersion();
+}
@@ -4,50 +4,192 @@ import io.dnpn.fundtransfer.currency.Currency;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionRequest;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionService;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
 import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Converts amounts using the exchange rates to USD persisted in the database. The cross rates are read from the
+ * {@link ExchangeRateMatrixCache}, which is kept up to date in the background, so a conversion does not query the
+ * database.
+ * <p>
+ * Every saved rate is also appended to the {@link ExchangeRateHistory}, so the amounts can be converted with the rates
+ * effective at a past time.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@ConditionalOnProperty(
-        name = CurrencyConversionProperty.MODE,
-        havingValue = CurrencyConversionProperty.SQL_MODE
-)
+@ConditionalOnExpression(CurrencyConversionProperty.SQL_TIER_CONDITION)
 public class SqlCurrencyConversionService implements CurrencyConversionService {
 
+    private final ExchangeRateMatrixCache matrixCache;
     private final ExchangeRateRepository repository;
-    private final AmountConversionCalculator calculator;
+    private final ExchangeRateHistory history;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public BigDecimal convert(@NonNull CurrencyConversionRequest request) throws CurrencyConversionException {
         if (request.fromCurrency() == request.toCurrency()) {
             return request.amount();
         }
-        final var sourceExchangeRate = getExchangeRate(request.fromCurrency());
-        final var targetExchangeRate = getExchangeRate(request.toCurrency());
+        final var exchangeRate = getExchangeRate(request.fromCurrency(), request.toCurrency());
+        final var convertedAmount = request.amount().multiply(exchangeRate);
 
-        final AmountConversionCalculatorRequest conversionRequest = AmountConversionCalculatorRequest.builder()
-                .sourceExchangeRate(sourceExchangeRate)
-                .targetExchangeRate(targetExchangeRate)
-                .amount(request.amount())
-                .build();
-        return calculator.convert(conversionRequest);
+        log.debug("{} {} = {} {} (exchange rate: {})",
+                request.amount(), request.fromCurrency(),
+                convertedAmount, request.toCurrency(),
+                exchangeRate);
+        return convertedAmount;
     }
 
-    private ExchangeRateEntity getExchangeRate(Currency currency) throws CurrencyConversionException {
-        return repository.findById(currency)
-                .orElseThrow(() -> supplyCurrencyNotFoundException(currency));
+    @Override
+    public BigDecimal getExchangeRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency) throws CurrencyConversionException {
+        if (fromCurrency == toCurrency) {
+            return BigDecimal.ONE;
+        }
+        return matrixCache.getMatrix().getRate(fromCurrency, toCurrency);
+    }
+
+    /**
+     * Converts the amount with the exchange rate effective at the given time, e.g. to replay a past transfer.
+     *
+     * @param request the conversion request.
+     * @param asOf    the time at which the exchange rate was effective.
+     * @return the converted amount.
+     * @throws CurrencyConversionException if no valid rate to USD was effective at this time for one of the currencies.
+     */
+    public BigDecimal convert(@NonNull CurrencyConversionRequest request, @NonNull Instant asOf)
+            throws CurrencyConversionException {
+        if (request.fromCurrency() == request.toCurrency()) {
+            return request.amount();
+        }
+        return request.amount().multiply(getExchangeRate(request.fromCurrency(), request.toCurrency(), asOf));
+    }
+
+    /**
+     * Gets the exchange rate from the source currency to the target currency effective at the given time. The rate is
+     * looked up in the history held in memory, without querying the database.
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @param asOf         the time at which the exchange rate was effective.
+     * @return the exchange rate.
+     * @throws CurrencyConversionException if no valid rate to USD was effective at this time for one of the currencies.
+     */
+    public BigDecimal getExchangeRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency,
+                                      @NonNull Instant asOf) throws CurrencyConversionException {
+        return history.getRate(fromCurrency, toCurrency, asOf);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The exchange rates are read from memory, so the conversion is done synchronously and the returned future is
+     * already completed.
+     */
+    @Override
+    public CompletableFuture<BigDecimal> convertAsync(@NonNull CurrencyConversionRequest request) {
+        try {
+            return CompletableFuture.completedFuture(convert(request));
+
+        } catch (CurrencyConversionException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The exchange rates are read from memory, so the lookup is done synchronously and the returned future is already
+     * completed.
+     */
+    @Override
+    public CompletableFuture<BigDecimal> getExchangeRateAsync(@NonNull Currency fromCurrency,
+                                                              @NonNull Currency toCurrency) {
+        try {
+            return CompletableFuture.completedFuture(getExchangeRate(fromCurrency, toCurrency));
+
+        } catch (CurrencyConversionException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rates are confirmed all at once, each time the versions of the persisted exchange rates are checked.
+     */
+    @Override
+    public List<ExchangeRateFreshness> getExchangeRateFreshness() {
+        return matrixCache.getFreshness();
+    }
+
+    /**
+     * Whether a valid exchange rate to USD is persisted for the currency.
+     *
+     * @param currency the currency.
+     * @return true if the amounts in this currency can be converted.
+     */
+    public boolean hasExchangeRateToUsd(@NonNull Currency currency) {
+        return matrixCache.getMatrix().hasRate(currency, Currency.USD);
+    }
+
+    /**
+     * Persists the exchange rate to USD of the currency, replacing the previous one if any, and refreshes the cross
+     * rates immediately. The rate is appended to the history, effective from now, in the same transaction: if the
+     * history cannot be written, the rate is not saved either.
+     *
+     * @param currency  the currency.
+     * @param rateToUsd the exchange rate to USD.
+     */
+    public void saveExchangeRateToUsd(@NonNull Currency currency, @NonNull BigDecimal rateToUsd) {
+        final var saved = transactionTemplate.execute(status -> {
+            final var exchangeRate = repository.findById(currency)
+                    .orElseGet(() -> ExchangeRateEntity.builder().currency(currency).build());
+            exchangeRate.setRateToUsd(rateToUsd);
+            try {
+                repository.saveAndFlush(exchangeRate);
+
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException exception) {
+                // Updated concurrently, or inserted concurrently by another instance of the application
+                log.debug("The exchange rate to USD of {} was saved concurrently, this one is dropped.", currency);
+                status.setRollbackOnly();
+                return false;
+            }
+            history.appendWithoutLoading(currency, rateToUsd);
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(saved)) {
+            log.info("Exchange rate to USD of {} saved: {}", currency, rateToUsd);
+            history.refresh();
+        }
+        matrixCache.refresh();
     }
 
-    private CurrencyConversionException supplyCurrencyNotFoundException(Currency currency) {
-        final var message = String.format("No exchange rate to USD registered for the currency %s", currency);
-        return new CurrencyConversionException(message);
+    /**
+     * Appends an exchange rate to USD of the currency to the history, effective from the given time, e.g. to record a
+     * rate received late or to correct a past rate. The current rate used by the conversions is not changed.
+     *
+     * @param currency    the currency.
+     * @param rateToUsd   the exchange rate to USD.
+     * @param effectiveAt the time from which the rate applies.
+     */
+    public void saveHistoricalExchangeRateToUsd(@NonNull Currency currency, @NonNull BigDecimal rateToUsd,
+                                                @NonNull Instant effectiveAt) {
+        history.append(currency, rateToUsd, effectiveAt);
+        log.info("Exchange rate to USD of {} effective at {} saved: {}", currency, effectiveAt, rateToUsd);
     }
 }
@@ -12,6 +12,9 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 /**
  * Create mock exchange rate values for a development environment.
@@ -24,10 +27,12 @@ import java.math.BigDecimal;
 public class SqlExchangeRateDevSetup {
 
     @Bean
-    CommandLineRunner initExchangeRateDatabase(ExchangeRateRepository repository) {
+    CommandLineRunner initExchangeRateDatabase(ExchangeRateRepository repository,
+                                               ExchangeRateHistoryRepository historyRepository) {
         return args -> {
             createMockExchangeRates(repository);
             logCreatedExchangeRates(repository);
+            createMockExchangeRateHistory(historyRepository);
         };
     }
 
@@ -43,6 +48,26 @@ public class SqlExchangeRateDevSetup {
                 .build());
     }
 
+    private void createMockExchangeRateHistory(ExchangeRateHistoryRepository historyRepository) {
+        final var now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        final var yesterday = now.minus(1, ChronoUnit.DAYS);
+        historyRepository.saveAll(List.of(
+                buildHistoryEntry(Currency.USD, BigDecimal.ONE, yesterday),
+                buildHistoryEntry(Currency.GBP, new BigDecimal("1.21"), yesterday),
+                buildHistoryEntry(Currency.GBP, new BigDecimal("1.23"), now)));
+        log.info("Created the following mock exchange rate history for the dev setup: {}",
+                historyRepository.findAll());
+    }
+
+    private ExchangeRateHistoryEntity buildHistoryEntry(Currency currency, BigDecimal rateToUsd, Instant effectiveAt) {
+        return ExchangeRateHistoryEntity.builder()
+                .currency(currency)
+                .rateToUsd(rateToUsd)
+                .effectiveAt(effectiveAt)
+                .recordedAt(Instant.now().truncatedTo(ChronoUnit.MICROS))
+                .build();
+    }
+
     private void logCreatedExchangeRates(ExchangeRateRepository repository) {
         final var accounts = repository.findAll(Pageable.unpaged())
                 .get()
@@ -0,0 +1,21 @@
+package io.dnpn.fundtransfer.currency.service.impl.tiered;
+
+/**
+ * Tiers of the {@link TieredCurrencyConversionService}, from the fastest to the most authoritative.
+ */
+enum ConversionTier {
+    /**
+     * Exchange rates recently answered by the other tiers, held in the memory of the process.
+     */
+    MEMORY,
+    /**
+     * Exchange rates to USD persisted in the database (see
+     * {@link io.dnpn.fundtransfer.currency.service.impl.sql.SqlCurrencyConversionService}).
+     */
+    SQL,
+    /**
+     * Exchange rates retrieved from the provider (see
+     * {@link io.dnpn.fundtransfer.currency.service.impl.api.ApiCurrencyConversionService}).
+     */
+    API
+}
@@ -0,0 +1,90 @@
+package io.dnpn.fundtransfer.currency.service.impl.tiered;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ConversionTier#MEMORY} tier: the exchange rates answered by the slower tiers, kept during a time to live.
+ */
+class InMemoryExchangeRates {
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<Pair, StoredRate> rates = new ConcurrentHashMap<>();
+
+    InMemoryExchangeRates(Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Finds the exchange rate of the pair.
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @return the exchange rate, empty if it is not stored or expired.
+     */
+    Optional<BigDecimal> find(@NonNull Currency fromCurrency, @NonNull Currency toCurrency) {
+        return Optional.ofNullable(rates.get(new Pair(fromCurrency, toCurrency)))
+                .filter(storedRate -> !isExpired(storedRate, clock.instant()))
+                .map(StoredRate::rate);
+    }
+
+    /**
+     * Stores the exchange rate of the pair answered by a slower tier.
+     *
+     * @param fromCurrency the source currency.
+     * @param toCurrency   the target currency.
+     * @param rate         the exchange rate.
+     */
+    void put(@NonNull Currency fromCurrency, @NonNull Currency toCurrency, @NonNull BigDecimal rate) {
+        rates.put(new Pair(fromCurrency, toCurrency), new StoredRate(rate, clock.instant()));
+    }
+
+    /**
+     * Gets the freshness of the exchange rate of every pair of different currencies.
+     *
+     * @return the freshness of each currency pair.
+     */
+    List<ExchangeRateFreshness> getFreshness() {
+        final var now = clock.instant();
+        final var freshness = new ArrayList<ExchangeRateFreshness>();
+        for (var fromCurrency : Currency.values()) {
+            for (var toCurrency : Currency.values()) {
+                if (fromCurrency == toCurrency) {
+                    continue;
+                }
+                final var storedRate = rates.get(new Pair(fromCurrency, toCurrency));
+                freshness.add(ExchangeRateFreshness.builder()
+                        .fromCurrency(fromCurrency)
+                        .toCurrency(toCurrency)
+                        .refreshedAt(storedRate == null ? null : storedRate.storedAt())
+                        .age(storedRate == null ? null : Duration.between(storedRate.storedAt(), now))
+                        .stale(storedRate == null || isExpired(storedRate, now))
+                        .build());
+            }
+        }
+        return freshness;
+    }
+
+    private boolean isExpired(StoredRate storedRate, Instant now) {
+        return !now.isBefore(storedRate.storedAt().plus(ttl));
+    }
+
+    private record Pair(Currency fromCurrency, Currency toCurrency) {
+    }
+
+    private record StoredRate(BigDecimal rate, Instant storedAt) {
+    }
+}
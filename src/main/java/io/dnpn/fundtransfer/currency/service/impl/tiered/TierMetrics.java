@@ -0,0 +1,76 @@
+package io.dnpn.fundtransfer.currency.service.impl.tiered;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the hits, misses and latency of the lookups of each {@link ConversionTier}.
+ */
+class TierMetrics {
+
+    private final Map<ConversionTier, TierCounters> counters = new EnumMap<>(ConversionTier.class);
+
+    TierMetrics() {
+        for (var tier : ConversionTier.values()) {
+            counters.put(tier, new TierCounters());
+        }
+    }
+
+    /**
+     * Records a lookup answered by the tier.
+     *
+     * @param tier       the tier.
+     * @param startNanos the value of {@link System#nanoTime()} when the lookup started.
+     */
+    void recordHit(ConversionTier tier, long startNanos) {
+        final var tierCounters = counters.get(tier);
+        tierCounters.hits.increment();
+        tierCounters.recordLatency(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a lookup the tier could not answer.
+     *
+     * @param tier       the tier.
+     * @param startNanos the value of {@link System#nanoTime()} when the lookup started.
+     */
+    void recordMiss(ConversionTier tier, long startNanos) {
+        final var tierCounters = counters.get(tier);
+        tierCounters.misses.increment();
+        tierCounters.recordLatency(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the statistics of every tier.
+     *
+     * @return the statistics by tier, from the fastest tier to the most authoritative one.
+     */
+    Map<ConversionTier, TierStatistics> getStatistics() {
+        final var statistics = new EnumMap<ConversionTier, TierStatistics>(ConversionTier.class);
+        counters.forEach((tier, tierCounters) -> {
+            final var lookups = tierCounters.hits.sum() + tierCounters.misses.sum();
+            statistics.put(tier, TierStatistics.builder()
+                    .hits(tierCounters.hits.sum())
+                    .misses(tierCounters.misses.sum())
+                    .averageLatency(Duration.ofNanos(lookups == 0 ? 0 : tierCounters.totalNanos.sum() / lookups))
+                    .maxLatency(Duration.ofNanos(tierCounters.maxNanos.get()))
+                    .build());
+        });
+        return statistics;
+    }
+
+    private static class TierCounters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private void recordLatency(long nanos) {
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.dnpn.fundtransfer.currency.service.impl.tiered;
+
+import lombok.Builder;
+
+import java.time.Duration;
+
+/**
+ * Statistics of the lookups of a {@link ConversionTier}.
+ *
+ * @param hits           number of lookups answered by the tier.
+ * @param misses         number of lookups the tier could not answer, which fell through to the next tier.
+ * @param averageLatency average duration of a lookup, zero if the tier was not looked up yet.
+ * @param maxLatency     longest duration of a lookup, zero if the tier was not looked up yet.
+ */
+@Builder
+record TierStatistics(
+        long hits,
+        long misses,
+        Duration averageLatency,
+        Duration maxLatency
+) {
+}
@@ -0,0 +1,346 @@
+package io.dnpn.fundtransfer.currency.service.impl.tiered;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionRequest;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionService;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import io.dnpn.fundtransfer.currency.service.impl.api.ApiCurrencyConversionService;
+import io.dnpn.fundtransfer.currency.service.impl.sql.SqlCurrencyConversionService;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of {@link CurrencyConversionService} chaining three tiers, from the fastest to the most authoritative
+ * (see {@link ConversionTier}):
+ * <ol>
+ *     <li>the exchange rates recently answered, held in memory during
+ *     {@link CurrencyConversionProperty#getTieredMemoryTtl()},</li>
+ *     <li>the exchange rates to USD persisted in the database, read through the {@link SqlCurrencyConversionService},
+ *     </li>
+ *     <li>the provider, called through the {@link ApiCurrencyConversionService}.</li>
+ * </ol>
+ * A lookup the tier cannot answer falls through to the next tier, and the answer is written back to the faster tiers:
+ * when a currency has no exchange rate to USD in the database, its rate to USD is retrieved from the provider and
+ * persisted, so the next lookups involving this currency are answered by the database. The concurrent lookups missing
+ * the same currency share a single write-back, executed on a dedicated thread. The hits, misses and latency of each
+ * tier are reported periodically (see {@link CurrencyConversionProperty#TIERED_STATISTICS_INTERVAL}).
+ * <p>
+ * The provider stays the reference: the rates to USD persisted in the database are retrieved from it again and updated
+ * if they changed, every {@link CurrencyConversionProperty#TIERED_REFRESH_INTERVAL}.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(
+        name = CurrencyConversionProperty.MODE,
+        havingValue = CurrencyConversionProperty.TIERED_MODE
+)
+public class TieredCurrencyConversionService implements CurrencyConversionService {
+
+    private static final String WRITE_BACK_THREAD_PREFIX = "tiered-write-back-";
+
+    private final SqlCurrencyConversionService sqlService;
+    private final ApiCurrencyConversionService apiService;
+    private final InMemoryExchangeRates memoryRates;
+    private final TierMetrics metrics = new TierMetrics();
+    private final ExecutorService writeBackExecutor = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory(WRITE_BACK_THREAD_PREFIX));
+    private final Map<Currency, CompletableFuture<Void>> inFlightWriteBacks = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean();
+
+    public TieredCurrencyConversionService(SqlCurrencyConversionService sqlService,
+                                           ApiCurrencyConversionService apiService,
+                                           CurrencyConversionProperty currencyConversionProperty,
+                                           Clock clock) {
+        this.sqlService = sqlService;
+        this.apiService = apiService;
+        this.memoryRates = new InMemoryExchangeRates(currencyConversionProperty.getTieredMemoryTtl(), clock);
+    }
+
+    @Override
+    public BigDecimal convert(@NonNull CurrencyConversionRequest request) throws CurrencyConversionException {
+        if (request.fromCurrency() == request.toCurrency()) {
+            return request.amount();
+        }
+        final var exchangeRate = getExchangeRate(request.fromCurrency(), request.toCurrency());
+        final var convertedAmount = request.amount().multiply(exchangeRate);
+
+        log.debug("{} {} = {} {} (exchange rate: {})",
+                request.amount(), request.fromCurrency(),
+                convertedAmount, request.toCurrency(),
+                exchangeRate);
+        return convertedAmount;
+    }
+
+    @Override
+    public BigDecimal getExchangeRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency) throws CurrencyConversionException {
+        try {
+            return getExchangeRateAsync(fromCurrency, toCurrency).join();
+
+        } catch (CompletionException exception) {
+            throw toConversionException(fromCurrency, toCurrency, exception.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<BigDecimal> convertAsync(@NonNull CurrencyConversionRequest request) {
+        if (request.fromCurrency() == request.toCurrency()) {
+            return CompletableFuture.completedFuture(request.amount());
+        }
+        return getExchangeRateAsync(request.fromCurrency(), request.toCurrency())
+                .thenApply(exchangeRate -> request.amount().multiply(exchangeRate));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The memory and database tiers answer synchronously, only a lookup falling through to the provider is completed
+     * later.
+     */
+    @Override
+    public CompletableFuture<BigDecimal> getExchangeRateAsync(@NonNull Currency fromCurrency,
+                                                              @NonNull Currency toCurrency) {
+        if (fromCurrency == toCurrency) {
+            return CompletableFuture.completedFuture(BigDecimal.ONE);
+        }
+        final var memoryRate = lookUpMemory(fromCurrency, toCurrency);
+        if (memoryRate.isPresent()) {
+            return CompletableFuture.completedFuture(memoryRate.get());
+        }
+        final var sqlRate = lookUpSql(fromCurrency, toCurrency);
+        if (sqlRate.isPresent()) {
+            memoryRates.put(fromCurrency, toCurrency, sqlRate.get());
+            return CompletableFuture.completedFuture(sqlRate.get());
+        }
+        return lookUpApi(fromCurrency, toCurrency)
+                .thenApply(rate -> {
+                    memoryRates.put(fromCurrency, toCurrency, rate);
+                    return rate;
+                })
+                .exceptionallyCompose(failure -> CompletableFuture.failedFuture(
+                        toConversionException(fromCurrency, toCurrency, failure)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The freshness is the one of the memory tier, which answers most of the lookups.
+     */
+    @Override
+    public List<ExchangeRateFreshness> getExchangeRateFreshness() {
+        return memoryRates.getFreshness();
+    }
+
+    /**
+     * Gets the statistics of every tier.
+     *
+     * @return the statistics by tier.
+     */
+    Map<ConversionTier, TierStatistics> getStatistics() {
+        return metrics.getStatistics();
+    }
+
+    @Scheduled(fixedDelayString = "${" + CurrencyConversionProperty.TIERED_STATISTICS_INTERVAL + ":"
+            + CurrencyConversionProperty.DEFAULT_TIERED_STATISTICS_INTERVAL_MS + "}")
+    void logStatistics() {
+        log.info("Tiered currency conversion statistics: {}", getStatistics());
+    }
+
+    /**
+     * Retrieves from the provider the rates to USD persisted in the database, and updates the ones which changed. A
+     * currency whose refresh fails keeps its persisted rate until the next refresh.
+     * <p>
+     * The scheduler thread only starts the refresh: it does not wait for the provider, so the other scheduled tasks are
+     * not delayed. A refresh is skipped while the previous one is in progress.
+     */
+    @Scheduled(fixedDelayString = "${" + CurrencyConversionProperty.TIERED_REFRESH_INTERVAL + ":"
+            + CurrencyConversionProperty.DEFAULT_TIERED_REFRESH_INTERVAL_MS + "}",
+            initialDelayString = "${" + CurrencyConversionProperty.TIERED_REFRESH_INTERVAL + ":"
+                    + CurrencyConversionProperty.DEFAULT_TIERED_REFRESH_INTERVAL_MS + "}")
+    void refreshPersistedRates() {
+        if (!refreshInProgress.compareAndSet(false, true)) {
+            log.debug("The previous refresh of the persisted exchange rates to USD is in progress, this one is " +
+                    "skipped.");
+            return;
+        }
+        final CompletableFuture<?>[] refreshes;
+        try {
+            refreshes = startRefreshes();
+        } catch (RuntimeException exception) {
+            refreshInProgress.set(false);
+            throw exception;
+        }
+        CompletableFuture.allOf(refreshes).whenComplete((result, failure) -> {
+            refreshInProgress.set(false);
+            log.debug("{} persisted exchange rates to USD refreshed from the API", refreshes.length);
+        });
+    }
+
+    /**
+     * Stops the thread writing the rates back to the database, after the write-backs already started.
+     */
+    @PreDestroy
+    void shutdown() {
+        writeBackExecutor.shutdown();
+    }
+
+    private CompletableFuture<?>[] startRefreshes() {
+        return Arrays.stream(Currency.values())
+                .filter(currency -> currency != Currency.USD)
+                .filter(sqlService::hasExchangeRateToUsd)
+                .map(currency -> writeBackRateToUsd(currency)
+                        .exceptionally(failure -> {
+                            log.warn("Failed to refresh the exchange rate to USD of {}: {}", currency,
+                                    failure.getMessage());
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new);
+    }
+
+    private Optional<BigDecimal> lookUpMemory(Currency fromCurrency, Currency toCurrency) {
+        final var startNanos = System.nanoTime();
+        final var rate = memoryRates.find(fromCurrency, toCurrency);
+        if (rate.isPresent()) {
+            metrics.recordHit(ConversionTier.MEMORY, startNanos);
+        } else {
+            metrics.recordMiss(ConversionTier.MEMORY, startNanos);
+        }
+        return rate;
+    }
+
+    private Optional<BigDecimal> lookUpSql(Currency fromCurrency, Currency toCurrency) {
+        final var startNanos = System.nanoTime();
+        try {
+            final var rate = sqlService.getExchangeRate(fromCurrency, toCurrency);
+            metrics.recordHit(ConversionTier.SQL, startNanos);
+            return Optional.of(rate);
+
+        } catch (CurrencyConversionException exception) {
+            metrics.recordMiss(ConversionTier.SQL, startNanos);
+            log.debug("No exchange rate from {} to {} in the database: {}", fromCurrency, toCurrency,
+                    exception.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Retrieves the exchange rate from the provider. The rate to USD of the currencies missing from the database is
+     * retrieved and persisted, then the rate of the pair is read from the database so both tiers agree. If no currency
+     * is missing (the persisted rate is invalid), the rate of the pair is retrieved directly.
+     */
+    private CompletableFuture<BigDecimal> lookUpApi(Currency fromCurrency, Currency toCurrency) {
+        final var startNanos = System.nanoTime();
+        final var missingCurrencies = Stream.of(fromCurrency, toCurrency)
+                .filter(currency -> currency != Currency.USD)
+                .filter(currency -> !sqlService.hasExchangeRateToUsd(currency))
+                .toList();
+
+        final CompletableFuture<BigDecimal> rate;
+        if (missingCurrencies.isEmpty()) {
+            rate = apiService.getExchangeRateAsync(fromCurrency, toCurrency);
+        } else {
+            final var writeBacks = missingCurrencies.stream()
+                    .map(this::writeBackRateToUsd)
+                    .toArray(CompletableFuture[]::new);
+            rate = CompletableFuture.allOf(writeBacks)
+                    .thenApply(ignored -> readSqlAfterWriteBack(fromCurrency, toCurrency));
+        }
+
+        return rate.whenComplete((result, failure) -> {
+            if (failure == null) {
+                metrics.recordHit(ConversionTier.API, startNanos);
+            } else {
+                metrics.recordMiss(ConversionTier.API, startNanos);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the rate to USD of the currency from the provider and persists it, unless the same rate is already
+     * persisted. A write-back of the currency already in flight is joined instead of starting another one, so
+     * concurrent lookups do not insert the same rate twice. The database is written from the write-back thread rather
+     * than from the thread completing the API call.
+     */
+    private CompletableFuture<Void> writeBackRateToUsd(Currency currency) {
+        final var writeBack = new CompletableFuture<Void>();
+        final var inFlightWriteBack = inFlightWriteBacks.putIfAbsent(currency, writeBack);
+        if (inFlightWriteBack != null) {
+            log.debug("Waiting for the in-flight write-back of the exchange rate to USD of {}", currency);
+            return inFlightWriteBack.copy();
+        }
+
+        writeBack.whenComplete((ignored, failure) -> inFlightWriteBacks.remove(currency, writeBack));
+        try {
+            apiService.getExchangeRateAsync(currency, Currency.USD)
+                    .thenAcceptAsync(rateToUsd -> saveIfChanged(currency, rateToUsd), writeBackExecutor)
+                    .whenComplete((ignored, failure) -> {
+                        if (failure != null) {
+                            writeBack.completeExceptionally(failure);
+                        } else {
+                            writeBack.complete(null);
+                        }
+                    });
+
+        } catch (RuntimeException exception) {
+            writeBack.completeExceptionally(exception);
+        }
+        return writeBack.copy();
+    }
+
+    private void saveIfChanged(Currency currency, BigDecimal rateToUsd) {
+        if (sqlService.hasExchangeRateToUsd(currency)) {
+            try {
+                if (sqlService.getExchangeRate(currency, Currency.USD).compareTo(rateToUsd) == 0) {
+                    return;
+                }
+            } catch (CurrencyConversionException exception) {
+                log.debug("Persisted exchange rate to USD of {} not readable, it is replaced: {}", currency,
+                        exception.getMessage());
+            }
+        }
+        sqlService.saveExchangeRateToUsd(currency, rateToUsd);
+    }
+
+    private BigDecimal readSqlAfterWriteBack(Currency fromCurrency, Currency toCurrency) {
+        try {
+            return sqlService.getExchangeRate(fromCurrency, toCurrency);
+
+        } catch (CurrencyConversionException exception) {
+            throw new CompletionException(exception);
+        }
+    }
+
+    private CurrencyConversionException toConversionException(Currency fromCurrency, Currency toCurrency,
+                                                              Throwable failure) {
+        final var cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause instanceof CurrencyConversionException exception) {
+            return exception;
+        }
+        final var message = String.format("Failed to retrieve the exchange rate from %s to %s.", fromCurrency,
+                toCurrency);
+        return new CurrencyConversionException(message, cause);
+    }
+}
@@ -0,0 +1,166 @@
+package io.dnpn.fundtransfer.transfer.api;
+
+import io.dnpn.fundtransfer.common.MdcFilter;
+import io.dnpn.fundtransfer.common.ServiceUnavailableException;
+import io.dnpn.fundtransfer.transfer.service.AsyncTransferService;
+import io.dnpn.fundtransfer.transfer.service.IllegalTransferException;
+import io.dnpn.fundtransfer.transfer.service.SubmittedTransfer;
+import io.dnpn.fundtransfer.transfer.service.TransferProperty;
+import io.dnpn.fundtransfer.transfer.service.TransferQueueFullException;
+import io.dnpn.fundtransfer.transfer.service.TransferRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Controller allowing to transfer funds asynchronously, enabled by the property
+ * {@value TransferProperty#ASYNC_ENABLED}.
+ * <p>
+ * A client opts in per request with the preference {@code respond-async} of the header {@code Prefer} (RFC 7240) on
+ * {@code POST /transfer}, alone or among other preferences: the transfer is queued (see {@link AsyncTransferService})
+ * and the response is sent without waiting for its execution. The requests without this preference are executed
+ * synchronously by {@link TransferController}.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = TransferProperty.ASYNC_ENABLED, havingValue = "true")
+public class AsyncTransferController {
+
+    public static final String PREFER_HEADER = PreferRequestCondition.PREFER_HEADER;
+    public static final String RESPOND_ASYNC_PREFERENCE = "respond-async";
+    static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+    private static final String TRANSFER_STATUS_PATH = "/transfer/";
+
+    private final AsyncTransferService service;
+    private final Clock clock;
+
+    /**
+     * Accepts a transfer to be executed asynchronously. The transfer is validated then queued, and its status can be
+     * polled with {@link #getTransfer(UUID)}.
+     *
+     * @param request        the fund transfer request.
+     * @param idempotencyKey the idempotency key of the transfer, optional.
+     * @param requestId      the identifier of the request chosen by the client, used as idempotency key if there is
+     *                       none.
+     * @return a response with the identifier of the accepted transfer.
+     */
+    @Operation(description = "Accepts a fund transfer to be executed asynchronously, with the header `Prefer: " +
+            "respond-async`.", responses =
+            {
+                    @ApiResponse(responseCode = "202", description = "Transfer accepted, its status can be polled " +
+                            "at the URI of the header Location.",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = SubmittedTransferApiResponse.class))}),
+
+                    @ApiResponse(responseCode = "400", description = "Invalid request.",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(example = "Invalid transfer amount: 0.00. The amount must be " +
+                                            "positive."))}),
+
+                    @ApiResponse(responseCode = "503", description = "Too many transfers are waiting to be " +
+                            "executed, the transfer can be submitted again after the delay of the header " +
+                            "Retry-After.",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(example = "Too many transfers are waiting to be executed " +
+                                            "(1000), please retry later."))})
+            })
+    @PostMapping("/transfer")
+    @RequiresPreference(RESPOND_ASYNC_PREFERENCE)
+    public ResponseEntity<SubmittedTransferApiResponse> submitTransfer(
+            @RequestBody TransferApiRequest request,
+            @Parameter(description = TransferController.IDEMPOTENCY_KEY_DESCRIPTION)
+            @RequestHeader(name = TransferController.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Parameter(hidden = true)
+            @RequestHeader(name = MdcFilter.REQUEST_ID_HEADER, required = false) String requestId) {
+        log.info("Asynchronous transfer request: {}", request);
+
+        final var transfer = submit(request, TransferController.getIdempotencyKey(idempotencyKey, requestId));
+
+        return ResponseEntity.accepted()
+                .location(URI.create(TRANSFER_STATUS_PATH + transfer.id()))
+                .header(PREFERENCE_APPLIED_HEADER, RESPOND_ASYNC_PREFERENCE)
+                .body(toApiResponse(transfer));
+    }
+
+    /**
+     * Gets the status of a transfer accepted with {@link #submitTransfer(TransferApiRequest, String, String)}.
+     *
+     * @param transferId the identifier of the transfer.
+     * @return a response with the status of the transfer.
+     */
+    @Operation(description = "Gets the status of a fund transfer executed asynchronously.", responses =
+            {
+                    @ApiResponse(responseCode = "200", description = "Status of the transfer.",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = SubmittedTransferApiResponse.class))}),
+
+                    @ApiResponse(responseCode = "404", description = "Unknown transfer, or its status expired.",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(example = "No transfer found with the identifier XYZ."))})
+            })
+    @GetMapping("/transfer/{transferId}")
+    public ResponseEntity<SubmittedTransferApiResponse> getTransfer(@PathVariable UUID transferId) {
+        return service.getStatus(transferId)
+                .map(this::toApiResponse)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        String.format("No transfer found with the identifier %s.", transferId)));
+    }
+
+    private SubmittedTransfer submit(TransferApiRequest request, Optional<String> idempotencyKey) {
+        try {
+            return service.submit(TransferController.toServiceRequest(request), idempotencyKey);
+
+        } catch (IllegalTransferException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage(), exception);
+
+        } catch (TransferQueueFullException exception) {
+            throw new ServiceUnavailableException(exception.getMessage(), exception.getRetryAfter(), exception);
+        }
+    }
+
+    private SubmittedTransferApiResponse toApiResponse(SubmittedTransfer transfer) {
+        return SubmittedTransferApiResponse.builder()
+                .transferId(transfer.id())
+                .request(toApiRequest(transfer.request()))
+                .status(transfer.status())
+                .message(transfer.message())
+                .submittedAt(toLocalDateTime(transfer.submittedAt()))
+                .completedAt(transfer.completedAt() == null ? null : toLocalDateTime(transfer.completedAt()))
+                .build();
+    }
+
+    private TransferApiRequest toApiRequest(TransferRequest request) {
+        return TransferApiRequest.builder()
+                .fromAccount(request.fromAccountId())
+                .toAccount(request.toAccountId())
+                .amount(request.amount())
+                .build();
+    }
+
+    private LocalDateTime toLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, clock.getZone());
+    }
+}
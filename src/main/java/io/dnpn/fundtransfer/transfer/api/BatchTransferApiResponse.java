@@ -0,0 +1,23 @@
+package io.dnpn.fundtransfer.transfer.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.NonNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response for a batch of fund transfers. It contains the result of each transfer, in the order of the request.
+ *
+ * @param results   the result of each transfer.
+ * @param timestamp the timestamp when the operation was performed.
+ */
+@Builder
+public record BatchTransferApiResponse(
+        @JsonProperty(TransferApiField.RESULTS)
+        @NonNull List<BatchTransferApiResult> results,
+
+        @JsonProperty(TransferApiField.TIMESTAMP)
+        @NonNull LocalDateTime timestamp) {
+}
@@ -0,0 +1,28 @@
+package io.dnpn.fundtransfer.transfer.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dnpn.fundtransfer.transfer.service.TransferStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.NonNull;
+
+/**
+ * Result of a single fund transfer executed as part of a batch.
+ *
+ * @param request the fund transfer request.
+ * @param status  the outcome of the transfer.
+ * @param message a message detailing the outcome.
+ */
+@Builder
+public record BatchTransferApiResult(
+        @JsonProperty(TransferApiField.REQUEST)
+        @NonNull TransferApiRequest request,
+
+        @Schema(example = "SUCCEEDED")
+        @JsonProperty(TransferApiField.STATUS)
+        @NonNull TransferStatus status,
+
+        @Schema(example = TransferController.SUCCESSFUL_TRANSFER_MESSAGE)
+        @JsonProperty(TransferApiField.MESSAGE)
+        @NonNull String message) {
+}
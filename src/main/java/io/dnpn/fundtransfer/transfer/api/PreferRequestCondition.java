@@ -0,0 +1,104 @@
+package io.dnpn.fundtransfer.transfer.api;
+
+import lombok.NonNull;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.mvc.condition.AbstractRequestCondition;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Set;
+
+/**
+ * Matches the requests expressing a preference in their header {@code Prefer}. Under RFC 7240, the header is a
+ * comma-separated list of preferences, each with an optional value and parameters (e.g. {@code Prefer: wait=10,
+ * respond-async; foo=bar}), possibly split over several header lines, so the header cannot be matched as a whole.
+ */
+class PreferRequestCondition extends AbstractRequestCondition<PreferRequestCondition> {
+
+    static final String PREFER_HEADER = "Prefer";
+
+    private final String preference;
+
+    PreferRequestCondition(@NonNull String preference) {
+        this.preference = preference;
+    }
+
+    /**
+     * Returns the condition of the method, more specific than the one of the type.
+     */
+    @Override
+    public PreferRequestCondition combine(@NonNull PreferRequestCondition other) {
+        return other;
+    }
+
+    @Override
+    public PreferRequestCondition getMatchingCondition(@NonNull HttpServletRequest request) {
+        if (CorsUtils.isPreFlightRequest(request)) {
+            return this;
+        }
+        return hasPreference(request.getHeaders(PREFER_HEADER), preference) ? this : null;
+    }
+
+    @Override
+    public int compareTo(@NonNull PreferRequestCondition other, @NonNull HttpServletRequest request) {
+        return 0;
+    }
+
+    @Override
+    protected Set<String> getContent() {
+        return Set.of(preference);
+    }
+
+    @Override
+    protected String getToStringInfix() {
+        return " && ";
+    }
+
+    /**
+     * Whether one of the values of the header {@code Prefer} contains the preference. The names of the preferences
+     * are case-insensitive, and the commas inside a quoted value do not separate preferences.
+     *
+     * @param headerValues the values of the header, null if the request has none.
+     * @param preference   the name of the preference.
+     * @return true if the preference is found.
+     */
+    static boolean hasPreference(Enumeration<String> headerValues, @NonNull String preference) {
+        if (headerValues == null) {
+            return false;
+        }
+        for (var headerValue : Collections.list(headerValues)) {
+            var inQuotes = false;
+            var preferenceStart = 0;
+            for (int index = 0; index <= headerValue.length(); index++) {
+                final var atEnd = index == headerValue.length();
+                final var character = atEnd ? ',' : headerValue.charAt(index);
+                if (character == '"') {
+                    inQuotes = !inQuotes;
+                } else if (character == '\\' && inQuotes) {
+                    index++;
+                } else if (character == ',' && (!inQuotes || atEnd)) {
+                    if (preferenceName(headerValue.substring(preferenceStart, index)).equalsIgnoreCase(preference)) {
+                        return true;
+                    }
+                    preferenceStart = index + 1;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the name of a preference, before its value and its parameters.
+     */
+    private static String preferenceName(String preference) {
+        var end = preference.length();
+        for (var separator : new char[]{'=', ';'}) {
+            final var separatorIndex = preference.indexOf(separator);
+            if (separatorIndex >= 0 && separatorIndex < end) {
+                end = separatorIndex;
+            }
+        }
+        return preference.substring(0, end).trim();
+    }
+}
@@ -0,0 +1,30 @@
+package io.dnpn.fundtransfer.transfer.api;
+
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+
+/**
+ * Maps the handler methods annotated with {@link RequiresPreference} only to the requests expressing the preference
+ * (see {@link PreferRequestCondition}).
+ */
+@Configuration
+public class PreferenceMappingConfiguration implements WebMvcRegistrations {
+
+    @Override
+    public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+        return new PreferenceHandlerMapping();
+    }
+
+    static class PreferenceHandlerMapping extends RequestMappingHandlerMapping {
+
+        @Override
+        protected RequestCondition<?> getCustomMethodCondition(Method method) {
+            final var requiredPreference = method.getAnnotation(RequiresPreference.class);
+            return requiredPreference == null ? null : new PreferRequestCondition(requiredPreference.value());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.dnpn.fundtransfer.transfer.api;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts a handler method to the requests expressing a preference in their header {@code Prefer} (RFC 7240),
+ * whatever the other preferences of the header. The requests without the preference are handled by the other methods
+ * mapped to the same path, if any.
+ *
+ * @see PreferRequestCondition
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@interface RequiresPreference {
+
+    /**
+     * The name of the preference, e.g. {@code respond-async}.
+     */
+    String value();
+}
@@ -0,0 +1,47 @@
+package io.dnpn.fundtransfer.transfer.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dnpn.fundtransfer.transfer.service.TransferStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.NonNull;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Response for a fund transfer executed asynchronously. It is returned when the transfer is accepted, then when its
+ * status is polled.
+ *
+ * @param transferId  the identifier of the transfer, to poll its status.
+ * @param request     the fund transfer request.
+ * @param status      the status of the transfer.
+ * @param message     a message detailing the outcome, absent while the transfer is pending.
+ * @param submittedAt the timestamp when the transfer was accepted.
+ * @param completedAt the timestamp when the execution completed, absent while the transfer is pending.
+ */
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SubmittedTransferApiResponse(
+        @Schema(example = "0f8fad5b-d9cb-469f-a165-70867728950e")
+        @JsonProperty(TransferApiField.TRANSFER_ID)
+        @NonNull UUID transferId,
+
+        @JsonProperty(TransferApiField.REQUEST)
+        @NonNull TransferApiRequest request,
+
+        @Schema(example = "PENDING")
+        @JsonProperty(TransferApiField.STATUS)
+        @NonNull TransferStatus status,
+
+        @Schema(example = TransferController.SUCCESSFUL_TRANSFER_MESSAGE)
+        @JsonProperty(TransferApiField.MESSAGE)
+        String message,
+
+        @JsonProperty(TransferApiField.SUBMITTED_AT)
+        @NonNull LocalDateTime submittedAt,
+
+        @JsonProperty(TransferApiField.COMPLETED_AT)
+        LocalDateTime completedAt) {
+}
@@ -1,7 +1,8 @@
 package io.dnpn.fundtransfer.transfer.api;
 
 /**
- * Field labels for {@link TransferApiRequest} and {@link TransferApiResponse}.
+ * Field labels for {@link TransferApiRequest}, {@link TransferApiResponse}, {@link BatchTransferApiResponse} and
+ * {@link SubmittedTransferApiResponse}.
  */
 public final class TransferApiField {
 
@@ -11,6 +12,11 @@ public final class TransferApiField {
     public static final String REQUEST = "request";
     public static final String TIMESTAMP = "timestamp";
     public static final String MESSAGE = "message";
+    public static final String STATUS = "status";
+    public static final String RESULTS = "results";
+    public static final String TRANSFER_ID = "transferId";
+    public static final String SUBMITTED_AT = "submittedAt";
+    public static final String COMPLETED_AT = "completedAt";
 
     private TransferApiField() {
 
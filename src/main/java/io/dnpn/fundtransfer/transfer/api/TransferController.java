@@ -1,11 +1,17 @@
 package io.dnpn.fundtransfer.transfer.api;
 
+import io.dnpn.fundtransfer.common.MdcFilter;
 import io.dnpn.fundtransfer.common.annotation.VisibleForTesting;
+import io.dnpn.fundtransfer.transfer.service.BatchTransferResult;
+import io.dnpn.fundtransfer.transfer.service.BatchTransferService;
+import io.dnpn.fundtransfer.transfer.service.IdempotentTransferService;
 import io.dnpn.fundtransfer.transfer.service.IllegalTransferException;
+import io.dnpn.fundtransfer.transfer.service.TransferConflictException;
 import io.dnpn.fundtransfer.transfer.service.TransferFailureException;
 import io.dnpn.fundtransfer.transfer.service.TransferRequest;
 import io.dnpn.fundtransfer.transfer.service.TransferService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,11 +21,16 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Controller allowing to transfer funds.
@@ -30,15 +41,27 @@ import java.time.LocalDateTime;
 public class TransferController {
 
     @VisibleForTesting
-    static final String SUCCESSFUL_TRANSFER_MESSAGE = "Transfer successful";
+    static final String SUCCESSFUL_TRANSFER_MESSAGE = TransferService.SUCCESSFUL_TRANSFER_MESSAGE;
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENCY_KEY_DESCRIPTION = "Key identifying the transfer across its retries, so it is " +
+            "executed only once.";
 
     private final TransferService service;
+    private final IdempotentTransferService idempotentService;
+    private final BatchTransferService batchService;
     private final Clock clock;
 
     /**
      * Transfers funds from one account to the other.
+     * <p>
+     * If the client identifies the transfer with the header {@value #IDEMPOTENCY_KEY_HEADER}, or else with the header
+     * {@value MdcFilter#REQUEST_ID_HEADER}, the transfer is executed at most once per key: the retries get the response
+     * of the original transfer, with its timestamp (see {@link IdempotentTransferService}).
      *
-     * @param request the fund transfer request.
+     * @param request        the fund transfer request.
+     * @param idempotencyKey the idempotency key of the transfer, optional.
+     * @param requestId      the identifier of the request chosen by the client, used as idempotency key if there is
+     *                       none.
      * @return a response indicating if the operation was successful.
      */
     @Operation(description = "Executes a fund transfer from one account to another.", responses =
@@ -49,23 +72,88 @@ public class TransferController {
 
                     @ApiResponse(responseCode = "400", description = "Invalid request.",
                             content = {@Content(mediaType = "application/json",
-                                    schema = @Schema(example = "No account found with the identifier XYZ."))})
+                                    schema = @Schema(example = "No account found with the identifier XYZ."))}),
+
+                    @ApiResponse(responseCode = "409", description = "Conflict with concurrent transfers, the " +
+                            "transfer can be retried.",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(example = "The transfer could not be completed because of " +
+                                            "concurrent transfers on the same accounts, please retry."))})
             })
     @PostMapping("/transfer")
-    public ResponseEntity<TransferApiResponse> transfer(@RequestBody TransferApiRequest request) {
+    public ResponseEntity<TransferApiResponse> transfer(
+            @RequestBody TransferApiRequest request,
+            @Parameter(description = IDEMPOTENCY_KEY_DESCRIPTION)
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Parameter(hidden = true)
+            @RequestHeader(name = MdcFilter.REQUEST_ID_HEADER, required = false) String requestId) {
         log.info("Transfer request: {}", request);
 
-        executeTransfer(request);
+        final var timestamp = executeTransfer(request, getIdempotencyKey(idempotencyKey, requestId));
 
         final var response = TransferApiResponse.builder()
                 .request(request)
-                .timestamp(LocalDateTime.now(clock))
+                .timestamp(timestamp)
                 .message(SUCCESSFUL_TRANSFER_MESSAGE)
                 .build();
         return ResponseEntity.ok(response);
     }
 
-    private TransferRequest toServiceRequest(TransferApiRequest apiRequest) {
+    /**
+     * Transfers funds for each request of the batch. A transfer being denied or failing does not prevent the other
+     * transfers of the batch from being executed, so the result of each transfer must be checked.
+     *
+     * @param requests the fund transfer requests.
+     * @return a response with the result of each transfer, in the order of the requests.
+     */
+    @Operation(description = "Executes a batch of fund transfers.", responses =
+            {
+                    @ApiResponse(responseCode = "200", description = "Batch executed, see the result of each transfer.",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BatchTransferApiResponse.class))}),
+
+                    @ApiResponse(responseCode = "400", description = "Invalid batch.",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(example = "Invalid batch of 20000 transfers: a batch cannot " +
+                                            "contain more than 10000 transfers."))})
+            })
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<BatchTransferApiResponse> transferBatch(@RequestBody List<TransferApiRequest> requests) {
+        log.info("Batch transfer request of {} transfers", requests.size());
+
+        final var results = executeBatch(requests);
+
+        final var apiResults = IntStream.range(0, requests.size())
+                .mapToObj(index -> toApiResult(requests.get(index), results.get(index)))
+                .toList();
+        final var response = BatchTransferApiResponse.builder()
+                .results(apiResults)
+                .timestamp(LocalDateTime.now(clock))
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    private List<BatchTransferResult> executeBatch(List<TransferApiRequest> requests) {
+        try {
+            final var serviceRequests = requests.stream()
+                    .map(TransferController::toServiceRequest)
+                    .toList();
+            return batchService.transfer(serviceRequests);
+
+        } catch (IllegalTransferException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage(), exception);
+        }
+    }
+
+    private BatchTransferApiResult toApiResult(TransferApiRequest apiRequest, BatchTransferResult result) {
+        return BatchTransferApiResult.builder()
+                .request(apiRequest)
+                .status(result.status())
+                .message(result.message())
+                .build();
+    }
+
+    static TransferRequest toServiceRequest(TransferApiRequest apiRequest) {
         return TransferRequest.builder()
                 .fromAccountId(apiRequest.fromAccount())
                 .toAccountId(apiRequest.toAccount())
@@ -73,14 +161,33 @@ public class TransferController {
                 .build();
     }
 
-    private void executeTransfer(TransferApiRequest request) {
+    static Optional<String> getIdempotencyKey(String idempotencyKey, String requestId) {
+        return Stream.of(idempotencyKey, requestId)
+                .filter(key -> key != null && !key.isBlank())
+                .findFirst();
+    }
+
+    /**
+     * Executes the transfer, only once per idempotency key if there is one.
+     *
+     * @return the time of the execution of the transfer.
+     */
+    private LocalDateTime executeTransfer(TransferApiRequest request, Optional<String> idempotencyKey) {
         try {
             final TransferRequest serviceRequest = toServiceRequest(request);
+            if (idempotencyKey.isPresent()) {
+                final var processedTransfer = idempotentService.transfer(idempotencyKey.get(), serviceRequest);
+                return LocalDateTime.ofInstant(processedTransfer.processedAt(), clock.getZone());
+            }
             service.transfer(serviceRequest);
+            return LocalDateTime.now(clock);
 
         } catch (IllegalTransferException exception) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage(), exception);
 
+        } catch (TransferConflictException exception) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, exception.getMessage(), exception);
+
         } catch (TransferFailureException exception) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, exception.getMessage(), exception);
         }
@@ -0,0 +1,172 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts transfers to be executed later by a pool of workers, so a burst of transfers is absorbed by a queue instead
+ * of holding a request thread and a database connection per transfer.
+ * <p>
+ * A submitted transfer is validated without accessing the database (amount, different accounts), then queued and
+ * identified by a random {@link UUID}; the client polls its status with {@link #getStatus(UUID)}. The workers execute
+ * the transfers with {@link TransferService}, or with {@link IdempotentTransferService} when the client gave an
+ * idempotency key. The queue is bounded by {@link TransferProperty#getAsyncQueueCapacity()}: when it is full the
+ * transfer is rejected and the client should submit it again later.
+ * <p>
+ * The queue and the statuses are kept in memory: the transfers still queued when the application stops are not
+ * executed, and their statuses are lost.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = TransferProperty.ASYNC_ENABLED, havingValue = "true")
+public class AsyncTransferService {
+
+    private static final String WORKER_THREAD_PREFIX = "transfer-worker-";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    static final String UNEXPECTED_FAILURE_MESSAGE = "The transfer failed unexpectedly, please retry.";
+
+    private final TransferService transferService;
+    private final IdempotentTransferService idempotentService;
+    private final Clock clock;
+    private final Duration retryAfter;
+    private final SubmittedTransferRegistry registry;
+    private final ThreadPoolExecutor executor;
+
+    AsyncTransferService(TransferService transferService, IdempotentTransferService idempotentService,
+                         TransferProperty transferProperty, Clock clock) {
+        this.transferService = transferService;
+        this.idempotentService = idempotentService;
+        this.clock = clock;
+        this.retryAfter = transferProperty.getAsyncRetryAfter();
+        this.registry = new SubmittedTransferRegistry(transferProperty.getAsyncStatusMaxSize(),
+                transferProperty.getAsyncStatusRetention(), clock);
+
+        final var workers = transferProperty.getAsyncWorkers();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(transferProperty.getAsyncQueueCapacity()),
+                new CustomizableThreadFactory(WORKER_THREAD_PREFIX), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Validates a transfer and queues it to be executed by a worker.
+     *
+     * @param request        the transfer request.
+     * @param idempotencyKey the key identifying the transfer across the retries of the client, optional.
+     * @return the accepted transfer, pending.
+     * @throws IllegalTransferException   if the requested transfer is invalid, or if it has an idempotency key which
+     *                                    cannot be honoured (see {@link IdempotentTransferService#assertAvailable()}).
+     * @throws TransferQueueFullException if too many transfers are waiting to be executed.
+     */
+    public SubmittedTransfer submit(@NonNull TransferRequest request, @NonNull Optional<String> idempotencyKey)
+            throws IllegalTransferException, TransferQueueFullException {
+        TransferValidation.toValidAmountInCents(request.amount());
+        TransferValidation.assertDifferentAccounts(request.fromAccountId(), request.toAccountId());
+        if (idempotencyKey.isPresent()) {
+            idempotentService.assertAvailable();
+        }
+
+        final var transfer = SubmittedTransfer.builder()
+                .id(UUID.randomUUID())
+                .request(request)
+                .status(TransferStatus.PENDING)
+                .submittedAt(clock.instant())
+                .build();
+        registry.put(transfer);
+
+        final var context = MDC.getCopyOfContextMap();
+        try {
+            executor.execute(() -> executeWithContext(transfer, idempotencyKey, context));
+
+        } catch (RejectedExecutionException exception) {
+            registry.remove(transfer.id());
+            final var message = String.format("Too many transfers are waiting to be executed (%d), please retry " +
+                    "later.", executor.getQueue().size());
+            throw new TransferQueueFullException(message, retryAfter);
+        }
+        log.debug("Transfer {} queued, {} transfers waiting for a worker.", transfer.id(), executor.getQueue().size());
+        return transfer;
+    }
+
+    /**
+     * Gets the status of a submitted transfer.
+     *
+     * @param id the identifier of the transfer.
+     * @return the transfer, or empty if it is unknown or its status expired.
+     */
+    public Optional<SubmittedTransfer> getStatus(@NonNull UUID id) {
+        return registry.get(id);
+    }
+
+    /**
+     * Stops the workers after the transfers being executed, and the queued ones if they complete in time.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            final var abandonedTransfers = executor.shutdownNow();
+            log.warn("{} queued transfers abandoned at shutdown.", abandonedTransfers.size());
+        }
+    }
+
+    /**
+     * Executes the transfer with the MDC of the request which submitted it, so its logs keep the request ID.
+     */
+    private void executeWithContext(SubmittedTransfer transfer, Optional<String> idempotencyKey,
+                                    Map<String, String> context) {
+        if (context != null) {
+            MDC.setContextMap(context);
+        }
+        try {
+            registry.put(execute(transfer, idempotencyKey));
+
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private SubmittedTransfer execute(SubmittedTransfer transfer, Optional<String> idempotencyKey) {
+        try {
+            if (idempotencyKey.isPresent()) {
+                idempotentService.transfer(idempotencyKey.get(), transfer.request());
+            } else {
+                transferService.transfer(transfer.request());
+            }
+            return complete(transfer, TransferStatus.SUCCEEDED, TransferService.SUCCESSFUL_TRANSFER_MESSAGE);
+
+        } catch (IllegalTransferException exception) {
+            return complete(transfer, TransferStatus.DENIED, exception.getMessage());
+
+        } catch (TransferFailureException exception) {
+            return complete(transfer, TransferStatus.FAILED, exception.getMessage());
+
+        } catch (RuntimeException exception) {
+            log.error("Unexpected failure of the transfer {}.", transfer.id(), exception);
+            return complete(transfer, TransferStatus.FAILED, UNEXPECTED_FAILURE_MESSAGE);
+        }
+    }
+
+    private SubmittedTransfer complete(SubmittedTransfer transfer, TransferStatus status, String message) {
+        log.debug("Transfer {} completed: {}", transfer.id(), status);
+        return transfer.toBuilder()
+                .status(status)
+                .message(message)
+                .completedAt(clock.instant())
+                .build();
+    }
+}
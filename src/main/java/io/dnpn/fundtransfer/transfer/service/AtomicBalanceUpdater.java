@@ -0,0 +1,84 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountDeltaRepository;
+import io.dnpn.fundtransfer.account.BalanceDelta;
+import io.dnpn.fundtransfer.account.HotAccountService;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.List;
+
+/**
+ * Applies each leg of the transfer with a single guarded delta statement, both statements being sent in one JDBC
+ * batch (see {@link AccountDeltaRepository}). There is no entity read, no dirty checking and no optimistic locking
+ * failure: the database serialises the updates of a same account and the debit only succeeds if the balance is
+ * sufficient at the time of the update.
+ * <p>
+ * The statements are sent in ascending account identifier order, so the row locks they take are acquired in the same
+ * order by every transfer and transfers in opposite directions cannot deadlock.
+ * <p>
+ * The credit of a hot account goes to one of its stripes instead (see {@link HotAccountService}), before the debit is
+ * applied: the stripes are always locked before the accounts.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+        name = TransferProperty.LOCKING,
+        havingValue = TransferProperty.ATOMIC_LOCKING
+)
+class AtomicBalanceUpdater implements BalanceUpdater {
+
+    private final AccountDeltaRepository deltaRepository;
+    private final HotAccountService hotAccountService;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the debit is rejected the whole transaction is rolled-back, so the credit sent in the same batch is undone.
+     */
+    @Override
+    @Transactional(rollbackOn = IllegalTransferException.class)
+    public void apply(@NonNull BalanceTransfer transfer) throws IllegalTransferException {
+        final var debit = BalanceDelta.builder()
+                .accountId(transfer.debitAccountId())
+                .delta(transfer.debitedAmount().negate())
+                .build();
+        if (hotAccountService.credit(transfer.creditAccountId(), transfer.creditedAmount())) {
+            applyDebit(transfer, debit);
+            return;
+        }
+        final var credit = BalanceDelta.builder()
+                .accountId(transfer.creditAccountId())
+                .delta(transfer.creditedAmount())
+                .build();
+
+        final var isDebitFirst = transfer.debitAccountId() < transfer.creditAccountId();
+        final var deltas = isDebitFirst ? List.of(debit, credit) : List.of(credit, debit);
+
+        final var applied = deltaRepository.applyDeltas(deltas);
+
+        if (!applied[deltas.indexOf(debit)]) {
+            throw invalidDebit(transfer);
+        }
+        if (!applied[deltas.indexOf(credit)]) {
+            throw TransferValidation.accountNotFound(transfer.creditAccountId());
+        }
+    }
+
+    private void applyDebit(BalanceTransfer transfer, BalanceDelta debit) throws IllegalTransferException {
+        if (!deltaRepository.applyDeltas(List.of(debit))[0]) {
+            throw invalidDebit(transfer);
+        }
+    }
+
+    private static IllegalTransferException invalidDebit(BalanceTransfer transfer) {
+        final var message = String.format("Invalid transfer of %s from the account %d: the account does not exist " +
+                "or the amount exceeds the balance.", transfer.debitedAmount(), transfer.debitAccountId());
+        return new IllegalTransferException(message);
+    }
+}
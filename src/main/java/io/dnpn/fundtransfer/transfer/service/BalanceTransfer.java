@@ -0,0 +1,22 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.common.Money;
+import lombok.Builder;
+import lombok.NonNull;
+
+/**
+ * Balance mutation of a validated transfer, the amounts being already converted to the currency of each account.
+ *
+ * @param debitAccountId  account to be debited.
+ * @param debitedAmount   amount to be debited from the debit account, in its currency.
+ * @param creditAccountId account to be credited.
+ * @param creditedAmount  amount to be credited to the credit account, in its currency.
+ */
+@Builder(toBuilder = true)
+record BalanceTransfer(
+        long debitAccountId,
+        @NonNull Money debitedAmount,
+        long creditAccountId,
+        @NonNull Money creditedAmount
+) {
+}
@@ -0,0 +1,29 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.NonNull;
+
+/**
+ * Strategy used by {@link TransferService} to persist the new balances of the accounts involved in a transfer. The
+ * implementation is chosen with the property {@link TransferProperty#LOCKING}.
+ */
+interface BalanceUpdater {
+
+    /**
+     * Debits and credits the accounts. Implementations are transactional: either both accounts are updated or none.
+     *
+     * @param transfer the balance mutation to apply.
+     * @throws IllegalTransferException if an account does not exist or if the balance of the debit account is not
+     *                                  sufficient.
+     */
+    void apply(@NonNull BalanceTransfer transfer) throws IllegalTransferException;
+
+    /**
+     * Whether the balances in the database are the ones the transfers are checked against. If not, checking the
+     * balance before applying the transfer could reject a transfer which the updater would accept.
+     *
+     * @return true if the balances in the database are up-to-date.
+     */
+    default boolean isBalanceInDatabaseCurrent() {
+        return true;
+    }
+}
@@ -0,0 +1,19 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.Builder;
+import lombok.NonNull;
+
+/**
+ * Result of a single transfer executed as part of a batch.
+ *
+ * @param request the transfer request.
+ * @param status  the outcome of the transfer.
+ * @param message a message detailing the outcome.
+ */
+@Builder
+public record BatchTransferResult(
+        @NonNull TransferRequest request,
+        @NonNull TransferStatus status,
+        @NonNull String message
+) {
+}
@@ -0,0 +1,269 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionService;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service to perform a large number of fund transfers at once.
+ * <p>
+ * Compared to calling {@link TransferService} for each transfer:
+ * <ul>
+ *     <li>the accounts involved are loaded with a single query,</li>
+ *     <li>the exchange rate of each currency pair is retrieved once, before any transaction is opened, and the
+ *     lookups of the different pairs run concurrently,</li>
+ *     <li>the transfers are applied in a single transaction, or in one transaction per chunk if
+ *     {@link TransferProperty#getBatchChunkSize()} is smaller than the batch.</li>
+ * </ul>
+ * The transfers are applied in the order of the batch, so a transfer can use the funds credited by a previous one. A
+ * transfer being denied or failing does not prevent the other transfers of the batch from being executed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchTransferService {
+
+    static final String FAILED_CHUNK_MESSAGE = "The transfer could not be persisted, please retry.";
+
+    private final AccountService accountService;
+    private final CurrencyConversionService conversionService;
+    private final TransferProperty transferProperty;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Transfers funds for each request of the batch.
+     *
+     * @param requests the transfer requests.
+     * @return the result of each transfer, in the same order as the requests.
+     * @throws IllegalTransferException if the batch exceeds the maximum allowed size, or if the balances are kept in
+     *                                  the sharded in-memory ledger.
+     */
+    public List<BatchTransferResult> transfer(@NonNull List<TransferRequest> requests) throws IllegalTransferException {
+        assertBalancesInDatabase();
+        assertValidBatchSize(requests);
+
+        final var exchangeRates = resolveExchangeRates(requests);
+        final var chunkSize = transferProperty.getBatchChunkSize();
+        final var results = new ArrayList<BatchTransferResult>(requests.size());
+
+        for (int chunkStart = 0; chunkStart < requests.size(); chunkStart += chunkSize) {
+            final var chunkEnd = (int) Math.min((long) chunkStart + chunkSize, requests.size());
+            final var chunk = requests.subList(chunkStart, chunkEnd);
+            results.addAll(executeChunk(chunk, exchangeRates));
+        }
+
+        log.debug("Batch of {} transfers completed: {}", requests.size(), countByStatus(results));
+        return results;
+    }
+
+    /**
+     * The batches update the balances in the database directly, which would be overwritten by the sharded in-memory
+     * ledger (see {@link ShardedBalanceUpdater}).
+     */
+    private void assertBalancesInDatabase() throws IllegalTransferException {
+        if (transferProperty.isShardedLocking()) {
+            throw new IllegalTransferException("Batch transfers are not available with the sharded locking, please " +
+                    "submit the transfers one by one.");
+        }
+    }
+
+    private void assertValidBatchSize(List<TransferRequest> requests) throws IllegalTransferException {
+        final var maxSize = transferProperty.getBatchMaxSize();
+        if (requests.size() > maxSize) {
+            final var message = String.format("Invalid batch of %d transfers: a batch cannot contain more than %d " +
+                    "transfers.", requests.size(), maxSize);
+            throw new IllegalTransferException(message);
+        }
+    }
+
+    /**
+     * Retrieves the exchange rate of every currency pair involved in the batch. This is done before the transactions
+     * are opened so no database connection is held while waiting for the conversion service, and the lookups of the
+     * different pairs are all started before waiting for any of them.
+     */
+    private Map<CurrencyPair, ExchangeRateLookup> resolveExchangeRates(List<TransferRequest> requests) {
+        final var currencies = accountService.getByIds(getAccountIds(requests))
+                .stream()
+                .collect(Collectors.toMap(AccountEntity::getId, AccountEntity::getCurrency));
+
+        final var pendingLookups = requests.stream()
+                .filter(request -> currencies.containsKey(request.fromAccountId()))
+                .filter(request -> currencies.containsKey(request.toAccountId()))
+                .map(request -> new CurrencyPair(currencies.get(request.fromAccountId()),
+                        currencies.get(request.toAccountId())))
+                .distinct()
+                .collect(Collectors.toMap(Function.identity(), this::lookupExchangeRate));
+
+        return pendingLookups.entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().join()));
+    }
+
+    private CompletableFuture<ExchangeRateLookup> lookupExchangeRate(CurrencyPair pair) {
+        return conversionService.getExchangeRateAsync(pair.fromCurrency(), pair.toCurrency())
+                .handle((rate, failure) -> {
+                    if (failure != null) {
+                        final var exception = toConversionException(pair, failure);
+                        log.error("Failed to retrieve the exchange rate from {} to {}.", pair.fromCurrency(),
+                                pair.toCurrency(), exception);
+                        return new ExchangeRateLookup(null, exception);
+                    }
+                    final var pinnedRate = PinnedExchangeRate.builder()
+                            .fromCurrency(pair.fromCurrency())
+                            .toCurrency(pair.toCurrency())
+                            .rate(rate)
+                            .build();
+                    return new ExchangeRateLookup(pinnedRate, null);
+                });
+    }
+
+    private CurrencyConversionException toConversionException(CurrencyPair pair, Throwable failure) {
+        final var cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause instanceof CurrencyConversionException exception) {
+            return exception;
+        }
+        final var message = String.format("Failed to retrieve the exchange rate from %s to %s.",
+                pair.fromCurrency(), pair.toCurrency());
+        return new CurrencyConversionException(message, cause);
+    }
+
+    private List<BatchTransferResult> executeChunk(List<TransferRequest> chunk,
+                                                   Map<CurrencyPair, ExchangeRateLookup> exchangeRates) {
+        final var results = new ArrayList<BatchTransferResult>(chunk.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyChunk(chunk, exchangeRates, results));
+            return results;
+
+        } catch (RuntimeException exception) {
+            log.error("Failed to persist a chunk of {} transfers, the chunk has been rolled-back.", chunk.size(),
+                    exception);
+            return markChunkAsFailed(chunk, results);
+        }
+    }
+
+    /**
+     * Marks as failed all the transfers of a rolled-back chunk, except the ones that were already denied or failed
+     * before the rollback.
+     */
+    private List<BatchTransferResult> markChunkAsFailed(List<TransferRequest> chunk, List<BatchTransferResult> results) {
+        final var failedResults = new ArrayList<BatchTransferResult>(chunk.size());
+        for (int index = 0; index < chunk.size(); index++) {
+            final var isResultKept = index < results.size()
+                    && results.get(index).status() != TransferStatus.SUCCEEDED;
+            failedResults.add(isResultKept
+                    ? results.get(index)
+                    : buildResult(chunk.get(index), TransferStatus.FAILED, FAILED_CHUNK_MESSAGE));
+        }
+        return failedResults;
+    }
+
+    private void applyChunk(List<TransferRequest> chunk, Map<CurrencyPair, ExchangeRateLookup> exchangeRates,
+                            List<BatchTransferResult> results) {
+        final var accounts = accountService.getByIds(getAccountIds(chunk))
+                .stream()
+                .collect(Collectors.toMap(AccountEntity::getId, Function.identity()));
+        final var updatedAccounts = new LinkedHashMap<Long, AccountEntity>();
+
+        for (var request : chunk) {
+            results.add(applyTransfer(request, accounts, exchangeRates, updatedAccounts));
+        }
+        accountService.updateAll(updatedAccounts.values());
+    }
+
+    private BatchTransferResult applyTransfer(TransferRequest request, Map<Long, AccountEntity> accounts,
+                                              Map<CurrencyPair, ExchangeRateLookup> exchangeRates,
+                                              Map<Long, AccountEntity> updatedAccounts) {
+        try {
+            final var debitedAmountInCents = TransferValidation.toValidAmountInCents(request.amount());
+
+            final var debitAccount = getAccount(accounts, request.fromAccountId());
+            final var debitedAmount = Money.ofCents(debitedAmountInCents, debitAccount.getCurrency());
+            TransferValidation.assertSufficientBalance(debitAccount, debitedAmount);
+
+            final var creditAccount = getAccount(accounts, request.toAccountId());
+            TransferValidation.assertDifferentAccounts(debitAccount.getId(), creditAccount.getId());
+            final var creditedAmount = calculateCreditedAmount(debitAccount, creditAccount, debitedAmount,
+                    exchangeRates);
+
+            debitAccount.setBalance(debitAccount.getBalance().subtract(debitedAmount));
+            creditAccount.setBalance(creditAccount.getBalance().add(creditedAmount));
+            updatedAccounts.put(debitAccount.getId(), debitAccount);
+            updatedAccounts.put(creditAccount.getId(), creditAccount);
+            return buildResult(request, TransferStatus.SUCCEEDED, TransferService.SUCCESSFUL_TRANSFER_MESSAGE);
+
+        } catch (IllegalTransferException exception) {
+            return buildResult(request, TransferStatus.DENIED, exception.getMessage());
+
+        } catch (TransferFailureException exception) {
+            return buildResult(request, TransferStatus.FAILED, exception.getMessage());
+        }
+    }
+
+    private AccountEntity getAccount(Map<Long, AccountEntity> accounts, long accountId) throws IllegalTransferException {
+        return Optional.ofNullable(accounts.get(accountId))
+                .orElseThrow(() -> TransferValidation.accountNotFound(accountId));
+    }
+
+    private Money calculateCreditedAmount(AccountEntity debitAccount, AccountEntity creditAccount, Money debitedAmount,
+                                          Map<CurrencyPair, ExchangeRateLookup> exchangeRates)
+            throws TransferFailureException {
+        final var pair = new CurrencyPair(debitAccount.getCurrency(), creditAccount.getCurrency());
+        final var lookup = exchangeRates.get(pair);
+
+        if (lookup == null || lookup.rate() == null) {
+            final var message = String.format("Unsupported currency conversion from %s to %s.",
+                    pair.fromCurrency(), pair.toCurrency());
+            final var cause = lookup == null ? null : lookup.failure();
+            throw new TransferFailureException(message, cause);
+        }
+        return lookup.rate().convert(debitedAmount);
+    }
+
+    private Set<Long> getAccountIds(List<TransferRequest> requests) {
+        return requests.stream()
+                .flatMap(request -> Stream.of(request.fromAccountId(), request.toAccountId()))
+                .collect(Collectors.toSet());
+    }
+
+    private BatchTransferResult buildResult(TransferRequest request, TransferStatus status, String message) {
+        return BatchTransferResult.builder()
+                .request(request)
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private Map<TransferStatus, Long> countByStatus(List<BatchTransferResult> results) {
+        return results.stream()
+                .collect(Collectors.groupingBy(BatchTransferResult::status, Collectors.counting()));
+    }
+
+    private record CurrencyPair(Currency fromCurrency, Currency toCurrency) {
+    }
+
+    /**
+     * Result of an exchange rate lookup: either the rate or the failure explaining why it could not be retrieved.
+     */
+    private record ExchangeRateLookup(PinnedExchangeRate rate, CurrencyConversionException failure) {
+    }
+}
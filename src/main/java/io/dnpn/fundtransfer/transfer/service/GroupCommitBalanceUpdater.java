@@ -0,0 +1,313 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Commits the transfers received concurrently in a shared transaction ("group commit"), so they pay for a single
+ * commit instead of one each.
+ * <p>
+ * The transfers are queued and collected by a single committer thread: a group is committed once
+ * {@link TransferProperty#getGroupMaxSize()} transfers are collected, or once the linger window
+ * ({@link TransferProperty#getGroupLinger()}) following its first transfer is over. The accounts of the group are
+ * locked ({@code SELECT ... FOR UPDATE}) in ascending identifier order, then the transfers are validated against the
+ * locked balances and applied in memory in the order they were received, so a transfer can use the funds credited by a
+ * previous one. A denied transfer is left out of the group without affecting the others. If the transaction of the
+ * group fails, the group is split in two halves committed in turn, and a failing half is split again, so the failure
+ * is only reported to the transfers causing it after about log2(group size) failed transactions. The transfers not
+ * committed once {@link TransferProperty#getGroupRetryTimeout()} is over fail as conflicts, so the next groups do not
+ * wait for long behind a failing one.
+ * <p>
+ * Each caller waits until the transaction including its transfer is committed. A transfer applied in a transaction
+ * already open by the caller, such as the one recording its idempotency key (see {@link ProcessedTransferRecorder}),
+ * cannot be part of a group: it is applied in the transaction of the caller instead.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(
+        name = TransferProperty.LOCKING,
+        havingValue = TransferProperty.GROUP_LOCKING
+)
+class GroupCommitBalanceUpdater implements BalanceUpdater {
+
+    private static final long IDLE_POLL_MS = 100;
+    private static final long STOP_TIMEOUT_MS = 10_000;
+
+    private final AccountService accountService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration lockTimeout;
+    private final Duration linger;
+    private final int maxGroupSize;
+    private final Duration retryTimeout;
+    private final BlockingQueue<PendingTransfer> pendingTransfers;
+    private final Thread committer;
+
+    private volatile boolean running = true;
+
+    GroupCommitBalanceUpdater(@NonNull AccountService accountService, @NonNull TransactionTemplate transactionTemplate,
+                              @NonNull TransferProperty transferProperty) {
+        this.accountService = accountService;
+        this.transactionTemplate = transactionTemplate;
+        this.lockTimeout = transferProperty.getLockTimeout();
+        this.linger = transferProperty.getGroupLinger();
+        this.maxGroupSize = transferProperty.getGroupMaxSize();
+        this.retryTimeout = transferProperty.getGroupRetryTimeout();
+        this.pendingTransfers = new ArrayBlockingQueue<>(transferProperty.getGroupQueueCapacity());
+        this.committer = new Thread(this::run, "group-commit");
+        committer.start();
+        log.info("Group commit started with groups of up to {} transfers and a linger window of {} ms", maxGroupSize,
+                linger.toMillis());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When the queue of the group commit is full, the transfer fails with a {@link ConcurrencyFailureException} so it
+     * is retried as any other conflict.
+     */
+    @Override
+    public void apply(@NonNull BalanceTransfer transfer) throws IllegalTransferException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            final var denial = applyGroup(List.of(transfer)).get(0);
+            if (denial.isPresent()) {
+                throw denial.get();
+            }
+            return;
+        }
+        await(submit(transfer));
+    }
+
+    /**
+     * Commits the transfers already submitted, then stops the committer thread.
+     */
+    @PreDestroy
+    void stop() {
+        running = false;
+        try {
+            committer.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        if (committer.isAlive()) {
+            log.warn("The group commit did not stop within {} ms.", STOP_TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * Gets the number of transfers waiting to be collected in a group.
+     *
+     * @return the number of queued transfers.
+     */
+    int getPendingCount() {
+        return pendingTransfers.size();
+    }
+
+    private CompletableFuture<Void> submit(BalanceTransfer transfer) {
+        if (!running) {
+            throw new IllegalStateException("The group commit is stopped.");
+        }
+        final var pendingTransfer = new PendingTransfer(transfer, new CompletableFuture<>());
+        if (!pendingTransfers.offer(pendingTransfer)) {
+            final var message = String.format("The group commit is overloaded: %d transfers are already waiting.",
+                    pendingTransfers.size());
+            throw new ConcurrencyFailureException(message);
+        }
+        return pendingTransfer.future();
+    }
+
+    private void run() {
+        log.debug("Group commit thread started");
+        final var group = new ArrayList<PendingTransfer>(maxGroupSize);
+        try {
+            while (running || !pendingTransfers.isEmpty()) {
+                collectGroup(group);
+                if (!group.isEmpty()) {
+                    commit(group);
+                    group.clear();
+                }
+            }
+
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            running = false;
+            final var failure = new IllegalStateException("The group commit has been interrupted.");
+            group.forEach(pendingTransfer -> pendingTransfer.future().completeExceptionally(failure));
+            pendingTransfers.forEach(pendingTransfer -> pendingTransfer.future().completeExceptionally(failure));
+        }
+        log.debug("Group commit thread stopped");
+    }
+
+    /**
+     * Waits for the first transfer of the group, then collects the transfers received until the group is full or the
+     * linger window is over.
+     */
+    private void collectGroup(List<PendingTransfer> group) throws InterruptedException {
+        final var first = pendingTransfers.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        group.add(first);
+
+        final var deadline = System.nanoTime() + linger.toNanos();
+        while (group.size() < maxGroupSize) {
+            final var remainingNanos = deadline - System.nanoTime();
+            final var next = remainingNanos > 0
+                    ? pendingTransfers.poll(remainingNanos, TimeUnit.NANOSECONDS)
+                    : pendingTransfers.poll();
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<PendingTransfer> group) {
+        try {
+            commitGroup(group);
+
+        } catch (RuntimeException exception) {
+            if (group.size() == 1) {
+                group.get(0).future().completeExceptionally(exception);
+                return;
+            }
+            log.warn("The group of {} transfers has been rolled-back, committing it again in halves: {}", group.size(),
+                    exception.getMessage());
+            commitHalves(group, System.nanoTime() + retryTimeout.toNanos());
+        }
+    }
+
+    /**
+     * Commits in turn the two halves of a rolled-back group, splitting again a half whose transaction fails. The
+     * transfers not committed by the deadline fail as conflicts.
+     */
+    private void commitHalves(List<PendingTransfer> group, long deadlineNanos) {
+        final var middle = group.size() / 2;
+        for (var half : List.of(group.subList(0, middle), group.subList(middle, group.size()))) {
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                final var failure = new ConcurrencyFailureException(String.format("The group commit could not " +
+                        "isolate the failure of a group within %d ms.", retryTimeout.toMillis()));
+                half.forEach(pendingTransfer -> pendingTransfer.future().completeExceptionally(failure));
+                continue;
+            }
+            try {
+                commitGroup(half);
+
+            } catch (RuntimeException exception) {
+                if (half.size() == 1) {
+                    half.get(0).future().completeExceptionally(exception);
+                } else {
+                    commitHalves(half, deadlineNanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Commits the transfers in one transaction and completes them.
+     *
+     * @throws RuntimeException if the transaction failed, the transfers are not completed.
+     */
+    private void commitGroup(List<PendingTransfer> group) {
+        final var transfers = group.stream()
+                .map(PendingTransfer::transfer)
+                .toList();
+        final var denials = transactionTemplate.execute(status -> applyGroup(transfers));
+
+        for (int index = 0; index < group.size(); index++) {
+            final var future = group.get(index).future();
+            denials.get(index).ifPresentOrElse(future::completeExceptionally, () -> future.complete(null));
+        }
+        log.debug("Group of {} transfers committed", group.size());
+    }
+
+    /**
+     * Locks the accounts of the transfers, applies every valid transfer in memory, then saves the updated accounts.
+     *
+     * @return for each transfer, the reason why it was denied, or empty if it was applied.
+     */
+    private List<Optional<IllegalTransferException>> applyGroup(List<BalanceTransfer> transfers) {
+        final var accountIds = transfers.stream()
+                .flatMap(transfer -> Stream.of(transfer.debitAccountId(), transfer.creditAccountId()))
+                .distinct()
+                .sorted()
+                .toList();
+        final var accounts = accountService.lockByIds(accountIds, lockTimeout)
+                .stream()
+                .collect(Collectors.toMap(AccountEntity::getId, Function.identity()));
+        final var updatedAccounts = new LinkedHashMap<Long, AccountEntity>();
+
+        final var denials = new ArrayList<Optional<IllegalTransferException>>(transfers.size());
+        for (var transfer : transfers) {
+            try {
+                applyTransfer(transfer, accounts, updatedAccounts);
+                denials.add(Optional.empty());
+
+            } catch (IllegalTransferException exception) {
+                denials.add(Optional.of(exception));
+            }
+        }
+        accountService.updateAll(updatedAccounts.values());
+        return denials;
+    }
+
+    private void applyTransfer(BalanceTransfer transfer, Map<Long, AccountEntity> accounts,
+                               Map<Long, AccountEntity> updatedAccounts) throws IllegalTransferException {
+        final var debitAccount = getAccount(accounts, transfer.debitAccountId());
+        final var creditAccount = getAccount(accounts, transfer.creditAccountId());
+        TransferValidation.assertSufficientBalance(debitAccount, transfer.debitedAmount());
+
+        debitAccount.setBalance(debitAccount.getBalance().subtract(transfer.debitedAmount()));
+        creditAccount.setBalance(creditAccount.getBalance().add(transfer.creditedAmount()));
+        updatedAccounts.put(debitAccount.getId(), debitAccount);
+        updatedAccounts.put(creditAccount.getId(), creditAccount);
+    }
+
+    private AccountEntity getAccount(Map<Long, AccountEntity> accounts, long accountId) throws IllegalTransferException {
+        return Optional.ofNullable(accounts.get(accountId))
+                .orElseThrow(() -> TransferValidation.accountNotFound(accountId));
+    }
+
+    private static void await(CompletableFuture<Void> future) throws IllegalTransferException {
+        try {
+            future.join();
+
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof IllegalTransferException illegalTransferException) {
+                throw illegalTransferException;
+            }
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Transfer waiting for the group commit, and the future completed once it is committed or denied.
+     */
+    private record PendingTransfer(BalanceTransfer transfer, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,183 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Executes a transfer at most once per idempotency key, so a client retrying a transfer (after a timeout for example)
+ * gets the result of the original execution instead of moving the money twice.
+ * <p>
+ * The key is looked up, in this order:
+ * <ul>
+ *     <li>in the {@link ProcessedTransferCache}, for the recent transfers,</li>
+ *     <li>among the transfers in flight in this instance: a duplicate received while the first execution is still
+ *     running waits for its outcome, success or failure, instead of starting a second execution,</li>
+ *     <li>in the database, where the key of a successful transfer is inserted in the same transaction as the balance
+ *     updates (see {@link ProcessedTransferRecorder}). This covers the restarts and the other instances of the
+ *     application; if two instances execute the same key concurrently, only one of them commits.</li>
+ * </ul>
+ * Only the successful transfers are recorded: a denied or failed transfer did not move any money, so its retry is
+ * executed again. The keys are deleted from the database {@link TransferProperty#getIdempotencyRetention()} after the
+ * transfer.
+ * <p>
+ * The idempotency keys are not available with the sharded in-memory ledger: its balance changes are applied in memory
+ * and saved to the database later, so they cannot be committed in the same transaction as the key.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotentTransferService {
+
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    private final TransferService transferService;
+    private final ProcessedTransferRepository repository;
+    private final ProcessedTransferCache cache;
+    private final TransferProperty transferProperty;
+    private final Clock clock;
+    private final Map<String, CompletableFuture<ProcessedTransfer>> inFlightTransfers = new ConcurrentHashMap<>();
+
+    /**
+     * Transfers funds from one account to another, unless a transfer was already processed with the same key.
+     *
+     * @param idempotencyKey the key identifying the transfer across the retries of the client.
+     * @param request        the transfer request.
+     * @return the transfer processed under the key, by this call or by a previous one.
+     * @throws IllegalTransferException if the key is invalid or was used for another request, if the requested
+     *                                  transfer is invalid, or if the balances are kept in the sharded in-memory
+     *                                  ledger.
+     * @throws TransferFailureException if the requested transfer is valid but the execution failed.
+     */
+    public ProcessedTransfer transfer(@NonNull String idempotencyKey, @NonNull TransferRequest request)
+            throws IllegalTransferException, TransferFailureException {
+        assertAvailable();
+        assertValidKey(idempotencyKey);
+
+        final var cachedTransfer = cache.get(idempotencyKey);
+        if (cachedTransfer.isPresent()) {
+            log.debug("Transfer with the idempotency key {} already processed.", idempotencyKey);
+            return assertSameRequest(cachedTransfer.get(), request);
+        }
+
+        final var execution = new CompletableFuture<ProcessedTransfer>();
+        final var inFlightExecution = inFlightTransfers.putIfAbsent(idempotencyKey, execution);
+        if (inFlightExecution != null) {
+            log.debug("Waiting for the in-flight transfer with the idempotency key {}.", idempotencyKey);
+            return assertSameRequest(waitFor(inFlightExecution), request);
+        }
+
+        try {
+            final var processedTransfer = execute(idempotencyKey, request);
+            cache.put(processedTransfer);
+            execution.complete(processedTransfer);
+            return assertSameRequest(processedTransfer, request);
+
+        } catch (IllegalTransferException | TransferFailureException | RuntimeException exception) {
+            execution.completeExceptionally(exception);
+            throw exception;
+
+        } finally {
+            inFlightTransfers.remove(idempotencyKey, execution);
+        }
+    }
+
+    /**
+     * Deletes the idempotency keys older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${" + TransferProperty.IDEMPOTENCY_PURGE_INTERVAL + ":"
+            + TransferProperty.DEFAULT_IDEMPOTENCY_PURGE_INTERVAL_MS + "}")
+    void purgeExpiredKeys() {
+        final var threshold = clock.instant().minus(transferProperty.getIdempotencyRetention());
+        final var deletedKeys = repository.deleteProcessedBefore(threshold);
+        log.debug("{} idempotency keys of transfers processed before {} deleted.", deletedKeys, threshold);
+    }
+
+    /**
+     * Checks that the idempotency keys can be honoured. With the sharded in-memory ledger (see
+     * {@link ShardedBalanceUpdater}), the key would be committed independently of the balance changes: a failed
+     * insert of the key would let a retry move the money twice, and a crash before the balances are saved would leave
+     * a key recorded for a transfer that never reached the database.
+     *
+     * @throws IllegalTransferException if the balances are kept in the sharded in-memory ledger.
+     */
+    void assertAvailable() throws IllegalTransferException {
+        if (transferProperty.isShardedLocking()) {
+            throw new IllegalTransferException("Idempotency keys are not available with the sharded locking, please " +
+                    "submit the transfer without an Idempotency-Key or Request-Id header.");
+        }
+    }
+
+    private ProcessedTransfer execute(String idempotencyKey, TransferRequest request)
+            throws IllegalTransferException, TransferFailureException {
+        final var recordedTransfer = repository.findById(idempotencyKey);
+        if (recordedTransfer.isPresent()) {
+            log.debug("Transfer with the idempotency key {} already processed.", idempotencyKey);
+            return recordedTransfer.get().toProcessedTransfer();
+        }
+
+        final var processedTransfer = ProcessedTransfer.builder()
+                .idempotencyKey(idempotencyKey)
+                .request(request)
+                .processedAt(clock.instant())
+                .build();
+        try {
+            transferService.transfer(request, processedTransfer);
+            return processedTransfer;
+
+        } catch (DataIntegrityViolationException exception) {
+            // The key was recorded concurrently by another instance, and this execution has been rolled-back
+            log.info("Transfer with the idempotency key {} processed concurrently.", idempotencyKey);
+            return repository.findById(idempotencyKey)
+                    .map(ProcessedTransferEntity::toProcessedTransfer)
+                    .orElseThrow(() -> exception);
+        }
+    }
+
+    private ProcessedTransfer waitFor(CompletableFuture<ProcessedTransfer> execution)
+            throws IllegalTransferException, TransferFailureException {
+        try {
+            return execution.join();
+
+        } catch (CompletionException exception) {
+            final var cause = exception.getCause();
+            if (cause instanceof IllegalTransferException illegalTransferException) {
+                throw illegalTransferException;
+            }
+            if (cause instanceof TransferFailureException transferFailureException) {
+                throw transferFailureException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw exception;
+        }
+    }
+
+    private static void assertValidKey(String idempotencyKey) throws IllegalTransferException {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            final var message = String.format("Invalid idempotency key: it must not be blank and have at most %d " +
+                    "characters.", MAX_IDEMPOTENCY_KEY_LENGTH);
+            throw new IllegalTransferException(message);
+        }
+    }
+
+    private static ProcessedTransfer assertSameRequest(ProcessedTransfer processedTransfer, TransferRequest request)
+            throws IllegalTransferException {
+        if (!processedTransfer.isSameRequest(request)) {
+            final var message = String.format("The idempotency key %s was already used for another transfer.",
+                    processedTransfer.idempotencyKey());
+            throw new IllegalTransferException(message);
+        }
+        return processedTransfer;
+    }
+}
@@ -0,0 +1,21 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+/**
+ * When the records of the {@link TransferJournal} are forced to the storage device.
+ */
+public enum JournalFsyncPolicy {
+    /**
+     * A transfer is acknowledged once its record is on the storage device. The transfers waiting at the same time share
+     * a single fsync (group commit).
+     */
+    ALWAYS,
+    /**
+     * The records are forced periodically: the transfers acknowledged since the last fsync can be lost on a power
+     * failure, but not if only the application crashes.
+     */
+    INTERVAL,
+    /**
+     * The records are written back by the operating system whenever it decides to.
+     */
+    NEVER
+}
@@ -0,0 +1,106 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountDeltaRepository;
+import io.dnpn.fundtransfer.account.BalanceDelta;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Write-behind journal of the balance changes made by the {@link LedgerShard}s, periodically flushed to the database.
+ * <p>
+ * The deltas of a flush are merged per account and applied in a single transaction with the guarded statements of the
+ * {@link AccountDeltaRepository}, in ascending account identifier order. Merging is safe because an account is only
+ * updated by the shard owning it: its deltas are appended in the order they were applied in memory, so the merged
+ * delta brings the balance in the database to a balance the account really had, which is never negative. If the
+ * transaction fails, the merged deltas are kept and retried with the next flush.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+        name = TransferProperty.LOCKING,
+        havingValue = TransferProperty.SHARDED_LOCKING
+)
+class LedgerJournal {
+
+    private final AccountDeltaRepository deltaRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Queue<BalanceDelta> appendedDeltas = new ConcurrentLinkedQueue<>();
+    /**
+     * Merged deltas drained from the queue but not saved yet, only accessed by the flushing thread.
+     */
+    private final Map<Long, BalanceDelta> pendingDeltas = new LinkedHashMap<>();
+
+    /**
+     * Records a balance change already applied in memory. Called by the shard threads, does not block.
+     *
+     * @param delta the change of the balance.
+     */
+    void append(@NonNull BalanceDelta delta) {
+        appendedDeltas.add(delta);
+    }
+
+    /**
+     * Saves the deltas appended since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${" + TransferProperty.SHARDED_FLUSH_INTERVAL + ":"
+            + TransferProperty.DEFAULT_SHARDED_FLUSH_INTERVAL_MS + "}")
+    @PreDestroy
+    synchronized void flush() {
+        BalanceDelta delta;
+        while ((delta = appendedDeltas.poll()) != null) {
+            pendingDeltas.merge(delta.accountId(), delta, (previous, next) -> BalanceDelta.builder()
+                    .accountId(previous.accountId())
+                    .delta(previous.delta().add(next.delta()))
+                    .build());
+        }
+        final var deltas = new ArrayList<BalanceDelta>(pendingDeltas.size());
+        pendingDeltas.values().stream()
+                .filter(merged -> merged.delta().amountInCents() != 0)
+                .sorted(Comparator.comparingLong(BalanceDelta::accountId))
+                .forEach(deltas::add);
+        if (deltas.isEmpty()) {
+            pendingDeltas.clear();
+            return;
+        }
+
+        try {
+            final var applied = transactionTemplate.execute(status -> deltaRepository.applyDeltas(deltas));
+            pendingDeltas.clear();
+            for (int index = 0; index < deltas.size(); index++) {
+                if (applied == null || !applied[index]) {
+                    // The account has been deleted or updated by another writer: retrying would not help
+                    log.error("The ledger balance delta {} could not be saved and is dropped.", deltas.get(index));
+                }
+            }
+            log.debug("{} ledger balance deltas saved", deltas.size());
+
+        } catch (RuntimeException exception) {
+            log.warn("Failed to save {} ledger balance deltas, they will be retried: {}", deltas.size(),
+                    exception.getMessage());
+        }
+    }
+
+    /**
+     * Gets the number of deltas not saved yet, the deltas of a same account drained by a failed flush counting as one.
+     *
+     * @return an estimation of the number of deltas waiting to be saved.
+     */
+    synchronized int getPendingCount() {
+        return pendingDeltas.size() + appendedDeltas.size();
+    }
+}
@@ -0,0 +1,306 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.account.BalanceDelta;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.common.MpscRingBuffer;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Partition of the in-memory ledger, owning the balances of a subset of the accounts.
+ * <p>
+ * All the operations of the shard are executed by its own thread, in the order they were submitted, so the balances
+ * are updated without any lock. The operations are submitted by the request threads through a {@link MpscRingBuffer}:
+ * when the ring is full, the submitting thread waits for a free slot up to the submit timeout, then gives up with a
+ * {@link ConcurrencyFailureException} so the transfer is retried as any other conflict. The shard thread spins for a
+ * short while when there is nothing to do, then parks until an operation is submitted.
+ * <p>
+ * An account is loaded from the database the first time it is used and stays in memory afterwards. If the
+ * {@link TransferJournal} recovered the account at startup, its recovered balance is used instead, and the difference
+ * with the database is saved as a correction. Each change of a balance is appended to the {@link LedgerJournal} before
+ * the operation is reported as completed.
+ * <p>
+ * A transfer between two accounts of the shard is a single operation. A transfer between two shards reserves the
+ * debited amount on the shard of the debit account, credits the account of the other shard, and then either commits
+ * the reservation, or releases it if the credit failed: the reserved amount cannot be used by another transfer in the
+ * meantime, and the debit only reaches the journal once the credit has.
+ */
+@Slf4j
+class LedgerShard {
+
+    private static final int MAX_IDLE_SPINS = 1_000;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_RING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long STOP_TIMEOUT_MS = 10_000;
+
+    private final int index;
+    private final Duration submitTimeout;
+    private final AccountService accountService;
+    private final LedgerJournal journal;
+    private final TransferJournal transferJournal;
+    private final MpscRingBuffer<Runnable> operations;
+    private final Thread thread;
+    /**
+     * Balances of the accounts of the shard, only accessed by the shard thread.
+     */
+    private final Map<Long, LedgerAccount> accounts = new HashMap<>();
+
+    private volatile boolean running = true;
+    /**
+     * Whether the shard thread is about to park or parked, in which case the submitting thread has to wake it up.
+     */
+    private volatile boolean sleeping;
+
+    LedgerShard(int index, int ringBufferSize, @NonNull Duration submitTimeout, @NonNull AccountService accountService,
+                @NonNull LedgerJournal journal, @NonNull TransferJournal transferJournal) {
+        this.index = index;
+        this.submitTimeout = submitTimeout;
+        this.accountService = accountService;
+        this.journal = journal;
+        this.transferJournal = transferJournal;
+        this.operations = new MpscRingBuffer<>(ringBufferSize);
+        this.thread = new Thread(this::run, "ledger-shard-" + index);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Executes the operations already submitted, then stops the shard thread.
+     */
+    void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("The ledger shard {} did not stop within {} ms.", index, STOP_TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * Loads an account of the shard, if not loaded yet.
+     *
+     * @param accountId the account.
+     * @return the future completed once the account is loaded, or completed with an {@link IllegalTransferException}
+     * if the account does not exist.
+     */
+    CompletableFuture<Void> load(long accountId) {
+        return submit(() -> getAccount(accountId), true);
+    }
+
+    /**
+     * Debits and credits two accounts of the shard.
+     *
+     * @param transfer the balance mutation to apply.
+     * @return the future completed once both balances are updated, or completed with an
+     * {@link IllegalTransferException} if an account does not exist or if the balance of the debit account is not
+     * sufficient.
+     */
+    CompletableFuture<Void> transfer(@NonNull BalanceTransfer transfer) {
+        return submit(() -> {
+            final var debitAccount = getAccount(transfer.debitAccountId());
+            final var creditAccount = getAccount(transfer.creditAccountId());
+            debitAccount.assertAvailable(transfer.debitAccountId(), transfer.debitedAmount());
+            final var newCreditBalance = creditAccount.balance.add(transfer.creditedAmount());
+
+            debitAccount.balance = debitAccount.balance.subtract(transfer.debitedAmount());
+            creditAccount.balance = newCreditBalance;
+            appendToJournal(transfer.debitAccountId(), transfer.debitedAmount().negate());
+            appendToJournal(transfer.creditAccountId(), transfer.creditedAmount());
+        }, true);
+    }
+
+    /**
+     * Reserves an amount on an account of the shard, so it cannot be used by another transfer until it is committed
+     * or released.
+     *
+     * @param accountId the debit account.
+     * @param amount    the amount to reserve.
+     * @return the future completed once the amount is reserved, or completed with an {@link IllegalTransferException}
+     * if the account does not exist or if its available balance is not sufficient.
+     */
+    CompletableFuture<Void> reserve(long accountId, @NonNull Money amount) {
+        return submit(() -> {
+            final var account = getAccount(accountId);
+            account.assertAvailable(accountId, amount);
+            account.reserved = account.reserved.add(amount);
+        }, true);
+    }
+
+    /**
+     * Credits an account of the shard. As for {@link #commitReservation(long, Money)}, the operation waits for a free
+     * slot without any timeout: the transfer may already be recorded by the {@link TransferJournal}.
+     *
+     * @param accountId the credit account.
+     * @param amount    the amount to credit.
+     * @return the future completed once the account is credited, or completed with an
+     * {@link IllegalTransferException} if the account does not exist.
+     */
+    CompletableFuture<Void> credit(long accountId, @NonNull Money amount) {
+        return submit(() -> {
+            final var account = getAccount(accountId);
+            account.balance = account.balance.add(amount);
+            appendToJournal(accountId, amount);
+        }, false);
+    }
+
+    /**
+     * Debits an amount previously reserved. The operation waits for a free slot without any timeout, otherwise the
+     * amount would stay reserved forever.
+     *
+     * @param accountId the debit account.
+     * @param amount    the reserved amount.
+     * @return the future completed once the account is debited.
+     */
+    CompletableFuture<Void> commitReservation(long accountId, @NonNull Money amount) {
+        return submit(() -> {
+            final var account = getAccount(accountId);
+            account.reserved = account.reserved.subtract(amount);
+            account.balance = account.balance.subtract(amount);
+            appendToJournal(accountId, amount.negate());
+        }, false);
+    }
+
+    /**
+     * Makes an amount previously reserved available again. As for {@link #commitReservation(long, Money)}, the
+     * operation waits for a free slot without any timeout.
+     *
+     * @param accountId the debit account.
+     * @param amount    the reserved amount.
+     * @return the future completed once the amount is released.
+     */
+    CompletableFuture<Void> releaseReservation(long accountId, @NonNull Money amount) {
+        return submit(() -> {
+            final var account = getAccount(accountId);
+            account.reserved = account.reserved.subtract(amount);
+        }, false);
+    }
+
+    private CompletableFuture<Void> submit(LedgerOperation operation, boolean isTimeBound) {
+        if (!running) {
+            throw new IllegalStateException("The ledger shard " + index + " is stopped.");
+        }
+        final var future = new CompletableFuture<Void>();
+        final Runnable command = () -> {
+            try {
+                operation.apply();
+                future.complete(null);
+
+            } catch (IllegalTransferException | RuntimeException exception) {
+                future.completeExceptionally(exception);
+            }
+        };
+
+        final var deadline = System.nanoTime() + submitTimeout.toNanos();
+        while (!operations.offer(command)) {
+            if (isTimeBound && System.nanoTime() - deadline > 0) {
+                final var message = String.format("The ledger shard %d is overloaded: no free slot after %d ms.",
+                        index, submitTimeout.toMillis());
+                throw new ConcurrencyFailureException(message);
+            }
+            LockSupport.parkNanos(FULL_RING_PARK_NANOS);
+        }
+        // The element is published before the flag is read, and the shard thread sets the flag before checking
+        // whether the ring is empty: at least one of them sees the other one's write
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+        return future;
+    }
+
+    private void run() {
+        log.debug("Ledger shard {} started", index);
+        var idleSpins = 0;
+        while (running || !operations.isEmpty()) {
+            final var command = operations.poll();
+            if (command != null) {
+                command.run();
+                idleSpins = 0;
+
+            } else if (idleSpins < MAX_IDLE_SPINS) {
+                idleSpins++;
+                Thread.onSpinWait();
+
+            } else {
+                sleeping = true;
+                if (running && operations.isEmpty()) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+        log.debug("Ledger shard {} stopped with {} accounts", index, accounts.size());
+    }
+
+    private LedgerAccount getAccount(long accountId) throws IllegalTransferException {
+        var account = accounts.get(accountId);
+        if (account == null) {
+            final var entity = accountService.getById(accountId)
+                    .orElseThrow(() -> TransferValidation.accountNotFound(accountId));
+            final var balance = restoreBalance(accountId, entity.getBalance());
+            transferJournal.recordOpening(accountId, balance);
+            account = new LedgerAccount(balance);
+            accounts.put(accountId, account);
+        }
+        return account;
+    }
+
+    /**
+     * Gets the balance recovered by the transfer journal, and brings the database to it.
+     */
+    private Money restoreBalance(long accountId, Money balanceInDatabase) {
+        final var recoveredBalance = transferJournal.getRecoveredBalance(accountId);
+        if (recoveredBalance.isEmpty() || recoveredBalance.get().equals(balanceInDatabase)) {
+            return balanceInDatabase;
+        }
+        log.info("Balance of the account {} restored from the transfer journal: {} instead of {}", accountId,
+                recoveredBalance.get(), balanceInDatabase);
+        appendToJournal(accountId, recoveredBalance.get().subtract(balanceInDatabase));
+        return recoveredBalance.get();
+    }
+
+    private void appendToJournal(long accountId, Money delta) {
+        journal.append(BalanceDelta.builder()
+                .accountId(accountId)
+                .delta(delta)
+                .build());
+    }
+
+    @FunctionalInterface
+    private interface LedgerOperation {
+        void apply() throws IllegalTransferException;
+    }
+
+    /**
+     * Balance of an account as known by the shard, and the part of it reserved by the transfers in progress.
+     */
+    private static class LedgerAccount {
+        private Money balance;
+        private Money reserved;
+
+        LedgerAccount(Money balance) {
+            this.balance = balance;
+            this.reserved = Money.ofCents(0, balance.currency());
+        }
+
+        void assertAvailable(long accountId, Money amount) throws IllegalTransferException {
+            if (amount.isGreaterThan(balance.subtract(reserved))) {
+                throw TransferValidation.insufficientBalance(accountId, amount);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.account.HotAccountService;
+import io.dnpn.fundtransfer.common.Money;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+
+/**
+ * Loads the accounts, computes their new balance and saves them through JPA. Concurrent updates of the same account
+ * are detected thanks to the version of the {@link AccountEntity}.
+ * <p>
+ * The credit of a hot account goes to one of its stripes instead (see {@link HotAccountService}), so the transfers
+ * crediting the same hot account do not conflict with each other.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+        name = TransferProperty.LOCKING,
+        havingValue = TransferProperty.OPTIMISTIC_LOCKING,
+        matchIfMissing = true
+)
+class OptimisticBalanceUpdater implements BalanceUpdater {
+
+    private final AccountService accountService;
+    private final HotAccountService hotAccountService;
+
+    @Override
+    @Transactional(rollbackOn = IllegalTransferException.class)
+    public void apply(@NonNull BalanceTransfer transfer) throws IllegalTransferException {
+        final var debitAccount = getAccountById(transfer.debitAccountId());
+        TransferValidation.assertSufficientBalance(debitAccount, transfer.debitedAmount());
+        final var creditAccount = getAccountById(transfer.creditAccountId());
+
+        updateAccountBalance(debitAccount, debitAccount.getBalance().subtract(transfer.debitedAmount()));
+        if (!hotAccountService.credit(creditAccount.getId(), transfer.creditedAmount())) {
+            updateAccountBalance(creditAccount, creditAccount.getBalance().add(transfer.creditedAmount()));
+        }
+    }
+
+    private AccountEntity getAccountById(long accountId) throws IllegalTransferException {
+        return accountService.getById(accountId)
+                .orElseThrow(() -> TransferValidation.accountNotFound(accountId));
+    }
+
+    private void updateAccountBalance(AccountEntity account, Money newBalance) {
+        account.setBalance(newBalance);
+        accountService.update(account);
+    }
+}
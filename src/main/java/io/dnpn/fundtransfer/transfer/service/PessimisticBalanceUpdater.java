@@ -0,0 +1,63 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.common.Money;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Locks both accounts ({@code SELECT ... FOR UPDATE}) before computing their new balance, so concurrent transfers on
+ * the same accounts wait for each other instead of failing. The locks are always taken in ascending account
+ * identifier order, so transfers in opposite directions cannot deadlock. A transfer waiting longer than
+ * {@link TransferProperty#getLockTimeout()} fails and is retried like any other conflict.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+        name = TransferProperty.LOCKING,
+        havingValue = TransferProperty.PESSIMISTIC_LOCKING
+)
+class PessimisticBalanceUpdater implements BalanceUpdater {
+
+    private final AccountService accountService;
+    private final TransferProperty transferProperty;
+
+    @Override
+    @Transactional(rollbackOn = IllegalTransferException.class)
+    public void apply(@NonNull BalanceTransfer transfer) throws IllegalTransferException {
+        final var accounts = accountService.lockByIds(
+                        List.of(transfer.debitAccountId(), transfer.creditAccountId()),
+                        transferProperty.getLockTimeout())
+                .stream()
+                .collect(Collectors.toMap(AccountEntity::getId, Function.identity()));
+
+        final var debitAccount = getAccount(accounts, transfer.debitAccountId());
+        TransferValidation.assertSufficientBalance(debitAccount, transfer.debitedAmount());
+        final var creditAccount = getAccount(accounts, transfer.creditAccountId());
+
+        updateAccountBalance(debitAccount, debitAccount.getBalance().subtract(transfer.debitedAmount()));
+        updateAccountBalance(creditAccount, creditAccount.getBalance().add(transfer.creditedAmount()));
+    }
+
+    private AccountEntity getAccount(Map<Long, AccountEntity> accounts, long accountId) throws IllegalTransferException {
+        return Optional.ofNullable(accounts.get(accountId))
+                .orElseThrow(() -> TransferValidation.accountNotFound(accountId));
+    }
+
+    private void updateAccountBalance(AccountEntity account, Money newBalance) {
+        account.setBalance(newBalance);
+        accountService.update(account);
+    }
+}
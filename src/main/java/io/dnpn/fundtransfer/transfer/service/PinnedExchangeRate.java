@@ -0,0 +1,50 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.common.FixedPointExchangeRate;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.common.MoneyHandling;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.Builder;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+
+/**
+ * Exchange rate resolved once, before the transaction updating the balances is opened. All the attempts of a transfer
+ * (see {@link TransferRetryExecutor}) credit the amount converted with this rate, whatever the rate returned by the
+ * currency conversion service in the meantime.
+ *
+ * @param fromCurrency   currency of the debit account.
+ * @param toCurrency     currency of the credit account.
+ * @param rate           amount of {@code toCurrency} for 1 unit of {@code fromCurrency}.
+ * @param fixedPointRate the rate precomputed for the conversions, see {@link FixedPointExchangeRate}.
+ */
+record PinnedExchangeRate(
+        @NonNull Currency fromCurrency,
+        @NonNull Currency toCurrency,
+        @NonNull BigDecimal rate,
+        @NonNull FixedPointExchangeRate fixedPointRate
+) {
+
+    @Builder
+    PinnedExchangeRate(@NonNull Currency fromCurrency, @NonNull Currency toCurrency, @NonNull BigDecimal rate) {
+        this(fromCurrency, toCurrency, rate, FixedPointExchangeRate.of(rate));
+    }
+
+    /**
+     * Converts an amount to be credited to a client. The result is rounded down to cents, see
+     * {@link MoneyHandling#ROUNDING_MODE_FOR_CLIENT_CREDIT}.
+     *
+     * @param amount the amount in {@code fromCurrency}.
+     * @return the amount in {@code toCurrency}.
+     * @throws IllegalArgumentException if the amount is not in {@code fromCurrency}.
+     */
+    Money convert(@NonNull Money amount) {
+        if (amount.currency() != fromCurrency) {
+            final var message = String.format("Cannot convert an amount in %s with the exchange rate from %s to %s.",
+                    amount.currency(), fromCurrency, toCurrency);
+            throw new IllegalArgumentException(message);
+        }
+        return Money.ofCents(fixedPointRate.convertCents(amount.amountInCents()), toCurrency);
+    }
+}
@@ -0,0 +1,34 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.Builder;
+import lombok.NonNull;
+
+import java.time.Instant;
+
+/**
+ * Transfer executed under an idempotency key, see {@link IdempotentTransferService}.
+ *
+ * @param idempotencyKey the key chosen by the client to identify the transfer across its retries.
+ * @param request        the executed request.
+ * @param processedAt    when the transfer was executed.
+ */
+@Builder
+public record ProcessedTransfer(
+        @NonNull String idempotencyKey,
+        @NonNull TransferRequest request,
+        @NonNull Instant processedAt
+) {
+
+    /**
+     * Whether a request is the one executed under the idempotency key. The amounts are compared by value, whatever
+     * their scale.
+     *
+     * @param otherRequest the request received with the same idempotency key.
+     * @return true if the request has the same accounts and amount.
+     */
+    boolean isSameRequest(@NonNull TransferRequest otherRequest) {
+        return request.fromAccountId() == otherRequest.fromAccountId()
+                && request.toAccountId() == otherRequest.toAccountId()
+                && request.amount().compareTo(otherRequest.amount()) == 0;
+    }
+}
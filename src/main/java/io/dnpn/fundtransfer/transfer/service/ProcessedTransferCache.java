@@ -0,0 +1,97 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+
+/**
+ * Processed transfers recently executed or looked up, so the retries of a client are answered without querying the
+ * database.
+ * <p>
+ * The cache is bounded by {@link TransferProperty#getIdempotencyCacheMaxSize()} and an entry expires
+ * {@link TransferProperty#getIdempotencyCacheTtl()} after being cached. The entries are kept in the order they were
+ * cached, which is also the order in which they expire: the expired entries and the entries beyond the maximum size
+ * are both evicted from the head, without scanning the whole cache.
+ */
+@Component
+class ProcessedTransferCache {
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final Clock clock;
+    private final LinkedHashMap<String, CachedTransfer> transfers = new LinkedHashMap<>();
+
+    ProcessedTransferCache(TransferProperty transferProperty, Clock clock) {
+        this.maxSize = transferProperty.getIdempotencyCacheMaxSize();
+        this.ttl = transferProperty.getIdempotencyCacheTtl();
+        this.clock = clock;
+    }
+
+    /**
+     * Whether the processed transfers are cached.
+     *
+     * @return true if the time to live of the cached transfers is positive.
+     */
+    boolean isEnabled() {
+        return ttl.compareTo(Duration.ZERO) > 0;
+    }
+
+    /**
+     * Gets the processed transfer of the key, if it is cached and not expired.
+     *
+     * @param idempotencyKey the idempotency key.
+     * @return the processed transfer, or empty if it is not cached.
+     */
+    synchronized Optional<ProcessedTransfer> get(@NonNull String idempotencyKey) {
+        evictExpired(clock.instant());
+        return Optional.ofNullable(transfers.get(idempotencyKey))
+                .map(CachedTransfer::transfer);
+    }
+
+    /**
+     * Caches a processed transfer, evicting the oldest entries if the cache is full.
+     *
+     * @param transfer the processed transfer.
+     */
+    synchronized void put(@NonNull ProcessedTransfer transfer) {
+        if (!isEnabled()) {
+            return;
+        }
+        final var now = clock.instant();
+        // Removed first so the entry moves to the tail, in the order of the expirations
+        transfers.remove(transfer.idempotencyKey());
+        transfers.put(transfer.idempotencyKey(), new CachedTransfer(transfer, now));
+
+        evictExpired(now);
+        final var iterator = transfers.values().iterator();
+        while (transfers.size() > maxSize) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Gets the number of cached transfers, expired ones included until they are evicted.
+     *
+     * @return the cache size.
+     */
+    synchronized int size() {
+        return transfers.size();
+    }
+
+    private void evictExpired(Instant now) {
+        final var oldestAcceptedCaching = now.minus(ttl);
+        final var iterator = transfers.values().iterator();
+        while (iterator.hasNext() && iterator.next().cachedAt().isBefore(oldestAcceptedCaching)) {
+            iterator.remove();
+        }
+    }
+
+    private record CachedTransfer(ProcessedTransfer transfer, Instant cachedAt) {
+    }
+}
@@ -0,0 +1,73 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.common.MoneyHandling;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Idempotency key of a transfer, inserted in the same transaction as the balance updates of the transfer.
+ */
+@Entity
+@Table(name = "processed_transfer", indexes = @Index(columnList = "processedAt"))
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+class ProcessedTransferEntity implements Persistable<String> {
+    @Id
+    @Column(length = IdempotentTransferService.MAX_IDEMPOTENCY_KEY_LENGTH)
+    private String idempotencyKey;
+    private long fromAccountId;
+    private long toAccountId;
+    @Column(nullable = false, precision = MoneyHandling.PRECISION_FOR_MONEY, scale = MoneyHandling.SCALE_FOR_MONEY)
+    private BigDecimal amount;
+    @Column(nullable = false)
+    private Instant processedAt;
+
+    static ProcessedTransferEntity from(ProcessedTransfer processedTransfer) {
+        return ProcessedTransferEntity.builder()
+                .idempotencyKey(processedTransfer.idempotencyKey())
+                .fromAccountId(processedTransfer.request().fromAccountId())
+                .toAccountId(processedTransfer.request().toAccountId())
+                .amount(processedTransfer.request().amount())
+                .processedAt(processedTransfer.processedAt())
+                .build();
+    }
+
+    ProcessedTransfer toProcessedTransfer() {
+        final var request = TransferRequest.builder()
+                .fromAccountId(this.fromAccountId)
+                .toAccountId(this.toAccountId)
+                .amount(this.amount)
+                .build();
+        return ProcessedTransfer.builder()
+                .idempotencyKey(this.idempotencyKey)
+                .request(request)
+                .processedAt(this.processedAt)
+                .build();
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    /**
+     * A key is only ever inserted: saving it again must fail on the primary key instead of overwriting it.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+
+/**
+ * Records the idempotency key of a transfer in the transaction updating the balances, so the key is persisted if and
+ * only if the transfer is. If the same key is recorded concurrently (by another instance of the application), one of
+ * the inserts fails on the primary key and its balance updates are rolled back with it.
+ */
+@Component
+@RequiredArgsConstructor
+class ProcessedTransferRecorder {
+
+    private final ProcessedTransferRepository repository;
+
+    /**
+     * Applies the transfer with the updater, then inserts its idempotency key. The updater joins the transaction.
+     *
+     * @param updater           the balance updater.
+     * @param transfer          the balance mutation to apply.
+     * @param processedTransfer the transfer to record.
+     * @throws IllegalTransferException if the updater denies the transfer, nothing is recorded then.
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key is already recorded.
+     */
+    @Transactional(rollbackOn = IllegalTransferException.class)
+    public void applyAndRecord(@NonNull BalanceUpdater updater, @NonNull BalanceTransfer transfer,
+                               @NonNull ProcessedTransfer processedTransfer) throws IllegalTransferException {
+        updater.apply(transfer);
+        repository.saveAndFlush(ProcessedTransferEntity.from(processedTransfer));
+    }
+}
@@ -0,0 +1,23 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+interface ProcessedTransferRepository extends JpaRepository<ProcessedTransferEntity, String> {
+
+    /**
+     * Deletes the idempotency keys of the transfers processed before the threshold.
+     *
+     * @param threshold the processing time before which the keys are deleted.
+     * @return the number of deleted keys.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProcessedTransferEntity p WHERE p.processedAt < :threshold")
+    int deleteProcessedBefore(@Param("threshold") Instant threshold);
+}
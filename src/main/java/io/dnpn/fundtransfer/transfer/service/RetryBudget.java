@@ -0,0 +1,43 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting the share of retries, so the retries cannot amplify the load when most transfers conflict.
+ * <p>
+ * Every conflict costs one token and every transfer completed without conflict gives back a fraction of a token.
+ * Retries are allowed while more than half of the tokens are available. The tokens are counted in thousandths so the
+ * bucket can be updated atomically without locking.
+ */
+class RetryBudget {
+
+    private static final long TOKEN_UNIT = 1000;
+
+    private final long maxTokens;
+    private final long threshold;
+    private final long tokensPerSuccess;
+    private final AtomicLong tokens;
+
+    /**
+     * @param maxTokens  capacity of the bucket, which starts full.
+     * @param tokenRatio number of tokens given back by a transfer completed without conflict.
+     */
+    RetryBudget(int maxTokens, double tokenRatio) {
+        this.maxTokens = maxTokens * TOKEN_UNIT;
+        this.threshold = this.maxTokens / 2;
+        this.tokensPerSuccess = Math.max(1, Math.round(tokenRatio * TOKEN_UNIT));
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    void recordSuccess() {
+        tokens.accumulateAndGet(tokensPerSuccess, (current, increment) -> Math.min(maxTokens, current + increment));
+    }
+
+    void recordConflict() {
+        tokens.accumulateAndGet(TOKEN_UNIT, (current, decrement) -> Math.max(0, current - decrement));
+    }
+
+    boolean canRetry() {
+        return tokens.get() > threshold;
+    }
+}
@@ -0,0 +1,170 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountService;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Applies the transfers to an in-memory ledger split in {@link LedgerShard}s, each one owning a partition of the
+ * accounts and updating their balances on a single thread. There is no lock and no database round-trip on the path of
+ * a transfer: the balance changes are saved asynchronously by the {@link LedgerJournal}.
+ * <p>
+ * The ledger is the reference for the balances, so this mode requires a single instance of the application and no
+ * other writer of the balances, such as the batch transfers. The balances read from the database lag behind by up to
+ * the flush interval of the journal. The changes not flushed yet are lost if the application crashes, unless the
+ * {@link TransferJournal} is enabled: the accounts it recovers are then loaded at startup (see
+ * {@link #loadRecoveredAccounts()}), which brings their balance in the database back in line with the journal.
+ * <p>
+ * The transfer journal is written ahead: a journaled transfer reserves the debited amount and loads the credit account,
+ * is recorded by the {@link TransferJournal}, and only then credits the account and commits the reservation. If the
+ * journal fails, the reservation is released and no balance changes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(
+        name = TransferProperty.LOCKING,
+        havingValue = TransferProperty.SHARDED_LOCKING
+)
+class ShardedBalanceUpdater implements BalanceUpdater {
+
+    /**
+     * Spreads the consecutive identifiers over the shards (golden ratio multiplicative hashing).
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final List<LedgerShard> shards;
+    private final TransferJournal transferJournal;
+
+    ShardedBalanceUpdater(@NonNull AccountService accountService, @NonNull LedgerJournal journal,
+                          @NonNull TransferJournal transferJournal, @NonNull TransferProperty transferProperty) {
+        this.transferJournal = transferJournal;
+        final var shardCount = transferProperty.getShardedShards();
+        this.shards = new ArrayList<>(shardCount);
+        for (int index = 0; index < shardCount; index++) {
+            final var shard = new LedgerShard(index, transferProperty.getShardedRingBufferSize(),
+                    transferProperty.getShardedSubmitTimeout(), accountService, journal, transferJournal);
+            shard.start();
+            shards.add(shard);
+        }
+        log.info("Sharded ledger started with {} shards", shardCount);
+    }
+
+    /**
+     * Loads the accounts recovered by the transfer journal, so their balance in the database is restored right away
+     * rather than on their first transfer. This is done once the application is ready, as the shard threads need the
+     * account service and its transaction proxy; a transfer received in the meantime restores its accounts itself.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void loadRecoveredAccounts() {
+        final var loadedAccounts = transferJournal.getRecoveredAccountIds()
+                .stream()
+                .map(accountId -> getShard(accountId).load(accountId)
+                        .exceptionally(failure -> {
+                            log.warn("Failed to load the account {} recovered from the transfer journal: {}",
+                                    accountId, failure.getMessage());
+                            return null;
+                        }))
+                .toList();
+        loadedAccounts.forEach(CompletableFuture::join);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The transfer is only acknowledged once its balance changes are in the journal, and once it is recorded by the
+     * {@link TransferJournal} if enabled.
+     */
+    @Override
+    public void apply(@NonNull BalanceTransfer transfer) throws IllegalTransferException {
+        final var debitShard = getShard(transfer.debitAccountId());
+        final var creditShard = getShard(transfer.creditAccountId());
+        if (transferJournal.isEnabled()) {
+            applyJournaled(transfer, debitShard, creditShard);
+        } else if (debitShard == creditShard) {
+            await(debitShard.transfer(transfer));
+        } else {
+            applyAcrossShards(transfer, debitShard, creditShard);
+        }
+    }
+
+    /**
+     * Records the transfer in the transfer journal once it is known to be valid, but before any balance changes. Once
+     * recorded, the credit cannot fail: the credit account is already loaded and the operation waits for a free slot
+     * without any timeout.
+     */
+    private void applyJournaled(BalanceTransfer transfer, LedgerShard debitShard, LedgerShard creditShard)
+            throws IllegalTransferException {
+        final var creditAccountLoaded = creditShard.load(transfer.creditAccountId());
+        await(debitShard.reserve(transfer.debitAccountId(), transfer.debitedAmount()));
+        try {
+            await(creditAccountLoaded);
+            transferJournal.recordTransfer(transfer);
+
+        } catch (IllegalTransferException | RuntimeException exception) {
+            await(debitShard.releaseReservation(transfer.debitAccountId(), transfer.debitedAmount()));
+            throw exception;
+        }
+        await(creditShard.credit(transfer.creditAccountId(), transfer.creditedAmount()));
+        await(debitShard.commitReservation(transfer.debitAccountId(), transfer.debitedAmount()));
+    }
+
+    private void applyAcrossShards(BalanceTransfer transfer, LedgerShard debitShard, LedgerShard creditShard)
+            throws IllegalTransferException {
+        await(debitShard.reserve(transfer.debitAccountId(), transfer.debitedAmount()));
+        try {
+            await(creditShard.credit(transfer.creditAccountId(), transfer.creditedAmount()));
+
+        } catch (IllegalTransferException | RuntimeException exception) {
+            await(debitShard.releaseReservation(transfer.debitAccountId(), transfer.debitedAmount()));
+            throw exception;
+        }
+        await(debitShard.commitReservation(transfer.debitAccountId(), transfer.debitedAmount()));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return false, the balances of the ledger are ahead of the database.
+     */
+    @Override
+    public boolean isBalanceInDatabaseCurrent() {
+        return false;
+    }
+
+    /**
+     * Executes the operations already submitted to the shards, then stops their threads.
+     */
+    @PreDestroy
+    void stop() {
+        shards.forEach(LedgerShard::stop);
+    }
+
+    LedgerShard getShard(long accountId) {
+        return shards.get(Math.floorMod(Long.hashCode(accountId * HASH_MULTIPLIER), shards.size()));
+    }
+
+    private static void await(CompletableFuture<Void> future) throws IllegalTransferException {
+        try {
+            future.join();
+
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof IllegalTransferException illegalTransferException) {
+                throw illegalTransferException;
+            }
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw exception;
+        }
+    }
+}
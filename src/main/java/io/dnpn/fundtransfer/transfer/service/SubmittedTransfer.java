@@ -0,0 +1,37 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.Builder;
+import lombok.NonNull;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Transfer submitted to be executed asynchronously, see {@link AsyncTransferService}.
+ *
+ * @param id          the identifier given to the transfer when it was accepted.
+ * @param request     the submitted request.
+ * @param status      the status of the transfer, {@link TransferStatus#PENDING} until it is executed.
+ * @param message     the outcome of the execution, null while the transfer is pending.
+ * @param submittedAt when the transfer was accepted.
+ * @param completedAt when the execution of the transfer completed, null while the transfer is pending.
+ */
+@Builder(toBuilder = true)
+public record SubmittedTransfer(
+        @NonNull UUID id,
+        @NonNull TransferRequest request,
+        @NonNull TransferStatus status,
+        String message,
+        @NonNull Instant submittedAt,
+        Instant completedAt
+) {
+
+    /**
+     * Whether the transfer was executed, successfully or not.
+     *
+     * @return false if the transfer is pending.
+     */
+    public boolean isCompleted() {
+        return status != TransferStatus.PENDING;
+    }
+}
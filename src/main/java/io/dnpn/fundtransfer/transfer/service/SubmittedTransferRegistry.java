@@ -0,0 +1,94 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.NonNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Statuses of the asynchronous transfers, so the clients can poll the outcome of the transfers they submitted.
+ * <p>
+ * The registry is bounded by {@link TransferProperty#getAsyncStatusMaxSize()} and the status of a completed transfer
+ * expires {@link TransferProperty#getAsyncStatusRetention()} after its completion. The pending transfers are never
+ * evicted: there are at most as many of them as the queue capacity plus the number of workers. The statuses are kept
+ * in the order the transfers were submitted, so the expired and exceeding statuses are evicted from the head.
+ */
+class SubmittedTransferRegistry {
+
+    private final int maxSize;
+    private final Duration retention;
+    private final Clock clock;
+    private final LinkedHashMap<UUID, SubmittedTransfer> transfers = new LinkedHashMap<>();
+
+    SubmittedTransferRegistry(int maxSize, @NonNull Duration retention, @NonNull Clock clock) {
+        this.maxSize = maxSize;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the current status of a transfer.
+     *
+     * @param id the identifier of the transfer.
+     * @return the transfer, or empty if it is unknown or its status expired.
+     */
+    synchronized Optional<SubmittedTransfer> get(@NonNull UUID id) {
+        evict();
+        return Optional.ofNullable(transfers.get(id));
+    }
+
+    /**
+     * Registers a new transfer or updates the status of a registered one, evicting the oldest completed transfers if
+     * the registry is full.
+     *
+     * @param transfer the transfer with its current status.
+     */
+    synchronized void put(@NonNull SubmittedTransfer transfer) {
+        // Replacing the value of an existing key keeps its position, in the order of the submissions
+        transfers.put(transfer.id(), transfer);
+        evict();
+    }
+
+    /**
+     * Unregisters a transfer, when it could not be submitted.
+     *
+     * @param id the identifier of the transfer.
+     */
+    synchronized void remove(@NonNull UUID id) {
+        transfers.remove(id);
+    }
+
+    /**
+     * Gets the number of registered transfers, expired ones included until they are evicted.
+     *
+     * @return the registry size.
+     */
+    synchronized int size() {
+        return transfers.size();
+    }
+
+    private void evict() {
+        final var oldestAcceptedCompletion = clock.instant().minus(retention);
+        final var iterator = transfers.values().iterator();
+        while (iterator.hasNext()) {
+            final var transfer = iterator.next();
+            if (isExpired(transfer, oldestAcceptedCompletion)) {
+                iterator.remove();
+            } else if (transfers.size() > maxSize) {
+                if (transfer.isCompleted()) {
+                    iterator.remove();
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isExpired(SubmittedTransfer transfer, Instant oldestAcceptedCompletion) {
+        return transfer.isCompleted() && transfer.completedAt().isBefore(oldestAcceptedCompletion);
+    }
+}
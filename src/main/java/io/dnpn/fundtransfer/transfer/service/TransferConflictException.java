@@ -0,0 +1,12 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+/**
+ * Exception used when the transfer requested is valid but the accounts kept being updated concurrently, so the transfer
+ * could not be applied within the allowed number of attempts. The client can safely retry the transfer later.
+ */
+public class TransferConflictException extends TransferFailureException {
+
+    public TransferConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
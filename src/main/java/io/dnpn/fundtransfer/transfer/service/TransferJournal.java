@@ -0,0 +1,696 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of the transfers applied by the sharded in-memory ledger, saved to the directory
+ * {@link TransferProperty#getJournalDirectory()}. It is the durable record of the ledger: the balances saved to the
+ * database by the {@link LedgerJournal} lag behind and are lost on a crash, the journal is written before a transfer is
+ * acknowledged. The other lockings commit each transfer to the database before acknowledging it, so they do not use
+ * the journal.
+ * <p>
+ * The journal is split in segment files of {@link TransferProperty#getJournalSegmentSize()} bytes, mapped in memory, so
+ * appending a record is a copy to memory. Each record has a sequence number and is either the opening balance of an
+ * account, recorded when the ledger loads it from the database, or a transfer. The records are forced to the storage
+ * device according to the {@link JournalFsyncPolicy}; with {@link JournalFsyncPolicy#ALWAYS}, the transfers waiting
+ * for the same fsync are all released by it. With {@link JournalFsyncPolicy#INTERVAL}, the fsync runs on a thread of
+ * its own, so its delay does not depend on the other scheduled tasks.
+ * <p>
+ * The journal keeps the balances obtained by applying its records. Periodically, a snapshot of these balances is
+ * written to a file and the journal moves to a new segment. At startup, the latest snapshot is loaded and only the
+ * segments after it are replayed: the {@link LedgerShard}s then use the recovered balances instead of the ones in the
+ * database, which may miss changes or contain changes of transfers never acknowledged. The segments covered by a
+ * snapshot are still the record of each transfer: they are only deleted once older than
+ * {@link TransferProperty#getJournalSegmentRetention()}.
+ * <p>
+ * The file formats are binary. A record is its length, the CRC-32 of its content, then its content: its type, its
+ * sequence number, its time in milliseconds since the epoch and its accounts with their amount in cents and currency
+ * code. A segment ends with a zero length, and a record whose checksum does not match is the end of a segment
+ * interrupted by a crash. A snapshot is a magic number, a version, the sequence number of its last record and the
+ * balances of the accounts.
+ * <p>
+ * If a segment cannot be created or forced, the journal fails: it records nothing anymore, so the ledger stops
+ * accepting transfers until the application is restarted. With {@link JournalFsyncPolicy#ALWAYS}, the records not
+ * forced yet belong to transfers not acknowledged, they are erased so they are not replayed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(
+        name = TransferProperty.LOCKING,
+        havingValue = TransferProperty.SHARDED_LOCKING
+)
+class TransferJournal {
+
+    private static final String FSYNC_THREAD_PREFIX = "transfer-journal-fsync-";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final int SNAPSHOT_MAGIC_NUMBER = 0x544A534E;
+    private static final short SNAPSHOT_FORMAT_VERSION = 1;
+    private static final byte ACCOUNT_OPENED = 1;
+    private static final byte TRANSFER_APPLIED = 2;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_CONTENT_SIZE = 128;
+    private static final int MIN_SEGMENT_SIZE = 4 * 1024;
+
+    private final Optional<Path> directory;
+    private final JournalFsyncPolicy fsyncPolicy;
+    private final int segmentSize;
+    private final Duration segmentRetention;
+    private final Clock clock;
+
+    /**
+     * Guards the current segment, the sequence numbers and the balances.
+     */
+    private final Object appendLock = new Object();
+    /**
+     * Taken by the thread forcing the current segment, the threads waiting for it are released by the same fsync.
+     */
+    private final Object syncLock = new Object();
+    private final ByteBuffer recordContent = ByteBuffer.allocate(MAX_RECORD_CONTENT_SIZE);
+    private final CRC32 checksum = new CRC32();
+    private final Map<Long, Money> balances = new HashMap<>();
+    private final AtomicLong durableSequence = new AtomicLong();
+    private Map<Long, Money> recoveredBalances = Map.of();
+    private Segment segment;
+    private long lastSequence;
+    private boolean failed;
+    /**
+     * Runs the fsyncs of the policy {@link JournalFsyncPolicy#INTERVAL}, null with the other policies.
+     */
+    private ScheduledExecutorService fsyncExecutor;
+
+    TransferJournal(@NonNull TransferProperty transferProperty, @NonNull Clock clock) {
+        this.directory = transferProperty.getJournalDirectory();
+        this.fsyncPolicy = transferProperty.getJournalFsyncPolicy();
+        this.segmentSize = transferProperty.getJournalSegmentSize();
+        this.segmentRetention = transferProperty.getJournalSegmentRetention();
+        this.clock = clock;
+
+        if (isEnabled()) {
+            if (segmentSize < MIN_SEGMENT_SIZE) {
+                throw new IllegalArgumentException("The journal segment size must be at least " + MIN_SEGMENT_SIZE +
+                        " bytes but was " + segmentSize + ".");
+            }
+            final var fsyncInterval = transferProperty.getJournalFsyncInterval();
+            if (fsyncPolicy == JournalFsyncPolicy.INTERVAL && fsyncInterval.isZero()) {
+                throw new IllegalArgumentException("The journal fsync interval must be positive.");
+            }
+            try {
+                open(directory.get());
+            } catch (IOException exception) {
+                throw new UncheckedIOException("Failed to open the transfer journal in " + directory.get(), exception);
+            }
+            if (fsyncPolicy == JournalFsyncPolicy.INTERVAL) {
+                startPeriodicSync(fsyncInterval);
+            }
+        }
+    }
+
+    /**
+     * Whether the transfers are journaled.
+     *
+     * @return true if the directory of the journal is configured.
+     */
+    boolean isEnabled() {
+        return directory.isPresent();
+    }
+
+    /**
+     * Gets the balance of an account recovered from the journal at startup.
+     *
+     * @param accountId the account.
+     * @return the balance, or empty if the account was not in the journal.
+     */
+    Optional<Money> getRecoveredBalance(long accountId) {
+        return Optional.ofNullable(recoveredBalances.get(accountId));
+    }
+
+    /**
+     * Gets the accounts recovered from the journal at startup.
+     *
+     * @return the identifiers of the accounts.
+     */
+    Set<Long> getRecoveredAccountIds() {
+        return recoveredBalances.keySet();
+    }
+
+    /**
+     * Records the balance of an account loaded by the ledger, unless the journal already knows the account. The record
+     * is not forced: it is by the fsync of the first transfer of the account.
+     *
+     * @param accountId the account.
+     * @param balance   the balance of the account.
+     */
+    void recordOpening(long accountId, @NonNull Money balance) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (appendLock) {
+            if (!balances.containsKey(accountId)) {
+                append(ACCOUNT_OPENED, content -> {
+                    content.putLong(accountId);
+                    putMoney(content, balance);
+                });
+            }
+        }
+    }
+
+    /**
+     * Records a transfer before it is applied, and waits for the record to be on the storage device if the fsync
+     * policy is {@link JournalFsyncPolicy#ALWAYS}.
+     *
+     * @param transfer the transfer.
+     * @throws IllegalStateException if the journal is closed or failed, the transfer must not be applied.
+     * @throws UncheckedIOException  if the record could not be written or forced, the transfer must not be applied.
+     */
+    void recordTransfer(@NonNull BalanceTransfer transfer) {
+        if (!isEnabled()) {
+            return;
+        }
+        final var sequence = append(TRANSFER_APPLIED, content -> {
+            content.putLong(transfer.debitAccountId());
+            putMoney(content, transfer.debitedAmount());
+            content.putLong(transfer.creditAccountId());
+            putMoney(content, transfer.creditedAmount());
+        });
+        if (fsyncPolicy == JournalFsyncPolicy.ALWAYS) {
+            sync(sequence);
+        }
+    }
+
+    /**
+     * Forces the records appended since the last fsync, with the policy {@link JournalFsyncPolicy#INTERVAL}.
+     */
+    void syncPeriodically() {
+        if (isEnabled() && fsyncPolicy == JournalFsyncPolicy.INTERVAL) {
+            sync(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the balances if a record was appended since the last one, then deletes the previous
+     * snapshots and the segments it covers which are past their retention. The journal is blocked while the balances
+     * are copied.
+     */
+    @Scheduled(fixedDelayString = "${" + TransferProperty.JOURNAL_SNAPSHOT_INTERVAL + ":"
+            + TransferProperty.DEFAULT_JOURNAL_SNAPSHOT_INTERVAL_MS + "}")
+    void snapshot() {
+        if (!isEnabled()) {
+            return;
+        }
+        final Map<Long, Money> snapshotBalances;
+        final long snapshotSequence;
+        synchronized (appendLock) {
+            if (failed || segment == null || lastSequence < segment.firstSequence()) {
+                return;
+            }
+            snapshotBalances = Map.copyOf(balances);
+            snapshotSequence = lastSequence;
+            roll(lastSequence + 1);
+        }
+
+        try {
+            writeSnapshot(directory.get(), snapshotSequence, snapshotBalances);
+            deleteFilesBefore(directory.get(), snapshotSequence, clock.instant().minus(segmentRetention));
+            log.debug("Snapshot of {} balances written at the sequence {}", snapshotBalances.size(), snapshotSequence);
+
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Failed to write the snapshot of the transfer journal at the sequence {}: {}", snapshotSequence,
+                    exception.getMessage());
+        }
+    }
+
+    /**
+     * Stops the periodic fsync, writes a last snapshot and forces the current segment.
+     */
+    @PreDestroy
+    void close() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (fsyncExecutor != null) {
+            fsyncExecutor.shutdown();
+        }
+        snapshot();
+        synchronized (appendLock) {
+            if (segment != null) {
+                segment.close();
+                segment = null;
+            }
+        }
+    }
+
+    private void startPeriodicSync(Duration fsyncInterval) {
+        final var threadFactory = new CustomizableThreadFactory(FSYNC_THREAD_PREFIX);
+        threadFactory.setDaemon(true);
+        fsyncExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        fsyncExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                syncPeriodically();
+            } catch (RuntimeException exception) {
+                log.debug("Periodic fsync of the transfer journal skipped: {}", exception.getMessage());
+            }
+        }, fsyncInterval.toMillis(), fsyncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private long append(byte type, Consumer<ByteBuffer> contentWriter) {
+        synchronized (appendLock) {
+            if (failed) {
+                throw new IllegalStateException("The transfer journal failed, no transfer can be recorded until the " +
+                        "application is restarted.");
+            }
+            if (segment == null) {
+                throw new IllegalStateException("The transfer journal is closed.");
+            }
+            final var sequence = lastSequence + 1;
+            recordContent.clear();
+            recordContent.put(type).putLong(sequence).putLong(clock.millis());
+            contentWriter.accept(recordContent);
+            recordContent.flip();
+            checksum.reset();
+            checksum.update(recordContent.duplicate());
+
+            if (segment.buffer().remaining() < RECORD_HEADER_SIZE + recordContent.remaining()) {
+                roll(sequence);
+            }
+            segment.buffer()
+                    .putInt(recordContent.remaining())
+                    .putInt((int) checksum.getValue())
+                    .put(recordContent.duplicate());
+            apply(recordContent);
+            return sequence;
+        }
+    }
+
+    /**
+     * Forces the current segment, unless the record of the sequence is already on the storage device.
+     */
+    private void sync(long sequence) {
+        if (durableSequence.get() >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableSequence.get() >= sequence) {
+                return;
+            }
+            final Segment syncedSegment;
+            final long syncedSequence;
+            final int syncedPosition;
+            synchronized (appendLock) {
+                if (failed) {
+                    throw new IllegalStateException("The transfer journal failed, the record " + sequence +
+                            " may not be on the storage device.");
+                }
+                if (segment == null) {
+                    return;
+                }
+                syncedSegment = segment;
+                syncedSequence = lastSequence;
+                syncedPosition = segment.buffer().position();
+            }
+            if (syncedSequence > durableSequence.get()) {
+                // The previous segments were forced when the journal moved to the next one
+                try {
+                    syncedSegment.force(syncedPosition);
+                } catch (RuntimeException exception) {
+                    failSync(syncedSegment, exception);
+                    throw exception;
+                }
+                durableSequence.accumulateAndGet(syncedSequence, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Makes the journal fail after a segment could not be forced. With {@link JournalFsyncPolicy#ALWAYS}, the records
+     * after the forced part of the segment are erased: their transfers were not applied.
+     */
+    private void failSync(Segment syncedSegment, RuntimeException exception) {
+        synchronized (appendLock) {
+            failed = true;
+            if (fsyncPolicy == JournalFsyncPolicy.ALWAYS && segment == syncedSegment) {
+                segment.eraseUnforcedRecords();
+            }
+        }
+        log.error("Failed to force the transfer journal, it does not accept any transfer anymore: {}",
+                exception.getMessage());
+    }
+
+    /**
+     * Forces the current segment and moves to a new one, starting with the sequence. If it fails, the journal fails.
+     */
+    private void roll(long firstSequence) {
+        try {
+            segment.close();
+            durableSequence.accumulateAndGet(firstSequence - 1, Math::max);
+            segment = createSegment(directory.get(), firstSequence);
+
+        } catch (IOException exception) {
+            failRoll(exception);
+            throw new UncheckedIOException("Failed to create a new segment of the transfer journal", exception);
+
+        } catch (RuntimeException exception) {
+            failRoll(exception);
+            throw exception;
+        }
+    }
+
+    private void failRoll(Exception exception) {
+        segment = null;
+        failed = true;
+        log.error("Failed to move to a new segment of the transfer journal, it does not accept any transfer " +
+                "anymore: {}", exception.getMessage());
+    }
+
+    private void open(Path journalDirectory) throws IOException {
+        Files.createDirectories(journalDirectory);
+        final var snapshotSequence = loadLatestSnapshot(journalDirectory);
+        lastSequence = snapshotSequence;
+
+        final var segmentFiles = listFiles(journalDirectory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        for (int index = 0; index < segmentFiles.size(); index++) {
+            final var nextIndex = index + 1;
+            final var coveredBySnapshot = nextIndex < segmentFiles.size()
+                    && segmentFiles.get(nextIndex).sequence() <= snapshotSequence + 1;
+            if (!coveredBySnapshot) {
+                replay(segmentFiles.get(index));
+            }
+        }
+        recoveredBalances = Map.copyOf(balances);
+        durableSequence.set(lastSequence);
+        segment = createSegment(journalDirectory, lastSequence + 1);
+        log.info("Transfer journal opened in {}: {} balances recovered from the snapshot at the sequence {} and {} " +
+                        "replayed records ({} fsync, {} segments).", journalDirectory, balances.size(),
+                snapshotSequence, lastSequence - snapshotSequence, fsyncPolicy, segmentFiles.size());
+    }
+
+    private long loadLatestSnapshot(Path journalDirectory) throws IOException {
+        final var snapshotFiles = listFiles(journalDirectory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int index = snapshotFiles.size() - 1; index >= 0; index--) {
+            final var snapshotFile = snapshotFiles.get(index);
+            try {
+                final var snapshotBalances = readSnapshot(snapshotFile);
+                balances.putAll(snapshotBalances.balances());
+                return snapshotBalances.sequence();
+
+            } catch (IOException | RuntimeException exception) {
+                log.warn("Failed to load the transfer journal snapshot {}, trying the previous one: {}",
+                        snapshotFile.path(), exception.getMessage());
+            }
+        }
+        return 0;
+    }
+
+    private void replay(JournalFile segmentFile) throws IOException {
+        try (var channel = FileChannel.open(segmentFile.path(), StandardOpenOption.READ)) {
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                final var recordStart = buffer.position();
+                final var length = buffer.getInt();
+                if (length == 0) {
+                    return;
+                }
+                final var expectedChecksum = buffer.getInt();
+                if (length < 0 || length > MAX_RECORD_CONTENT_SIZE || length > buffer.remaining()) {
+                    logIncompleteRecord(segmentFile, recordStart);
+                    return;
+                }
+                final var content = buffer.slice(buffer.position(), length);
+                checksum.reset();
+                checksum.update(content.duplicate());
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    logIncompleteRecord(segmentFile, recordStart);
+                    return;
+                }
+                buffer.position(buffer.position() + length);
+                apply(content);
+            }
+        }
+    }
+
+    private static void logIncompleteRecord(JournalFile segmentFile, int position) {
+        log.warn("The transfer journal segment {} ends with an incomplete record at the position {}, it is ignored.",
+                segmentFile.path(), position);
+    }
+
+    /**
+     * Applies a record to the balances. The records already in the snapshot are skipped, and the sequence numbers of
+     * the others must follow each other: a gap means that a part of the journal is missing.
+     */
+    private void apply(ByteBuffer content) {
+        final var type = content.get();
+        final var sequence = content.getLong();
+        content.getLong();
+        if (sequence <= lastSequence) {
+            return;
+        }
+        if (sequence != lastSequence + 1) {
+            throw new IllegalStateException(String.format("The transfer journal is missing the records %d to %d.",
+                    lastSequence + 1, sequence - 1));
+        }
+        lastSequence = sequence;
+
+        if (type == ACCOUNT_OPENED) {
+            balances.put(content.getLong(), getMoney(content));
+
+        } else if (type == TRANSFER_APPLIED) {
+            final var debitAccountId = content.getLong();
+            final var debitedAmount = getMoney(content);
+            final var creditAccountId = content.getLong();
+            final var creditedAmount = getMoney(content);
+            applyDelta(sequence, debitAccountId, debitedAmount.negate());
+            applyDelta(sequence, creditAccountId, creditedAmount);
+
+        } else {
+            throw new IllegalStateException("Unknown type " + type + " of the transfer journal record " + sequence
+                    + ".");
+        }
+    }
+
+    private void applyDelta(long sequence, long accountId, Money delta) {
+        if (balances.computeIfPresent(accountId, (id, balance) -> balance.add(delta)) == null) {
+            log.warn("The transfer journal record {} updates the account {} which has no opening balance.", sequence,
+                    accountId);
+        }
+    }
+
+    private Segment createSegment(Path journalDirectory, long firstSequence) throws IOException {
+        final var path = journalDirectory.resolve(fileName(SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        final var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new Segment(firstSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    private static void writeSnapshot(Path journalDirectory, long sequence, Map<Long, Money> snapshotBalances)
+            throws IOException {
+        final var file = journalDirectory.resolve(fileName(SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+        final var temporaryFile = file.resolveSibling(file.getFileName() + TEMPORARY_FILE_SUFFIX);
+
+        try (var channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            output.writeInt(SNAPSHOT_MAGIC_NUMBER);
+            output.writeShort(SNAPSHOT_FORMAT_VERSION);
+            output.writeLong(sequence);
+            output.writeInt(snapshotBalances.size());
+            for (var entry : snapshotBalances.entrySet()) {
+                output.writeLong(entry.getKey());
+                output.writeLong(entry.getValue().amountInCents());
+                output.writeUTF(entry.getValue().currency().name());
+            }
+            output.flush();
+            channel.force(true);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static SnapshotBalances readSnapshot(JournalFile snapshotFile) throws IOException {
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile.path())))) {
+            if (input.readInt() != SNAPSHOT_MAGIC_NUMBER) {
+                throw new IOException("Not a transfer journal snapshot.");
+            }
+            final var version = input.readShort();
+            if (version != SNAPSHOT_FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ".");
+            }
+            final var sequence = input.readLong();
+            final var count = input.readInt();
+            final var snapshotBalances = new HashMap<Long, Money>();
+            for (int i = 0; i < count; i++) {
+                final var accountId = input.readLong();
+                final var amountInCents = input.readLong();
+                snapshotBalances.put(accountId, Money.ofCents(amountInCents, Currency.valueOf(input.readUTF())));
+            }
+            return new SnapshotBalances(sequence, snapshotBalances);
+        }
+    }
+
+    /**
+     * Deletes the segments whose records are all in the snapshot of the sequence and which were last written before
+     * the expiration time, and the previous snapshots.
+     */
+    private static void deleteFilesBefore(Path journalDirectory, long snapshotSequence, Instant expiration)
+            throws IOException {
+        for (var segmentFile : listFiles(journalDirectory, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (segmentFile.sequence() <= snapshotSequence
+                    && Files.getLastModifiedTime(segmentFile.path()).toInstant().isBefore(expiration)) {
+                Files.deleteIfExists(segmentFile.path());
+            }
+        }
+        for (var snapshotFile : listFiles(journalDirectory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (snapshotFile.sequence() < snapshotSequence) {
+                Files.deleteIfExists(snapshotFile.path());
+            }
+        }
+    }
+
+    /**
+     * Lists the files with the prefix and the suffix, by ascending sequence number.
+     */
+    private static List<JournalFile> listFiles(Path journalDirectory, String prefix, String suffix)
+            throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files
+                    .filter(path -> {
+                        final var fileName = path.getFileName().toString();
+                        return fileName.startsWith(prefix) && fileName.endsWith(suffix);
+                    })
+                    .map(path -> {
+                        final var fileName = path.getFileName().toString();
+                        final var sequence = fileName.substring(prefix.length(), fileName.length() - suffix.length());
+                        return new JournalFile(Long.parseLong(sequence), path);
+                    })
+                    .sorted(Comparator.comparingLong(JournalFile::sequence))
+                    .toList();
+        }
+    }
+
+    private static String fileName(String prefix, long sequence, String suffix) {
+        return String.format("%s%020d%s", prefix, sequence, suffix);
+    }
+
+    private static void putMoney(ByteBuffer content, Money amount) {
+        final var currencyCode = amount.currency().name().getBytes(StandardCharsets.US_ASCII);
+        content.putLong(amount.amountInCents());
+        content.put((byte) currencyCode.length);
+        content.put(currencyCode);
+    }
+
+    private static Money getMoney(ByteBuffer content) {
+        final var amountInCents = content.getLong();
+        final var currencyCode = new byte[content.get()];
+        content.get(currencyCode);
+        return Money.ofCents(amountInCents, Currency.valueOf(new String(currencyCode, StandardCharsets.US_ASCII)));
+    }
+
+    private record JournalFile(long sequence, Path path) {
+    }
+
+    private record SnapshotBalances(long sequence, Map<Long, Money> balances) {
+    }
+
+    /**
+     * File of the journal mapped in memory. The position of the buffer is the end of the last record.
+     */
+    private static final class Segment {
+        private final long firstSequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        /**
+         * End of the part of the segment already forced, only accessed by the thread holding the sync lock.
+         */
+        private int forcedPosition;
+
+        private Segment(long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        long firstSequence() {
+            return firstSequence;
+        }
+
+        MappedByteBuffer buffer() {
+            return buffer;
+        }
+
+        void force(int position) {
+            if (position > forcedPosition) {
+                buffer.force(forcedPosition, position - forcedPosition);
+                forcedPosition = position;
+            }
+        }
+
+        /**
+         * Marks the end of the segment at the end of its forced part, so the records after it are not replayed. Only
+         * called by the thread holding the sync lock.
+         */
+        void eraseUnforcedRecords() {
+            if (forcedPosition + Integer.BYTES <= buffer.capacity()) {
+                buffer.putInt(forcedPosition, 0);
+            }
+        }
+
+        /**
+         * Forces the whole segment and closes its file, the mapping stays valid until the buffer is garbage collected.
+         */
+        void close() {
+            buffer.force();
+            try {
+                channel.close();
+            } catch (IOException exception) {
+                log.warn("Failed to close the transfer journal segment of the sequence {}: {}", firstSequence,
+                        exception.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.common.annotation.VisibleForTesting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Transfer properties (used in the file `application.properties`).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferProperty {
+
+    /**
+     * Prefix of all properties related to the transfers.
+     */
+    private static final String PROPERTY_PREFIX = "transfer.";
+    /**
+     * Prefix of all properties related to the batch transfers.
+     */
+    private static final String BATCH_PREFIX = PROPERTY_PREFIX + "batch.";
+    /**
+     * Prefix of all properties related to the retry of the transfers failing because of a concurrent update.
+     */
+    private static final String RETRY_PREFIX = PROPERTY_PREFIX + "retry.";
+    /**
+     * Prefix of all properties related to the retry budget.
+     */
+    private static final String RETRY_BUDGET_PREFIX = RETRY_PREFIX + "budget.";
+    /**
+     * Prefix of all properties related to the idempotency keys of the transfers.
+     */
+    private static final String IDEMPOTENCY_PREFIX = PROPERTY_PREFIX + "idempotency.";
+    /**
+     * Prefix of all properties related to the asynchronous transfers.
+     */
+    private static final String ASYNC_PREFIX = PROPERTY_PREFIX + "async.";
+    /**
+     * Prefix of all properties related to the sharded in-memory ledger.
+     */
+    private static final String SHARDED_PREFIX = PROPERTY_PREFIX + "sharded.";
+    /**
+     * Prefix of all properties related to the transfer journal of the sharded in-memory ledger. The other lockings
+     * commit each transfer to the database, which is their durable record, so they are not journaled.
+     */
+    private static final String JOURNAL_PREFIX = PROPERTY_PREFIX + "journal.";
+    /**
+     * Prefix of all properties related to the group commit of the transfers.
+     */
+    private static final String GROUP_PREFIX = PROPERTY_PREFIX + "group.";
+
+    public static final String LOCKING = PROPERTY_PREFIX + "locking";
+    public static final String OPTIMISTIC_LOCKING = "optimistic";
+    public static final String ATOMIC_LOCKING = "atomic";
+    public static final String PESSIMISTIC_LOCKING = "pessimistic";
+    public static final String SHARDED_LOCKING = "sharded";
+    public static final String GROUP_LOCKING = "group";
+    public static final String IDEMPOTENCY_PURGE_INTERVAL = IDEMPOTENCY_PREFIX + "purgeIntervalMs";
+    public static final long DEFAULT_IDEMPOTENCY_PURGE_INTERVAL_MS = 600_000;
+    public static final String ASYNC_ENABLED = ASYNC_PREFIX + "enabled";
+    public static final String SHARDED_FLUSH_INTERVAL = SHARDED_PREFIX + "flushIntervalMs";
+    public static final long DEFAULT_SHARDED_FLUSH_INTERVAL_MS = 10;
+    public static final String JOURNAL_SNAPSHOT_INTERVAL = JOURNAL_PREFIX + "snapshotIntervalMs";
+    public static final long DEFAULT_JOURNAL_SNAPSHOT_INTERVAL_MS = 60_000;
+
+    @VisibleForTesting
+    static final String LOCK_TIMEOUT = PROPERTY_PREFIX + "lockTimeoutMs";
+    @VisibleForTesting
+    static final String BATCH_MAX_SIZE = BATCH_PREFIX + "maxSize";
+    @VisibleForTesting
+    static final String BATCH_CHUNK_SIZE = BATCH_PREFIX + "chunkSize";
+    @VisibleForTesting
+    static final String RETRY_MAX_ATTEMPTS = RETRY_PREFIX + "maxAttempts";
+    @VisibleForTesting
+    static final String RETRY_INITIAL_BACKOFF = RETRY_PREFIX + "initialBackoffMs";
+    @VisibleForTesting
+    static final String RETRY_MAX_BACKOFF = RETRY_PREFIX + "maxBackoffMs";
+    @VisibleForTesting
+    static final String RETRY_BUDGET_MAX_TOKENS = RETRY_BUDGET_PREFIX + "maxTokens";
+    @VisibleForTesting
+    static final String RETRY_BUDGET_TOKEN_RATIO = RETRY_BUDGET_PREFIX + "tokenRatio";
+    @VisibleForTesting
+    static final String IDEMPOTENCY_CACHE_MAX_SIZE = IDEMPOTENCY_PREFIX + "cacheMaxSize";
+    @VisibleForTesting
+    static final String IDEMPOTENCY_CACHE_TTL = IDEMPOTENCY_PREFIX + "cacheTtlMs";
+    @VisibleForTesting
+    static final String IDEMPOTENCY_RETENTION = IDEMPOTENCY_PREFIX + "retentionMs";
+    @VisibleForTesting
+    static final String ASYNC_WORKERS = ASYNC_PREFIX + "workers";
+    @VisibleForTesting
+    static final String ASYNC_QUEUE_CAPACITY = ASYNC_PREFIX + "queueCapacity";
+    @VisibleForTesting
+    static final String ASYNC_RETRY_AFTER = ASYNC_PREFIX + "retryAfterMs";
+    @VisibleForTesting
+    static final String ASYNC_STATUS_MAX_SIZE = ASYNC_PREFIX + "statusMaxSize";
+    @VisibleForTesting
+    static final String ASYNC_STATUS_RETENTION = ASYNC_PREFIX + "statusRetentionMs";
+    @VisibleForTesting
+    static final String SHARDED_SHARDS = SHARDED_PREFIX + "shards";
+    @VisibleForTesting
+    static final String SHARDED_RING_BUFFER_SIZE = SHARDED_PREFIX + "ringBufferSize";
+    @VisibleForTesting
+    static final String SHARDED_SUBMIT_TIMEOUT = SHARDED_PREFIX + "submitTimeoutMs";
+    @VisibleForTesting
+    static final String JOURNAL_DIRECTORY = JOURNAL_PREFIX + "directory";
+    @VisibleForTesting
+    static final String JOURNAL_FSYNC_POLICY = JOURNAL_PREFIX + "fsyncPolicy";
+    @VisibleForTesting
+    static final String JOURNAL_FSYNC_INTERVAL = JOURNAL_PREFIX + "fsyncIntervalMs";
+    @VisibleForTesting
+    static final String JOURNAL_SEGMENT_SIZE = JOURNAL_PREFIX + "segmentSize";
+    @VisibleForTesting
+    static final String JOURNAL_SEGMENT_RETENTION = JOURNAL_PREFIX + "segmentRetentionMs";
+    @VisibleForTesting
+    static final String GROUP_LINGER = GROUP_PREFIX + "lingerMs";
+    @VisibleForTesting
+    static final String GROUP_MAX_SIZE = GROUP_PREFIX + "maxSize";
+    @VisibleForTesting
+    static final String GROUP_QUEUE_CAPACITY = GROUP_PREFIX + "queueCapacity";
+    @VisibleForTesting
+    static final String GROUP_RETRY_TIMEOUT = GROUP_PREFIX + "retryTimeoutMs";
+
+    @VisibleForTesting
+    static final Duration DEFAULT_LOCK_TIMEOUT = Duration.ofSeconds(1);
+    @VisibleForTesting
+    static final int DEFAULT_BATCH_MAX_SIZE = 10_000;
+    /**
+     * By default the whole batch is applied in a single transaction.
+     */
+    @VisibleForTesting
+    static final int DEFAULT_BATCH_CHUNK_SIZE = Integer.MAX_VALUE;
+    @VisibleForTesting
+    static final int DEFAULT_RETRY_MAX_ATTEMPTS = 3;
+    @VisibleForTesting
+    static final Duration DEFAULT_RETRY_INITIAL_BACKOFF = Duration.ofMillis(10);
+    @VisibleForTesting
+    static final Duration DEFAULT_RETRY_MAX_BACKOFF = Duration.ofMillis(200);
+    @VisibleForTesting
+    static final int DEFAULT_RETRY_BUDGET_MAX_TOKENS = 100;
+    /**
+     * By default 10 transfers without conflict are needed to earn a retry.
+     */
+    @VisibleForTesting
+    static final double DEFAULT_RETRY_BUDGET_TOKEN_RATIO = 0.1;
+    @VisibleForTesting
+    static final int DEFAULT_IDEMPOTENCY_CACHE_MAX_SIZE = 10_000;
+    @VisibleForTesting
+    static final Duration DEFAULT_IDEMPOTENCY_CACHE_TTL = Duration.ofMinutes(10);
+    @VisibleForTesting
+    static final Duration DEFAULT_IDEMPOTENCY_RETENTION = Duration.ofHours(24);
+    @VisibleForTesting
+    static final int DEFAULT_ASYNC_WORKERS = 4;
+    @VisibleForTesting
+    static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 1_000;
+    @VisibleForTesting
+    static final Duration DEFAULT_ASYNC_RETRY_AFTER = Duration.ofSeconds(1);
+    @VisibleForTesting
+    static final int DEFAULT_ASYNC_STATUS_MAX_SIZE = 100_000;
+    @VisibleForTesting
+    static final Duration DEFAULT_ASYNC_STATUS_RETENTION = Duration.ofMinutes(10);
+    @VisibleForTesting
+    static final int DEFAULT_SHARDED_SHARDS = 4;
+    @VisibleForTesting
+    static final int DEFAULT_SHARDED_RING_BUFFER_SIZE = 1_024;
+    @VisibleForTesting
+    static final Duration DEFAULT_SHARDED_SUBMIT_TIMEOUT = Duration.ofSeconds(1);
+    @VisibleForTesting
+    static final JournalFsyncPolicy DEFAULT_JOURNAL_FSYNC_POLICY = JournalFsyncPolicy.ALWAYS;
+    @VisibleForTesting
+    static final Duration DEFAULT_JOURNAL_FSYNC_INTERVAL = Duration.ofMillis(10);
+    @VisibleForTesting
+    static final int DEFAULT_JOURNAL_SEGMENT_SIZE = 64 * 1024 * 1024;
+    @VisibleForTesting
+    static final Duration DEFAULT_JOURNAL_SEGMENT_RETENTION = Duration.ofDays(30);
+    @VisibleForTesting
+    static final Duration DEFAULT_GROUP_LINGER = Duration.ofMillis(2);
+    @VisibleForTesting
+    static final int DEFAULT_GROUP_MAX_SIZE = 100;
+    @VisibleForTesting
+    static final int DEFAULT_GROUP_QUEUE_CAPACITY = 1_000;
+    @VisibleForTesting
+    static final Duration DEFAULT_GROUP_RETRY_TIMEOUT = Duration.ofSeconds(2);
+
+    private final Environment environment;
+
+    /**
+     * Gets the maximum time to wait for the lock of an account with the pessimistic locking.
+     *
+     * @return the lock timeout.
+     */
+    public Duration getLockTimeout() {
+        return getDuration(LOCK_TIMEOUT, DEFAULT_LOCK_TIMEOUT);
+    }
+
+    /**
+     * Gets the maximum number of transfers accepted in a single batch.
+     *
+     * @return the maximum batch size.
+     */
+    public int getBatchMaxSize() {
+        return getPositiveInt(BATCH_MAX_SIZE, DEFAULT_BATCH_MAX_SIZE);
+    }
+
+    /**
+     * Gets the number of transfers of a batch applied in the same transaction.
+     *
+     * @return the chunk size.
+     */
+    public int getBatchChunkSize() {
+        return getPositiveInt(BATCH_CHUNK_SIZE, DEFAULT_BATCH_CHUNK_SIZE);
+    }
+
+    /**
+     * Gets the maximum number of attempts of a transfer failing because of a concurrent update of the same accounts,
+     * including the first attempt.
+     *
+     * @return the maximum number of attempts.
+     */
+    public int getRetryMaxAttempts() {
+        return getPositiveInt(RETRY_MAX_ATTEMPTS, DEFAULT_RETRY_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Gets the upper bound of the delay before the first retry. The bound doubles for every following retry.
+     *
+     * @return the initial backoff.
+     */
+    public Duration getRetryInitialBackoff() {
+        return getDuration(RETRY_INITIAL_BACKOFF, DEFAULT_RETRY_INITIAL_BACKOFF);
+    }
+
+    /**
+     * Gets the maximum delay before a retry, whatever the number of previous attempts.
+     *
+     * @return the maximum backoff.
+     */
+    public Duration getRetryMaxBackoff() {
+        return getDuration(RETRY_MAX_BACKOFF, DEFAULT_RETRY_MAX_BACKOFF);
+    }
+
+    /**
+     * Gets the capacity of the retry budget. Retries are only allowed while more than half of the tokens are available.
+     *
+     * @return the maximum number of tokens.
+     */
+    public int getRetryBudgetMaxTokens() {
+        return getPositiveInt(RETRY_BUDGET_MAX_TOKENS, DEFAULT_RETRY_BUDGET_MAX_TOKENS);
+    }
+
+    /**
+     * Gets the number of tokens given back to the retry budget by a transfer completed without conflict. A conflict
+     * costs one token.
+     *
+     * @return the token ratio.
+     */
+    public double getRetryBudgetTokenRatio() {
+        final var valueAsString = environment.getProperty(RETRY_BUDGET_TOKEN_RATIO);
+        return Optional.ofNullable(valueAsString)
+                .map(value -> parsePositiveDouble(value, RETRY_BUDGET_TOKEN_RATIO))
+                .orElse(DEFAULT_RETRY_BUDGET_TOKEN_RATIO);
+    }
+
+    /**
+     * Gets the maximum number of processed transfers kept in memory to answer the retries without a database query.
+     *
+     * @return the maximum cache size.
+     */
+    public int getIdempotencyCacheMaxSize() {
+        return getPositiveInt(IDEMPOTENCY_CACHE_MAX_SIZE, DEFAULT_IDEMPOTENCY_CACHE_MAX_SIZE);
+    }
+
+    /**
+     * Gets how long a processed transfer is kept in memory. Older retries are answered from the database.
+     *
+     * @return the time to live of the cached transfers.
+     */
+    public Duration getIdempotencyCacheTtl() {
+        return getDuration(IDEMPOTENCY_CACHE_TTL, DEFAULT_IDEMPOTENCY_CACHE_TTL);
+    }
+
+    /**
+     * Gets how long the idempotency key of a processed transfer is kept in the database. A retry arriving later is
+     * executed as a new transfer.
+     *
+     * @return the retention of the idempotency keys.
+     */
+    public Duration getIdempotencyRetention() {
+        return getDuration(IDEMPOTENCY_RETENTION, DEFAULT_IDEMPOTENCY_RETENTION);
+    }
+
+    /**
+     * Gets the number of threads executing the asynchronous transfers.
+     *
+     * @return the number of workers.
+     */
+    public int getAsyncWorkers() {
+        return getPositiveInt(ASYNC_WORKERS, DEFAULT_ASYNC_WORKERS);
+    }
+
+    /**
+     * Gets the maximum number of asynchronous transfers accepted and waiting for a worker. The transfers submitted
+     * while the queue is full are rejected.
+     *
+     * @return the capacity of the queue.
+     */
+    public int getAsyncQueueCapacity() {
+        return getPositiveInt(ASYNC_QUEUE_CAPACITY, DEFAULT_ASYNC_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Gets the delay after which a client whose asynchronous transfer was rejected is asked to submit it again.
+     *
+     * @return the delay before submitting a rejected transfer again.
+     */
+    public Duration getAsyncRetryAfter() {
+        return getDuration(ASYNC_RETRY_AFTER, DEFAULT_ASYNC_RETRY_AFTER);
+    }
+
+    /**
+     * Gets the maximum number of asynchronous transfers whose status is kept in memory.
+     *
+     * @return the maximum number of statuses.
+     */
+    public int getAsyncStatusMaxSize() {
+        return getPositiveInt(ASYNC_STATUS_MAX_SIZE, DEFAULT_ASYNC_STATUS_MAX_SIZE);
+    }
+
+    /**
+     * Gets how long the status of a completed asynchronous transfer can be retrieved.
+     *
+     * @return the retention of the statuses.
+     */
+    public Duration getAsyncStatusRetention() {
+        return getDuration(ASYNC_STATUS_RETENTION, DEFAULT_ASYNC_STATUS_RETENTION);
+    }
+
+    /**
+     * Whether the balances are kept in the sharded in-memory ledger, in which case the database is not the reference
+     * for the balances.
+     *
+     * @return true if {@link #LOCKING} is {@link #SHARDED_LOCKING}.
+     */
+    public boolean isShardedLocking() {
+        return SHARDED_LOCKING.equals(environment.getProperty(LOCKING));
+    }
+
+    /**
+     * Gets the number of shards of the in-memory ledger, each one owning a partition of the accounts and executing
+     * their transfers on its own thread.
+     *
+     * @return the number of shards.
+     */
+    public int getShardedShards() {
+        return getPositiveInt(SHARDED_SHARDS, DEFAULT_SHARDED_SHARDS);
+    }
+
+    /**
+     * Gets the number of commands which can wait for a shard of the in-memory ledger, rounded up to a power of two.
+     *
+     * @return the size of the ring buffer of each shard.
+     */
+    public int getShardedRingBufferSize() {
+        return getPositiveInt(SHARDED_RING_BUFFER_SIZE, DEFAULT_SHARDED_RING_BUFFER_SIZE);
+    }
+
+    /**
+     * Gets the maximum time to wait for a free slot in the ring buffer of a shard before the transfer is reported as
+     * conflicting.
+     *
+     * @return the submit timeout.
+     */
+    public Duration getShardedSubmitTimeout() {
+        return getDuration(SHARDED_SUBMIT_TIMEOUT, DEFAULT_SHARDED_SUBMIT_TIMEOUT);
+    }
+
+    /**
+     * Gets the directory of the transfer journal and of its snapshots. The journal is disabled if the directory is not
+     * set. Only the transfers of the {@value #SHARDED_LOCKING} locking are journaled.
+     *
+     * @return the directory of the journal, if enabled.
+     */
+    public Optional<Path> getJournalDirectory() {
+        return Optional.ofNullable(environment.getProperty(JOURNAL_DIRECTORY))
+                .filter(directory -> !directory.isBlank())
+                .map(Path::of);
+    }
+
+    /**
+     * Gets when the records of the transfer journal are forced to the storage device.
+     *
+     * @return the fsync policy.
+     */
+    public JournalFsyncPolicy getJournalFsyncPolicy() {
+        final var valueAsString = environment.getProperty(JOURNAL_FSYNC_POLICY);
+        return Optional.ofNullable(valueAsString)
+                .map(value -> parseFsyncPolicy(value, JOURNAL_FSYNC_POLICY))
+                .orElse(DEFAULT_JOURNAL_FSYNC_POLICY);
+    }
+
+    /**
+     * Gets the delay between two fsyncs of the transfer journal with the policy {@link JournalFsyncPolicy#INTERVAL}.
+     *
+     * @return the fsync interval.
+     */
+    public Duration getJournalFsyncInterval() {
+        return getDuration(JOURNAL_FSYNC_INTERVAL, DEFAULT_JOURNAL_FSYNC_INTERVAL);
+    }
+
+    /**
+     * Gets the size of a file of the transfer journal, the journal moving to a new file when it is full.
+     *
+     * @return the size of a journal segment, in bytes.
+     */
+    public int getJournalSegmentSize() {
+        return getPositiveInt(JOURNAL_SEGMENT_SIZE, DEFAULT_JOURNAL_SEGMENT_SIZE);
+    }
+
+    /**
+     * Gets how long the segments of the transfer journal are kept once a snapshot covers all their records. They are
+     * the record of each transfer, the snapshots only hold the balances.
+     *
+     * @return the retention of the journal segments.
+     */
+    public Duration getJournalSegmentRetention() {
+        return getDuration(JOURNAL_SEGMENT_RETENTION, DEFAULT_JOURNAL_SEGMENT_RETENTION);
+    }
+
+    /**
+     * Gets how long the group commit waits for more transfers after the first transfer of a group, before committing
+     * the group.
+     *
+     * @return the linger window.
+     */
+    public Duration getGroupLinger() {
+        return getDuration(GROUP_LINGER, DEFAULT_GROUP_LINGER);
+    }
+
+    /**
+     * Gets the maximum number of transfers committed in the same transaction by the group commit. A group reaching
+     * this size is committed without waiting for the end of the linger window.
+     *
+     * @return the maximum group size.
+     */
+    public int getGroupMaxSize() {
+        return getPositiveInt(GROUP_MAX_SIZE, DEFAULT_GROUP_MAX_SIZE);
+    }
+
+    /**
+     * Gets the maximum number of transfers waiting for the group commit. The transfers submitted while the queue is
+     * full are handled as conflicts.
+     *
+     * @return the capacity of the queue.
+     */
+    public int getGroupQueueCapacity() {
+        return getPositiveInt(GROUP_QUEUE_CAPACITY, DEFAULT_GROUP_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Gets the maximum time spent committing again the transfers of a group whose transaction failed. The transfers
+     * not committed by then are handled as conflicts.
+     *
+     * @return the retry timeout of a failed group.
+     */
+    public Duration getGroupRetryTimeout() {
+        return getDuration(GROUP_RETRY_TIMEOUT, DEFAULT_GROUP_RETRY_TIMEOUT);
+    }
+
+    private JournalFsyncPolicy parseFsyncPolicy(String value, String propertyName) {
+        try {
+            return JournalFsyncPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+
+        } catch (RuntimeException exception) {
+            log.error("Invalid value for <{}>. Expected one of {} but got <{}>.", propertyName,
+                    Arrays.toString(JournalFsyncPolicy.values()), value);
+            throw exception;
+        }
+    }
+
+    private int getPositiveInt(String propertyName, int defaultValue) {
+        final var valueAsString = environment.getProperty(propertyName);
+        return Optional.ofNullable(valueAsString)
+                .map(value -> parsePositiveInt(value, propertyName))
+                .orElse(defaultValue);
+    }
+
+    private int parsePositiveInt(String value, String propertyName) {
+        try {
+            final var parsedValue = Integer.parseInt(value);
+            if (parsedValue <= 0) {
+                throw new IllegalArgumentException("The value must be positive.");
+            }
+            return parsedValue;
+
+        } catch (RuntimeException exception) {
+            log.error("Invalid value for <{}>. Expected a positive integer but got <{}>.", propertyName, value);
+            throw exception;
+        }
+    }
+
+    private Duration getDuration(String propertyName, Duration defaultValue) {
+        final var valueAsString = environment.getProperty(propertyName);
+        return Optional.ofNullable(valueAsString)
+                .map(value -> parseNonNegativeLong(value, propertyName))
+                .map(Duration::ofMillis)
+                .orElse(defaultValue);
+    }
+
+    private long parseNonNegativeLong(String value, String propertyName) {
+        try {
+            final var parsedValue = Long.parseLong(value);
+            if (parsedValue < 0) {
+                throw new IllegalArgumentException("The value cannot be negative.");
+            }
+            return parsedValue;
+
+        } catch (RuntimeException exception) {
+            log.error("Invalid value for <{}>. Expected a non-negative long but got <{}>.", propertyName, value);
+            throw exception;
+        }
+    }
+
+    private double parsePositiveDouble(String value, String propertyName) {
+        try {
+            final var parsedValue = Double.parseDouble(value);
+            if (!(parsedValue > 0)) {
+                throw new IllegalArgumentException("The value must be positive.");
+            }
+            return parsedValue;
+
+        } catch (RuntimeException exception) {
+            log.error("Invalid value for <{}>. Expected a positive number but got <{}>.", propertyName, value);
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import java.time.Duration;
+
+/**
+ * Exception used when an asynchronous transfer cannot be accepted because too many transfers are already waiting to
+ * be executed. The transfer has not been executed and can be submitted again later.
+ */
+public class TransferQueueFullException extends Exception {
+
+    private final Duration retryAfter;
+
+    public TransferQueueFullException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the delay after which the transfer can be submitted again.
+     *
+     * @return the delay before submitting the transfer again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
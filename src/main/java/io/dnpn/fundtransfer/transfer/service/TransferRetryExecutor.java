@@ -0,0 +1,135 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.common.annotation.VisibleForTesting;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Executes the balance update of a transfer and retries it when it fails because the same accounts were updated
+ * concurrently (optimistic locking failure, lock timeout...).
+ * <p>
+ * Each attempt must run in its own transaction. Between 2 attempts the executor waits for a random delay ("full
+ * jitter") whose upper bound grows exponentially, so the transfers conflicting on a popular account do not retry in
+ * lock-step. The retries are limited by a {@link RetryBudget} shared by all the transfers, and the number of conflicts
+ * is recorded for each account.
+ */
+@Slf4j
+@Component
+public class TransferRetryExecutor {
+
+    @VisibleForTesting
+    static final String CONFLICT_MESSAGE = "The transfer could not be completed because of concurrent transfers on " +
+            "the same accounts, please retry.";
+
+    private final TransferProperty transferProperty;
+    private final RetryBudget retryBudget;
+    private final Map<Long, LongAdder> conflictsByAccount = new ConcurrentHashMap<>();
+
+    public TransferRetryExecutor(TransferProperty transferProperty) {
+        this.transferProperty = transferProperty;
+        this.retryBudget = new RetryBudget(transferProperty.getRetryBudgetMaxTokens(),
+                transferProperty.getRetryBudgetTokenRatio());
+    }
+
+    /**
+     * Executes the operation, retrying it on concurrency failures.
+     *
+     * @param accountIds the accounts updated by the operation, used to record the conflicts.
+     * @param operation  the transactional operation to execute.
+     * @throws IllegalTransferException  if the operation denies the transfer. It is not retried.
+     * @throws TransferConflictException if the operation still conflicts after the last allowed attempt.
+     */
+    void execute(@NonNull Collection<Long> accountIds, @NonNull TransferOperation operation)
+            throws IllegalTransferException, TransferConflictException {
+        final var maxAttempts = transferProperty.getRetryMaxAttempts();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                operation.run();
+                retryBudget.recordSuccess();
+                return;
+
+            } catch (IllegalTransferException exception) {
+                retryBudget.recordSuccess();
+                throw exception;
+
+            } catch (ConcurrencyFailureException exception) {
+                recordConflict(accountIds);
+                retryBudget.recordConflict();
+
+                if (attempt >= maxAttempts || !retryBudget.canRetry()) {
+                    log.warn("Transfer on the accounts {} abandoned after {} attempt(s) because of concurrent " +
+                            "updates.", accountIds, attempt);
+                    throw new TransferConflictException(CONFLICT_MESSAGE, exception);
+                }
+                log.debug("Attempt {} of the transfer on the accounts {} conflicted, retrying.", attempt, accountIds);
+                backOff(attempt, exception);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of conflicts recorded for each account since the start of the application.
+     *
+     * @return the number of conflicts by account identifier.
+     */
+    public Map<Long, Long> getConflictCounts() {
+        return conflictsByAccount.entrySet()
+                .stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+    }
+
+    /**
+     * Computes the delay before the next attempt: a random duration between zero and
+     * {@code min(maxBackoff, initialBackoff * 2^(attempt - 1))}.
+     *
+     * @param attempt the number of the attempt that just failed, starting at 1.
+     * @return the delay before the next attempt.
+     */
+    Duration computeBackoff(int attempt) {
+        final var initialBackoff = transferProperty.getRetryInitialBackoff().toMillis();
+        final var maxBackoff = transferProperty.getRetryMaxBackoff().toMillis();
+
+        final var exponent = Math.min(attempt - 1, Long.SIZE - 2);
+        final var exponentialBackoff = initialBackoff > (Long.MAX_VALUE >> exponent)
+                ? Long.MAX_VALUE
+                : initialBackoff << exponent;
+        final var upperBound = Math.min(maxBackoff, exponentialBackoff);
+
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(upperBound + 1));
+    }
+
+    private void recordConflict(Collection<Long> accountIds) {
+        accountIds.forEach(accountId -> conflictsByAccount.computeIfAbsent(accountId, id -> new LongAdder())
+                .increment());
+    }
+
+    private void backOff(int attempt, ConcurrencyFailureException conflict) throws TransferConflictException {
+        try {
+            Thread.sleep(computeBackoff(attempt).toMillis());
+
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new TransferConflictException(CONFLICT_MESSAGE, conflict);
+        }
+    }
+
+    /**
+     * Operation executed, and possibly retried, by the {@link TransferRetryExecutor}.
+     */
+    @FunctionalInterface
+    interface TransferOperation {
+
+        void run() throws IllegalTransferException;
+    }
+}
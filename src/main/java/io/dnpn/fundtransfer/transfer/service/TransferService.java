@@ -2,17 +2,19 @@ package io.dnpn.fundtransfer.transfer.service;
 
 import io.dnpn.fundtransfer.account.AccountEntity;
 import io.dnpn.fundtransfer.account.AccountService;
-import io.dnpn.fundtransfer.common.MoneyHandling;
+import io.dnpn.fundtransfer.common.Money;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
-import io.dnpn.fundtransfer.currency.service.CurrencyConversionRequest;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionService;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
-import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service to perform a fund transfer between 2 accounts.
@@ -22,114 +24,117 @@ import java.math.BigDecimal;
 @RequiredArgsConstructor
 public class TransferService {
 
+    /**
+     * The message of a successful transfer, whichever the way it was executed (synchronously, asynchronously or in a
+     * batch).
+     */
+    public static final String SUCCESSFUL_TRANSFER_MESSAGE = "Transfer successful";
+
     private final AccountService accountService;
     private final CurrencyConversionService conversionService;
+    private final BalanceUpdater balanceUpdater;
+    private final TransferRetryExecutor retryExecutor;
+    private final ProcessedTransferRecorder recorder;
 
     /**
-     * Transfers funds from one account to another. This method is transactional, if any part of its execution fails
-     * then the whole operation is rolled-back.
+     * Transfers funds from one account to another. The update of the balances is transactional, if any part of it
+     * fails then the whole update is rolled-back. If it fails because the accounts were updated concurrently then it
+     * is retried in a new transaction (see {@link TransferRetryExecutor}).
+     * <p>
+     * The exchange rate is resolved and pinned before the transaction is opened, so no database connection is held
+     * while waiting for the currency conversion service. Past the validation of the requested amount, the amounts are
+     * handled as {@link Money}, in cents.
      *
      * @param request the transfer request.
-     * @throws IllegalTransferException if the requested transfer is invalid.
-     * @throws TransferFailureException if the requested transfer is valid but the execution failed.
+     * @throws IllegalTransferException  if the requested transfer is invalid.
+     * @throws TransferConflictException if the requested transfer is valid but kept conflicting with concurrent
+     *                                   transfers.
+     * @throws TransferFailureException  if the requested transfer is valid but the execution failed.
      */
-    @Transactional
     public void transfer(@NonNull TransferRequest request) throws IllegalTransferException, TransferFailureException {
-        final var debitedAmount = request.amount();
-        assertValidAmount(debitedAmount);
-        log.debug("Transfer amount {} is valid.", debitedAmount);
-
-        final var debitAccount = getAccountById(request.fromAccountId());
-        assertSufficientBalance(debitAccount, debitedAmount);
-        log.debug("The balance of the debit account is sufficient for the transfer.");
-
-        final var creditAccount = getAccountById(request.toAccountId());
-        assertDifferentAccounts(debitAccount, creditAccount);
-        final var creditedAmount = calculateDebitedAmount(debitAccount, creditAccount, debitedAmount);
-
-        debitAccount(debitAccount, debitedAmount);
-        creditAccount(creditAccount, creditedAmount);
-        log.debug("Transfer completed: {} {} debited from the account {} | {} {} credited to the account {}",
-                debitedAmount, debitAccount.getCurrency(), debitAccount.getId(),
-                creditedAmount, creditAccount.getCurrency(), creditAccount.getId()
-        );
-    }
-
-    private AccountEntity getAccountById(long accountId) throws IllegalTransferException {
-        return accountService.getById(accountId)
-                .orElseThrow(() -> supplyAccountNotFoundException(accountId));
-    }
-
-    private IllegalTransferException supplyAccountNotFoundException(long accountId) {
-        final var message = String.format("No account found with the identifier %d.", accountId);
-        return new IllegalTransferException(message);
+        transfer(request, balanceUpdater);
     }
 
     /**
-     * Valid that the amount for the transfer is valid. For now this method checks just that the amount is positive,
-     * but we may in the future check that it does not exceed a maximum allowed amount or that it has no more than 2
-     * decimals.
+     * Transfers funds like {@link #transfer(TransferRequest)}, and records the idempotency key of the transfer in the
+     * transaction updating the balances (see {@link ProcessedTransferRecorder}).
      *
-     * @param amount the amount to validate.
-     * @throws IllegalTransferException if the amount is invalid.
+     * @param request           the transfer request.
+     * @param processedTransfer the transfer to record.
+     * @throws IllegalTransferException  if the requested transfer is invalid.
+     * @throws TransferConflictException if the requested transfer is valid but kept conflicting with concurrent
+     *                                   transfers.
+     * @throws TransferFailureException  if the requested transfer is valid but the execution failed.
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key was recorded concurrently, the
+     *                                                                 transfer is rolled-back then.
      */
-    private void assertValidAmount(BigDecimal amount) throws IllegalTransferException {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            final var message = String.format("Invalid transfer amount: %.2f. The amount must be positive.", amount);
-            throw new IllegalTransferException(message);
-        }
+    void transfer(@NonNull TransferRequest request, @NonNull ProcessedTransfer processedTransfer)
+            throws IllegalTransferException, TransferFailureException {
+        transfer(request, balanceTransfer -> recorder.applyAndRecord(balanceUpdater, balanceTransfer,
+                processedTransfer));
     }
 
-    private void assertSufficientBalance(AccountEntity debitedAccount, BigDecimal debitedAmount) throws IllegalTransferException {
-        if (debitedAmount.compareTo(debitedAccount.getBalance()) > 0) {
-            final var message = String.format("Invalid transfer of %.2f %s from the account %s: the amount exceeds" +
-                    " the balance.", debitedAmount, debitedAccount.getCurrency(), debitedAccount.getId());
-            throw new IllegalTransferException(message);
+    private void transfer(TransferRequest request, BalanceUpdater updater)
+            throws IllegalTransferException, TransferFailureException {
+        final var debitedAmountInCents = TransferValidation.toValidAmountInCents(request.amount());
+        log.debug("Transfer amount {} is valid.", request.amount());
+
+        final var accounts = getAccountsById(request.fromAccountId(), request.toAccountId());
+        final var debitAccount = getAccount(accounts, request.fromAccountId());
+        final var debitedAmount = Money.ofCents(debitedAmountInCents, debitAccount.getCurrency());
+        if (balanceUpdater.isBalanceInDatabaseCurrent()) {
+            TransferValidation.assertSufficientBalance(debitAccount, debitedAmount);
+            log.debug("The balance of the debit account is sufficient for the transfer.");
         }
+
+        final var creditAccount = getAccount(accounts, request.toAccountId());
+        TransferValidation.assertDifferentAccounts(debitAccount.getId(), creditAccount.getId());
+        final var exchangeRate = pinExchangeRate(debitAccount, creditAccount);
+        final var creditedAmount = exchangeRate.convert(debitedAmount);
+        log.debug("Exchange rate pinned for the transfer: {}", exchangeRate);
+
+        final var balanceTransfer = BalanceTransfer.builder()
+                .debitAccountId(debitAccount.getId())
+                .debitedAmount(debitedAmount)
+                .creditAccountId(creditAccount.getId())
+                .creditedAmount(creditedAmount)
+                .build();
+        retryExecutor.execute(List.of(debitAccount.getId(), creditAccount.getId()),
+                () -> updater.apply(balanceTransfer));
+        log.debug("Transfer completed: {} debited from the account {} | {} credited to the account {}",
+                debitedAmount, debitAccount.getId(), creditedAmount, creditAccount.getId());
     }
 
-    private void assertDifferentAccounts(AccountEntity debitAccount, AccountEntity creditAccount) throws IllegalTransferException {
-        if (debitAccount.getId() == creditAccount.getId()) {
-            final var message = String.format("The same account %d was chosen as a debit and credit account, " +
-                    "please choose different accounts to make a transfer.", debitAccount.getId());
-            throw new IllegalTransferException(message);
-        }
+    /**
+     * Loads both accounts with a single query.
+     */
+    private Map<Long, AccountEntity> getAccountsById(long debitAccountId, long creditAccountId) {
+        return accountService.getByIds(List.of(debitAccountId, creditAccountId))
+                .stream()
+                .collect(Collectors.toMap(AccountEntity::getId, Function.identity()));
+    }
+
+    private AccountEntity getAccount(Map<Long, AccountEntity> accounts, long accountId) throws IllegalTransferException {
+        return Optional.ofNullable(accounts.get(accountId))
+                .orElseThrow(() -> TransferValidation.accountNotFound(accountId));
     }
 
-    private BigDecimal calculateDebitedAmount(AccountEntity debitAccount, AccountEntity creditAccount, BigDecimal debitedAmount) throws TransferFailureException {
+    private PinnedExchangeRate pinExchangeRate(AccountEntity debitAccount, AccountEntity creditAccount)
+            throws TransferFailureException {
+        final var fromCurrency = debitAccount.getCurrency();
+        final var toCurrency = creditAccount.getCurrency();
         try {
-            final var request = CurrencyConversionRequest.builder()
-                    .amount(debitedAmount)
-                    .fromCurrency(debitAccount.getCurrency())
-                    .toCurrency(creditAccount.getCurrency())
+            return PinnedExchangeRate.builder()
+                    .fromCurrency(fromCurrency)
+                    .toCurrency(toCurrency)
+                    .rate(conversionService.getExchangeRate(fromCurrency, toCurrency))
                     .build();
-            final var convertedAmount = conversionService.convert(request);
-            return scaleConvertedAmountToMoney(convertedAmount);
 
         } catch (CurrencyConversionException exception) {
             final var message = String.format("Unsupported currency conversion from %s to %s.",
-                    debitAccount.getCurrency(), creditAccount.getCurrency());
+                    fromCurrency, toCurrency);
             log.error(message, exception);
             throw new TransferFailureException(message, exception);
         }
     }
-
-    private BigDecimal scaleConvertedAmountToMoney(BigDecimal amount) {
-        return amount.setScale(MoneyHandling.SCALE_FOR_MONEY, MoneyHandling.ROUNDING_MODE_FOR_CLIENT_CREDIT);
-    }
-
-    private void debitAccount(AccountEntity account, BigDecimal amount) {
-        final var newBalance = account.getBalance().subtract(amount);
-        updateAccountBalance(account, newBalance);
-    }
-
-    private void creditAccount(AccountEntity account, BigDecimal amount) {
-        final var newBalance = account.getBalance().add(amount);
-        updateAccountBalance(account, newBalance);
-    }
-
-    private void updateAccountBalance(AccountEntity account, BigDecimal newBalance) {
-        account.setBalance(newBalance);
-        accountService.update(account);
-    }
 }
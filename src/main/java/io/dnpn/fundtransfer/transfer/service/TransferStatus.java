@@ -0,0 +1,24 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+/**
+ * Outcome of a transfer.
+ */
+public enum TransferStatus {
+    /**
+     * The transfer has been accepted and is waiting to be executed (asynchronous transfers only, see
+     * {@link AsyncTransferService}).
+     */
+    PENDING,
+    /**
+     * The transfer has been executed.
+     */
+    SUCCEEDED,
+    /**
+     * The transfer is illegal (see {@link IllegalTransferException}) and has not been executed.
+     */
+    DENIED,
+    /**
+     * The transfer is valid but its execution failed (see {@link TransferFailureException}).
+     */
+    FAILED
+}
@@ -0,0 +1,74 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.common.MoneyHandling;
+
+import java.math.BigDecimal;
+
+/**
+ * Validation rules shared by the different ways of executing a transfer.
+ */
+final class TransferValidation {
+
+    private static final int MAX_INTEGER_DIGITS = MoneyHandling.PRECISION_FOR_MONEY - MoneyHandling.SCALE_FOR_MONEY;
+
+    private TransferValidation() {
+    }
+
+    /**
+     * Valid that the amount for the transfer is valid, and converts it to cents for the rest of the transfer. The
+     * amount must be positive, have no more than 2 decimals and no more than
+     * {@link MoneyHandling#PRECISION_FOR_MONEY} digits. We may in the future check that it does not exceed a maximum
+     * allowed amount.
+     *
+     * @param amount the amount to validate.
+     * @return the amount, in cents.
+     * @throws IllegalTransferException if the amount is invalid.
+     */
+    static long toValidAmountInCents(BigDecimal amount) throws IllegalTransferException {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            final var message = String.format("Invalid transfer amount: %.2f. The amount must be positive.", amount);
+            throw new IllegalTransferException(message);
+        }
+        final var scaledAmount = amount.stripTrailingZeros();
+        if (scaledAmount.scale() > MoneyHandling.SCALE_FOR_MONEY
+                || scaledAmount.precision() - scaledAmount.scale() > MAX_INTEGER_DIGITS) {
+            final var message = String.format("Invalid transfer amount: %s. The amount must have at most %d " +
+                            "decimals and %d digits.", amount.toPlainString(), MoneyHandling.SCALE_FOR_MONEY,
+                    MoneyHandling.PRECISION_FOR_MONEY);
+            throw new IllegalTransferException(message);
+        }
+        return Money.toCents(scaledAmount);
+    }
+
+    static void assertSufficientBalance(AccountEntity debitedAccount, Money debitedAmount)
+            throws IllegalTransferException {
+        if (debitedAmount.isGreaterThan(debitedAccount.getBalance())) {
+            throw insufficientBalance(debitedAccount, debitedAmount);
+        }
+    }
+
+    static IllegalTransferException insufficientBalance(AccountEntity debitedAccount, Money debitedAmount) {
+        return insufficientBalance(debitedAccount.getId(), debitedAmount);
+    }
+
+    static IllegalTransferException insufficientBalance(long debitedAccountId, Money debitedAmount) {
+        final var message = String.format("Invalid transfer of %s from the account %s: the amount exceeds" +
+                " the balance.", debitedAmount, debitedAccountId);
+        return new IllegalTransferException(message);
+    }
+
+    static void assertDifferentAccounts(long debitAccountId, long creditAccountId) throws IllegalTransferException {
+        if (debitAccountId == creditAccountId) {
+            final var message = String.format("The same account %d was chosen as a debit and credit account, " +
+                    "please choose different accounts to make a transfer.", debitAccountId);
+            throw new IllegalTransferException(message);
+        }
+    }
+
+    static IllegalTransferException accountNotFound(long accountId) {
+        final var message = String.format("No account found with the identifier %d.", accountId);
+        return new IllegalTransferException(message);
+    }
+}
@@ -0,0 +1,153 @@
+package benchmark;
+
+import io.dnpn.fundtransfer.FundTransferApplication;
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.transfer.service.IllegalTransferException;
+import io.dnpn.fundtransfer.transfer.service.TransferConflictException;
+import io.dnpn.fundtransfer.transfer.service.TransferRequest;
+import io.dnpn.fundtransfer.transfer.service.TransferService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the goodput of the locking modes (see `transfer.locking`) at rising contention levels: the same number of
+ * concurrent transfers is executed on fewer and fewer accounts.
+ * <p>
+ * This is not a unit test, it is not executed by `mvn test`. Run it with:
+ * <pre>
+ * mvn test -Dtest=LockingModeBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ * The results are logged as a table, one line per locking mode and contention level.
+ */
+@Slf4j
+class LockingModeBenchmark {
+
+    private static final List<String> LOCKING_MODES = List.of("optimistic", "atomic", "pessimistic", "sharded",
+            "group");
+    /**
+     * Number of accounts shared by all the transfers, from low contention to a single hot pair.
+     */
+    private static final List<Integer> HOT_ACCOUNT_COUNTS = List.of(64, 16, 4, 2);
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final int WARM_UP_TRANSFERS_PER_THREAD = 50;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+    private static final BigDecimal TRANSFERRED_AMOUNT = new BigDecimal("1.00");
+
+    @Test
+    void compareLockingModesAtRisingContention() throws Exception {
+        final var results = new ArrayList<String>();
+        results.add(String.format("%-12s %8s %10s %12s %10s %8s", "mode", "accounts", "succeeded", "conflicts",
+                "elapsedMs", "tps"));
+
+        for (var lockingMode : LOCKING_MODES) {
+            try (var context = startApplication(lockingMode)) {
+                var firstAccountId = 1_000_000L;
+                runTransfers(context, createAccounts(context, firstAccountId, 2), WARM_UP_TRANSFERS_PER_THREAD);
+
+                for (var hotAccountCount : HOT_ACCOUNT_COUNTS) {
+                    firstAccountId += 1_000;
+                    final var accountIds = createAccounts(context, firstAccountId, hotAccountCount);
+                    final var result = runTransfers(context, accountIds, TRANSFERS_PER_THREAD);
+                    results.add(String.format("%-12s %8d %10d %12d %10d %8.0f", lockingMode, hotAccountCount,
+                            result.succeeded(), result.conflicts(), result.elapsedMs(), result.transfersPerSecond()));
+                }
+            }
+        }
+        log.info("Locking mode benchmark ({} threads x {} transfers):{}{}", THREADS, TRANSFERS_PER_THREAD,
+                System.lineSeparator(), String.join(System.lineSeparator(), results));
+    }
+
+    private ConfigurableApplicationContext startApplication(String lockingMode) {
+        return new SpringApplicationBuilder(FundTransferApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--transfer.locking=" + lockingMode,
+                        "--currencyConversion.mode=sql",
+                        "--spring.datasource.hikari.maximum-pool-size=" + THREADS);
+    }
+
+    private List<Long> createAccounts(ConfigurableApplicationContext context, long firstAccountId, int count) {
+        final var accountService = context.getBean(AccountService.class);
+        final var accountIds = new ArrayList<Long>();
+        for (long accountId = firstAccountId; accountId < firstAccountId + count; accountId++) {
+            accountService.update(AccountEntity.builder()
+                    .id(accountId)
+                    .currency(Currency.USD)
+                    .balanceInCents(Money.toCents(INITIAL_BALANCE))
+                    .build());
+            accountIds.add(accountId);
+        }
+        return accountIds;
+    }
+
+    private BenchmarkResult runTransfers(ConfigurableApplicationContext context, List<Long> accountIds,
+                                         int transfersPerThread) throws Exception {
+        final var transferService = context.getBean(TransferService.class);
+        final var succeeded = new LongAdder();
+        final var conflicts = new LongAdder();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        final var start = System.nanoTime();
+        final var futures = new ArrayList<Future<?>>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int index = 0; index < transfersPerThread; index++) {
+                    executeRandomTransfer(transferService, accountIds, succeeded, conflicts);
+                }
+                return null;
+            }));
+        }
+        for (var future : futures) {
+            future.get();
+        }
+        final var elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        executor.shutdown();
+
+        return new BenchmarkResult(succeeded.sum(), conflicts.sum(), elapsedMs);
+    }
+
+    private void executeRandomTransfer(TransferService transferService, List<Long> accountIds, LongAdder succeeded,
+                                       LongAdder conflicts) throws Exception {
+        final var random = ThreadLocalRandom.current();
+        final var fromIndex = random.nextInt(accountIds.size());
+        final var toIndex = (fromIndex + 1 + random.nextInt(accountIds.size() - 1)) % accountIds.size();
+        final var request = TransferRequest.builder()
+                .fromAccountId(accountIds.get(fromIndex))
+                .toAccountId(accountIds.get(toIndex))
+                .amount(TRANSFERRED_AMOUNT)
+                .build();
+        try {
+            transferService.transfer(request);
+            succeeded.increment();
+
+        } catch (TransferConflictException exception) {
+            conflicts.increment();
+
+        } catch (IllegalTransferException exception) {
+            throw new IllegalStateException("The benchmark accounts should never run out of money.", exception);
+        }
+    }
+
+    private record BenchmarkResult(long succeeded, long conflicts, long elapsedMs) {
+
+        double transfersPerSecond() {
+            return elapsedMs == 0 ? 0 : succeeded * 1000.0 / elapsedMs;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
 import io.dnpn.fundtransfer.account.AccountEntity;
 import io.dnpn.fundtransfer.account.AccountRepository;
+import io.dnpn.fundtransfer.common.Money;
 import io.dnpn.fundtransfer.common.MoneyHandling;
 import io.dnpn.fundtransfer.currency.Currency;
 import io.dnpn.fundtransfer.transfer.api.TransferApiRequest;
@@ -32,12 +33,12 @@ public class FundTransferSteps {
     private static final long NOT_EXITING_ACCOUNT_ID = 999;
     private static final AccountEntity SOURCE_ACCOUNT = AccountEntity.builder()
             .id(123)
-            .balance(new BigDecimal("47.21"))
+            .balanceInCents(4721)
             .currency(Currency.GBP)
             .build();
     private static final AccountEntity TARGET_ACCOUNT = AccountEntity.builder()
             .id(456)
-            .balance(new BigDecimal("10000.19"))
+            .balanceInCents(1000019)
             .currency(Currency.JPY)
             .build();
     private static final Collection<AccountEntity> ACCOUNTS = List.of(SOURCE_ACCOUNT, TARGET_ACCOUNT);
@@ -45,7 +46,11 @@ public class FundTransferSteps {
     private static final BigDecimal VALID_TRANSFER_AMOUNT = new BigDecimal("25");
     private static final BigDecimal TOO_BIG_TRANSFER_AMOUNT = new BigDecimal("50");
 
-    private static final BigDecimal CONVERTED_AMOUNT = new BigDecimal("3724.305775");
+    private static final BigDecimal EXCHANGE_RATE = new BigDecimal("148.972231");
+    private static final BigDecimal CONVERTED_AMOUNT = VALID_TRANSFER_AMOUNT.multiply(EXCHANGE_RATE);
+    /**
+     * The exchange rate is pinned before the transfer by converting 1 unit of the source currency.
+     */
     private static final String CURRENCY_CONVERSION_API_RESPONSE = """
             {
               "date": "2018-02-22",
@@ -63,8 +68,8 @@ public class FundTransferSteps {
               "success": true
             }
             """.formatted(
-            VALID_TRANSFER_AMOUNT,
-            CONVERTED_AMOUNT
+            BigDecimal.ONE,
+            EXCHANGE_RATE
     );
     private static final String INVALID_CURRENCY_API_RESPONSE = """
             {
@@ -150,7 +155,8 @@ public class FundTransferSteps {
 
     @Then("the source account is debited of the amount")
     public void theSourceAccountIsDebitedOfTheAmount() {
-        final var expectedAmount = SOURCE_ACCOUNT.getBalance().subtract(VALID_TRANSFER_AMOUNT);
+        final var expectedAmount = SOURCE_ACCOUNT.getBalance()
+                .subtract(Money.of(VALID_TRANSFER_AMOUNT, SOURCE_ACCOUNT.getCurrency()));
         final var actualAmount = getUpdatedAccount(SOURCE_ACCOUNT).getBalance();
         assertEquals(expectedAmount, actualAmount);
     }
@@ -159,7 +165,8 @@ public class FundTransferSteps {
     public void theTargetAccountIsCreditedOfTheConvertedAmount() {
         final var scaledConvertedAmount = CONVERTED_AMOUNT.setScale(MoneyHandling.SCALE_FOR_MONEY,
                 MoneyHandling.ROUNDING_MODE_FOR_CLIENT_CREDIT);
-        final var expectedAmount = TARGET_ACCOUNT.getBalance().add(scaledConvertedAmount);
+        final var expectedAmount = TARGET_ACCOUNT.getBalance()
+                .add(Money.of(scaledConvertedAmount, TARGET_ACCOUNT.getCurrency()));
         final var actualAmount = getUpdatedAccount(TARGET_ACCOUNT).getBalance();
         assertEquals(expectedAmount, actualAmount);
     }
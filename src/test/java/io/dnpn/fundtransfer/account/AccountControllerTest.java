@@ -35,6 +35,7 @@ class AccountControllerTest {
         doReturn(Optional.of(ACCOUNT_ENTITY_A))
                 .when(service)
                 .getById(ID_ACCOUNT_A);
+        doReturn(ACCOUNT_A).when(service).toDto(ACCOUNT_ENTITY_A);
 
         var response = controller.getById(ID_ACCOUNT_A);
 
@@ -69,6 +70,8 @@ class AccountControllerTest {
         var accountEntities = List.of(ACCOUNT_ENTITY_A, ACCOUNT_ENTITY_B);
         var accountEntitiesPage = new PageImpl<>(accountEntities);
         doReturn(accountEntitiesPage).when(service).list(pageable);
+        doReturn(ACCOUNT_A).when(service).toDto(ACCOUNT_ENTITY_A);
+        doReturn(ACCOUNT_B).when(service).toDto(ACCOUNT_ENTITY_B);
 
         var response = controller.getAll(pageable);
 
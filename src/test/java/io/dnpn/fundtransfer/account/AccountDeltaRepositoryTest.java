@@ -0,0 +1,78 @@
+package io.dnpn.fundtransfer.account;
+
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountDeltaRepositoryTest {
+
+    private static final BalanceDelta DEBIT = BalanceDelta.builder()
+            .accountId(1)
+            .delta(Money.ofCents(-1234, Currency.GBP))
+            .build();
+    private static final BalanceDelta CREDIT = BalanceDelta.builder()
+            .accountId(2)
+            .delta(Money.ofCents(5678, Currency.USD))
+            .build();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @InjectMocks
+    private AccountDeltaRepository repository;
+
+    @Test
+    void GIVEN_nullDeltas_WHEN_applyDeltas_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> repository.applyDeltas(null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void WHEN_applyDeltas_THEN_sendAllDeltasInOneBatch() {
+        doReturn(new int[]{1, 1}).when(jdbcTemplate).batchUpdate(eq(AccountDeltaRepository.APPLY_DELTA_SQL), anyList());
+
+        repository.applyDeltas(List.of(DEBIT, CREDIT));
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(AccountDeltaRepository.APPLY_DELTA_SQL), captor.capture());
+        var parameters = captor.getValue();
+        assertArrayEquals(new Object[]{new BigDecimal("-12.34"), DEBIT.accountId(), new BigDecimal("-12.34")}, parameters.get(0));
+        assertArrayEquals(new Object[]{new BigDecimal("56.78"), CREDIT.accountId(), new BigDecimal("56.78")}, parameters.get(1));
+    }
+
+    @Test
+    void WHEN_applyDeltas_THEN_returnWhetherEachDeltaWasApplied() {
+        doReturn(new int[]{0, 1}).when(jdbcTemplate).batchUpdate(eq(AccountDeltaRepository.APPLY_DELTA_SQL), anyList());
+
+        var applied = repository.applyDeltas(List.of(DEBIT, CREDIT));
+
+        assertArrayEquals(new boolean[]{false, true}, applied);
+    }
+
+    @Test
+    void GIVEN_updateCountsNotReported_WHEN_applyDeltas_THEN_deemTheDeltasApplied() {
+        doReturn(new int[]{Statement.SUCCESS_NO_INFO, Statement.EXECUTE_FAILED})
+                .when(jdbcTemplate).batchUpdate(eq(AccountDeltaRepository.APPLY_DELTA_SQL), anyList());
+
+        var applied = repository.applyDeltas(List.of(DEBIT, CREDIT));
+
+        assertArrayEquals(new boolean[]{true, false}, applied);
+    }
+}
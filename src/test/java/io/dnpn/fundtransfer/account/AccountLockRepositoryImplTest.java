@@ -0,0 +1,95 @@
+package io.dnpn.fundtransfer.account;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountLockRepositoryImplTest {
+
+    private static final Duration LOCK_TIMEOUT = Duration.ofMillis(250);
+    private static final Map<String, Object> EXPECTED_HINTS = Map.of(AccountLockRepositoryImpl.LOCK_TIMEOUT_HINT,
+            LOCK_TIMEOUT.toMillis());
+
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+
+    private AccountLockRepositoryImpl repository;
+
+    @BeforeEach
+    void beforeEach() {
+        // the Hibernate session is also an EntityManager, so the repository cannot be built with @InjectMocks
+        this.repository = new AccountLockRepositoryImpl(entityManager);
+        doReturn(session).when(entityManager).unwrap(Session.class);
+        lenient().doReturn(null).when(entityManager).find(eq(AccountEntity.class), anyLong(), any(), any());
+    }
+
+    @Test
+    void WHEN_lockAllById_THEN_lockAccountsInAscendingOrder() {
+        var accountA = mockAccount(1);
+        var accountB = mockAccount(2);
+
+        var accounts = repository.lockAllById(List.of(2L, 1L), LOCK_TIMEOUT);
+
+        assertEquals(List.of(accountA, accountB), accounts);
+        var inOrder = inOrder(entityManager);
+        inOrder.verify(entityManager).find(AccountEntity.class, 1L, LockModeType.PESSIMISTIC_WRITE, EXPECTED_HINTS);
+        inOrder.verify(entityManager).find(AccountEntity.class, 2L, LockModeType.PESSIMISTIC_WRITE, EXPECTED_HINTS);
+    }
+
+    @Test
+    void GIVEN_duplicatedIds_WHEN_lockAllById_THEN_lockEachAccountOnce() {
+        var account = mockAccount(1);
+
+        var accounts = repository.lockAllById(List.of(1L, 1L), LOCK_TIMEOUT);
+
+        assertEquals(List.of(account), accounts);
+        verify(entityManager, times(1)).find(AccountEntity.class, 1L, LockModeType.PESSIMISTIC_WRITE, EXPECTED_HINTS);
+    }
+
+    @Test
+    void GIVEN_accountNotFound_WHEN_lockAllById_THEN_ignoreIt() {
+        var account = mockAccount(1);
+
+        var accounts = repository.lockAllById(List.of(1L, 999L), LOCK_TIMEOUT);
+
+        assertEquals(List.of(account), accounts);
+    }
+
+    @Test
+    void WHEN_lockAllById_THEN_applySessionLockTimeout() {
+        repository.lockAllById(List.of(1L), LOCK_TIMEOUT);
+
+        verify(session).doWork(any());
+    }
+
+    private AccountEntity mockAccount(long id) {
+        var account = AccountEntity.builder()
+                .id(id)
+                .build();
+        doReturn(account).when(entityManager).find(AccountEntity.class, id, LockModeType.PESSIMISTIC_WRITE,
+                EXPECTED_HINTS);
+        return account;
+    }
+}
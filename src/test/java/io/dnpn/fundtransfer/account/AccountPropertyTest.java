@@ -0,0 +1,62 @@
+package io.dnpn.fundtransfer.account;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.Environment;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class AccountPropertyTest {
+
+    @Mock
+    private Environment environment;
+    @InjectMocks
+    private AccountProperty property;
+
+    @Test
+    void GIVEN_propertiesNotSet_WHEN_getHotProperties_THEN_returnDefaultValues() {
+        assertEquals(Set.of(), property.getHotIds());
+        assertEquals(AccountProperty.DEFAULT_HOT_STRIPES, property.getHotStripes());
+    }
+
+    @Test
+    void WHEN_getHotProperties_THEN_returnPropertyValues() {
+        doReturn("123, 456,,789").when(environment).getProperty(AccountProperty.HOT_IDS);
+        doReturn("16").when(environment).getProperty(AccountProperty.HOT_STRIPES);
+
+        assertEquals(Set.of(123L, 456L, 789L), property.getHotIds());
+        assertEquals(16, property.getHotStripes());
+    }
+
+    @Test
+    void GIVEN_emptyIds_WHEN_getHotIds_THEN_returnEmpty() {
+        doReturn("").when(environment).getProperty(AccountProperty.HOT_IDS);
+
+        assertEquals(Set.of(), property.getHotIds());
+    }
+
+    @Test
+    void GIVEN_invalidIds_WHEN_getHotIds_THEN_throwsNumberFormat() {
+        doReturn("123,abc").when(environment).getProperty(AccountProperty.HOT_IDS);
+
+        assertThrows(NumberFormatException.class, () -> property.getHotIds());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "-1", "abc"})
+    void GIVEN_invalidStripes_WHEN_getHotStripes_THEN_throwsIllegalArgument(String value) {
+        doReturn(value).when(environment).getProperty(AccountProperty.HOT_STRIPES);
+
+        assertThrows(IllegalArgumentException.class, () -> property.getHotStripes());
+    }
+}
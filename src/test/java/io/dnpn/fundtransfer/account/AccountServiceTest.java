@@ -1,5 +1,6 @@
 package io.dnpn.fundtransfer.account;
 
+import io.dnpn.fundtransfer.common.Money;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -8,6 +9,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,17 +29,19 @@ import static org.mockito.Mockito.verify;
 class AccountServiceTest {
     private static final AccountEntity ACCOUNT_A = AccountEntity.builder()
             .id(ID_ACCOUNT_A)
-            .balance(BALANCE_ACCOUNT_A)
+            .balanceInCents(Money.toCents(BALANCE_ACCOUNT_A))
             .currency(CURRENCY_ACCOUNT_A)
             .build();
     private static final AccountEntity ACCOUNT_B = AccountEntity.builder()
             .id(ID_ACCOUNT_B)
-            .balance(BALANCE_ACCOUNT_B)
+            .balanceInCents(Money.toCents(BALANCE_ACCOUNT_B))
             .currency(CURRENCY_ACCOUNT_B)
             .build();
 
     @Mock
     private AccountRepository repository;
+    @Mock
+    private HotAccountService hotAccountService;
     @InjectMocks
     private AccountService service;
 
@@ -83,6 +88,37 @@ class AccountServiceTest {
         assertEquals(Optional.empty(), actual);
     }
 
+    @Test
+    void WHEN_getByIds_THEN_returnAccountsFromASingleQuery() {
+        var ids = List.of(ACCOUNT_A.getId(), ACCOUNT_B.getId());
+        doReturn(List.of(ACCOUNT_A, ACCOUNT_B)).when(repository).findAllById(ids);
+
+        var actual = service.getByIds(ids);
+
+        assertEquals(List.of(ACCOUNT_A, ACCOUNT_B), actual);
+    }
+
+    @Test
+    void GIVEN_nullIds_WHEN_getByIds_THEN_throwNullPointer() {
+        assertThrows(NullPointerException.class, () -> service.getByIds(null));
+    }
+
+    @Test
+    void WHEN_lockByIds_THEN_returnLockedAccounts() {
+        var ids = List.of(ACCOUNT_A.getId(), ACCOUNT_B.getId());
+        var lockTimeout = Duration.ofMillis(100);
+        doReturn(List.of(ACCOUNT_A, ACCOUNT_B)).when(repository).lockAllById(ids, lockTimeout);
+
+        var actual = service.lockByIds(ids, lockTimeout);
+
+        assertEquals(List.of(ACCOUNT_A, ACCOUNT_B), actual);
+    }
+
+    @Test
+    void GIVEN_nullIds_WHEN_lockByIds_THEN_throwNullPointer() {
+        assertThrows(NullPointerException.class, () -> service.lockByIds(null, Duration.ZERO));
+    }
+
     @Test
     void GIVEN_nullAccount_WHEN_update_THEN_throwNullPointer() {
         assertThrows(NullPointerException.class, () -> service.update(null));
@@ -95,4 +131,27 @@ class AccountServiceTest {
         verify(repository).save(ACCOUNT_A);
     }
 
-}
\ No newline at end of file
+    @Test
+    void WHEN_updateAll_THEN_returnPersistedAccounts() {
+        var accounts = List.of(ACCOUNT_A, ACCOUNT_B);
+        doReturn(accounts).when(repository).saveAll(accounts);
+
+        var actual = service.updateAll(accounts);
+
+        assertEquals(accounts, actual);
+    }
+
+    @Test
+    void WHEN_toDto_THEN_returnTheAccountWithTheBalanceIncludingTheStripes() {
+        doReturn(Money.ofCents(20_000, CURRENCY_ACCOUNT_A)).when(hotAccountService).getBalance(ACCOUNT_A);
+
+        var actual = service.toDto(ACCOUNT_A);
+
+        var expected = Account.builder()
+                .accountId(ID_ACCOUNT_A)
+                .currency(CURRENCY_ACCOUNT_A)
+                .balance(new BigDecimal("200.00"))
+                .build();
+        assertEquals(expected, actual);
+    }
+}
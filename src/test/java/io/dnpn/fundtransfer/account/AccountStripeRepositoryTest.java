@@ -0,0 +1,120 @@
+package io.dnpn.fundtransfer.account;
+
+import io.dnpn.fundtransfer.account.AccountStripeRepository.StripeBalance;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountStripeRepositoryTest {
+
+    private static final long ACCOUNT_ID = 123;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @InjectMocks
+    private AccountStripeRepository repository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void WHEN_createStripes_THEN_insertEveryMissingStripeInOneBatch() {
+        repository.createStripes(ACCOUNT_ID, 3);
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(AccountStripeRepository.CREATE_STRIPE_SQL), captor.capture());
+        var parameters = captor.getValue();
+        assertEquals(3, parameters.size());
+        assertArrayEquals(new Object[]{ACCOUNT_ID, 2, ACCOUNT_ID, 2}, parameters.get(2));
+    }
+
+    @Test
+    void WHEN_credit_THEN_returnWhetherTheStripeWasCredited() {
+        doReturn(1).when(jdbcTemplate)
+                .update(AccountStripeRepository.CREDIT_STRIPE_SQL, new BigDecimal("12.34"), ACCOUNT_ID, 5);
+
+        assertTrue(repository.credit(ACCOUNT_ID, 5, Money.ofCents(1234, Currency.USD)));
+        assertFalse(repository.credit(ACCOUNT_ID, 6, Money.ofCents(1234, Currency.USD)));
+    }
+
+    @Test
+    void WHEN_sumBalanceInCents_THEN_returnTheSumOfTheStripes() {
+        doReturn(new BigDecimal("56.78")).when(jdbcTemplate)
+                .queryForObject(AccountStripeRepository.SUM_STRIPES_SQL, BigDecimal.class, ACCOUNT_ID);
+
+        assertEquals(5678, repository.sumBalanceInCents(ACCOUNT_ID));
+    }
+
+    @Test
+    void GIVEN_nullBalances_WHEN_moveToAccount_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> repository.moveToAccount(ACCOUNT_ID, null));
+    }
+
+    @Test
+    void WHEN_moveToAccount_THEN_depositOnlyTheWithdrawnBalances() {
+        var balances = List.of(buildBalance(0, 1000), buildBalance(1, 250), buildBalance(2, 5));
+        doReturn(new int[]{1, 0, 1}).when(jdbcTemplate)
+                .batchUpdate(eq(AccountStripeRepository.WITHDRAW_STRIPE_SQL), anyList());
+        doReturn(1).when(jdbcTemplate)
+                .update(AccountStripeRepository.DEPOSIT_TO_ACCOUNT_SQL, new BigDecimal("10.05"), ACCOUNT_ID);
+
+        assertEquals(1005, repository.moveToAccount(ACCOUNT_ID, balances));
+    }
+
+    @Test
+    void GIVEN_updateCountsNotReported_WHEN_moveToAccount_THEN_depositTheBalancesDeemedWithdrawn() {
+        var balances = List.of(buildBalance(0, 1000), buildBalance(1, 250));
+        doReturn(new int[]{Statement.SUCCESS_NO_INFO, Statement.EXECUTE_FAILED}).when(jdbcTemplate)
+                .batchUpdate(eq(AccountStripeRepository.WITHDRAW_STRIPE_SQL), anyList());
+        doReturn(1).when(jdbcTemplate)
+                .update(AccountStripeRepository.DEPOSIT_TO_ACCOUNT_SQL, new BigDecimal("10.00"), ACCOUNT_ID);
+
+        assertEquals(1000, repository.moveToAccount(ACCOUNT_ID, balances));
+    }
+
+    @Test
+    void GIVEN_nothingWithdrawn_WHEN_moveToAccount_THEN_doNotUpdateTheAccount() {
+        doReturn(new int[]{0}).when(jdbcTemplate)
+                .batchUpdate(eq(AccountStripeRepository.WITHDRAW_STRIPE_SQL), anyList());
+
+        assertEquals(0, repository.moveToAccount(ACCOUNT_ID, List.of(buildBalance(0, 1000))));
+        verify(jdbcTemplate, never()).update(eq(AccountStripeRepository.DEPOSIT_TO_ACCOUNT_SQL), any(), any());
+    }
+
+    @Test
+    void GIVEN_accountNotFound_WHEN_moveToAccount_THEN_throwsIllegalState() {
+        doReturn(new int[]{1}).when(jdbcTemplate)
+                .batchUpdate(eq(AccountStripeRepository.WITHDRAW_STRIPE_SQL), anyList());
+        var balances = List.of(buildBalance(0, 1000));
+
+        assertThrows(IllegalStateException.class, () -> repository.moveToAccount(ACCOUNT_ID, balances));
+    }
+
+    private static StripeBalance buildBalance(int stripe, long balanceInCents) {
+        return StripeBalance.builder()
+                .stripe(stripe)
+                .balanceInCents(balanceInCents)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package io.dnpn.fundtransfer.account;
 
+import io.dnpn.fundtransfer.common.Money;
 import io.dnpn.fundtransfer.currency.Currency;
 
 import java.math.BigDecimal;
@@ -17,7 +18,7 @@ public final class AccountTestHelper {
     public static final AccountEntity ACCOUNT_ENTITY_A = AccountEntity.builder()
             .id(ID_ACCOUNT_A)
             .version(123)
-            .balance(BALANCE_ACCOUNT_A)
+            .balanceInCents(Money.toCents(BALANCE_ACCOUNT_A))
             .currency(CURRENCY_ACCOUNT_A)
             .build();
 
@@ -32,7 +33,7 @@ public final class AccountTestHelper {
     public static final AccountEntity ACCOUNT_ENTITY_B = AccountEntity.builder()
             .id(ID_ACCOUNT_B)
             .version(456)
-            .balance(BALANCE_ACCOUNT_B)
+            .balanceInCents(Money.toCents(BALANCE_ACCOUNT_B))
             .currency(CURRENCY_ACCOUNT_B)
             .build();
 
@@ -0,0 +1,152 @@
+package io.dnpn.fundtransfer.account;
+
+import io.dnpn.fundtransfer.account.AccountStripeRepository.StripeBalance;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class HotAccountServiceTest {
+
+    private static final long HOT_ACCOUNT_ID = 123;
+    private static final long OTHER_HOT_ACCOUNT_ID = 456;
+    private static final long COLD_ACCOUNT_ID = 789;
+    private static final int STRIPES = 3;
+    private static final Money AMOUNT = Money.ofCents(1000, Currency.USD);
+
+    @Mock
+    private AccountStripeRepository stripeRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private AccountProperty accountProperty;
+
+    private HotAccountService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void beforeEach() {
+        lenient().doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doReturn(Set.of(HOT_ACCOUNT_ID, OTHER_HOT_ACCOUNT_ID)).when(accountProperty).getHotIds();
+        doReturn(STRIPES).when(accountProperty).getHotStripes();
+        this.service = new HotAccountService(stripeRepository, transactionTemplate, accountProperty);
+    }
+
+    @Test
+    void WHEN_createStripes_THEN_createTheStripesOfEveryHotAccount() {
+        service.createStripes();
+
+        verify(stripeRepository).createStripes(HOT_ACCOUNT_ID, STRIPES);
+        verify(stripeRepository).createStripes(OTHER_HOT_ACCOUNT_ID, STRIPES);
+    }
+
+    @Test
+    void GIVEN_noHotAccount_WHEN_createStripes_THEN_doNothing() {
+        doReturn(Set.of()).when(accountProperty).getHotIds();
+        var coldService = new HotAccountService(stripeRepository, transactionTemplate, accountProperty);
+
+        coldService.createStripes();
+
+        verifyNoInteractions(transactionTemplate, stripeRepository);
+    }
+
+    @Test
+    void GIVEN_coldAccount_WHEN_credit_THEN_returnFalse() {
+        assertFalse(service.isHot(COLD_ACCOUNT_ID));
+        assertFalse(service.credit(COLD_ACCOUNT_ID, AMOUNT));
+        verifyNoInteractions(stripeRepository);
+    }
+
+    @Test
+    void GIVEN_hotAccount_WHEN_credit_THEN_creditTheStripesInRoundRobin() {
+        doReturn(true).when(stripeRepository).credit(anyLong(), anyInt(), any());
+
+        for (int credit = 0; credit < STRIPES + 1; credit++) {
+            assertTrue(service.credit(HOT_ACCOUNT_ID, AMOUNT));
+        }
+
+        verify(stripeRepository, times(2)).credit(HOT_ACCOUNT_ID, 0, AMOUNT);
+        verify(stripeRepository).credit(HOT_ACCOUNT_ID, 1, AMOUNT);
+        verify(stripeRepository).credit(HOT_ACCOUNT_ID, 2, AMOUNT);
+    }
+
+    @Test
+    void GIVEN_stripesNotCreated_WHEN_credit_THEN_returnFalse() {
+        assertFalse(service.credit(HOT_ACCOUNT_ID, AMOUNT));
+    }
+
+    @Test
+    void GIVEN_hotAccount_WHEN_getBalance_THEN_addTheBalanceOfTheStripes() {
+        doReturn(2500L).when(stripeRepository).sumBalanceInCents(HOT_ACCOUNT_ID);
+
+        assertEquals(Money.ofCents(3500, Currency.USD), service.getBalance(buildAccount(HOT_ACCOUNT_ID)));
+    }
+
+    @Test
+    void GIVEN_coldAccount_WHEN_getBalance_THEN_returnTheBalanceOfTheAccount() {
+        assertEquals(Money.ofCents(1000, Currency.USD), service.getBalance(buildAccount(COLD_ACCOUNT_ID)));
+        verify(stripeRepository, never()).sumBalanceInCents(anyLong());
+    }
+
+    @Test
+    void WHEN_rebalance_THEN_moveTheFundedStripesToTheirAccount() {
+        var balances = List.of(new StripeBalance(0, 300), new StripeBalance(2, 700));
+        doReturn(balances).when(stripeRepository).findFundedStripes(HOT_ACCOUNT_ID);
+        doReturn(List.of()).when(stripeRepository).findFundedStripes(OTHER_HOT_ACCOUNT_ID);
+
+        service.rebalance();
+
+        verify(stripeRepository).moveToAccount(HOT_ACCOUNT_ID, balances);
+        verify(stripeRepository, never()).moveToAccount(OTHER_HOT_ACCOUNT_ID, List.of());
+    }
+
+    @Test
+    void GIVEN_failedRebalanceOfAnAccount_WHEN_rebalance_THEN_rebalanceTheOtherAccounts() {
+        var balances = List.of(new StripeBalance(1, 300));
+        doReturn(balances).when(stripeRepository).findFundedStripes(anyLong());
+        doThrow(CannotAcquireLockException.class).when(stripeRepository).moveToAccount(HOT_ACCOUNT_ID, balances);
+
+        service.rebalance();
+
+        verify(stripeRepository).moveToAccount(OTHER_HOT_ACCOUNT_ID, balances);
+    }
+
+    private static AccountEntity buildAccount(long id) {
+        return AccountEntity.builder()
+                .id(id)
+                .version(1)
+                .currency(Currency.USD)
+                .balanceInCents(1000)
+                .build();
+    }
+}
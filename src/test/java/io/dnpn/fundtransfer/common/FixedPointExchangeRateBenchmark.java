@@ -0,0 +1,89 @@
+package io.dnpn.fundtransfer.common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the conversion of an amount with {@link BigDecimal} to the fixed-point conversions of
+ * {@link FixedPointExchangeRate}. Not run by the tests: run {@link #main(String[])}, which also measures the
+ * allocations with the GC profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointExchangeRateBenchmark {
+
+    private static final int AMOUNTS = 1024;
+
+    /**
+     * A rate computed by the SQL conversion and a rate as returned by the API.
+     */
+    @Param({"161.8421053", "0.862805"})
+    private String rateValue;
+
+    private BigDecimal rate;
+    private FixedPointExchangeRate fixedPointRate;
+    private final BigDecimal[] amounts = new BigDecimal[AMOUNTS];
+    private final long[] amountsInCents = new long[AMOUNTS];
+
+    @Setup
+    public void setup() {
+        rate = new BigDecimal(rateValue);
+        fixedPointRate = FixedPointExchangeRate.of(rate);
+        final var random = new Random(42);
+        for (int i = 0; i < AMOUNTS; i++) {
+            amountsInCents[i] = random.nextInt(100_000_000);
+            amounts[i] = BigDecimal.valueOf(amountsInCents[i], MoneyHandling.SCALE_FOR_MONEY);
+        }
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        for (var amount : amounts) {
+            blackhole.consume(amount.multiply(rate)
+                    .setScale(MoneyHandling.SCALE_FOR_MONEY, MoneyHandling.ROUNDING_MODE_FOR_CLIENT_CREDIT));
+        }
+    }
+
+    @Benchmark
+    public void fixedPointFromBigDecimal(Blackhole blackhole) {
+        for (var amount : amounts) {
+            blackhole.consume(fixedPointRate.convert(amount));
+        }
+    }
+
+    @Benchmark
+    public void fixedPointInCents(Blackhole blackhole) {
+        for (var amountInCents : amountsInCents) {
+            blackhole.consume(fixedPointRate.convertCents(amountInCents));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FixedPointExchangeRateBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build())
+                .run();
+    }
+}
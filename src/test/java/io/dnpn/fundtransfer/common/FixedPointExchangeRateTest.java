@@ -0,0 +1,141 @@
+package io.dnpn.fundtransfer.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the fixed-point conversions give exactly the results of the {@link BigDecimal} conversion they replace,
+ * scale included.
+ */
+class FixedPointExchangeRateTest {
+
+    /**
+     * Rates as returned by the SQL conversion (10 significant digits) and by the API, plus edge cases: trailing zeros,
+     * negative scale, maximum scale, maximum multiplier.
+     */
+    private static final String[] RATES = {
+            "1", "1.1980173", "0.0076", "161.8421053", "0.8130081301", "0.862805", "0.8628050000", "1E+3",
+            "0.000000001", "123456789.123", "1.000000000000000001", "9223372036854775807"
+    };
+    private static final long EXHAUSTIVE_CENTS_RANGE = 20_000;
+    private static final int RANDOM_AMOUNTS = 20_000;
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("999999999999999.99");
+
+    @ParameterizedTest
+    @MethodSource("rates")
+    void WHEN_convert_THEN_returnTheBigDecimalResultForEveryAmountInCentsOfTheRange(String rateValue) {
+        var rate = new BigDecimal(rateValue);
+        var fixedPointRate = FixedPointExchangeRate.of(rate);
+
+        assertTrue(fixedPointRate.isFixedPoint());
+        for (long cents = -EXHAUSTIVE_CENTS_RANGE; cents <= EXHAUSTIVE_CENTS_RANGE; cents++) {
+            assertSameConversion(rate, fixedPointRate, BigDecimal.valueOf(cents, MoneyHandling.SCALE_FOR_MONEY));
+        }
+    }
+
+    @Test
+    void WHEN_convert_THEN_returnTheBigDecimalResultForRandomAmountsOfAllMagnitudes() {
+        var random = new Random(42);
+        for (var rateValue : RATES) {
+            var rate = new BigDecimal(rateValue);
+            var fixedPointRate = FixedPointExchangeRate.of(rate);
+            for (int i = 0; i < RANDOM_AMOUNTS; i++) {
+                var digits = 1 + random.nextInt(MoneyHandling.PRECISION_FOR_MONEY);
+                var cents = random.nextLong() % (long) Math.pow(10, digits);
+                assertSameConversion(rate, fixedPointRate, BigDecimal.valueOf(cents, MoneyHandling.SCALE_FOR_MONEY));
+            }
+        }
+    }
+
+    @Test
+    void WHEN_convertCents_THEN_returnTheBigDecimalResultInCents() {
+        var random = new Random(42);
+        for (var rateValue : RATES) {
+            var rate = new BigDecimal(rateValue);
+            var fixedPointRate = FixedPointExchangeRate.of(rate);
+            for (int i = 0; i < RANDOM_AMOUNTS; i++) {
+                var cents = random.nextLong() % 1_000_000_000_000L;
+                var expected = convertWithBigDecimal(BigDecimal.valueOf(cents, MoneyHandling.SCALE_FOR_MONEY), rate);
+                if (expected.unscaledValue().bitLength() < Long.SIZE) {
+                    assertEquals(expected.unscaledValue().longValueExact(), fixedPointRate.convertCents(cents),
+                            () -> cents + " cents * " + rate);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "123", "-123", "12.3", "-12.3", "12.345", "-12.345", "1E+2", "999999999999999999"})
+    void GIVEN_amountWithAnotherScale_WHEN_convert_THEN_returnTheBigDecimalResult(String amount) {
+        for (var rateValue : RATES) {
+            var rate = new BigDecimal(rateValue);
+
+            assertSameConversion(rate, FixedPointExchangeRate.of(rate), new BigDecimal(amount));
+        }
+    }
+
+    @Test
+    void GIVEN_rateWithTooManyDigits_WHEN_convert_THEN_fallBackToBigDecimal() {
+        var rate = new BigDecimal("161.842105263157894737");
+        var fixedPointRate = FixedPointExchangeRate.of(rate);
+
+        assertFalse(fixedPointRate.isFixedPoint());
+        assertSameConversion(rate, fixedPointRate, new BigDecimal("123.45"));
+        assertEquals(1997940, fixedPointRate.convertCents(12345));
+    }
+
+    @Test
+    void GIVEN_rateWithTooManyDecimals_WHEN_of_THEN_fallBackToBigDecimal() {
+        var rate = new BigDecimal("0.0000000000000000001");
+
+        assertFalse(FixedPointExchangeRate.of(rate).isFixedPoint());
+    }
+
+    @Test
+    void GIVEN_overflowingProduct_WHEN_convert_THEN_fallBackToBigDecimal() {
+        var rate = new BigDecimal("123456789.123");
+
+        assertSameConversion(rate, FixedPointExchangeRate.of(rate), MAX_AMOUNT);
+        assertSameConversion(rate, FixedPointExchangeRate.of(rate), MAX_AMOUNT.negate());
+    }
+
+    @Test
+    void GIVEN_convertedAmountBeyondLong_WHEN_convertCents_THEN_throwArithmetic() {
+        var fixedPointRate = FixedPointExchangeRate.of(new BigDecimal("123456789.123"));
+
+        assertThrows(ArithmeticException.class, () -> fixedPointRate.convertCents(Long.MAX_VALUE));
+    }
+
+    @Test
+    void GIVEN_sameRate_WHEN_equals_THEN_returnTrue() {
+        var rate = new BigDecimal("1.23");
+
+        assertEquals(FixedPointExchangeRate.of(rate), FixedPointExchangeRate.of(rate));
+    }
+
+    private static Stream<String> rates() {
+        return Arrays.stream(RATES);
+    }
+
+    private static void assertSameConversion(BigDecimal rate, FixedPointExchangeRate fixedPointRate,
+                                             BigDecimal amount) {
+        assertEquals(convertWithBigDecimal(amount, rate), fixedPointRate.convert(amount), () -> amount + " * " + rate);
+    }
+
+    private static BigDecimal convertWithBigDecimal(BigDecimal amount, BigDecimal rate) {
+        return amount.multiply(rate)
+                .setScale(MoneyHandling.SCALE_FOR_MONEY, MoneyHandling.ROUNDING_MODE_FOR_CLIENT_CREDIT);
+    }
+}
@@ -3,9 +3,12 @@ package io.dnpn.fundtransfer.common;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -37,6 +40,16 @@ class GlobalExceptionHandlerTest {
         assertEquals(reason, response.getBody());
     }
 
+    @Test
+    void GIVEN_serviceUnavailable_WHEN_responseStatusExceptionHandler_THEN_respondWithRetryAfter() {
+        var exception = new ServiceUnavailableException("Busy.", Duration.ofMillis(200), null);
+
+        var response = handler.responseStatusExceptionHandler(exception);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
     @Test
     void WHEN_defaultExceptionHandler_THEN_respondServerError() {
         var exception = new Exception();
@@ -0,0 +1,126 @@
+package io.dnpn.fundtransfer.common;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    private static final Money TEN_GBP = Money.ofCents(1000, Currency.GBP);
+    private static final Money ONE_GBP = Money.ofCents(100, Currency.GBP);
+    private static final Money ONE_USD = Money.ofCents(100, Currency.USD);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @CsvSource(textBlock = """
+            123.45,  12345
+            123.4,   12340
+            123,     12300
+            1E+2,    10000
+            -0.01,   -1
+            123.450, 12345
+            """)
+    void WHEN_of_THEN_convertToCents(String amount, long expectedCents) {
+        assertEquals(Money.ofCents(expectedCents, Currency.USD), Money.of(new BigDecimal(amount), Currency.USD));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1.234", "100000000000000000"})
+    void GIVEN_amountNotRepresentableInCents_WHEN_of_THEN_throwsArithmetic(String amount) {
+        var decimalAmount = new BigDecimal(amount);
+
+        assertThrows(ArithmeticException.class, () -> Money.of(decimalAmount, Currency.USD));
+    }
+
+    @Test
+    void WHEN_toBigDecimal_THEN_returnTheAmountWithTwoDecimals() {
+        assertEquals(new BigDecimal("10.00"), TEN_GBP.toBigDecimal());
+    }
+
+    @Test
+    void WHEN_addOrSubtract_THEN_computeInCents() {
+        assertEquals(Money.ofCents(1100, Currency.GBP), TEN_GBP.add(ONE_GBP));
+        assertEquals(Money.ofCents(900, Currency.GBP), TEN_GBP.subtract(ONE_GBP));
+        assertEquals(Money.ofCents(-1000, Currency.GBP), TEN_GBP.negate());
+    }
+
+    @Test
+    void GIVEN_differentCurrencies_WHEN_combine_THEN_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> TEN_GBP.add(ONE_USD));
+        assertThrows(IllegalArgumentException.class, () -> TEN_GBP.subtract(ONE_USD));
+        assertThrows(IllegalArgumentException.class, () -> TEN_GBP.isGreaterThan(ONE_USD));
+    }
+
+    @Test
+    void GIVEN_overflow_WHEN_add_THEN_throwsArithmetic() {
+        var maxAmount = Money.ofCents(Long.MAX_VALUE, Currency.GBP);
+
+        assertThrows(ArithmeticException.class, () -> maxAmount.add(ONE_GBP));
+    }
+
+    @Test
+    void WHEN_compare_THEN_compareTheCents() {
+        assertTrue(TEN_GBP.isGreaterThan(ONE_GBP));
+        assertFalse(ONE_GBP.isGreaterThan(TEN_GBP));
+        assertFalse(ONE_GBP.isGreaterThan(ONE_GBP));
+        assertTrue(ONE_GBP.isPositive());
+        assertFalse(Money.ofCents(0, Currency.GBP).isPositive());
+    }
+
+    @Test
+    void WHEN_toString_THEN_returnTheDecimalAmountAndTheCurrency() {
+        assertEquals("-0.05 JPY", Money.ofCents(-5, Currency.JPY).toString());
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_serialize_THEN_writeTheDecimalAmountAndTheCurrency() {
+        assertEquals("{\"amount\":10.00,\"currency\":\"GBP\"}", mapper.writeValueAsString(TEN_GBP));
+    }
+
+    @SneakyThrows
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', textBlock = """
+            {"amount": 10, "currency": "GBP"}     | 1000
+            {"currency": "GBP", "amount": 1.234}  | 123
+            {"amount": 1.235, "currency": "GBP"}  | 124
+            """)
+    void WHEN_deserialize_THEN_roundHalfUpToCents(String json, long expectedCents) {
+        assertEquals(Money.ofCents(expectedCents, Currency.GBP), mapper.readValue(json, Money.class));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"amount\": 10}",
+            "{\"amount\": \"10\", \"currency\": \"GBP\"}",
+            "{\"amount\": 10, \"currency\": \"XYZ\"}",
+            "{\"amount\": 1E+20, \"currency\": \"GBP\"}"
+    })
+    void GIVEN_invalidJson_WHEN_deserialize_THEN_throwsJsonMapping(String json) {
+        assertThrows(JsonMappingException.class, () -> mapper.readValue(json, Money.class));
+    }
+
+    @Test
+    void WHEN_convertWithCentsConverter_THEN_storeADecimalWithTwoDecimals() {
+        var converter = new Money.CentsConverter();
+
+        assertEquals(new BigDecimal("123.45"), converter.convertToDatabaseColumn(12345L));
+        assertEquals(12345L, converter.convertToEntityAttribute(new BigDecimal("123.45")));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
@@ -0,0 +1,124 @@
+package io.dnpn.fundtransfer.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int ELEMENTS_PER_PRODUCER = 20_000;
+
+    @ParameterizedTest
+    @CsvSource(textBlock = """
+            1,    1
+            2,    2
+            3,    4
+            1000, 1024
+            1024, 1024
+            """)
+    void WHEN_create_THEN_roundTheCapacityUpToAPowerOfTwo(int capacity, int expectedCapacity) {
+        assertEquals(expectedCapacity, new MpscRingBuffer<>(capacity).capacity());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1, (1 << 30) + 1})
+    void GIVEN_invalidCapacity_WHEN_create_THEN_throwsIllegalArgument(int capacity) {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(capacity));
+    }
+
+    @Test
+    void GIVEN_nullElement_WHEN_offer_THEN_throwsNullPointer() {
+        var ringBuffer = new MpscRingBuffer<String>(2);
+
+        assertThrows(NullPointerException.class, () -> ringBuffer.offer(null));
+    }
+
+    @Test
+    void WHEN_offerAndPoll_THEN_returnTheElementsInOrderAcrossTheLaps() {
+        var ringBuffer = new MpscRingBuffer<Integer>(4);
+
+        for (int lap = 0; lap < 3; lap++) {
+            assertTrue(ringBuffer.isEmpty());
+            assertNull(ringBuffer.poll());
+            for (int element = 0; element < 4; element++) {
+                assertTrue(ringBuffer.offer(element));
+            }
+            assertEquals(4, ringBuffer.size());
+            for (int element = 0; element < 4; element++) {
+                assertEquals(element, ringBuffer.poll());
+            }
+        }
+    }
+
+    @Test
+    void GIVEN_fullRing_WHEN_offer_THEN_returnFalseUntilAnElementIsPolled() {
+        var ringBuffer = new MpscRingBuffer<Integer>(2);
+        ringBuffer.offer(1);
+        ringBuffer.offer(2);
+
+        assertFalse(ringBuffer.offer(3));
+        assertEquals(1, ringBuffer.poll());
+        assertTrue(ringBuffer.offer(3));
+        assertFalse(ringBuffer.isEmpty());
+    }
+
+    @Test
+    void GIVEN_concurrentProducers_WHEN_poll_THEN_receiveEveryElementOnceInTheOrderOfEachProducer() throws Exception {
+        var ringBuffer = new MpscRingBuffer<long[]>(64);
+        var start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        try {
+            var producers = new ArrayList<Future<?>>();
+            for (int producer = 0; producer < PRODUCERS; producer++) {
+                final long producerId = producer;
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (long sequence = 0; sequence < ELEMENTS_PER_PRODUCER; sequence++) {
+                        final var element = new long[]{producerId, sequence};
+                        while (!ringBuffer.offer(element)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            var nextSequences = new long[PRODUCERS];
+            var received = 0;
+            while (received < PRODUCERS * ELEMENTS_PER_PRODUCER) {
+                var element = ringBuffer.poll();
+                if (element == null) {
+                    Thread.yield();
+                    continue;
+                }
+                var producerId = (int) element[0];
+                assertEquals(nextSequences[producerId], element[1]);
+                nextSequences[producerId]++;
+                received++;
+            }
+            for (var producer : producers) {
+                producer.get(10, TimeUnit.SECONDS);
+            }
+            assertTrue(ringBuffer.isEmpty());
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.dnpn.fundtransfer.currency;
+
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionService;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateControllerTest {
+
+    @Mock
+    private CurrencyConversionService conversionService;
+    @InjectMocks
+    private ExchangeRateController controller;
+
+    @Test
+    void WHEN_getFreshness_THEN_returnTheFreshnessOfTheExchangeRates() {
+        var freshness = List.of(ExchangeRateFreshness.builder()
+                .fromCurrency(Currency.GBP)
+                .toCurrency(Currency.USD)
+                .refreshedAt(Instant.parse("2022-08-01T10:00:00Z"))
+                .age(Duration.ofSeconds(5))
+                .stale(false)
+                .build());
+        doReturn(freshness).when(conversionService).getExchangeRateFreshness();
+
+        var response = controller.getFreshness();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(freshness, response.getBody());
+    }
+}
@@ -2,6 +2,8 @@ package io.dnpn.fundtransfer.currency.service.impl;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -9,9 +11,14 @@ import org.springframework.boot.test.system.CapturedOutput;
 import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.core.env.Environment;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.doReturn;
@@ -91,4 +98,181 @@ class CurrencyConversionPropertyTest {
             assertTrue(log.contains(INVALID_TIMEOUT_VALUE));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getApiRateCacheTtl_THEN_returnDefaultValue() {
+        doReturn(null)
+                .when(environment)
+                .getProperty(CurrencyConversionProperty.API_RATE_CACHE_TTL);
+
+        var actualTtl = accessor.getApiRateCacheTtl();
+
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_RATE_CACHE_TTL, actualTtl);
+    }
+
+    @Test
+    void WHEN_getApiRateCacheTtl_THEN_returnValueInMillis() {
+        doReturn(String.valueOf(VALID_TIMEOUT_VALUE))
+                .when(environment)
+                .getProperty(CurrencyConversionProperty.API_RATE_CACHE_TTL);
+
+        var actualTtl = accessor.getApiRateCacheTtl();
+
+        assertEquals(Duration.ofMillis(VALID_TIMEOUT_VALUE), actualTtl);
+    }
+
+    @Test
+    void GIVEN_propertiesNotSet_WHEN_getApiCircuitBreakerProperties_THEN_returnDefaultValues() {
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD,
+                accessor.getApiCircuitBreakerFailureRateThreshold());
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_CIRCUIT_BREAKER_WINDOW_SIZE,
+                accessor.getApiCircuitBreakerWindowSize());
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_CIRCUIT_BREAKER_MINIMUM_CALLS,
+                accessor.getApiCircuitBreakerMinimumCalls());
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_CIRCUIT_BREAKER_OPEN_DURATION,
+                accessor.getApiCircuitBreakerOpenDuration());
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_CIRCUIT_BREAKER_HALF_OPEN_PROBES,
+                accessor.getApiCircuitBreakerHalfOpenProbes());
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_FALLBACK_MAX_STALENESS,
+                accessor.getApiFallbackMaxStaleness());
+    }
+
+    @Test
+    void WHEN_getApiCircuitBreakerFailureRateThreshold_THEN_returnPropertyValue() {
+        doReturn("0.25")
+                .when(environment)
+                .getProperty(CurrencyConversionProperty.API_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD);
+
+        assertEquals(0.25, accessor.getApiCircuitBreakerFailureRateThreshold());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "1.5", "abc"})
+    void GIVEN_invalidFailureRateThreshold_WHEN_getApiCircuitBreakerFailureRateThreshold_THEN_throw(String value) {
+        doReturn(value)
+                .when(environment)
+                .getProperty(CurrencyConversionProperty.API_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD);
+
+        assertThrows(IllegalArgumentException.class, () -> accessor.getApiCircuitBreakerFailureRateThreshold());
+    }
+
+    @Test
+    void GIVEN_notPositiveWindowSize_WHEN_getApiCircuitBreakerWindowSize_THEN_throw() {
+        doReturn("0")
+                .when(environment)
+                .getProperty(CurrencyConversionProperty.API_CIRCUIT_BREAKER_WINDOW_SIZE);
+
+        assertThrows(IllegalArgumentException.class, () -> accessor.getApiCircuitBreakerWindowSize());
+    }
+
+    @Test
+    void WHEN_getApiFallbackMaxStaleness_THEN_returnValueInMillis() {
+        doReturn(String.valueOf(VALID_TIMEOUT_VALUE))
+                .when(environment)
+                .getProperty(CurrencyConversionProperty.API_FALLBACK_MAX_STALENESS);
+
+        assertEquals(Duration.ofMillis(VALID_TIMEOUT_VALUE), accessor.getApiFallbackMaxStaleness());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getApiPrefetchInterval_THEN_returnDefaultValue() {
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_PREFETCH_INTERVAL, accessor.getApiPrefetchInterval());
+    }
+
+    @Test
+    void WHEN_getApiPrefetchInterval_THEN_returnValueInMillis() {
+        doReturn(String.valueOf(VALID_TIMEOUT_VALUE))
+                .when(environment)
+                .getProperty(CurrencyConversionProperty.API_PREFETCH_INTERVAL);
+
+        assertEquals(Duration.ofMillis(VALID_TIMEOUT_VALUE), accessor.getApiPrefetchInterval());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getSqlRefreshInterval_THEN_returnDefaultValue() {
+        assertEquals(Duration.ofMillis(CurrencyConversionProperty.DEFAULT_SQL_REFRESH_INTERVAL_MS),
+                accessor.getSqlRefreshInterval());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getTieredMemoryTtl_THEN_returnDefaultValue() {
+        assertEquals(CurrencyConversionProperty.DEFAULT_TIERED_MEMORY_TTL, accessor.getTieredMemoryTtl());
+    }
+
+    @Test
+    void WHEN_getTieredMemoryTtl_THEN_returnValueInMillis() {
+        doReturn(String.valueOf(VALID_TIMEOUT_VALUE))
+                .when(environment)
+                .getProperty(CurrencyConversionProperty.TIERED_MEMORY_TTL);
+
+        assertEquals(Duration.ofMillis(VALID_TIMEOUT_VALUE), accessor.getTieredMemoryTtl());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getApiHedgingDelayPercentile_THEN_returnEmpty() {
+        assertEquals(OptionalDouble.empty(), accessor.getApiHedgingDelayPercentile());
+    }
+
+    @Test
+    void WHEN_getApiHedgingDelayPercentile_THEN_returnValue() {
+        doReturn("0.95").when(environment).getProperty(CurrencyConversionProperty.API_HEDGING_DELAY_PERCENTILE);
+
+        assertEquals(OptionalDouble.of(0.95), accessor.getApiHedgingDelayPercentile());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "1.5", "abc"})
+    void GIVEN_invalidValue_WHEN_getApiHedgingDelayPercentile_THEN_throwException(String value) {
+        doReturn(value).when(environment).getProperty(CurrencyConversionProperty.API_HEDGING_DELAY_PERCENTILE);
+
+        assertThrows(RuntimeException.class, () -> accessor.getApiHedgingDelayPercentile());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getApiHedgingBudgetRatio_THEN_returnDefaultValue() {
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_HEDGING_BUDGET_RATIO,
+                accessor.getApiHedgingBudgetRatio());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getApiQuotaBurst_THEN_returnEmpty() {
+        assertEquals(OptionalInt.empty(), accessor.getApiQuotaBurst());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "-1", "abc"})
+    void GIVEN_invalidValue_WHEN_getApiQuotaBurst_THEN_throwException(String value) {
+        doReturn(value).when(environment).getProperty(CurrencyConversionProperty.API_QUOTA_BURST);
+
+        assertThrows(RuntimeException.class, () -> accessor.getApiQuotaBurst());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getApiQuotaMaxWait_THEN_returnDefaultValue() {
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_QUOTA_MAX_WAIT, accessor.getApiQuotaMaxWait());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getApiSnapshotPath_THEN_returnEmpty() {
+        assertEquals(Optional.empty(), accessor.getApiSnapshotPath());
+    }
+
+    @Test
+    void GIVEN_blankValue_WHEN_getApiSnapshotPath_THEN_returnEmpty() {
+        doReturn(" ").when(environment).getProperty(CurrencyConversionProperty.API_SNAPSHOT_PATH);
+
+        assertEquals(Optional.empty(), accessor.getApiSnapshotPath());
+    }
+
+    @Test
+    void GIVEN_validValue_WHEN_getApiSnapshotPath_THEN_returnThePath() {
+        doReturn("target/rates.snapshot").when(environment).getProperty(CurrencyConversionProperty.API_SNAPSHOT_PATH);
+
+        assertEquals(Optional.of(Path.of("target/rates.snapshot")), accessor.getApiSnapshotPath());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getApiSnapshotMaxAge_THEN_returnDefaultValue() {
+        assertEquals(CurrencyConversionProperty.DEFAULT_API_SNAPSHOT_MAX_AGE, accessor.getApiSnapshotMaxAge());
+    }
+}
@@ -0,0 +1,164 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class ApiCircuitBreakerTest {
+
+    private static final int WINDOW_SIZE = 4;
+    private static final int MINIMUM_CALLS = 2;
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+    private static final int HALF_OPEN_PROBES = 2;
+    private static final Instant NOW = Instant.parse("2022-08-01T10:00:00Z");
+    private static final Throwable PROVIDER_FAILURE = new TimeoutException("Too slow.");
+
+    @Mock
+    private CurrencyConversionProperty currencyConversionProperty;
+    @Mock
+    private Clock clock;
+
+    private ApiCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void beforeEach() {
+        doReturn(0.5).when(currencyConversionProperty).getApiCircuitBreakerFailureRateThreshold();
+        doReturn(WINDOW_SIZE).when(currencyConversionProperty).getApiCircuitBreakerWindowSize();
+        doReturn(MINIMUM_CALLS).when(currencyConversionProperty).getApiCircuitBreakerMinimumCalls();
+        doReturn(OPEN_DURATION).when(currencyConversionProperty).getApiCircuitBreakerOpenDuration();
+        doReturn(HALF_OPEN_PROBES).when(currencyConversionProperty).getApiCircuitBreakerHalfOpenProbes();
+        lenient().doReturn(NOW).when(clock).instant();
+
+        this.circuitBreaker = new ApiCircuitBreaker(currencyConversionProperty, clock);
+    }
+
+    @Test
+    void GIVEN_lessThanMinimumCalls_WHEN_onFailure_THEN_stayClosed() {
+        recordCall(PROVIDER_FAILURE);
+
+        assertEquals(ApiCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void GIVEN_failureRateBelowThreshold_WHEN_onFailure_THEN_stayClosed() {
+        recordCall(null);
+        recordCall(null);
+        recordCall(PROVIDER_FAILURE);
+
+        assertEquals(ApiCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void GIVEN_failureRateReachingThreshold_WHEN_onFailure_THEN_openAndRejectTheCalls() {
+        recordCall(null);
+        recordCall(PROVIDER_FAILURE);
+
+        assertEquals(ApiCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void GIVEN_oldFailuresOutOfTheWindow_WHEN_onFailure_THEN_stayClosed() {
+        recordCall(PROVIDER_FAILURE);
+        for (int call = 0; call < WINDOW_SIZE; call++) {
+            recordCall(null);
+        }
+        recordCall(PROVIDER_FAILURE);
+
+        assertEquals(ApiCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void GIVEN_clientError_WHEN_onFailure_THEN_recordItAsSuccess() {
+        var clientError = WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "Bad Request", null,
+                null, null);
+
+        recordCall(clientError);
+        recordCall(clientError);
+
+        assertEquals(ApiCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void GIVEN_tooManyRequests_WHEN_onFailure_THEN_recordItAsFailure() {
+        var tooManyRequests = WebClientResponseException.create(HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests", null, null, null);
+
+        recordCall(tooManyRequests);
+        recordCall(tooManyRequests);
+
+        assertEquals(ApiCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void GIVEN_openDurationElapsed_WHEN_tryAcquirePermission_THEN_letOnlyTheProbesThrough() {
+        open();
+        doReturn(NOW.plus(OPEN_DURATION)).when(clock).instant();
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(ApiCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void GIVEN_allProbesSucceed_WHEN_onSuccess_THEN_close() {
+        open();
+        doReturn(NOW.plus(OPEN_DURATION)).when(clock).instant();
+
+        recordCall(null);
+        recordCall(null);
+
+        assertEquals(ApiCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void GIVEN_probeFails_WHEN_onFailure_THEN_openAgain() {
+        open();
+        doReturn(NOW.plus(OPEN_DURATION)).when(clock).instant();
+
+        recordCall(null);
+        recordCall(PROVIDER_FAILURE);
+
+        assertEquals(ApiCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    private void open() {
+        for (int call = 0; call < MINIMUM_CALLS; call++) {
+            recordCall(PROVIDER_FAILURE);
+        }
+        assertEquals(ApiCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    /**
+     * Acquires the permission and records the outcome of the call: a success if the failure is null.
+     */
+    private void recordCall(Throwable failure) {
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        if (failure == null) {
+            circuitBreaker.onSuccess();
+        } else {
+            circuitBreaker.onFailure(failure);
+        }
+    }
+}
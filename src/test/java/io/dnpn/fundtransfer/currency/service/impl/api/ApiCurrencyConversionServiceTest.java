@@ -3,10 +3,12 @@ package io.dnpn.fundtransfer.currency.service.impl.api;
 import io.dnpn.fundtransfer.currency.Currency;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionRequest;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
 import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
 import lombok.SneakyThrows;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.QueueDispatcher;
 import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -23,13 +25,28 @@ import org.springframework.http.HttpStatus;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class ApiCurrencyConversionServiceTest {
@@ -77,6 +94,16 @@ class ApiCurrencyConversionServiceTest {
     private CurrencyConversionProperty currencyConversionProperty;
     @Mock
     private ApiCurrencyConversionErrorHandler errorHandler;
+    @Mock
+    private ApiExchangeRateCache rateCache;
+    @Mock
+    private ApiCircuitBreaker circuitBreaker;
+    @Mock
+    private LastKnownExchangeRates lastKnownRates;
+    @Mock
+    private ApiRateLimitStatus rateLimitStatus;
+    @Mock
+    private ApiExchangeRateSnapshot rateSnapshot;
 
     private ApiCurrencyConversionService service;
 
@@ -90,11 +117,18 @@ class ApiCurrencyConversionServiceTest {
 
     @BeforeEach
     void beforeEach() {
+        // Drops the responses left by a previous test whose request never reached the server
+        webServer.setDispatcher(new QueueDispatcher());
         doReturn(baseUrl).when(currencyConversionProperty).getApiBaseUrl();
         doReturn(TIMEOUT).when(currencyConversionProperty).getApiRequestTimeout();
         doReturn(API_KEY).when(currencyConversionProperty).getApiKey();
 
-        this.service = new ApiCurrencyConversionService(currencyConversionProperty, errorHandler);
+        lenient().doReturn(true).when(circuitBreaker).tryAcquirePermission();
+
+        this.service = new ApiCurrencyConversionService(currencyConversionProperty, errorHandler, rateCache,
+                new ExchangeRateRequestCoalescer(), circuitBreaker, lastKnownRates, rateLimitStatus,
+                new ApiRequestHedger(currencyConversionProperty),
+                new ApiQuotaManager(rateLimitStatus, currencyConversionProperty, Clock.systemUTC()), rateSnapshot);
     }
 
     @AfterAll
@@ -119,6 +153,19 @@ class ApiCurrencyConversionServiceTest {
         assertThrows(CurrencyConversionException.class, () -> service.convert(REQUEST));
     }
 
+    @Test
+    void GIVEN_timeout_WHEN_getExchangeRate_THEN_throwCurrencyConversion() {
+        mockErrorHandler();
+
+        var moreThanTimeout = TIMEOUT.multipliedBy(2);
+        var response = createSuccessfulResponse()
+                .setBodyDelay(moreThanTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        webServer.enqueue(response);
+
+        assertThrows(CurrencyConversionException.class,
+                () -> service.getExchangeRate(REQUEST.fromCurrency(), REQUEST.toCurrency()));
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {400, 401, 403, 404, 429, 500})
     void GIVEN_errorStatusCode_WHEN_convert_THEN_throwCurrencyConversion(int statusCode) {
@@ -130,6 +177,54 @@ class ApiCurrencyConversionServiceTest {
         assertThrows(CurrencyConversionException.class, () -> service.convert(REQUEST));
     }
 
+    @Test
+    @SneakyThrows
+    void GIVEN_hedgingEnabled_WHEN_convert_THEN_aSlowCallIsHedgedAndTheFirstResponseWins() {
+        doReturn(OptionalDouble.of(0.5)).when(currencyConversionProperty).getApiHedgingDelayPercentile();
+        doReturn(1.0).when(currencyConversionProperty).getApiHedgingBudgetRatio();
+        // A long timeout, so the new connection opened by the hedge cannot make the test flaky
+        var slowResponseDelay = TIMEOUT.multipliedBy(10);
+        doReturn(slowResponseDelay.multipliedBy(2)).when(currencyConversionProperty).getApiRequestTimeout();
+        var requestHedger = new ApiRequestHedger(currencyConversionProperty);
+        for (int i = 0; i < ApiRequestHedger.MINIMUM_LATENCIES; i++) {
+            requestHedger.recordLatency(Duration.ofMillis(50));
+        }
+        var hedgingService = new ApiCurrencyConversionService(currencyConversionProperty, errorHandler, rateCache,
+                new ExchangeRateRequestCoalescer(), circuitBreaker, lastKnownRates, rateLimitStatus, requestHedger,
+                new ApiQuotaManager(rateLimitStatus, currencyConversionProperty, Clock.systemUTC()), rateSnapshot);
+        var requestCountBefore = webServer.getRequestCount();
+        var slowResponse = createSuccessfulResponse()
+                .setHeadersDelay(slowResponseDelay.toMillis(), TimeUnit.MILLISECONDS);
+        webServer.enqueue(slowResponse);
+        webServer.enqueue(createSuccessfulResponse());
+
+        var startNanos = System.nanoTime();
+        var result = hedgingService.convert(REQUEST);
+        var elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        assertEquals(EXPECTED_RESULT, result);
+        assertEquals(requestCountBefore + 2, webServer.getRequestCount());
+        assertTrue(elapsed.compareTo(slowResponseDelay) < 0);
+    }
+
+    @Test
+    void GIVEN_quotaRunningOut_WHEN_convert_THEN_throwCurrencyConversionWithoutCallingTheApi() {
+        mockErrorHandler();
+        doReturn(OptionalInt.of(1)).when(currencyConversionProperty).getApiQuotaBurst();
+        doReturn(OptionalLong.of(0)).when(rateLimitStatus).getRemainingMonthlyCalls();
+        var quotaManager = new ApiQuotaManager(rateLimitStatus, currencyConversionProperty, Clock.systemUTC());
+        quotaManager.tryAcquire(ApiCallPriority.CONVERSION);
+        var quotaService = new ApiCurrencyConversionService(currencyConversionProperty, errorHandler, rateCache,
+                new ExchangeRateRequestCoalescer(), circuitBreaker, lastKnownRates, rateLimitStatus,
+                new ApiRequestHedger(currencyConversionProperty), quotaManager, rateSnapshot);
+        var requestCountBefore = webServer.getRequestCount();
+
+        assertThrows(CurrencyConversionException.class, () -> quotaService.convert(REQUEST));
+        assertEquals(requestCountBefore, webServer.getRequestCount());
+        verify(errorHandler).handleAndWrap(eq(REQUEST), any(ApiQuotaExceededException.class));
+        verifyNoInteractions(circuitBreaker);
+    }
+
     @Test
     void WHEN_convert_THEN_getRequestToTheBaseUrl() {
         webServer.enqueue(createSuccessfulResponse());
@@ -175,6 +270,193 @@ class ApiCurrencyConversionServiceTest {
         assertEquals(EXPECTED_RESULT, result);
     }
 
+    @Test
+    @SneakyThrows
+    void GIVEN_sameCurrency_WHEN_getExchangeRate_THEN_returnOneWithoutCallingTheApi() {
+        var requestCountBefore = webServer.getRequestCount();
+
+        var rate = service.getExchangeRate(Currency.GBP, Currency.GBP);
+
+        assertEquals(BigDecimal.ONE, rate);
+        assertEquals(requestCountBefore, webServer.getRequestCount());
+    }
+
+    @Test
+    @SneakyThrows
+    void WHEN_getExchangeRate_THEN_convertUnitAmount() {
+        drainRecordedRequests();
+        webServer.enqueue(createSuccessfulResponse());
+
+        var rate = service.getExchangeRate(REQUEST.fromCurrency(), REQUEST.toCurrency());
+
+        var requestUrl = webServer.takeRequest().getRequestUrl();
+        assertEquals(BigDecimal.ONE.toPlainString(), requestUrl.queryParameter(AMOUNT_QUERY_PARAM));
+        assertEquals(EXPECTED_RESULT, rate);
+    }
+
+    @Test
+    @SneakyThrows
+    void GIVEN_rateCacheEnabled_WHEN_convert_THEN_multiplyAmountByCachedRateWithoutCallingTheApi() {
+        var requestCountBefore = webServer.getRequestCount();
+        var cachedRate = new BigDecimal("148.972231");
+        doReturn(true).when(rateCache).isEnabled();
+        doReturn(cachedRate).when(rateCache).getRate(eq(REQUEST.fromCurrency()), eq(REQUEST.toCurrency()), any());
+
+        var result = service.convert(REQUEST);
+
+        assertEquals(REQUEST.amount().multiply(cachedRate), result);
+        assertEquals(requestCountBefore, webServer.getRequestCount());
+    }
+
+    @Test
+    @SneakyThrows
+    void GIVEN_rateCacheEnabled_WHEN_getExchangeRate_THEN_cacheLoadsTheRateFromTheApi() {
+        drainRecordedRequests();
+        webServer.enqueue(createSuccessfulResponse());
+        doReturn(true).when(rateCache).isEnabled();
+        doAnswer(invocation -> invocation.<ApiExchangeRateCache.ExchangeRateLoader>getArgument(2).load())
+                .when(rateCache)
+                .getRate(eq(REQUEST.fromCurrency()), eq(REQUEST.toCurrency()), any());
+
+        var rate = service.getExchangeRate(REQUEST.fromCurrency(), REQUEST.toCurrency());
+
+        var requestUrl = webServer.takeRequest().getRequestUrl();
+        assertEquals(BigDecimal.ONE.toPlainString(), requestUrl.queryParameter(AMOUNT_QUERY_PARAM));
+        assertEquals(EXPECTED_RESULT, rate);
+    }
+
+    @Test
+    @SneakyThrows
+    void WHEN_convertAsync_THEN_returnResult() {
+        webServer.enqueue(createSuccessfulResponse());
+
+        var result = service.convertAsync(REQUEST).get();
+
+        assertEquals(EXPECTED_RESULT, result);
+    }
+
+    @Test
+    void GIVEN_errorStatusCode_WHEN_convertAsync_THEN_failWithCurrencyConversion() {
+        mockErrorHandler();
+        webServer.enqueue(new MockResponse().setResponseCode(HttpStatus.INTERNAL_SERVER_ERROR.value()));
+
+        var future = service.convertAsync(REQUEST);
+
+        var exception = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(CurrencyConversionException.class, exception.getCause());
+    }
+
+    @Test
+    @SneakyThrows
+    void GIVEN_sameCurrency_WHEN_getExchangeRateAsync_THEN_returnOneWithoutCallingTheApi() {
+        var requestCountBefore = webServer.getRequestCount();
+
+        var rate = service.getExchangeRateAsync(Currency.GBP, Currency.GBP).get();
+
+        assertEquals(BigDecimal.ONE, rate);
+        assertEquals(requestCountBefore, webServer.getRequestCount());
+    }
+
+    @Test
+    @SneakyThrows
+    void GIVEN_rateCacheEnabled_WHEN_convertAsync_THEN_multiplyAmountByCachedRate() {
+        var cachedRate = new BigDecimal("148.972231");
+        doReturn(true).when(rateCache).isEnabled();
+        doReturn(CompletableFuture.completedFuture(cachedRate))
+                .when(rateCache)
+                .getRateAsync(eq(REQUEST.fromCurrency()), eq(REQUEST.toCurrency()), any());
+
+        var result = service.convertAsync(REQUEST).get();
+
+        assertEquals(REQUEST.amount().multiply(cachedRate), result);
+    }
+
+    @Test
+    void GIVEN_circuitBreakerOpen_WHEN_convert_THEN_throwCurrencyConversionWithoutCallingTheApi() {
+        mockErrorHandler();
+        doReturn(false).when(circuitBreaker).tryAcquirePermission();
+        var requestCountBefore = webServer.getRequestCount();
+
+        assertThrows(CurrencyConversionException.class, () -> service.convert(REQUEST));
+        assertEquals(requestCountBefore, webServer.getRequestCount());
+    }
+
+    @Test
+    void GIVEN_errorStatusCode_WHEN_convert_THEN_recordTheFailureInTheCircuitBreaker() {
+        mockErrorHandler();
+        webServer.enqueue(new MockResponse().setResponseCode(HttpStatus.INTERNAL_SERVER_ERROR.value()));
+
+        assertThrows(CurrencyConversionException.class, () -> service.convert(REQUEST));
+
+        verify(circuitBreaker).onFailure(any());
+    }
+
+    @Test
+    @SneakyThrows
+    void WHEN_getExchangeRate_THEN_recordTheSuccessAndTheLastKnownRate() {
+        webServer.enqueue(createSuccessfulResponse());
+
+        service.getExchangeRate(REQUEST.fromCurrency(), REQUEST.toCurrency());
+
+        var pair = new CurrencyPair(REQUEST.fromCurrency(), REQUEST.toCurrency());
+        verify(circuitBreaker).onSuccess();
+        verify(lastKnownRates).record(pair, EXPECTED_RESULT);
+        verify(rateSnapshot).record(pair, EXPECTED_RESULT);
+    }
+
+    @Test
+    @SneakyThrows
+    void GIVEN_circuitBreakerOpenAndLastKnownRate_WHEN_getExchangeRate_THEN_returnLastKnownRate() {
+        mockErrorHandler();
+        doReturn(false).when(circuitBreaker).tryAcquirePermission();
+        var lastKnownRate = new BigDecimal("150.1");
+        doReturn(Optional.of(lastKnownRate))
+                .when(lastKnownRates)
+                .find(new CurrencyPair(REQUEST.fromCurrency(), REQUEST.toCurrency()));
+
+        var rate = service.getExchangeRate(REQUEST.fromCurrency(), REQUEST.toCurrency());
+        var asyncRate = service.getExchangeRateAsync(REQUEST.fromCurrency(), REQUEST.toCurrency()).get();
+
+        assertEquals(lastKnownRate, rate);
+        assertEquals(lastKnownRate, asyncRate);
+    }
+
+    @Test
+    @SneakyThrows
+    void WHEN_convert_THEN_recordTheRemainingApiCalls() {
+        webServer.enqueue(createSuccessfulResponse()
+                .addHeader("x-ratelimit-remaining-day", "90")
+                .addHeader("x-ratelimit-remaining-month", "900"));
+
+        service.convert(REQUEST);
+
+        verify(rateLimitStatus).record("90", "900");
+    }
+
+    @Test
+    @SneakyThrows
+    void WHEN_fetchExchangeRateAsync_THEN_callTheApiWithoutLookingUpTheCache() {
+        webServer.enqueue(createSuccessfulResponse());
+
+        var rate = service.fetchExchangeRateAsync(REQUEST.fromCurrency(), REQUEST.toCurrency(),
+                ApiCallPriority.BACKGROUND).get();
+
+        assertEquals(EXPECTED_RESULT, rate);
+        verifyNoInteractions(rateCache);
+    }
+
+    @Test
+    void WHEN_getExchangeRateFreshness_THEN_returnTheFreshnessOfTheCachedRates() {
+        var freshness = List.of(ExchangeRateFreshness.builder()
+                .fromCurrency(Currency.GBP)
+                .toCurrency(Currency.JPY)
+                .stale(true)
+                .build());
+        doReturn(freshness).when(rateCache).getFreshness();
+
+        assertEquals(freshness, service.getExchangeRateFreshness());
+    }
+
     private void mockErrorHandler() {
         doReturn(new CurrencyConversionException("Some error."))
                 .when(errorHandler)
@@ -194,6 +476,16 @@ class ApiCurrencyConversionServiceTest {
         return webServer.takeRequest();
     }
 
+    /**
+     * The web server is shared by all the tests, this removes the requests recorded by the previous tests.
+     */
+    @SneakyThrows
+    private void drainRecordedRequests() {
+        while (webServer.takeRequest(0, TimeUnit.MILLISECONDS) != null) {
+            // nothing to do, the request is discarded
+        }
+    }
+
     private String getBaseUrl(URL url) {
         return url.toString().split("\\?")[0];
     }
@@ -0,0 +1,213 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ApiExchangeRateCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+    private static final Instant NOW = Instant.parse("2022-08-01T10:00:00Z");
+    private static final BigDecimal RATE = new BigDecimal("1.23");
+    private static final CurrencyPair PAIR = new CurrencyPair(Currency.GBP, Currency.USD);
+
+    @Mock
+    private CurrencyConversionProperty currencyConversionProperty;
+    @Mock
+    private Clock clock;
+    @Mock
+    private ApiExchangeRateCache.ExchangeRateLoader loader;
+
+    private ApiExchangeRateCache cache;
+    private final AtomicInteger asyncLoadCount = new AtomicInteger();
+
+    @SneakyThrows
+    @BeforeEach
+    void beforeEach() {
+        doReturn(TTL).when(currencyConversionProperty).getApiRateCacheTtl();
+        lenient().doReturn(NOW).when(clock).instant();
+        lenient().doReturn(RATE).when(loader).load();
+
+        this.cache = new ApiExchangeRateCache(currencyConversionProperty, clock);
+    }
+
+    @Test
+    void GIVEN_zeroTtl_WHEN_isEnabled_THEN_returnFalse() {
+        doReturn(Duration.ZERO).when(currencyConversionProperty).getApiRateCacheTtl();
+
+        assertFalse(new ApiExchangeRateCache(currencyConversionProperty, clock).isEnabled());
+    }
+
+    @Test
+    void GIVEN_positiveTtl_WHEN_isEnabled_THEN_returnTrue() {
+        assertTrue(cache.isEnabled());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_freshRate_WHEN_getRate_THEN_loadTheRateOnlyOnce() {
+        var firstRate = getRate();
+        var secondRate = getRate();
+
+        assertEquals(RATE, firstRate);
+        assertEquals(RATE, secondRate);
+        verify(loader, times(1)).load();
+        assertStatistics(1, 1, 0);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_expiredRate_WHEN_getRate_THEN_loadTheRateAgain() {
+        getRate();
+        doReturn(NOW.plus(TTL)).when(clock).instant();
+
+        getRate();
+
+        verify(loader, times(2)).load();
+        assertStatistics(0, 1, 1);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_loaderFailure_WHEN_getRate_THEN_throwTheFailureAndCacheNothing() {
+        doThrow(new CurrencyConversionException("Some error.")).when(loader).load();
+
+        assertThrows(CurrencyConversionException.class, this::getRate);
+        assertNull(cache.getStatistics().get(PAIR).cachedRateAge());
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_getStatistics_THEN_returnTheAgeOfTheCachedRate() {
+        getRate();
+        doReturn(NOW.plusSeconds(10)).when(clock).instant();
+
+        var statistics = cache.getStatistics().get(PAIR);
+
+        assertEquals(Duration.ofSeconds(10), statistics.cachedRateAge());
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_getRate_THEN_countTheStatisticsPerPair() {
+        var otherLoader = mock(ApiExchangeRateCache.ExchangeRateLoader.class);
+        doReturn(BigDecimal.TEN).when(otherLoader).load();
+
+        getRate();
+        var otherRate = cache.getRate(Currency.USD, Currency.GBP, otherLoader);
+
+        assertEquals(BigDecimal.TEN, otherRate);
+        assertEquals(2, cache.getStatistics().size());
+        assertStatistics(0, 1, 0);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_freshRate_WHEN_getRateAsync_THEN_returnCompletedFutureWithoutLoading() {
+        getRate();
+        var asyncLoader = countedAsyncLoader();
+
+        var rate = cache.getRateAsync(PAIR.fromCurrency(), PAIR.toCurrency(), asyncLoader);
+
+        assertEquals(RATE, rate.get());
+        assertEquals(0, asyncLoadCount.get());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_noCachedRate_WHEN_getRateAsync_THEN_loadAndCacheTheRate() {
+        var asyncLoader = countedAsyncLoader();
+
+        var firstRate = cache.getRateAsync(PAIR.fromCurrency(), PAIR.toCurrency(), asyncLoader).get();
+        var secondRate = cache.getRateAsync(PAIR.fromCurrency(), PAIR.toCurrency(), asyncLoader).get();
+
+        assertEquals(RATE, firstRate);
+        assertEquals(RATE, secondRate);
+        assertEquals(1, asyncLoadCount.get());
+        assertStatistics(1, 1, 0);
+    }
+
+    @Test
+    void WHEN_put_THEN_theNextLookupIsAHit() {
+        cache.put(PAIR, RATE);
+
+        var rate = cache.getRateAsync(PAIR.fromCurrency(), PAIR.toCurrency(), countedAsyncLoader());
+
+        assertEquals(RATE, rate.join());
+        assertEquals(0, asyncLoadCount.get());
+        assertStatistics(1, 0, 0);
+    }
+
+    @Test
+    void WHEN_getFreshness_THEN_returnTheAgeOfEveryPair() {
+        cache.put(PAIR, RATE);
+        doReturn(NOW.plus(TTL)).when(clock).instant();
+
+        var freshness = cache.getFreshness();
+
+        assertEquals(CurrencyPair.allPairs().size(), freshness.size());
+        var cachedPairFreshness = freshness.stream()
+                .filter(pairFreshness -> pairFreshness.fromCurrency() == PAIR.fromCurrency()
+                        && pairFreshness.toCurrency() == PAIR.toCurrency())
+                .findFirst()
+                .orElseThrow();
+        assertEquals(NOW, cachedPairFreshness.refreshedAt());
+        assertEquals(TTL, cachedPairFreshness.age());
+        assertTrue(cachedPairFreshness.stale());
+        assertTrue(freshness.stream().allMatch(ExchangeRateFreshness::stale));
+    }
+
+    @Test
+    void GIVEN_zeroTtl_WHEN_getFreshness_THEN_returnEmpty() {
+        doReturn(Duration.ZERO).when(currencyConversionProperty).getApiRateCacheTtl();
+        var disabledCache = new ApiExchangeRateCache(currencyConversionProperty, clock);
+
+        assertTrue(disabledCache.getFreshness().isEmpty());
+    }
+
+    private Supplier<CompletableFuture<BigDecimal>> countedAsyncLoader() {
+        return () -> {
+            asyncLoadCount.incrementAndGet();
+            return CompletableFuture.completedFuture(RATE);
+        };
+    }
+
+    private BigDecimal getRate() throws CurrencyConversionException {
+        return cache.getRate(PAIR.fromCurrency(), PAIR.toCurrency(), loader);
+    }
+
+    private void assertStatistics(long expectedHits, long expectedMisses, long expectedStaleLookups) {
+        var statistics = cache.getStatistics().get(PAIR);
+        assertEquals(expectedHits, statistics.hits());
+        assertEquals(expectedMisses, statistics.misses());
+        assertEquals(expectedStaleLookups, statistics.staleLookups());
+    }
+}
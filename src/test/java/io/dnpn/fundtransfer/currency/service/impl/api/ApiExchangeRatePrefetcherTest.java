@@ -0,0 +1,154 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ApiExchangeRatePrefetcherTest {
+
+    private static final Duration INTERVAL = Duration.ofMinutes(1);
+    /**
+     * One hour before the end of the day, 10 days and one hour before the end of the month.
+     */
+    private static final Instant NOW = Instant.parse("2022-08-21T23:00:00Z");
+    private static final BigDecimal RATE = new BigDecimal("1.23");
+    private static final int PAIR_COUNT = CurrencyPair.allPairs().size();
+
+    @Mock
+    private ApiCurrencyConversionService conversionService;
+    @Mock
+    private ApiExchangeRateCache rateCache;
+    @Mock
+    private ApiRateLimitStatus rateLimitStatus;
+    @Mock
+    private CurrencyConversionProperty currencyConversionProperty;
+    @Mock
+    private Clock clock;
+
+    private ApiExchangeRatePrefetcher prefetcher;
+
+    @BeforeEach
+    void beforeEach() {
+        doReturn(INTERVAL).when(currencyConversionProperty).getApiPrefetchInterval();
+        lenient().doReturn(INTERVAL.multipliedBy(2)).when(currencyConversionProperty).getApiRateCacheTtl();
+        lenient().doReturn(true).when(rateCache).isEnabled();
+        lenient().doReturn(NOW).when(clock).instant();
+        lenient().doReturn(OptionalLong.empty()).when(rateLimitStatus).getRemainingDailyCalls();
+        lenient().doReturn(OptionalLong.empty()).when(rateLimitStatus).getRemainingMonthlyCalls();
+        lenient().doReturn(CompletableFuture.completedFuture(RATE))
+                .when(conversionService)
+                .fetchExchangeRateAsync(any(), any(), any());
+
+        this.prefetcher = new ApiExchangeRatePrefetcher(conversionService, rateCache, rateLimitStatus,
+                currencyConversionProperty, clock);
+    }
+
+    @Test
+    void GIVEN_rateCacheDisabled_WHEN_refreshIfDue_THEN_doNothing() {
+        doReturn(false).when(rateCache).isEnabled();
+
+        prefetcher.refreshIfDue();
+
+        verify(conversionService, never()).fetchExchangeRateAsync(any(), any(), any());
+    }
+
+    @Test
+    void WHEN_refreshIfDue_THEN_cacheTheRateOfEveryPair() {
+        prefetcher.refreshIfDue();
+
+        verify(conversionService, times(PAIR_COUNT)).fetchExchangeRateAsync(any(), any(), any());
+        verify(rateCache).put(new CurrencyPair(Currency.GBP, Currency.USD), RATE);
+        verify(rateCache, times(PAIR_COUNT)).put(any(), any());
+    }
+
+    @Test
+    void GIVEN_refreshNotDue_WHEN_refreshIfDue_THEN_waitForTheInterval() {
+        prefetcher.refreshIfDue();
+        doReturn(NOW.plus(INTERVAL).minusMillis(1)).when(clock).instant();
+        prefetcher.refreshIfDue();
+
+        verify(conversionService, times(PAIR_COUNT)).fetchExchangeRateAsync(any(), any(), any());
+
+        doReturn(NOW.plus(INTERVAL)).when(clock).instant();
+        prefetcher.refreshIfDue();
+
+        verify(conversionService, times(PAIR_COUNT * 2)).fetchExchangeRateAsync(any(), any(), any());
+    }
+
+    @Test
+    void GIVEN_refreshInProgress_WHEN_refreshIfDue_THEN_doNotStartAnotherOne() {
+        doReturn(new CompletableFuture<BigDecimal>()).when(conversionService).fetchExchangeRateAsync(any(), any(), any());
+        prefetcher.refreshIfDue();
+        doReturn(NOW.plus(INTERVAL)).when(clock).instant();
+
+        prefetcher.refreshIfDue();
+
+        verify(conversionService, times(PAIR_COUNT)).fetchExchangeRateAsync(any(), any(), any());
+    }
+
+    @Test
+    void GIVEN_failedPair_WHEN_refreshIfDue_THEN_cacheTheOtherPairs() {
+        var failedPair = new CurrencyPair(Currency.GBP, Currency.USD);
+        doReturn(CompletableFuture.failedFuture(new CurrencyConversionException("Some error.")))
+                .when(conversionService)
+                .fetchExchangeRateAsync(failedPair.fromCurrency(), failedPair.toCurrency(), ApiCallPriority.BACKGROUND);
+
+        prefetcher.refreshIfDue();
+
+        verify(rateCache, never()).put(failedPair, RATE);
+        verify(rateCache, times(PAIR_COUNT - 1)).put(any(), any());
+    }
+
+    @Test
+    void GIVEN_unknownRemainingCalls_WHEN_calculateRefreshInterval_THEN_returnTheConfiguredInterval() {
+        assertEquals(Optional.of(INTERVAL), prefetcher.calculateRefreshInterval(NOW, PAIR_COUNT));
+    }
+
+    @Test
+    void GIVEN_fewRemainingDailyCalls_WHEN_calculateRefreshInterval_THEN_spreadHalfOfThemUntilTheEndOfTheDay() {
+        // 4 refreshes affordable with half of the calls, during the last hour of the day
+        doReturn(OptionalLong.of(PAIR_COUNT * 8L)).when(rateLimitStatus).getRemainingDailyCalls();
+
+        assertEquals(Optional.of(Duration.ofMinutes(15)), prefetcher.calculateRefreshInterval(NOW, PAIR_COUNT));
+    }
+
+    @Test
+    void GIVEN_fewRemainingMonthlyCalls_WHEN_calculateRefreshInterval_THEN_spreadHalfOfThemUntilTheEndOfTheMonth() {
+        doReturn(OptionalLong.of(Long.MAX_VALUE)).when(rateLimitStatus).getRemainingDailyCalls();
+        // 241 refreshes affordable with half of the calls, during the last 241 hours of the month
+        doReturn(OptionalLong.of(PAIR_COUNT * 482L)).when(rateLimitStatus).getRemainingMonthlyCalls();
+
+        assertEquals(Optional.of(Duration.ofHours(1)), prefetcher.calculateRefreshInterval(NOW, PAIR_COUNT));
+    }
+
+    @Test
+    void GIVEN_notEnoughRemainingCalls_WHEN_refreshIfDue_THEN_skipTheRefresh() {
+        doReturn(OptionalLong.of(PAIR_COUNT)).when(rateLimitStatus).getRemainingDailyCalls();
+
+        prefetcher.refreshIfDue();
+
+        verify(conversionService, never()).fetchExchangeRateAsync(any(), any(), any());
+    }
+}
@@ -0,0 +1,166 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ApiExchangeRateSnapshotTest {
+
+    private static final Instant NOW = Instant.parse("2022-08-31T12:00:00Z");
+    private static final Duration MAX_AGE = Duration.ofHours(1);
+    private static final CurrencyPair PAIR = new CurrencyPair(Currency.GBP, Currency.JPY);
+    private static final CurrencyPair OTHER_PAIR = new CurrencyPair(Currency.USD, Currency.GBP);
+    private static final BigDecimal RATE = new BigDecimal("161.842105263157894737");
+    private static final BigDecimal OTHER_RATE = new BigDecimal("0.8123");
+
+    @TempDir
+    private Path directory;
+    private Path snapshotFile;
+
+    @Mock
+    private CurrencyConversionProperty currencyConversionProperty;
+    @Mock
+    private ApiExchangeRateCache rateCache;
+    @Mock
+    private LastKnownExchangeRates lastKnownRates;
+    @Mock
+    private Clock clock;
+
+    @BeforeEach
+    void beforeEach() {
+        this.snapshotFile = directory.resolve("exchange-rates.snapshot");
+        lenient().doReturn(Optional.of(snapshotFile)).when(currencyConversionProperty).getApiSnapshotPath();
+        lenient().doReturn(MAX_AGE).when(currencyConversionProperty).getApiSnapshotMaxAge();
+        lenient().doReturn(true).when(rateCache).isEnabled();
+        lenient().doReturn(NOW).when(clock).instant();
+    }
+
+    @Test
+    void GIVEN_noPath_WHEN_flush_THEN_writeNothing() {
+        doReturn(Optional.empty()).when(currencyConversionProperty).getApiSnapshotPath();
+        var snapshot = createSnapshot();
+
+        snapshot.record(PAIR, RATE);
+        snapshot.flush();
+
+        assertFalse(snapshot.isEnabled());
+        assertFalse(Files.exists(snapshotFile));
+    }
+
+    @Test
+    void GIVEN_noRecordedRate_WHEN_flush_THEN_writeNothing() {
+        var snapshot = createSnapshot();
+
+        snapshot.flush();
+
+        assertFalse(Files.exists(snapshotFile));
+    }
+
+    @Test
+    void GIVEN_savedRates_WHEN_created_THEN_loadThemWithTheirRetrievalTime() {
+        var previousSnapshot = createSnapshot();
+        previousSnapshot.record(PAIR, RATE);
+        doReturn(NOW.plusSeconds(60)).when(clock).instant();
+        previousSnapshot.record(OTHER_PAIR, OTHER_RATE);
+        previousSnapshot.flush();
+
+        createSnapshot();
+
+        verify(rateCache).put(PAIR, RATE, NOW);
+        verify(rateCache).put(OTHER_PAIR, OTHER_RATE, NOW.plusSeconds(60));
+        verify(lastKnownRates).record(PAIR, RATE, NOW);
+        verify(lastKnownRates).record(OTHER_PAIR, OTHER_RATE, NOW.plusSeconds(60));
+    }
+
+    @Test
+    void GIVEN_cacheDisabled_WHEN_created_THEN_onlyLoadTheLastKnownRates() {
+        var previousSnapshot = createSnapshot();
+        previousSnapshot.record(PAIR, RATE);
+        previousSnapshot.flush();
+        doReturn(false).when(rateCache).isEnabled();
+
+        createSnapshot();
+
+        verify(rateCache, never()).put(any(), any(), any());
+        verify(lastKnownRates).record(PAIR, RATE, NOW);
+    }
+
+    @Test
+    void GIVEN_rateOlderThanTheMaxAge_WHEN_created_THEN_skipIt() {
+        var previousSnapshot = createSnapshot();
+        previousSnapshot.record(PAIR, RATE);
+        doReturn(NOW.plus(MAX_AGE)).when(clock).instant();
+        previousSnapshot.record(OTHER_PAIR, OTHER_RATE);
+        previousSnapshot.flush();
+        doReturn(NOW.plus(MAX_AGE).plusSeconds(1)).when(clock).instant();
+
+        createSnapshot();
+
+        verify(rateCache, never()).put(PAIR, RATE, NOW);
+        verify(rateCache).put(OTHER_PAIR, OTHER_RATE, NOW.plus(MAX_AGE));
+    }
+
+    @Test
+    void GIVEN_loadedRates_WHEN_flush_THEN_keepThemInTheSnapshot() {
+        var previousSnapshot = createSnapshot();
+        previousSnapshot.record(PAIR, RATE);
+        previousSnapshot.flush();
+        var snapshot = createSnapshot();
+        snapshot.record(OTHER_PAIR, OTHER_RATE);
+        snapshot.flush();
+
+        createSnapshot();
+
+        verify(rateCache, times(2)).put(PAIR, RATE, NOW);
+        verify(rateCache).put(OTHER_PAIR, OTHER_RATE, NOW);
+    }
+
+    @Test
+    @SneakyThrows
+    void GIVEN_corruptFile_WHEN_created_THEN_ignoreIt() {
+        Files.writeString(snapshotFile, "not a snapshot");
+
+        var snapshot = createSnapshot();
+
+        assertTrue(snapshot.isEnabled());
+        verifyNoInteractions(lastKnownRates);
+        verify(rateCache, never()).put(any(), any(), any());
+    }
+
+    @Test
+    void GIVEN_missingFile_WHEN_created_THEN_loadNothing() {
+        createSnapshot();
+
+        verifyNoInteractions(lastKnownRates);
+        verify(rateCache, never()).put(any(), any(), any());
+    }
+
+    private ApiExchangeRateSnapshot createSnapshot() {
+        return new ApiExchangeRateSnapshot(currencyConversionProperty, rateCache, lastKnownRates, clock);
+    }
+}
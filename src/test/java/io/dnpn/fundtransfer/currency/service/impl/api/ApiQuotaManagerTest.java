@@ -0,0 +1,171 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class ApiQuotaManagerTest {
+
+    /**
+     * One hour before the end of the day and of the month.
+     */
+    private static final Instant NOW = Instant.parse("2022-08-31T23:00:00Z");
+    private static final int BURST = 2;
+    private static final Duration MAX_WAIT = Duration.ofSeconds(1);
+    private static final Optional<Duration> NO_DELAY = Optional.of(Duration.ZERO);
+
+    @Mock
+    private ApiRateLimitStatus rateLimitStatus;
+    @Mock
+    private CurrencyConversionProperty currencyConversionProperty;
+    @Mock
+    private Clock clock;
+
+    private ApiQuotaManager quotaManager;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(OptionalInt.of(BURST)).when(currencyConversionProperty).getApiQuotaBurst();
+        lenient().doReturn(MAX_WAIT).when(currencyConversionProperty).getApiQuotaMaxWait();
+        lenient().doReturn(NOW).when(clock).instant();
+        // One call per second until the end of the month
+        lenient().doReturn(OptionalLong.of(3600)).when(rateLimitStatus).getRemainingMonthlyCalls();
+
+        this.quotaManager = new ApiQuotaManager(rateLimitStatus, currencyConversionProperty, clock);
+    }
+
+    @Test
+    void GIVEN_noBurst_WHEN_tryAcquire_THEN_alwaysPermitTheCall() {
+        doReturn(OptionalInt.empty()).when(currencyConversionProperty).getApiQuotaBurst();
+        var disabledQuotaManager = new ApiQuotaManager(rateLimitStatus, currencyConversionProperty, clock);
+
+        for (int i = 0; i < BURST * 2; i++) {
+            assertEquals(NO_DELAY, disabledQuotaManager.tryAcquire(ApiCallPriority.BACKGROUND));
+        }
+        assertFalse(disabledQuotaManager.isEnabled());
+        assertEquals(Duration.ZERO, disabledQuotaManager.getMaxWait());
+    }
+
+    @Test
+    void GIVEN_unknownRemainingCalls_WHEN_tryAcquire_THEN_permitTheCall() {
+        doReturn(OptionalLong.empty()).when(rateLimitStatus).getRemainingMonthlyCalls();
+
+        for (int i = 0; i < BURST * 2; i++) {
+            assertEquals(NO_DELAY, quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+        }
+    }
+
+    @Test
+    void GIVEN_emptyBucket_WHEN_tryAcquire_THEN_queueTheConversionUntilTheNextToken() {
+        acquireBurst();
+
+        assertEquals(Optional.of(Duration.ofSeconds(1)), quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+        assertEquals(Optional.empty(), quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+    }
+
+    @Test
+    void GIVEN_emptyBucket_WHEN_tryAcquire_THEN_rejectTheBackgroundCall() {
+        acquireBurst();
+
+        assertEquals(Optional.empty(), quotaManager.tryAcquire(ApiCallPriority.BACKGROUND));
+    }
+
+    @Test
+    void GIVEN_noRemainingCalls_WHEN_tryAcquire_THEN_rejectTheConversionOnceTheBucketIsEmpty() {
+        doReturn(OptionalLong.of(0)).when(rateLimitStatus).getRemainingDailyCalls();
+        acquireBurst();
+
+        assertEquals(Optional.empty(), quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+    }
+
+    @Test
+    void GIVEN_elapsedTime_WHEN_tryAcquire_THEN_refillTheBucketAtThePaceOfTheQuota() {
+        acquireBurst();
+        doReturn(NOW.plusSeconds(1)).when(clock).instant();
+        doReturn(OptionalLong.of(3599)).when(rateLimitStatus).getRemainingMonthlyCalls();
+
+        assertEquals(NO_DELAY, quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+        assertEquals(Optional.of(Duration.ofSeconds(1)), quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+    }
+
+    @Test
+    void WHEN_tryAcquire_THEN_backgroundCallsLeaveHalfOfTheBucketToTheConversions() {
+        doReturn(OptionalInt.of(4)).when(currencyConversionProperty).getApiQuotaBurst();
+        var quotaManager = new ApiQuotaManager(rateLimitStatus, currencyConversionProperty, clock);
+
+        assertEquals(NO_DELAY, quotaManager.tryAcquire(ApiCallPriority.BACKGROUND));
+        assertEquals(NO_DELAY, quotaManager.tryAcquire(ApiCallPriority.BACKGROUND));
+        assertEquals(Optional.empty(), quotaManager.tryAcquire(ApiCallPriority.BACKGROUND));
+        assertEquals(NO_DELAY, quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+        assertEquals(NO_DELAY, quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+    }
+
+    @Test
+    void GIVEN_tooManyRequests_WHEN_onFailure_THEN_emptyTheBucket() {
+        var failure = WebClientResponseException.create(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests",
+                null, null, null);
+
+        quotaManager.onFailure(failure);
+
+        assertEquals(Optional.of(Duration.ofSeconds(1)), quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+    }
+
+    @Test
+    void GIVEN_otherFailure_WHEN_onFailure_THEN_keepTheTokens() {
+        quotaManager.onFailure(new IllegalStateException("Some error."));
+
+        assertEquals(BURST, quotaManager.getAvailableTokens());
+    }
+
+    @Test
+    void GIVEN_paceExhaustingTheQuotaBeforeItsReset_WHEN_getProjectedExhaustion_THEN_returnTheExhaustionTime() {
+        quotaManager.tryAcquire(ApiCallPriority.CONVERSION);
+        doReturn(NOW.plusSeconds(1)).when(clock).instant();
+        quotaManager.tryAcquire(ApiCallPriority.CONVERSION);
+        doReturn(NOW.plusSeconds(2)).when(clock).instant();
+        doReturn(OptionalLong.of(10)).when(rateLimitStatus).getRemainingDailyCalls();
+
+        // 2 calls in 2 seconds
+        assertEquals(Optional.of(NOW.plusSeconds(12)), quotaManager.getProjectedExhaustion());
+    }
+
+    @Test
+    void GIVEN_paceWithinTheQuota_WHEN_getProjectedExhaustion_THEN_returnEmpty() {
+        quotaManager.tryAcquire(ApiCallPriority.CONVERSION);
+        doReturn(NOW.plusSeconds(10)).when(clock).instant();
+        quotaManager.tryAcquire(ApiCallPriority.CONVERSION);
+
+        assertEquals(Optional.empty(), quotaManager.getProjectedExhaustion());
+    }
+
+    @Test
+    void GIVEN_singleCall_WHEN_getProjectedExhaustion_THEN_returnEmpty() {
+        quotaManager.tryAcquire(ApiCallPriority.CONVERSION);
+
+        assertEquals(Optional.empty(), quotaManager.getProjectedExhaustion());
+    }
+
+    private void acquireBurst() {
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(NO_DELAY, quotaManager.tryAcquire(ApiCallPriority.CONVERSION));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ApiRateLimitStatusTest {
+
+    private final ApiRateLimitStatus rateLimitStatus = new ApiRateLimitStatus();
+
+    @Test
+    void GIVEN_noResponseYet_WHEN_getRemainingCalls_THEN_returnEmpty() {
+        assertEquals(OptionalLong.empty(), rateLimitStatus.getRemainingDailyCalls());
+        assertEquals(OptionalLong.empty(), rateLimitStatus.getRemainingMonthlyCalls());
+    }
+
+    @Test
+    void WHEN_record_THEN_returnTheRemainingCalls() {
+        rateLimitStatus.record("90", "900");
+
+        assertEquals(OptionalLong.of(90), rateLimitStatus.getRemainingDailyCalls());
+        assertEquals(OptionalLong.of(900), rateLimitStatus.getRemainingMonthlyCalls());
+    }
+
+    @Test
+    void GIVEN_missingOrInvalidHeaders_WHEN_record_THEN_keepThePreviousValues() {
+        rateLimitStatus.record("90", "900");
+
+        rateLimitStatus.record(null, "abc");
+
+        assertEquals(OptionalLong.of(90), rateLimitStatus.getRemainingDailyCalls());
+        assertEquals(OptionalLong.of(900), rateLimitStatus.getRemainingMonthlyCalls());
+    }
+}
@@ -0,0 +1,154 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class ApiRequestHedgerTest {
+
+    private static final Duration USUAL_LATENCY = Duration.ofMillis(20);
+    private static final Duration SLOW_LATENCY = Duration.ofSeconds(5);
+    private static final Duration BLOCK_TIMEOUT = Duration.ofSeconds(2);
+
+    @Mock
+    private CurrencyConversionProperty currencyConversionProperty;
+
+    private final AtomicInteger callCount = new AtomicInteger();
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(OptionalDouble.of(0.9)).when(currencyConversionProperty).getApiHedgingDelayPercentile();
+        lenient().doReturn(1.0).when(currencyConversionProperty).getApiHedgingBudgetRatio();
+    }
+
+    @Test
+    void GIVEN_noPercentile_WHEN_hedge_THEN_makeTheCallOnlyOnce() {
+        doReturn(OptionalDouble.empty()).when(currencyConversionProperty).getApiHedgingDelayPercentile();
+        var hedger = new ApiRequestHedger(currencyConversionProperty);
+
+        var response = hedger.hedge(calls(Mono.delay(USUAL_LATENCY).thenReturn("first"), Mono.just("hedge")))
+                .block(BLOCK_TIMEOUT);
+
+        assertFalse(hedger.isEnabled());
+        assertEquals("first", response);
+        assertEquals(1, callCount.get());
+    }
+
+    @Test
+    void GIVEN_notEnoughLatencies_WHEN_getHedgeDelay_THEN_returnEmpty() {
+        var hedger = new ApiRequestHedger(currencyConversionProperty);
+        recordLatencies(hedger, ApiRequestHedger.MINIMUM_LATENCIES - 1);
+
+        assertEquals(Optional.empty(), hedger.getHedgeDelay());
+    }
+
+    @Test
+    void WHEN_getHedgeDelay_THEN_returnThePercentileOfTheLastLatencies() {
+        var hedger = new ApiRequestHedger(currencyConversionProperty);
+        // The oldest latencies are evicted from the window
+        hedger.recordLatency(Duration.ofDays(1));
+        for (int i = 1; i <= ApiRequestHedger.LATENCY_WINDOW_SIZE; i++) {
+            hedger.recordLatency(Duration.ofMillis(i));
+        }
+
+        assertEquals(Optional.of(Duration.ofMillis(90)), hedger.getHedgeDelay());
+    }
+
+    @Test
+    void GIVEN_slowCall_WHEN_hedge_THEN_returnTheResponseOfTheHedge() {
+        var hedger = new ApiRequestHedger(currencyConversionProperty);
+        recordLatencies(hedger, ApiRequestHedger.MINIMUM_LATENCIES);
+
+        var response = hedger.hedge(calls(Mono.delay(SLOW_LATENCY).thenReturn("first"), Mono.just("hedge")))
+                .block(BLOCK_TIMEOUT);
+
+        assertEquals("hedge", response);
+        assertEquals(2, callCount.get());
+    }
+
+    @Test
+    void GIVEN_fastCall_WHEN_hedge_THEN_doNotHedgeIt() {
+        var hedger = new ApiRequestHedger(currencyConversionProperty);
+        recordLatencies(hedger, ApiRequestHedger.MINIMUM_LATENCIES);
+
+        var response = hedger.hedge(calls(Mono.just("first"), Mono.just("hedge"))).block(BLOCK_TIMEOUT);
+
+        assertEquals("first", response);
+        assertEquals(1, callCount.get());
+    }
+
+    @Test
+    void GIVEN_noBudgetLeft_WHEN_hedge_THEN_waitForTheFirstCall() {
+        doReturn(0.1).when(currencyConversionProperty).getApiHedgingBudgetRatio();
+        var hedger = new ApiRequestHedger(currencyConversionProperty);
+        recordLatencies(hedger, ApiRequestHedger.MINIMUM_LATENCIES);
+
+        var response = hedger.hedge(calls(Mono.delay(USUAL_LATENCY.multipliedBy(3)).thenReturn("first"),
+                        Mono.just("hedge")))
+                .block(BLOCK_TIMEOUT);
+
+        assertEquals("first", response);
+        assertEquals(1, callCount.get());
+    }
+
+    @Test
+    void GIVEN_failedHedge_WHEN_hedge_THEN_returnTheResponseOfTheFirstCall() {
+        var hedger = new ApiRequestHedger(currencyConversionProperty);
+        recordLatencies(hedger, ApiRequestHedger.MINIMUM_LATENCIES);
+
+        var response = hedger.hedge(calls(Mono.delay(USUAL_LATENCY.multipliedBy(3)).thenReturn("first"),
+                        Mono.error(new IllegalStateException("Some error."))))
+                .block(BLOCK_TIMEOUT);
+
+        assertEquals("first", response);
+        assertEquals(2, callCount.get());
+    }
+
+    @Test
+    void GIVEN_failedFirstCall_WHEN_hedge_THEN_returnTheFailureWithoutHedging() {
+        var hedger = new ApiRequestHedger(currencyConversionProperty);
+        recordLatencies(hedger, ApiRequestHedger.MINIMUM_LATENCIES);
+        var hedgedCall = hedger.hedge(calls(Mono.error(new IllegalStateException("Some error.")),
+                Mono.just("hedge")));
+
+        assertThrows(IllegalStateException.class, () -> hedgedCall.block(BLOCK_TIMEOUT));
+        assertEquals(1, callCount.get());
+    }
+
+    private void recordLatencies(ApiRequestHedger hedger, int count) {
+        for (int i = 0; i < count; i++) {
+            hedger.recordLatency(USUAL_LATENCY);
+        }
+    }
+
+    /**
+     * Supplies the given calls in order, counting them.
+     */
+    private Supplier<Mono<String>> calls(Mono<String> firstCall, Mono<String> hedgeCall) {
+        final Queue<Mono<String>> calls = new ArrayDeque<>(List.of(firstCall, hedgeCall));
+        return () -> {
+            callCount.incrementAndGet();
+            return calls.remove();
+        };
+    }
+}
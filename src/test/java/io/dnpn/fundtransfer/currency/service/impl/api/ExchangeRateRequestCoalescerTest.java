@@ -0,0 +1,133 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExchangeRateRequestCoalescerTest {
+
+    private static final CurrencyPair PAIR = new CurrencyPair(Currency.GBP, Currency.USD);
+    private static final BigDecimal RATE = new BigDecimal("1.23");
+    private static final Duration WAITER_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ExchangeRateRequestCoalescer coalescer = new ExchangeRateRequestCoalescer();
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    @Test
+    void GIVEN_nullPair_WHEN_getRate_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> coalescer.getRate(null, () -> Mono.just(RATE), WAITER_TIMEOUT));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_requestInFlight_WHEN_getRate_THEN_waitForItInsteadOfStartingAnother() {
+        var pendingResponse = new CompletableFuture<BigDecimal>();
+        var request = countedRequest(() -> Mono.fromFuture(pendingResponse));
+        var firstRate = new AtomicReference<BigDecimal>();
+        var secondRate = new AtomicReference<BigDecimal>();
+
+        var firstLookup = startWaitingLookup(() -> firstRate.set(coalescer.getRate(PAIR, request, WAITER_TIMEOUT)));
+        var secondLookup = startWaitingLookup(() -> secondRate.set(coalescer.getRate(PAIR, request, WAITER_TIMEOUT)));
+        pendingResponse.complete(RATE);
+        firstLookup.join();
+        secondLookup.join();
+
+        assertEquals(1, requestCount.get());
+        assertEquals(RATE, firstRate.get());
+        assertEquals(RATE, secondRate.get());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_requestFailure_WHEN_getRate_THEN_propagateTheFailureToEveryWaiter() {
+        var pendingResponse = new CompletableFuture<BigDecimal>();
+        var request = countedRequest(() -> Mono.fromFuture(pendingResponse));
+        var failure = new IllegalArgumentException("Some error.");
+        var firstFailure = new AtomicReference<RuntimeException>();
+        var secondFailure = new AtomicReference<RuntimeException>();
+
+        var firstLookup = startWaitingLookup(() -> firstFailure.set(assertThrows(RuntimeException.class,
+                () -> coalescer.getRate(PAIR, request, WAITER_TIMEOUT))));
+        var secondLookup = startWaitingLookup(() -> secondFailure.set(assertThrows(RuntimeException.class,
+                () -> coalescer.getRate(PAIR, request, WAITER_TIMEOUT))));
+        pendingResponse.completeExceptionally(failure);
+        firstLookup.join();
+        secondLookup.join();
+
+        assertEquals(1, requestCount.get());
+        assertSame(failure, firstFailure.get());
+        assertSame(failure, secondFailure.get());
+    }
+
+    @Test
+    void GIVEN_checkedFailure_WHEN_getRate_THEN_wrapItInIllegalState() {
+        var failure = new TimeoutException("Too slow.");
+
+        var exception = assertThrows(IllegalStateException.class,
+                () -> coalescer.getRate(PAIR, () -> Mono.error(failure), WAITER_TIMEOUT));
+
+        assertSame(failure, exception.getCause());
+    }
+
+    @Test
+    void GIVEN_noResponseInTime_WHEN_getRate_THEN_throwsIllegalState() {
+        var exception = assertThrows(IllegalStateException.class,
+                () -> coalescer.getRate(PAIR, Mono::never, Duration.ofMillis(10)));
+
+        assertInstanceOf(TimeoutException.class, exception.getCause());
+    }
+
+    @Test
+    void GIVEN_requestCompleted_WHEN_getRate_THEN_startANewRequest() {
+        var request = countedRequest(() -> Mono.just(RATE));
+
+        coalescer.getRate(PAIR, request, WAITER_TIMEOUT);
+        coalescer.getRate(PAIR, request, WAITER_TIMEOUT);
+
+        assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    void GIVEN_failureWhenStartingTheRequest_WHEN_getRate_THEN_throwTheFailureAndForgetTheRequest() {
+        var failure = new IllegalArgumentException("Some error.");
+
+        assertSame(failure, assertThrows(IllegalArgumentException.class, () -> coalescer.getRate(PAIR, () -> {
+            throw failure;
+        }, WAITER_TIMEOUT)));
+        assertEquals(RATE, coalescer.getRate(PAIR, () -> Mono.just(RATE), WAITER_TIMEOUT));
+    }
+
+    private Supplier<Mono<BigDecimal>> countedRequest(Supplier<Mono<BigDecimal>> request) {
+        return () -> {
+            requestCount.incrementAndGet();
+            return request.get();
+        };
+    }
+
+    /**
+     * Starts the lookup in a new thread and returns once the thread is waiting for the exchange rate.
+     */
+    @SneakyThrows
+    private Thread startWaitingLookup(Runnable lookup) {
+        var thread = new Thread(lookup);
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+}
@@ -0,0 +1,74 @@
+package io.dnpn.fundtransfer.currency.service.impl.api;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class LastKnownExchangeRatesTest {
+
+    private static final Duration MAX_STALENESS = Duration.ofMinutes(5);
+    private static final Instant NOW = Instant.parse("2022-08-01T10:00:00Z");
+    private static final CurrencyPair PAIR = new CurrencyPair(Currency.GBP, Currency.USD);
+    private static final BigDecimal RATE = new BigDecimal("1.23");
+
+    @Mock
+    private CurrencyConversionProperty currencyConversionProperty;
+    @Mock
+    private Clock clock;
+
+    private LastKnownExchangeRates lastKnownRates;
+
+    @BeforeEach
+    void beforeEach() {
+        doReturn(MAX_STALENESS).when(currencyConversionProperty).getApiFallbackMaxStaleness();
+        lenient().doReturn(NOW).when(clock).instant();
+
+        this.lastKnownRates = new LastKnownExchangeRates(currencyConversionProperty, clock);
+    }
+
+    @Test
+    void GIVEN_noRecordedRate_WHEN_find_THEN_returnEmpty() {
+        assertEquals(Optional.empty(), lastKnownRates.find(PAIR));
+    }
+
+    @Test
+    void GIVEN_recentRate_WHEN_find_THEN_returnIt() {
+        lastKnownRates.record(PAIR, RATE);
+        doReturn(NOW.plus(MAX_STALENESS)).when(clock).instant();
+
+        assertEquals(Optional.of(RATE), lastKnownRates.find(PAIR));
+    }
+
+    @Test
+    void GIVEN_tooOldRate_WHEN_find_THEN_returnEmpty() {
+        lastKnownRates.record(PAIR, RATE);
+        doReturn(NOW.plus(MAX_STALENESS).plusMillis(1)).when(clock).instant();
+
+        assertEquals(Optional.empty(), lastKnownRates.find(PAIR));
+    }
+
+    @Test
+    void GIVEN_fallbackDisabled_WHEN_find_THEN_returnEmpty() {
+        doReturn(Duration.ZERO).when(currencyConversionProperty).getApiFallbackMaxStaleness();
+        var disabledLastKnownRates = new LastKnownExchangeRates(currencyConversionProperty, clock);
+
+        disabledLastKnownRates.record(PAIR, RATE);
+
+        assertEquals(Optional.empty(), disabledLastKnownRates.find(PAIR));
+    }
+}
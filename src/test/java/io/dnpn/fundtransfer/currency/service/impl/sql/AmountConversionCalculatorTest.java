@@ -34,57 +34,51 @@ class AmountConversionCalculatorTest {
     private static final AmountConversionCalculator calculator = new AmountConversionCalculator();
 
     @Test
-    void GIVEN_nullRequest_WHEN_convert_THEN_throwsNullPointer() {
-        assertThrows(NullPointerException.class, () -> calculator.convert(null));
+    void GIVEN_nullSourceRate_WHEN_getExchangeRate_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> calculator.getExchangeRate(null, TARGET_RATE));
     }
 
     @ParameterizedTest
     @MethodSource(METHOD_SOURCE_INVALID_RATE_TO_USD)
-    void GIVEN_invalidSourceRateToUsd_WHEN_convert_THEN_throwsCurrencyConversion(BigDecimal invalidRate) {
+    void GIVEN_invalidSourceRateToUsd_WHEN_getExchangeRate_THEN_throwsCurrencyConversion(BigDecimal invalidRate) {
         ExchangeRateEntity sourceRate = ExchangeRateEntity.builder()
                 .rateToUsd(invalidRate)
                 .currency(SOURCE_RATE.getCurrency())
                 .build();
-        AmountConversionCalculatorRequest request = AmountConversionCalculatorRequest.builder()
-                .amount(AMOUNT)
-                .sourceExchangeRate(sourceRate)
-                .targetExchangeRate(TARGET_RATE)
-                .build();
 
-        assertThrows(CurrencyConversionException.class, () -> calculator.convert(request));
+        assertThrows(CurrencyConversionException.class, () -> calculator.getExchangeRate(sourceRate, TARGET_RATE));
     }
 
     @ParameterizedTest
     @MethodSource(METHOD_SOURCE_INVALID_RATE_TO_USD)
-    void GIVEN_invalidTargetRateToUsd_WHEN_convert_THEN_throwsCurrencyConversion(BigDecimal invalidRate) {
+    void GIVEN_invalidTargetRateToUsd_WHEN_getExchangeRate_THEN_throwsCurrencyConversion(BigDecimal invalidRate) {
         ExchangeRateEntity targetRate = ExchangeRateEntity.builder()
                 .rateToUsd(invalidRate)
                 .currency(TARGET_RATE.getCurrency())
                 .build();
-        AmountConversionCalculatorRequest request = AmountConversionCalculatorRequest.builder()
-                .amount(AMOUNT)
-                .sourceExchangeRate(SOURCE_RATE)
-                .targetExchangeRate(targetRate)
-                .build();
 
-        assertThrows(CurrencyConversionException.class, () -> calculator.convert(request));
+        assertThrows(CurrencyConversionException.class, () -> calculator.getExchangeRate(SOURCE_RATE, targetRate));
     }
 
     @SneakyThrows
     @Test
-    void WHEN_convert_THEN_returnConvertedAmount() {
-        AmountConversionCalculatorRequest request = AmountConversionCalculatorRequest.builder()
-                .amount(AMOUNT)
-                .sourceExchangeRate(SOURCE_RATE)
-                .targetExchangeRate(TARGET_RATE)
-                .build();
+    void WHEN_getExchangeRate_THEN_convertingWithTheRateGivesTheExpectedAmount() {
+        var rate = calculator.getExchangeRate(SOURCE_RATE, TARGET_RATE);
 
-        BigDecimal actualConvertedAmount = calculator.convert(request)
+        BigDecimal actualConvertedAmount = AMOUNT.multiply(rate)
                 .setScale(MoneyHandling.SCALE_FOR_MONEY, MoneyHandling.ROUNDING_MODE_FOR_CLIENT_CREDIT);
 
         assertEquals(EXPECTED_CONVERTED_AMOUNT, actualConvertedAmount);
     }
 
+    @SneakyThrows
+    @Test
+    void WHEN_getExchangeRate_THEN_returnSourceRateDividedByTargetRate() {
+        var actualRate = calculator.getExchangeRate(SOURCE_RATE, TARGET_RATE);
+
+        assertEquals(new BigDecimal("161.8421053"), actualRate);
+    }
+
     private static Stream<Arguments> provideInvalidRateToUsd() {
         return Stream.of(
                 Arguments.of(BigDecimal.ZERO),
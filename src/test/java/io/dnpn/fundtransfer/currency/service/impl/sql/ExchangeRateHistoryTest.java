@@ -0,0 +1,169 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateHistoryTest {
+
+    private static final Instant YESTERDAY = Instant.parse("2022-07-31T10:00:00Z");
+    private static final Instant NOW = Instant.parse("2022-08-01T10:00:00Z");
+    private static final Instant FIRST_LOAD_START = Instant.EPOCH.minus(ExchangeRateHistory.LOAD_OVERLAP);
+    private static final ExchangeRateHistoryEntity USD_RATE = buildEntry(1, Currency.USD, YESTERDAY, "1");
+    private static final ExchangeRateHistoryEntity OLD_GBP_RATE = buildEntry(2, Currency.GBP, YESTERDAY, "1.25");
+    private static final ExchangeRateHistoryEntity NEW_GBP_RATE = buildEntry(3, Currency.GBP, NOW, "1.23");
+
+    @Mock
+    private ExchangeRateHistoryRepository repository;
+    @Mock
+    private Clock clock;
+
+    private ExchangeRateHistory history;
+
+    @BeforeEach
+    void beforeEach() {
+        this.history = new ExchangeRateHistory(repository, new AmountConversionCalculator(), clock);
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_getRate_THEN_returnTheCrossRateEffectiveAtTheGivenTime() {
+        doReturn(List.of(USD_RATE, OLD_GBP_RATE, NEW_GBP_RATE)).when(repository)
+                .findByRecordedAtGreaterThanEqualOrderByIdAsc(FIRST_LOAD_START);
+
+        assertEquals(new BigDecimal("1.25"), history.getRate(Currency.GBP, Currency.USD, NOW.minusSeconds(1)));
+        assertEquals(new BigDecimal("0.8130081301"), history.getRate(Currency.USD, Currency.GBP, NOW));
+    }
+
+    @Test
+    void GIVEN_noRateEffectiveYet_WHEN_getRate_THEN_throwCurrencyConversion() {
+        doReturn(List.of(USD_RATE, NEW_GBP_RATE)).when(repository)
+                .findByRecordedAtGreaterThanEqualOrderByIdAsc(FIRST_LOAD_START);
+
+        assertThrows(CurrencyConversionException.class,
+                () -> history.getRate(Currency.GBP, Currency.USD, NOW.minusSeconds(1)));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_sameCurrency_WHEN_getRate_THEN_returnOneWithoutLoadingTheHistory() {
+        assertEquals(BigDecimal.ONE, history.getRate(Currency.JPY, Currency.JPY, NOW));
+        verify(repository, times(0)).findByRecordedAtGreaterThanEqualOrderByIdAsc(any());
+    }
+
+    @Test
+    void WHEN_findRateToUsd_THEN_loadTheHistoryOnceOnFirstUse() {
+        doReturn(List.of(USD_RATE, OLD_GBP_RATE)).when(repository)
+                .findByRecordedAtGreaterThanEqualOrderByIdAsc(FIRST_LOAD_START);
+
+        history.findRateToUsd(Currency.GBP, NOW);
+        history.findRateToUsd(Currency.USD, NOW);
+
+        verify(repository, times(1)).findByRecordedAtGreaterThanEqualOrderByIdAsc(any());
+    }
+
+    @Test
+    void WHEN_refresh_THEN_onlyLoadTheEntriesAppendedSinceTheLastLoad() {
+        doReturn(List.of(USD_RATE, OLD_GBP_RATE)).when(repository)
+                .findByRecordedAtGreaterThanEqualOrderByIdAsc(FIRST_LOAD_START);
+        history.refresh();
+        doReturn(List.of(NEW_GBP_RATE)).when(repository)
+                .findByRecordedAtGreaterThanEqualOrderByIdAsc(YESTERDAY.minus(ExchangeRateHistory.LOAD_OVERLAP));
+
+        history.refresh();
+
+        assertEquals(Optional.of(new BigDecimal("1.25")), history.findRateToUsd(Currency.GBP, NOW.minusSeconds(1)));
+        assertEquals(Optional.of(new BigDecimal("1.23")), history.findRateToUsd(Currency.GBP, NOW));
+        assertEquals(Optional.of(BigDecimal.ONE), history.findRateToUsd(Currency.USD, NOW));
+    }
+
+    @Test
+    void GIVEN_entryCommittedAfterAMoreRecentOne_WHEN_refresh_THEN_loadItOnceWithinTheOverlap() {
+        var recordedAt = NOW.minusSeconds(10);
+        var lateGbpRate = buildEntry(4, Currency.GBP, NOW.minusSeconds(20), recordedAt, "1.24");
+        var latestGbpRate = buildEntry(5, Currency.GBP, NOW.minusSeconds(20), NOW, "1.22");
+        var overlapStart = NOW.minus(ExchangeRateHistory.LOAD_OVERLAP);
+        doReturn(List.of(USD_RATE, latestGbpRate)).when(repository)
+                .findByRecordedAtGreaterThanEqualOrderByIdAsc(FIRST_LOAD_START);
+        history.refresh();
+        doReturn(List.of(lateGbpRate, latestGbpRate)).when(repository)
+                .findByRecordedAtGreaterThanEqualOrderByIdAsc(overlapStart);
+        history.refresh();
+        var newGbpRate = buildEntry(6, Currency.GBP, NOW, NOW, "1.21");
+        doReturn(List.of(lateGbpRate, latestGbpRate, newGbpRate)).when(repository)
+                .findByRecordedAtGreaterThanEqualOrderByIdAsc(overlapStart);
+
+        history.refresh();
+
+        assertEquals(Optional.of(new BigDecimal("1.22")), history.findRateToUsd(Currency.GBP, NOW.minusSeconds(20)));
+        assertEquals(Optional.of(new BigDecimal("1.21")), history.findRateToUsd(Currency.GBP, NOW));
+    }
+
+    @Test
+    void WHEN_append_THEN_saveTheEntryAndLoadIt() {
+        doReturn(NOW).when(clock).instant();
+        doReturn(List.of(OLD_GBP_RATE)).when(repository)
+                .findByRecordedAtGreaterThanEqualOrderByIdAsc(FIRST_LOAD_START);
+
+        history.append(Currency.GBP, new BigDecimal("1.25"), YESTERDAY);
+
+        verify(repository).save(ExchangeRateHistoryEntity.builder()
+                .currency(Currency.GBP)
+                .effectiveAt(YESTERDAY)
+                .rateToUsd(new BigDecimal("1.25"))
+                .recordedAt(NOW)
+                .build());
+        assertEquals(Optional.of(new BigDecimal("1.25")), history.findRateToUsd(Currency.GBP, NOW));
+    }
+
+    @Test
+    void WHEN_appendWithoutLoading_THEN_saveTheEntryEffectiveNowWithoutLoadingIt() {
+        doReturn(NOW).when(clock).instant();
+
+        history.appendWithoutLoading(Currency.GBP, new BigDecimal("1.23"));
+
+        verify(repository).save(ExchangeRateHistoryEntity.builder()
+                .currency(Currency.GBP)
+                .effectiveAt(NOW)
+                .rateToUsd(new BigDecimal("1.23"))
+                .recordedAt(NOW)
+                .build());
+        verify(repository, never()).findByRecordedAtGreaterThanEqualOrderByIdAsc(any());
+    }
+
+    private static ExchangeRateHistoryEntity buildEntry(long id, Currency currency, Instant effectiveAt,
+                                                        String rateToUsd) {
+        return buildEntry(id, currency, effectiveAt, effectiveAt, rateToUsd);
+    }
+
+    private static ExchangeRateHistoryEntity buildEntry(long id, Currency currency, Instant effectiveAt,
+                                                        Instant recordedAt, String rateToUsd) {
+        return ExchangeRateHistoryEntity.builder()
+                .id(id)
+                .currency(currency)
+                .effectiveAt(effectiveAt)
+                .rateToUsd(new BigDecimal(rateToUsd))
+                .recordedAt(recordedAt)
+                .build();
+    }
+}
@@ -0,0 +1,189 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateMatrixCacheTest {
+
+    private static final ExchangeRateEntity GBP_RATE = buildRate(Currency.GBP, 1, "1.23");
+    private static final ExchangeRateEntity USD_RATE = buildRate(Currency.USD, 1, "1");
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofSeconds(1);
+    private static final Instant NOW = Instant.parse("2022-08-01T10:00:00Z");
+
+    @Mock
+    private ExchangeRateRepository repository;
+    @Mock
+    private CurrencyConversionProperty currencyConversionProperty;
+    @Mock
+    private Clock clock;
+
+    private ExchangeRateMatrixCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        doReturn(REFRESH_INTERVAL).when(currencyConversionProperty).getSqlRefreshInterval();
+        lenient().doReturn(NOW).when(clock).instant();
+
+        this.cache = new ExchangeRateMatrixCache(repository, new AmountConversionCalculator(),
+                currencyConversionProperty, clock);
+    }
+
+    @Test
+    void WHEN_getMatrix_THEN_buildItOnceOnFirstUse() {
+        doReturn(List.of(GBP_RATE, USD_RATE)).when(repository).findAll();
+
+        var firstMatrix = cache.getMatrix();
+        var secondMatrix = cache.getMatrix();
+
+        assertSame(firstMatrix, secondMatrix);
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void GIVEN_matrixNotBuiltYet_WHEN_refreshIfChanged_THEN_buildItWithoutWaitingForTheFirstUse() {
+        doReturn(List.of(GBP_RATE, USD_RATE)).when(repository).findAll();
+
+        cache.refreshIfChanged();
+        cache.getMatrix();
+
+        verify(repository, never()).findAllVersions();
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void GIVEN_sameVersions_WHEN_refreshIfChanged_THEN_keepTheMatrix() {
+        doReturn(List.of(GBP_RATE, USD_RATE)).when(repository).findAll();
+        var matrix = cache.getMatrix();
+        doReturn(List.of(buildVersion(GBP_RATE), buildVersion(USD_RATE))).when(repository).findAllVersions();
+
+        cache.refreshIfChanged();
+
+        assertSame(matrix, cache.getMatrix());
+        verify(repository, times(1)).findAll();
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_changedVersion_WHEN_refreshIfChanged_THEN_replaceTheMatrix() {
+        var updatedGbpRate = buildRate(Currency.GBP, 2, "2");
+        doReturn(List.of(GBP_RATE, USD_RATE), List.of(updatedGbpRate, USD_RATE)).when(repository).findAll();
+        var matrix = cache.getMatrix();
+        doReturn(List.of(buildVersion(updatedGbpRate), buildVersion(USD_RATE))).when(repository).findAllVersions();
+
+        cache.refreshIfChanged();
+
+        var refreshedMatrix = cache.getMatrix();
+        assertNotSame(matrix, refreshedMatrix);
+        assertEquals(new BigDecimal("2"), refreshedMatrix.getRate(Currency.GBP, Currency.USD));
+    }
+
+    @Test
+    void GIVEN_addedExchangeRate_WHEN_refreshIfChanged_THEN_replaceTheMatrix() {
+        doReturn(List.of(GBP_RATE), List.of(GBP_RATE, USD_RATE)).when(repository).findAll();
+        var matrix = cache.getMatrix();
+        doReturn(List.of(buildVersion(GBP_RATE), buildVersion(USD_RATE))).when(repository).findAllVersions();
+
+        cache.refreshIfChanged();
+
+        assertNotSame(matrix, cache.getMatrix());
+    }
+
+    @Test
+    void GIVEN_matrixNotBuiltYet_WHEN_getFreshness_THEN_returnEmpty() {
+        assertTrue(cache.getFreshness().isEmpty());
+    }
+
+    @Test
+    void GIVEN_sameVersions_WHEN_refreshIfChanged_THEN_confirmTheFreshnessOfTheRates() {
+        doReturn(List.of(GBP_RATE, USD_RATE)).when(repository).findAll();
+        cache.getMatrix();
+        doReturn(List.of(buildVersion(GBP_RATE), buildVersion(USD_RATE))).when(repository).findAllVersions();
+        var checkedAt = NOW.plus(REFRESH_INTERVAL);
+        doReturn(checkedAt, checkedAt.plus(REFRESH_INTERVAL)).when(clock).instant();
+
+        cache.refreshIfChanged();
+        var freshness = findFreshness(Currency.GBP, Currency.USD);
+
+        assertEquals(checkedAt, freshness.refreshedAt());
+        assertEquals(REFRESH_INTERVAL, freshness.age());
+        assertFalse(freshness.stale());
+    }
+
+    @Test
+    void GIVEN_checksMissed_WHEN_getFreshness_THEN_ratesAreStale() {
+        doReturn(List.of(GBP_RATE, USD_RATE)).when(repository).findAll();
+        cache.getMatrix();
+        doReturn(NOW.plus(REFRESH_INTERVAL.multipliedBy(3))).when(clock).instant();
+
+        assertTrue(findFreshness(Currency.GBP, Currency.USD).stale());
+    }
+
+    @Test
+    void GIVEN_missingExchangeRate_WHEN_getFreshness_THEN_pairIsStaleWithoutAge() {
+        doReturn(List.of(GBP_RATE, USD_RATE)).when(repository).findAll();
+        cache.getMatrix();
+
+        var freshness = findFreshness(Currency.JPY, Currency.USD);
+
+        assertNull(freshness.refreshedAt());
+        assertNull(freshness.age());
+        assertTrue(freshness.stale());
+    }
+
+    private ExchangeRateFreshness findFreshness(Currency fromCurrency, Currency toCurrency) {
+        return cache.getFreshness()
+                .stream()
+                .filter(freshness -> freshness.fromCurrency() == fromCurrency && freshness.toCurrency() == toCurrency)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static ExchangeRateEntity buildRate(Currency currency, int version, String rateToUsd) {
+        return ExchangeRateEntity.builder()
+                .currency(currency)
+                .version(version)
+                .rateToUsd(new BigDecimal(rateToUsd))
+                .build();
+    }
+
+    private static ExchangeRateVersion buildVersion(ExchangeRateEntity exchangeRate) {
+        return new ExchangeRateVersion() {
+            @Override
+            public Currency getCurrency() {
+                return exchangeRate.getCurrency();
+            }
+
+            @Override
+            public Integer getVersion() {
+                return exchangeRate.getVersion();
+            }
+        };
+    }
+}
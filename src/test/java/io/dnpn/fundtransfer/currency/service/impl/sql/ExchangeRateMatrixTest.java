@@ -0,0 +1,79 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExchangeRateMatrixTest {
+
+    private static final ExchangeRateEntity GBP_RATE = ExchangeRateEntity.builder()
+            .currency(Currency.GBP)
+            .version(3)
+            .rateToUsd(new BigDecimal("1.23"))
+            .build();
+    private static final ExchangeRateEntity JPY_RATE = ExchangeRateEntity.builder()
+            .currency(Currency.JPY)
+            .version(5)
+            .rateToUsd(new BigDecimal("0.0076"))
+            .build();
+    private static final ExchangeRateEntity INVALID_USD_RATE = ExchangeRateEntity.builder()
+            .currency(Currency.USD)
+            .version(1)
+            .rateToUsd(BigDecimal.ZERO)
+            .build();
+
+    private static final AmountConversionCalculator calculator = new AmountConversionCalculator();
+
+    @Test
+    void GIVEN_nullExchangeRates_WHEN_build_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> ExchangeRateMatrix.build(null, calculator));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_getRate_THEN_returnPrecomputedCrossRate() {
+        var matrix = ExchangeRateMatrix.build(List.of(GBP_RATE, JPY_RATE), calculator);
+
+        assertEquals(new BigDecimal("161.8421053"), matrix.getRate(Currency.GBP, Currency.JPY));
+        assertEquals(calculator.getExchangeRate(JPY_RATE, GBP_RATE), matrix.getRate(Currency.JPY, Currency.GBP));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_sameCurrency_WHEN_getRate_THEN_returnOne() {
+        var matrix = ExchangeRateMatrix.build(List.of(), calculator);
+
+        assertEquals(BigDecimal.ONE, matrix.getRate(Currency.JPY, Currency.JPY));
+    }
+
+    @Test
+    void GIVEN_unknownCurrency_WHEN_getRate_THEN_throwsCurrencyConversion() {
+        var matrix = ExchangeRateMatrix.build(List.of(GBP_RATE), calculator);
+
+        var exception = assertThrows(CurrencyConversionException.class,
+                () -> matrix.getRate(Currency.GBP, Currency.USD));
+        assertEquals("No exchange rate to USD registered for the currency USD", exception.getMessage());
+    }
+
+    @Test
+    void GIVEN_invalidRateToUsd_WHEN_getRate_THEN_throwsCurrencyConversion() {
+        var matrix = ExchangeRateMatrix.build(List.of(GBP_RATE, INVALID_USD_RATE), calculator);
+
+        assertThrows(CurrencyConversionException.class, () -> matrix.getRate(Currency.USD, Currency.GBP));
+    }
+
+    @Test
+    void WHEN_getVersions_THEN_returnTheVersionOfEachExchangeRate() {
+        var matrix = ExchangeRateMatrix.build(List.of(GBP_RATE, JPY_RATE), calculator);
+
+        assertEquals(Map.of(Currency.GBP, 3, Currency.JPY, 5), matrix.getVersions());
+    }
+}
@@ -0,0 +1,95 @@
+package io.dnpn.fundtransfer.currency.service.impl.sql;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExchangeRateTimelineTest {
+
+    private static final Instant FIRST_EFFECTIVE_AT = Instant.parse("2022-08-01T10:00:00Z");
+    private static final Instant SECOND_EFFECTIVE_AT = Instant.parse("2022-08-02T10:00:00Z");
+    private static final BigDecimal FIRST_RATE = new BigDecimal("1.21");
+    private static final BigDecimal SECOND_RATE = new BigDecimal("1.23");
+
+    @Test
+    void GIVEN_emptyTimeline_WHEN_findRateToUsd_THEN_returnEmpty() {
+        assertEquals(Optional.empty(), ExchangeRateTimeline.EMPTY.findRateToUsd(FIRST_EFFECTIVE_AT));
+    }
+
+    @Test
+    void GIVEN_timeBeforeTheFirstRate_WHEN_findRateToUsd_THEN_returnEmpty() {
+        var timeline = buildTimeline();
+
+        assertEquals(Optional.empty(), timeline.findRateToUsd(FIRST_EFFECTIVE_AT.minusNanos(1_000)));
+    }
+
+    @Test
+    void GIVEN_exactEffectiveTime_WHEN_findRateToUsd_THEN_returnTheRateEffectiveFromThen() {
+        var timeline = buildTimeline();
+
+        assertEquals(Optional.of(FIRST_RATE), timeline.findRateToUsd(FIRST_EFFECTIVE_AT));
+        assertEquals(Optional.of(SECOND_RATE), timeline.findRateToUsd(SECOND_EFFECTIVE_AT));
+    }
+
+    @Test
+    void GIVEN_timeBetweenTwoRates_WHEN_findRateToUsd_THEN_returnTheEarlierRate() {
+        var timeline = buildTimeline();
+
+        assertEquals(Optional.of(FIRST_RATE), timeline.findRateToUsd(SECOND_EFFECTIVE_AT.minusNanos(1_000)));
+        assertEquals(Optional.of(SECOND_RATE), timeline.findRateToUsd(SECOND_EFFECTIVE_AT.plusSeconds(3600)));
+    }
+
+    @Test
+    void GIVEN_entriesAppendedOutOfOrder_WHEN_withEntries_THEN_sortThemByEffectiveTime() {
+        var timeline = ExchangeRateTimeline.EMPTY
+                .withEntries(List.of(buildEntry(SECOND_EFFECTIVE_AT, SECOND_RATE)))
+                .withEntries(List.of(buildEntry(FIRST_EFFECTIVE_AT, FIRST_RATE)));
+
+        assertEquals(Optional.of(FIRST_RATE), timeline.findRateToUsd(FIRST_EFFECTIVE_AT.plusSeconds(1)));
+        assertEquals(Optional.of(SECOND_RATE), timeline.findRateToUsd(SECOND_EFFECTIVE_AT.plusSeconds(1)));
+    }
+
+    @Test
+    void GIVEN_sameEffectiveTime_WHEN_withEntries_THEN_theLastAppendedEntryWins() {
+        var correctedRate = new BigDecimal("1.22");
+        var timeline = buildTimeline()
+                .withEntries(List.of(buildEntry(FIRST_EFFECTIVE_AT, correctedRate)));
+
+        assertEquals(Optional.of(correctedRate), timeline.findRateToUsd(FIRST_EFFECTIVE_AT));
+        assertEquals(Optional.of(SECOND_RATE), timeline.findRateToUsd(SECOND_EFFECTIVE_AT));
+    }
+
+    @Test
+    void GIVEN_sameEffectiveTime_WHEN_withEntriesOutOfIdentifierOrder_THEN_theEntryWithTheHighestIdentifierWins() {
+        var timeline = ExchangeRateTimeline.EMPTY
+                .withEntries(List.of(buildEntry(2L, FIRST_EFFECTIVE_AT, SECOND_RATE)))
+                .withEntries(List.of(buildEntry(1L, FIRST_EFFECTIVE_AT, FIRST_RATE)));
+
+        assertEquals(Optional.of(SECOND_RATE), timeline.findRateToUsd(FIRST_EFFECTIVE_AT));
+    }
+
+    private static ExchangeRateTimeline buildTimeline() {
+        return ExchangeRateTimeline.EMPTY.withEntries(List.of(
+                buildEntry(FIRST_EFFECTIVE_AT, FIRST_RATE),
+                buildEntry(SECOND_EFFECTIVE_AT, SECOND_RATE)));
+    }
+
+    private static ExchangeRateHistoryEntity buildEntry(Instant effectiveAt, BigDecimal rateToUsd) {
+        return buildEntry(null, effectiveAt, rateToUsd);
+    }
+
+    private static ExchangeRateHistoryEntity buildEntry(Long id, Instant effectiveAt, BigDecimal rateToUsd) {
+        return ExchangeRateHistoryEntity.builder()
+                .id(id)
+                .currency(Currency.GBP)
+                .effectiveAt(effectiveAt)
+                .rateToUsd(rateToUsd)
+                .build();
+    }
+}
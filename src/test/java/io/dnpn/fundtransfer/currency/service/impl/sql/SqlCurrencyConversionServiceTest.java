@@ -3,20 +3,34 @@ package io.dnpn.fundtransfer.currency.service.impl.sql;
 import io.dnpn.fundtransfer.currency.Currency;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionRequest;
+import io.dnpn.fundtransfer.currency.service.ExchangeRateFreshness;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
@@ -31,19 +45,32 @@ class SqlCurrencyConversionServiceTest {
             .amount(AMOUNT)
             .build();
     private static final ExchangeRateEntity SOURCE_RATE = ExchangeRateEntity.builder()
-            .rateToUsd(new BigDecimal("111"))
+            .rateToUsd(new BigDecimal("1.23"))
             .currency(SOURCE_CURRENCY)
             .build();
     private static final ExchangeRateEntity TARGET_RATE = ExchangeRateEntity.builder()
-            .rateToUsd(new BigDecimal("222"))
+            .rateToUsd(new BigDecimal("0.0076"))
             .currency(TARGET_CURRENCY)
             .build();
-    private static final BigDecimal CONVERTED_AMOUNT = new BigDecimal("456.78");
+    // calculated with the rates defined above: SOURCE_RATE divided by TARGET_RATE
+    private static final BigDecimal EXCHANGE_RATE = new BigDecimal("161.8421053");
+    private static final BigDecimal CONVERTED_AMOUNT = AMOUNT.multiply(EXCHANGE_RATE);
+    private static final ExchangeRateEntity USD_RATE = ExchangeRateEntity.builder()
+            .rateToUsd(BigDecimal.ONE)
+            .currency(Currency.USD)
+            .build();
+    private static final AmountConversionCalculator calculator = new AmountConversionCalculator();
 
     @Mock
-    private ExchangeRateRepository accessor;
+    private ExchangeRateMatrixCache matrixCache;
+    @Mock
+    private ExchangeRateRepository repository;
+    @Mock
+    private ExchangeRateHistory history;
     @Mock
-    private AmountConversionCalculator calculator;
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private TransactionStatus transactionStatus;
     @InjectMocks
     private SqlCurrencyConversionService service;
 
@@ -64,46 +91,202 @@ class SqlCurrencyConversionServiceTest {
 
     @SneakyThrows
     @Test
-    void GIVEN_sameCurrency_WHEN_convert_THEN_doNotCallTheAccessor() {
+    void GIVEN_sameCurrency_WHEN_convert_THEN_doNotCallTheCache() {
         var request = buildRequestWithSameCurrency(AMOUNT);
 
         service.convert(request);
 
-        verify(accessor, never()).findById(any());
-
+        verify(matrixCache, never()).getMatrix();
     }
 
     @Test
-    void GIVEN_sourceExchangeRateNotFound_WHEN_convert_THEN_throwsCurrencyConversion() {
-        doReturn(Optional.empty()).when(accessor).findById(SOURCE_CURRENCY);
+    void GIVEN_targetExchangeRateNotFound_WHEN_convert_THEN_throwsCurrencyConversion() {
+        mockMatrix(SOURCE_RATE);
 
         assertThrows(CurrencyConversionException.class, () -> service.convert(REQUEST));
     }
 
+    @SneakyThrows
     @Test
-    void GIVEN_targetExchangeRateNotFound_WHEN_convert_THEN_throwsCurrencyConversion() {
-        mockCurrencyRate(SOURCE_CURRENCY, SOURCE_RATE);
-        doReturn(Optional.empty()).when(accessor).findById(TARGET_CURRENCY);
+    void WHEN_convert_THEN_returnAmountMultipliedByTheCachedRate() {
+        mockMatrix(SOURCE_RATE, TARGET_RATE);
 
-        assertThrows(CurrencyConversionException.class, () -> service.convert(REQUEST));
+        BigDecimal actualConvertedAmount = service.convert(REQUEST);
+
+        assertEquals(CONVERTED_AMOUNT, actualConvertedAmount);
     }
 
     @SneakyThrows
     @Test
-    void WHEN_convert_THEN_returnConvertedAmount() {
-        mockCurrencyRate(SOURCE_CURRENCY, SOURCE_RATE);
-        mockCurrencyRate(TARGET_CURRENCY, TARGET_RATE);
+    void GIVEN_sameCurrency_WHEN_getExchangeRate_THEN_returnOneWithoutCallingTheCache() {
+        var rate = service.getExchangeRate(SOURCE_CURRENCY, SOURCE_CURRENCY);
+
+        assertEquals(BigDecimal.ONE, rate);
+        verify(matrixCache, never()).getMatrix();
+    }
+
+    @Test
+    void GIVEN_targetExchangeRateNotFound_WHEN_getExchangeRate_THEN_throwsCurrencyConversion() {
+        mockMatrix(SOURCE_RATE);
+
+        assertThrows(CurrencyConversionException.class,
+                () -> service.getExchangeRate(SOURCE_CURRENCY, TARGET_CURRENCY));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_getExchangeRate_THEN_returnCachedRate() {
+        mockMatrix(SOURCE_RATE, TARGET_RATE);
+
+        var actualRate = service.getExchangeRate(SOURCE_CURRENCY, TARGET_CURRENCY);
+
+        assertEquals(EXCHANGE_RATE, actualRate);
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_convertAsync_THEN_returnCompletedFutureWithConvertedAmount() {
+        mockMatrix(SOURCE_RATE, TARGET_RATE);
+
+        var future = service.convertAsync(REQUEST);
+
+        assertTrue(future.isDone());
+        assertEquals(CONVERTED_AMOUNT, future.get());
+    }
+
+    @Test
+    void GIVEN_targetExchangeRateNotFound_WHEN_getExchangeRateAsync_THEN_returnFailedFuture() {
+        mockMatrix(SOURCE_RATE);
+
+        var future = service.getExchangeRateAsync(SOURCE_CURRENCY, TARGET_CURRENCY);
+
+        var exception = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(CurrencyConversionException.class, exception.getCause());
+    }
+
+    @Test
+    void WHEN_getExchangeRateFreshness_THEN_returnTheFreshnessOfTheMatrix() {
+        var freshness = List.of(ExchangeRateFreshness.builder()
+                .fromCurrency(SOURCE_CURRENCY)
+                .toCurrency(TARGET_CURRENCY)
+                .stale(false)
+                .build());
+        doReturn(freshness).when(matrixCache).getFreshness();
+
+        assertEquals(freshness, service.getExchangeRateFreshness());
+    }
+
+    @Test
+    void GIVEN_missingExchangeRate_WHEN_hasExchangeRateToUsd_THEN_returnFalse() {
+        mockMatrix(SOURCE_RATE, USD_RATE);
+
+        assertTrue(service.hasExchangeRateToUsd(SOURCE_CURRENCY));
+        assertFalse(service.hasExchangeRateToUsd(TARGET_CURRENCY));
+    }
 
-        AmountConversionCalculatorRequest calculatorRequest = AmountConversionCalculatorRequest.builder()
-                .sourceExchangeRate(SOURCE_RATE)
-                .targetExchangeRate(TARGET_RATE)
-                .amount(AMOUNT)
+    @Test
+    void GIVEN_existingExchangeRate_WHEN_saveExchangeRateToUsd_THEN_updateItAndRefreshTheMatrix() {
+        var existingRate = ExchangeRateEntity.builder()
+                .currency(SOURCE_CURRENCY)
+                .version(3)
+                .rateToUsd(BigDecimal.ONE)
                 .build();
-        doReturn(CONVERTED_AMOUNT).when(calculator).convert(calculatorRequest);
+        doReturn(Optional.of(existingRate)).when(repository).findById(SOURCE_CURRENCY);
+        mockTransaction();
 
-        BigDecimal actualConvertedAmount = service.convert(REQUEST);
+        service.saveExchangeRateToUsd(SOURCE_CURRENCY, SOURCE_RATE.getRateToUsd());
 
-        assertEquals(CONVERTED_AMOUNT, actualConvertedAmount);
+        var savedRate = ExchangeRateEntity.builder()
+                .currency(SOURCE_CURRENCY)
+                .version(3)
+                .rateToUsd(SOURCE_RATE.getRateToUsd())
+                .build();
+        verify(repository).saveAndFlush(savedRate);
+        verify(history).appendWithoutLoading(SOURCE_CURRENCY, SOURCE_RATE.getRateToUsd());
+        verify(history).refresh();
+        verify(matrixCache).refresh();
+    }
+
+    @Test
+    void GIVEN_concurrentSave_WHEN_saveExchangeRateToUsd_THEN_rollBackAndRefreshTheMatrixAnyway() {
+        doReturn(Optional.empty()).when(repository).findById(TARGET_CURRENCY);
+        doThrow(OptimisticLockingFailureException.class).when(repository).saveAndFlush(any());
+        mockTransaction();
+
+        service.saveExchangeRateToUsd(TARGET_CURRENCY, TARGET_RATE.getRateToUsd());
+
+        verify(transactionStatus).setRollbackOnly();
+        verify(history, never()).appendWithoutLoading(any(), any());
+        verify(history, never()).refresh();
+        verify(matrixCache).refresh();
+    }
+
+    @Test
+    void GIVEN_concurrentInsert_WHEN_saveExchangeRateToUsd_THEN_rollBackAndRefreshTheMatrixAnyway() {
+        doReturn(Optional.empty()).when(repository).findById(TARGET_CURRENCY);
+        doThrow(DataIntegrityViolationException.class).when(repository).saveAndFlush(any());
+        mockTransaction();
+
+        service.saveExchangeRateToUsd(TARGET_CURRENCY, TARGET_RATE.getRateToUsd());
+
+        verify(transactionStatus).setRollbackOnly();
+        verify(history, never()).appendWithoutLoading(any(), any());
+        verify(matrixCache).refresh();
+    }
+
+    @Test
+    void GIVEN_historyNotWritten_WHEN_saveExchangeRateToUsd_THEN_throwTheFailureOfTheTransaction() {
+        doReturn(Optional.empty()).when(repository).findById(TARGET_CURRENCY);
+        doThrow(DataIntegrityViolationException.class).when(history).appendWithoutLoading(any(), any());
+        mockTransaction();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> service.saveExchangeRateToUsd(TARGET_CURRENCY, TARGET_RATE.getRateToUsd()));
+
+        verify(history, never()).refresh();
+        verify(matrixCache, never()).refresh();
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_convertAsOf_THEN_returnAmountMultipliedByTheRateOfTheHistory() {
+        var asOf = Instant.parse("2022-08-01T10:00:00Z");
+        doReturn(EXCHANGE_RATE).when(history).getRate(SOURCE_CURRENCY, TARGET_CURRENCY, asOf);
+
+        var convertedAmount = service.convert(REQUEST, asOf);
+
+        assertEquals(CONVERTED_AMOUNT, convertedAmount);
+        verify(matrixCache, never()).getMatrix();
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_sameCurrency_WHEN_convertAsOf_THEN_returnSameAmount() {
+        var convertedAmount = service.convert(buildRequestWithSameCurrency(AMOUNT), Instant.now());
+
+        assertEquals(AMOUNT, convertedAmount);
+        verify(history, never()).getRate(any(), any(), any());
+    }
+
+    @Test
+    void WHEN_saveHistoricalExchangeRateToUsd_THEN_appendItWithoutChangingTheCurrentRate() {
+        var effectiveAt = Instant.parse("2022-08-01T10:00:00Z");
+
+        service.saveHistoricalExchangeRateToUsd(SOURCE_CURRENCY, SOURCE_RATE.getRateToUsd(), effectiveAt);
+
+        verify(history).append(SOURCE_CURRENCY, SOURCE_RATE.getRateToUsd(), effectiveAt);
+        verify(repository, never()).save(any());
+        verify(matrixCache, never()).refresh();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockTransaction() {
+        doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(transactionStatus))
+                .when(transactionTemplate).execute(any());
+    }
+
+    private void mockMatrix(ExchangeRateEntity... exchangeRates) {
+        doReturn(ExchangeRateMatrix.build(List.of(exchangeRates), calculator)).when(matrixCache).getMatrix();
     }
 
     private CurrencyConversionRequest buildRequestWithSameCurrency(BigDecimal amount) {
@@ -114,8 +297,4 @@ class SqlCurrencyConversionServiceTest {
                 .fromCurrency(currency)
                 .build();
     }
-
-    private void mockCurrencyRate(Currency currency, ExchangeRateEntity jpaEntity) {
-        doReturn(Optional.of(jpaEntity)).when(accessor).findById(currency);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package io.dnpn.fundtransfer.currency.service.impl.tiered;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryExchangeRatesTest {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+    private static final Instant NOW = Instant.parse("2022-08-01T10:00:00Z");
+    private static final BigDecimal RATE = new BigDecimal("1.23");
+
+    @Mock
+    private Clock clock;
+
+    private InMemoryExchangeRates rates;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(NOW).when(clock).instant();
+        this.rates = new InMemoryExchangeRates(TTL, clock);
+    }
+
+    @Test
+    void GIVEN_noStoredRate_WHEN_find_THEN_returnEmpty() {
+        assertEquals(Optional.empty(), rates.find(Currency.GBP, Currency.USD));
+    }
+
+    @Test
+    void GIVEN_freshRate_WHEN_find_THEN_returnIt() {
+        rates.put(Currency.GBP, Currency.USD, RATE);
+        doReturn(NOW.plus(TTL).minusMillis(1)).when(clock).instant();
+
+        assertEquals(Optional.of(RATE), rates.find(Currency.GBP, Currency.USD));
+        assertEquals(Optional.empty(), rates.find(Currency.USD, Currency.GBP));
+    }
+
+    @Test
+    void GIVEN_expiredRate_WHEN_find_THEN_returnEmpty() {
+        rates.put(Currency.GBP, Currency.USD, RATE);
+        doReturn(NOW.plus(TTL)).when(clock).instant();
+
+        assertEquals(Optional.empty(), rates.find(Currency.GBP, Currency.USD));
+        assertTrue(rates.getFreshness().stream().allMatch(freshness -> freshness.stale()));
+    }
+}
@@ -0,0 +1,289 @@
+package io.dnpn.fundtransfer.currency.service.impl.tiered;
+
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionRequest;
+import io.dnpn.fundtransfer.currency.service.impl.CurrencyConversionProperty;
+import io.dnpn.fundtransfer.currency.service.impl.api.ApiCurrencyConversionService;
+import io.dnpn.fundtransfer.currency.service.impl.sql.SqlCurrencyConversionService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TieredCurrencyConversionServiceTest {
+
+    private static final Duration MEMORY_TTL = Duration.ofMinutes(1);
+    private static final Instant NOW = Instant.parse("2022-08-01T10:00:00Z");
+    private static final BigDecimal GBP_TO_USD_RATE = new BigDecimal("1.23");
+    private static final BigDecimal JPY_TO_USD_RATE = new BigDecimal("0.0076");
+    private static final BigDecimal GBP_TO_JPY_RATE = new BigDecimal("161.8421053");
+
+    @Mock
+    private SqlCurrencyConversionService sqlService;
+    @Mock
+    private ApiCurrencyConversionService apiService;
+    @Mock
+    private CurrencyConversionProperty currencyConversionProperty;
+    @Mock
+    private Clock clock;
+
+    private TieredCurrencyConversionService service;
+
+    @BeforeEach
+    void beforeEach() {
+        doReturn(MEMORY_TTL).when(currencyConversionProperty).getTieredMemoryTtl();
+        lenient().doReturn(NOW).when(clock).instant();
+
+        this.service = new TieredCurrencyConversionService(sqlService, apiService, currencyConversionProperty, clock);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_sameCurrency_WHEN_getExchangeRate_THEN_returnOneWithoutLookingUpTheTiers() {
+        assertEquals(BigDecimal.ONE, service.getExchangeRate(Currency.GBP, Currency.GBP));
+
+        verifyNoInteractions(sqlService, apiService);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_rateInDatabase_WHEN_getExchangeRate_THEN_answerFromTheDatabaseThenFromMemory() {
+        doReturn(GBP_TO_USD_RATE).when(sqlService).getExchangeRate(Currency.GBP, Currency.USD);
+
+        var firstRate = service.getExchangeRate(Currency.GBP, Currency.USD);
+        var secondRate = service.getExchangeRate(Currency.GBP, Currency.USD);
+
+        assertEquals(GBP_TO_USD_RATE, firstRate);
+        assertEquals(GBP_TO_USD_RATE, secondRate);
+        verify(sqlService, times(1)).getExchangeRate(Currency.GBP, Currency.USD);
+        verifyNoInteractions(apiService);
+        assertStatistics(ConversionTier.MEMORY, 1, 1);
+        assertStatistics(ConversionTier.SQL, 1, 0);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_expiredRateInMemory_WHEN_getExchangeRate_THEN_lookUpTheDatabaseAgain() {
+        doReturn(GBP_TO_USD_RATE).when(sqlService).getExchangeRate(Currency.GBP, Currency.USD);
+        service.getExchangeRate(Currency.GBP, Currency.USD);
+        doReturn(NOW.plus(MEMORY_TTL)).when(clock).instant();
+
+        service.getExchangeRate(Currency.GBP, Currency.USD);
+
+        verify(sqlService, times(2)).getExchangeRate(Currency.GBP, Currency.USD);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_currencyMissingFromDatabase_WHEN_getExchangeRate_THEN_writeBackItsRateToUsdFromTheApi() {
+        doThrow(new CurrencyConversionException("No rate for JPY."))
+                .doReturn(GBP_TO_JPY_RATE)
+                .when(sqlService)
+                .getExchangeRate(Currency.GBP, Currency.JPY);
+        doReturn(true).when(sqlService).hasExchangeRateToUsd(Currency.GBP);
+        doReturn(false).when(sqlService).hasExchangeRateToUsd(Currency.JPY);
+        doReturn(CompletableFuture.completedFuture(JPY_TO_USD_RATE))
+                .when(apiService)
+                .getExchangeRateAsync(Currency.JPY, Currency.USD);
+
+        var rate = service.getExchangeRate(Currency.GBP, Currency.JPY);
+        var memoryRate = service.getExchangeRate(Currency.GBP, Currency.JPY);
+
+        assertEquals(GBP_TO_JPY_RATE, rate);
+        assertEquals(GBP_TO_JPY_RATE, memoryRate);
+        verify(sqlService).saveExchangeRateToUsd(Currency.JPY, JPY_TO_USD_RATE);
+        verify(apiService, never()).getExchangeRateAsync(Currency.GBP, Currency.USD);
+        assertStatistics(ConversionTier.SQL, 0, 1);
+        assertStatistics(ConversionTier.API, 1, 0);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_concurrentLookupsMissingTheSameCurrency_WHEN_getExchangeRateAsync_THEN_writeBackItsRateOnce() {
+        doThrow(new CurrencyConversionException("No rate for JPY."))
+                .doThrow(new CurrencyConversionException("No rate for JPY."))
+                .doReturn(GBP_TO_JPY_RATE)
+                .when(sqlService)
+                .getExchangeRate(Currency.GBP, Currency.JPY);
+        doReturn(true).when(sqlService).hasExchangeRateToUsd(Currency.GBP);
+        doReturn(false).when(sqlService).hasExchangeRateToUsd(Currency.JPY);
+        var apiRate = new CompletableFuture<BigDecimal>();
+        doReturn(apiRate).when(apiService).getExchangeRateAsync(Currency.JPY, Currency.USD);
+
+        var firstLookup = service.getExchangeRateAsync(Currency.GBP, Currency.JPY);
+        var secondLookup = service.getExchangeRateAsync(Currency.GBP, Currency.JPY);
+        apiRate.complete(JPY_TO_USD_RATE);
+
+        assertEquals(GBP_TO_JPY_RATE, firstLookup.get(5, TimeUnit.SECONDS));
+        assertEquals(GBP_TO_JPY_RATE, secondLookup.get(5, TimeUnit.SECONDS));
+        verify(apiService, times(1)).getExchangeRateAsync(Currency.JPY, Currency.USD);
+        verify(sqlService, times(1)).saveExchangeRateToUsd(Currency.JPY, JPY_TO_USD_RATE);
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_refreshPersistedRates_THEN_saveOnlyThePersistedRatesWhichChanged() {
+        var newJpyToUsdRate = new BigDecimal("0.0077");
+        doReturn(true).when(sqlService).hasExchangeRateToUsd(Currency.GBP);
+        doReturn(true).when(sqlService).hasExchangeRateToUsd(Currency.JPY);
+        doReturn(GBP_TO_USD_RATE).when(sqlService).getExchangeRate(Currency.GBP, Currency.USD);
+        doReturn(JPY_TO_USD_RATE).when(sqlService).getExchangeRate(Currency.JPY, Currency.USD);
+        doReturn(CompletableFuture.completedFuture(new BigDecimal("1.2300"))).when(apiService)
+                .getExchangeRateAsync(Currency.GBP, Currency.USD);
+        doReturn(CompletableFuture.completedFuture(newJpyToUsdRate)).when(apiService)
+                .getExchangeRateAsync(Currency.JPY, Currency.USD);
+
+        service.refreshPersistedRates();
+
+        verify(sqlService, timeout(1_000)).saveExchangeRateToUsd(Currency.JPY, newJpyToUsdRate);
+        verify(sqlService, never()).saveExchangeRateToUsd(eq(Currency.GBP), any());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_apiFailure_WHEN_refreshPersistedRates_THEN_refreshTheOtherRates() {
+        var newJpyToUsdRate = new BigDecimal("0.0077");
+        doReturn(true).when(sqlService).hasExchangeRateToUsd(any());
+        doReturn(JPY_TO_USD_RATE).when(sqlService).getExchangeRate(Currency.JPY, Currency.USD);
+        doReturn(CompletableFuture.failedFuture(new IllegalStateException("API down."))).when(apiService)
+                .getExchangeRateAsync(Currency.GBP, Currency.USD);
+        doReturn(CompletableFuture.completedFuture(newJpyToUsdRate)).when(apiService)
+                .getExchangeRateAsync(Currency.JPY, Currency.USD);
+
+        service.refreshPersistedRates();
+
+        verify(sqlService, timeout(1_000)).saveExchangeRateToUsd(Currency.JPY, newJpyToUsdRate);
+        verify(sqlService, never()).saveExchangeRateToUsd(eq(Currency.GBP), any());
+    }
+
+    @Test
+    void GIVEN_apiNotResponding_WHEN_refreshPersistedRates_THEN_returnAndSkipTheRefreshesUntilItResponds() {
+        var jpyToUsdRate = new CompletableFuture<BigDecimal>();
+        doReturn(false).when(sqlService).hasExchangeRateToUsd(Currency.GBP);
+        doReturn(true).when(sqlService).hasExchangeRateToUsd(Currency.JPY);
+        doReturn(jpyToUsdRate, CompletableFuture.completedFuture(JPY_TO_USD_RATE)).when(apiService)
+                .getExchangeRateAsync(Currency.JPY, Currency.USD);
+
+        service.refreshPersistedRates();
+        service.refreshPersistedRates();
+        jpyToUsdRate.completeExceptionally(new IllegalStateException("API down."));
+        service.refreshPersistedRates();
+
+        verify(apiService, times(2)).getExchangeRateAsync(Currency.JPY, Currency.USD);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_invalidRateInDatabase_WHEN_getExchangeRate_THEN_retrieveThePairFromTheApi() {
+        doThrow(new CurrencyConversionException("Invalid rate."))
+                .when(sqlService)
+                .getExchangeRate(Currency.GBP, Currency.JPY);
+        doReturn(true).when(sqlService).hasExchangeRateToUsd(any());
+        doReturn(CompletableFuture.completedFuture(GBP_TO_JPY_RATE))
+                .when(apiService)
+                .getExchangeRateAsync(Currency.GBP, Currency.JPY);
+
+        var rate = service.getExchangeRate(Currency.GBP, Currency.JPY);
+
+        assertEquals(GBP_TO_JPY_RATE, rate);
+        verify(sqlService, never()).saveExchangeRateToUsd(any(), any());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_apiFailure_WHEN_getExchangeRate_THEN_throwCurrencyConversion() {
+        doThrow(new CurrencyConversionException("No rate for JPY."))
+                .when(sqlService)
+                .getExchangeRate(Currency.USD, Currency.JPY);
+        doReturn(false).when(sqlService).hasExchangeRateToUsd(Currency.JPY);
+        doReturn(CompletableFuture.failedFuture(new CurrencyConversionException("API down.")))
+                .when(apiService)
+                .getExchangeRateAsync(Currency.JPY, Currency.USD);
+
+        var exception = assertThrows(CurrencyConversionException.class,
+                () -> service.getExchangeRate(Currency.USD, Currency.JPY));
+
+        assertEquals("API down.", exception.getMessage());
+        verify(sqlService, never()).saveExchangeRateToUsd(any(), any());
+        assertStatistics(ConversionTier.API, 0, 1);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_apiFailure_WHEN_getExchangeRateAsync_THEN_failWithCurrencyConversion() {
+        doThrow(new CurrencyConversionException("Invalid rate."))
+                .when(sqlService)
+                .getExchangeRate(Currency.GBP, Currency.USD);
+        doReturn(true).when(sqlService).hasExchangeRateToUsd(Currency.GBP);
+        doReturn(CompletableFuture.failedFuture(new IllegalStateException("Unexpected.")))
+                .when(apiService)
+                .getExchangeRateAsync(Currency.GBP, Currency.USD);
+
+        var future = service.getExchangeRateAsync(Currency.GBP, Currency.USD);
+
+        var exception = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(CurrencyConversionException.class, exception.getCause());
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_convertAsync_THEN_multiplyTheAmountByTheRate() {
+        doReturn(GBP_TO_USD_RATE).when(sqlService).getExchangeRate(Currency.GBP, Currency.USD);
+        var request = CurrencyConversionRequest.builder()
+                .fromCurrency(Currency.GBP)
+                .toCurrency(Currency.USD)
+                .amount(new BigDecimal("10"))
+                .build();
+
+        assertEquals(new BigDecimal("12.30"), service.convertAsync(request).get());
+        assertEquals(new BigDecimal("12.30"), service.convert(request));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_getExchangeRateFreshness_THEN_returnTheFreshnessOfTheMemoryTier() {
+        doReturn(GBP_TO_USD_RATE).when(sqlService).getExchangeRate(Currency.GBP, Currency.USD);
+        service.getExchangeRate(Currency.GBP, Currency.USD);
+
+        var freshness = service.getExchangeRateFreshness()
+                .stream()
+                .filter(pairFreshness -> pairFreshness.fromCurrency() == Currency.GBP
+                        && pairFreshness.toCurrency() == Currency.USD)
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(NOW, freshness.refreshedAt());
+    }
+
+    private void assertStatistics(ConversionTier tier, long expectedHits, long expectedMisses) {
+        var statistics = service.getStatistics().get(tier);
+        assertEquals(expectedHits, statistics.hits());
+        assertEquals(expectedMisses, statistics.misses());
+    }
+}
@@ -0,0 +1,143 @@
+package io.dnpn.fundtransfer.transfer.api;
+
+import io.dnpn.fundtransfer.common.ServiceUnavailableException;
+import io.dnpn.fundtransfer.transfer.service.AsyncTransferService;
+import io.dnpn.fundtransfer.transfer.service.IllegalTransferException;
+import io.dnpn.fundtransfer.transfer.service.SubmittedTransfer;
+import io.dnpn.fundtransfer.transfer.service.TransferQueueFullException;
+import io.dnpn.fundtransfer.transfer.service.TransferRequest;
+import io.dnpn.fundtransfer.transfer.service.TransferStatus;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferControllerTest {
+
+    private static final UUID TRANSFER_ID = UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e");
+    private static final TransferApiRequest API_REQUEST = TransferApiRequest.builder()
+            .fromAccount(123)
+            .toAccount(456)
+            .amount(new BigDecimal("123.45"))
+            .build();
+    private static final TransferRequest SERVICE_REQUEST = TransferRequest.builder()
+            .fromAccountId(123)
+            .toAccountId(456)
+            .amount(new BigDecimal("123.45"))
+            .build();
+    private static final Instant SUBMITTED_AT = Instant.parse("2022-04-14T09:50:23Z");
+    private static final ZoneId ZONE_ID = ZoneId.of("UTC+4");
+    private static final SubmittedTransfer PENDING_TRANSFER = SubmittedTransfer.builder()
+            .id(TRANSFER_ID)
+            .request(SERVICE_REQUEST)
+            .status(TransferStatus.PENDING)
+            .submittedAt(SUBMITTED_AT)
+            .build();
+
+    @Mock
+    private AsyncTransferService service;
+    private AsyncTransferController controller;
+
+    @BeforeEach
+    void beforeEach() {
+        this.controller = new AsyncTransferController(service, Clock.fixed(SUBMITTED_AT, ZONE_ID));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_submitTransfer_THEN_returnAcceptedWithTheTransferId() {
+        doReturn(PENDING_TRANSFER).when(service).submit(SERVICE_REQUEST, Optional.empty());
+
+        var response = controller.submitTransfer(API_REQUEST, null, null);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(URI.create("/transfer/" + TRANSFER_ID), response.getHeaders().getLocation());
+        assertEquals(AsyncTransferController.RESPOND_ASYNC_PREFERENCE,
+                response.getHeaders().getFirst(AsyncTransferController.PREFERENCE_APPLIED_HEADER));
+        assertEquals(TRANSFER_ID, response.getBody().transferId());
+        assertEquals(API_REQUEST, response.getBody().request());
+        assertEquals(TransferStatus.PENDING, response.getBody().status());
+        assertEquals(LocalDateTime.of(2022, Month.APRIL, 14, 13, 50, 23), response.getBody().submittedAt());
+        assertNull(response.getBody().completedAt());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_requestId_WHEN_submitTransfer_THEN_useItAsIdempotencyKey() {
+        doReturn(PENDING_TRANSFER).when(service).submit(SERVICE_REQUEST, Optional.of("request-id"));
+
+        var response = controller.submitTransfer(API_REQUEST, null, "request-id");
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_illegalTransfer_WHEN_submitTransfer_THEN_throwResponseStatusForBadRequest() {
+        doThrow(IllegalTransferException.class).when(service).submit(SERVICE_REQUEST, Optional.empty());
+
+        var exception = assertThrows(ResponseStatusException.class,
+                () -> controller.submitTransfer(API_REQUEST, null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_fullQueue_WHEN_submitTransfer_THEN_throwServiceUnavailableWithRetryAfter() {
+        doThrow(new TransferQueueFullException("Too many transfers.", Duration.ofMillis(1500)))
+                .when(service).submit(SERVICE_REQUEST, Optional.empty());
+
+        var exception = assertThrows(ServiceUnavailableException.class,
+                () -> controller.submitTransfer(API_REQUEST, null, null));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals("2", exception.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void WHEN_getTransfer_THEN_returnItsStatus() {
+        var completedTransfer = PENDING_TRANSFER.toBuilder()
+                .status(TransferStatus.DENIED)
+                .message("Not enough money.")
+                .completedAt(SUBMITTED_AT.plusSeconds(1))
+                .build();
+        doReturn(Optional.of(completedTransfer)).when(service).getStatus(TRANSFER_ID);
+
+        var response = controller.getTransfer(TRANSFER_ID);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(TransferStatus.DENIED, response.getBody().status());
+        assertEquals("Not enough money.", response.getBody().message());
+        assertEquals(LocalDateTime.of(2022, Month.APRIL, 14, 13, 50, 24), response.getBody().completedAt());
+    }
+
+    @Test
+    void GIVEN_unknownTransfer_WHEN_getTransfer_THEN_throwResponseStatusForNotFound() {
+        doReturn(Optional.empty()).when(service).getStatus(TRANSFER_ID);
+
+        var exception = assertThrows(ResponseStatusException.class, () -> controller.getTransfer(TRANSFER_ID));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+}
@@ -0,0 +1,99 @@
+package io.dnpn.fundtransfer.transfer.api;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PreferRequestConditionTest {
+
+    private final PreferRequestCondition condition =
+            new PreferRequestCondition(AsyncTransferController.RESPOND_ASYNC_PREFERENCE);
+
+    @Test
+    void GIVEN_onlyThePreference_WHEN_getMatchingCondition_THEN_match() {
+        assertSame(condition, condition.getMatchingCondition(request("respond-async")));
+    }
+
+    @Test
+    void GIVEN_thePreferenceBeforeAnother_WHEN_getMatchingCondition_THEN_match() {
+        assertSame(condition, condition.getMatchingCondition(request("respond-async, wait=10")));
+    }
+
+    @Test
+    void GIVEN_thePreferenceAfterAnother_WHEN_getMatchingCondition_THEN_match() {
+        assertSame(condition, condition.getMatchingCondition(request("wait=5,respond-async")));
+    }
+
+    @Test
+    void GIVEN_thePreferenceWithParameters_WHEN_getMatchingCondition_THEN_match() {
+        assertSame(condition, condition.getMatchingCondition(request("return=minimal, respond-async ; foo=\"a,b\"")));
+    }
+
+    @Test
+    void GIVEN_thePreferenceInAnotherCase_WHEN_getMatchingCondition_THEN_match() {
+        assertSame(condition, condition.getMatchingCondition(request("Respond-Async")));
+    }
+
+    @Test
+    void GIVEN_thePreferenceOnAnotherHeaderLine_WHEN_getMatchingCondition_THEN_match() {
+        assertSame(condition, condition.getMatchingCondition(request("wait=10", "handling=lenient, respond-async")));
+    }
+
+    @Test
+    void GIVEN_thePreferenceInAQuotedValue_WHEN_getMatchingCondition_THEN_noMatch() {
+        assertNull(condition.getMatchingCondition(request("foo=\"bar, respond-async\"")));
+    }
+
+    @Test
+    void GIVEN_thePreferenceAfterAnEscapedQuote_WHEN_getMatchingCondition_THEN_noMatch() {
+        assertNull(condition.getMatchingCondition(request("foo=\"bar\\\", respond-async\"")));
+    }
+
+    @Test
+    void GIVEN_aPreferenceStartingLikeThePreference_WHEN_getMatchingCondition_THEN_noMatch() {
+        assertNull(condition.getMatchingCondition(request("respond-async-later, wait=10")));
+    }
+
+    @Test
+    void GIVEN_thePreferenceAsAValue_WHEN_getMatchingCondition_THEN_noMatch() {
+        assertNull(condition.getMatchingCondition(request("handling=respond-async")));
+    }
+
+    @Test
+    void GIVEN_noHeader_WHEN_getMatchingCondition_THEN_noMatch() {
+        assertNull(condition.getMatchingCondition(request()));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_methodRequiringThePreference_WHEN_getCustomMethodCondition_THEN_returnTheCondition() {
+        var mapping = new PreferenceMappingConfiguration.PreferenceHandlerMapping();
+        var method = AsyncTransferController.class.getMethod("submitTransfer",
+                TransferApiRequest.class, String.class, String.class);
+
+        assertEquals(condition, mapping.getCustomMethodCondition(method));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_methodNotRequiringAPreference_WHEN_getCustomMethodCondition_THEN_returnNull() {
+        var mapping = new PreferenceMappingConfiguration.PreferenceHandlerMapping();
+        var method = AsyncTransferController.class.getMethod("getTransfer", UUID.class);
+
+        assertNull(mapping.getCustomMethodCondition(method));
+    }
+
+    private static MockHttpServletRequest request(String... preferHeaderValues) {
+        var request = new MockHttpServletRequest("POST", "/transfer");
+        for (var value : preferHeaderValues) {
+            request.addHeader(PreferRequestCondition.PREFER_HEADER, value);
+        }
+        return request;
+    }
+}
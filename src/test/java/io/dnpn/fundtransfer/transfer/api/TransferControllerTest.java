@@ -1,9 +1,15 @@
 package io.dnpn.fundtransfer.transfer.api;
 
+import io.dnpn.fundtransfer.transfer.service.BatchTransferResult;
+import io.dnpn.fundtransfer.transfer.service.BatchTransferService;
+import io.dnpn.fundtransfer.transfer.service.IdempotentTransferService;
 import io.dnpn.fundtransfer.transfer.service.IllegalTransferException;
+import io.dnpn.fundtransfer.transfer.service.ProcessedTransfer;
+import io.dnpn.fundtransfer.transfer.service.TransferConflictException;
 import io.dnpn.fundtransfer.transfer.service.TransferFailureException;
 import io.dnpn.fundtransfer.transfer.service.TransferRequest;
 import io.dnpn.fundtransfer.transfer.service.TransferService;
+import io.dnpn.fundtransfer.transfer.service.TransferStatus;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,14 +22,19 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -46,6 +57,7 @@ class TransferControllerTest {
             .toAccountId(CREDIT_ACCOUNT)
             .amount(AMOUNT)
             .build();
+    private static final String IDEMPOTENCY_KEY = "4f8b7c1e-retry";
     private static final LocalDateTime NOW = LocalDateTime.of(2022, Month.APRIL, 14, 9, 50, 23);
     private static final ZoneId ZONE_ID = ZoneId.of("UTC+4");
     // Expected timestamp returned when getting the time NOW from the clock and applying the offset from the ZONE_ID
@@ -54,26 +66,30 @@ class TransferControllerTest {
 
     @Mock
     private TransferService service;
+    @Mock
+    private IdempotentTransferService idempotentService;
+    @Mock
+    private BatchTransferService batchService;
     private Clock clock;
     private TransferController controller;
 
     @BeforeEach
     void beforeEach() {
         this.clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZONE_ID);
-        this.controller = new TransferController(service, clock);
+        this.controller = new TransferController(service, idempotentService, batchService, clock);
     }
 
     @SneakyThrows
     @Test
     void WHEN_transfer_THEN_serviceExecutesTheTransfer() {
-        controller.transfer(API_REQUEST);
+        controller.transfer(API_REQUEST, null, null);
 
         verify(service).transfer(SERVICE_REQUEST);
     }
 
     @Test
     void WHEN_transfer_THEN_returnOkWithRequest() {
-        var response = controller.transfer(API_REQUEST);
+        var response = controller.transfer(API_REQUEST, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(API_REQUEST, response.getBody().request());
@@ -86,7 +102,7 @@ class TransferControllerTest {
     void GIVEN_illegalTransfer_WHEN_transfer_THEN_throwResponseStatusForBadRequest() {
         doThrow(IllegalTransferException.class).when(service).transfer(SERVICE_REQUEST);
 
-        assertThrowsResponseStatusForBadRequest(() -> controller.transfer(API_REQUEST));
+        assertThrowsResponseStatusForBadRequest(() -> controller.transfer(API_REQUEST, null, null));
     }
 
     @SneakyThrows
@@ -94,9 +110,104 @@ class TransferControllerTest {
     void GIVEN_transferFailure_WHEN_transfer_THEN_throwResponseStatusForServerError() {
         doThrow(TransferFailureException.class).when(service).transfer(SERVICE_REQUEST);
 
-        assertThrowsResponseStatusForServerError(() -> controller.transfer(API_REQUEST));
+        assertThrowsResponseStatusForServerError(() -> controller.transfer(API_REQUEST, null, null));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_transferConflict_WHEN_transfer_THEN_throwResponseStatusForConflict() {
+        doThrow(TransferConflictException.class).when(service).transfer(SERVICE_REQUEST);
+
+        assertThrowsResponseStatus(() -> controller.transfer(API_REQUEST, null, null), HttpStatus.CONFLICT);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_idempotencyKey_WHEN_transfer_THEN_returnTheTimestampOfTheProcessedTransfer() {
+        var processedAt = Instant.parse("2022-04-14T09:45:00Z");
+        doReturn(buildProcessedTransfer(processedAt)).when(idempotentService).transfer(IDEMPOTENCY_KEY, SERVICE_REQUEST);
+
+        var response = controller.transfer(API_REQUEST, IDEMPOTENCY_KEY, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(LocalDateTime.of(2022, Month.APRIL, 14, 13, 45, 0), response.getBody().timestamp());
+        verify(service, never()).transfer(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_requestIdOnly_WHEN_transfer_THEN_useItAsIdempotencyKey() {
+        doReturn(buildProcessedTransfer(NOW.toInstant(ZoneOffset.UTC)))
+                .when(idempotentService).transfer(IDEMPOTENCY_KEY, SERVICE_REQUEST);
+
+        controller.transfer(API_REQUEST, " ", IDEMPOTENCY_KEY);
+
+        verify(idempotentService).transfer(IDEMPOTENCY_KEY, SERVICE_REQUEST);
     }
 
+    @SneakyThrows
+    @Test
+    void GIVEN_idempotencyKeyAndRequestId_WHEN_transfer_THEN_useTheIdempotencyKey() {
+        doReturn(buildProcessedTransfer(NOW.toInstant(ZoneOffset.UTC)))
+                .when(idempotentService).transfer(IDEMPOTENCY_KEY, SERVICE_REQUEST);
+
+        controller.transfer(API_REQUEST, IDEMPOTENCY_KEY, "request-id");
+
+        verify(idempotentService).transfer(IDEMPOTENCY_KEY, SERVICE_REQUEST);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_idempotencyKeyReusedForAnotherTransfer_WHEN_transfer_THEN_throwResponseStatusForBadRequest() {
+        doThrow(IllegalTransferException.class).when(idempotentService).transfer(IDEMPOTENCY_KEY, SERVICE_REQUEST);
+
+        assertThrowsResponseStatusForBadRequest(() -> controller.transfer(API_REQUEST, IDEMPOTENCY_KEY, null));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_transferBatch_THEN_returnOkWithResultOfEachTransfer() {
+        var deniedMessage = "Not enough money.";
+        doReturn(List.of(
+                buildBatchResult(TransferStatus.SUCCEEDED, TransferController.SUCCESSFUL_TRANSFER_MESSAGE),
+                buildBatchResult(TransferStatus.DENIED, deniedMessage)
+        )).when(batchService).transfer(List.of(SERVICE_REQUEST, SERVICE_REQUEST));
+
+        var response = controller.transferBatch(List.of(API_REQUEST, API_REQUEST));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(EXPECTED_TIMESTAMP, response.getBody().timestamp());
+        var results = response.getBody().results();
+        assertEquals(2, results.size());
+        assertEquals(API_REQUEST, results.get(0).request());
+        assertEquals(TransferStatus.SUCCEEDED, results.get(0).status());
+        assertEquals(TransferStatus.DENIED, results.get(1).status());
+        assertEquals(deniedMessage, results.get(1).message());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_illegalBatch_WHEN_transferBatch_THEN_throwResponseStatusForBadRequest() {
+        doThrow(IllegalTransferException.class).when(batchService).transfer(List.of(SERVICE_REQUEST));
+
+        assertThrowsResponseStatusForBadRequest(() -> controller.transferBatch(List.of(API_REQUEST)));
+    }
+
+    private ProcessedTransfer buildProcessedTransfer(Instant processedAt) {
+        return ProcessedTransfer.builder()
+                .idempotencyKey(IDEMPOTENCY_KEY)
+                .request(SERVICE_REQUEST)
+                .processedAt(processedAt)
+                .build();
+    }
+
+    private BatchTransferResult buildBatchResult(TransferStatus status, String message) {
+        return BatchTransferResult.builder()
+                .request(SERVICE_REQUEST)
+                .status(status)
+                .message(message)
+                .build();
+    }
 
     private void assertThrowsResponseStatusForBadRequest(Executable executable) {
         assertThrowsResponseStatus(executable, HttpStatus.BAD_REQUEST);
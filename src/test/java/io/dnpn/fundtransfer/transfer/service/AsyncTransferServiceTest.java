@@ -0,0 +1,221 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferServiceTest {
+
+    private static final Instant NOW = Instant.parse("2022-08-31T12:00:00Z");
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(2);
+    private static final long TIMEOUT_SECONDS = 5;
+    private static final TransferRequest REQUEST = buildRequest(123, 456, "25");
+
+    @Mock
+    private TransferService transferService;
+    @Mock
+    private IdempotentTransferService idempotentService;
+    @Mock
+    private TransferProperty transferProperty;
+    @Mock
+    private Clock clock;
+
+    private AsyncTransferService service;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(1).when(transferProperty).getAsyncWorkers();
+        lenient().doReturn(1).when(transferProperty).getAsyncQueueCapacity();
+        lenient().doReturn(RETRY_AFTER).when(transferProperty).getAsyncRetryAfter();
+        lenient().doReturn(100).when(transferProperty).getAsyncStatusMaxSize();
+        lenient().doReturn(Duration.ofMinutes(10)).when(transferProperty).getAsyncStatusRetention();
+        lenient().doReturn(NOW).when(clock).instant();
+
+        this.service = new AsyncTransferService(transferService, idempotentService, transferProperty, clock);
+    }
+
+    @SneakyThrows
+    @AfterEach
+    void afterEach() {
+        service.shutdown();
+        MDC.clear();
+    }
+
+    @Test
+    void GIVEN_invalidAmount_WHEN_submit_THEN_throwsIllegalTransferWithoutQueuingIt() {
+        var request = buildRequest(123, 456, "0");
+
+        assertThrows(IllegalTransferException.class, () -> service.submit(request, Optional.empty()));
+        verifyNoInteractions(transferService);
+    }
+
+    @Test
+    void GIVEN_sameAccount_WHEN_submit_THEN_throwsIllegalTransferWithoutQueuingIt() {
+        var request = buildRequest(123, 123, "25");
+
+        assertThrows(IllegalTransferException.class, () -> service.submit(request, Optional.empty()));
+        verifyNoInteractions(transferService);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_idempotencyKeyNotAvailable_WHEN_submit_THEN_throwsIllegalTransferWithoutQueuingIt() {
+        doThrow(IllegalTransferException.class).when(idempotentService).assertAvailable();
+        var idempotencyKey = Optional.of("key");
+
+        assertThrows(IllegalTransferException.class, () -> service.submit(REQUEST, idempotencyKey));
+        verify(idempotentService, never()).transfer(any(), any());
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_submit_THEN_returnPendingTransferThenExecuteIt() {
+        var submittedTransfer = service.submit(REQUEST, Optional.empty());
+
+        assertEquals(TransferStatus.PENDING, submittedTransfer.status());
+        assertEquals(NOW, submittedTransfer.submittedAt());
+        var completedTransfer = awaitCompletion(submittedTransfer.id());
+        assertEquals(TransferStatus.SUCCEEDED, completedTransfer.status());
+        assertEquals(TransferService.SUCCESSFUL_TRANSFER_MESSAGE, completedTransfer.message());
+        assertEquals(NOW, completedTransfer.completedAt());
+        verify(transferService).transfer(REQUEST);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_idempotencyKey_WHEN_submit_THEN_executeTheTransferOncePerKey() {
+        var submittedTransfer = service.submit(REQUEST, Optional.of("key"));
+
+        assertEquals(TransferStatus.SUCCEEDED, awaitCompletion(submittedTransfer.id()).status());
+        verify(idempotentService).transfer("key", REQUEST);
+        verify(transferService, never()).transfer(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_deniedTransfer_WHEN_submit_THEN_reportItAsDenied() {
+        doThrow(new IllegalTransferException("Not enough money.")).when(transferService).transfer(REQUEST);
+
+        var completedTransfer = awaitCompletion(service.submit(REQUEST, Optional.empty()).id());
+
+        assertEquals(TransferStatus.DENIED, completedTransfer.status());
+        assertEquals("Not enough money.", completedTransfer.message());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_failedTransfer_WHEN_submit_THEN_reportItAsFailed() {
+        doThrow(new TransferConflictException("Conflict.", null)).when(transferService).transfer(REQUEST);
+
+        var completedTransfer = awaitCompletion(service.submit(REQUEST, Optional.empty()).id());
+
+        assertEquals(TransferStatus.FAILED, completedTransfer.status());
+        assertEquals("Conflict.", completedTransfer.message());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_unexpectedException_WHEN_submit_THEN_reportItAsFailed() {
+        doThrow(IllegalStateException.class).when(transferService).transfer(REQUEST);
+
+        var completedTransfer = awaitCompletion(service.submit(REQUEST, Optional.empty()).id());
+
+        assertEquals(TransferStatus.FAILED, completedTransfer.status());
+        assertEquals(AsyncTransferService.UNEXPECTED_FAILURE_MESSAGE, completedTransfer.message());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_fullQueue_WHEN_submit_THEN_throwsTransferQueueFull() {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            return null;
+        }).when(transferService).transfer(REQUEST);
+
+        var executingTransfer = service.submit(REQUEST, Optional.empty());
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        var queuedTransfer = service.submit(REQUEST, Optional.empty());
+
+        var exception = assertThrows(TransferQueueFullException.class,
+                () -> service.submit(REQUEST, Optional.empty()));
+        assertEquals(RETRY_AFTER, exception.getRetryAfter());
+        assertEquals(TransferStatus.PENDING, service.getStatus(queuedTransfer.id()).orElseThrow().status());
+
+        release.countDown();
+        assertEquals(TransferStatus.SUCCEEDED, awaitCompletion(executingTransfer.id()).status());
+        assertEquals(TransferStatus.SUCCEEDED, awaitCompletion(queuedTransfer.id()).status());
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_submit_THEN_executeTheTransferWithTheMdcOfTheRequest() {
+        var requestId = new AtomicReference<String>();
+        doAnswer(invocation -> {
+            requestId.set(MDC.get("requestId"));
+            return null;
+        }).when(transferService).transfer(REQUEST);
+        MDC.put("requestId", "abcd-1234");
+
+        awaitCompletion(service.submit(REQUEST, Optional.empty()).id());
+
+        assertEquals("abcd-1234", requestId.get());
+    }
+
+    @Test
+    void GIVEN_unknownTransfer_WHEN_getStatus_THEN_returnEmpty() {
+        assertEquals(Optional.empty(), service.getStatus(UUID.randomUUID()));
+    }
+
+    @SneakyThrows
+    private SubmittedTransfer awaitCompletion(UUID id) {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (System.nanoTime() < deadline) {
+            var transfer = service.getStatus(id).orElseThrow();
+            if (transfer.isCompleted()) {
+                return transfer;
+            }
+            Thread.sleep(5);
+        }
+        return fail("The transfer " + id + " did not complete in time.");
+    }
+
+    private static TransferRequest buildRequest(long fromAccountId, long toAccountId, String amount) {
+        return TransferRequest.builder()
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountDeltaRepository;
+import io.dnpn.fundtransfer.account.BalanceDelta;
+import io.dnpn.fundtransfer.account.HotAccountService;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AtomicBalanceUpdaterTest {
+
+    private static final long DEBIT_ACCOUNT_ID = 123;
+    private static final long CREDIT_ACCOUNT_ID = 456;
+    private static final BalanceTransfer TRANSFER = BalanceTransfer.builder()
+            .debitAccountId(DEBIT_ACCOUNT_ID)
+            .debitedAmount(Money.ofCents(1000, Currency.GBP))
+            .creditAccountId(CREDIT_ACCOUNT_ID)
+            .creditedAmount(Money.ofCents(1230, Currency.USD))
+            .build();
+
+    @Mock
+    private AccountDeltaRepository deltaRepository;
+    @Mock
+    private HotAccountService hotAccountService;
+    @InjectMocks
+    private AtomicBalanceUpdater updater;
+
+    @Test
+    void GIVEN_nullTransfer_WHEN_apply_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> updater.apply(null));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_apply_THEN_sendDebitAndCreditDeltasInOneBatch() {
+        doReturn(new boolean[]{true, true}).when(deltaRepository).applyDeltas(anyList());
+
+        updater.apply(TRANSFER);
+
+        var expectedDeltas = List.of(
+                BalanceDelta.builder().accountId(DEBIT_ACCOUNT_ID).delta(Money.ofCents(-1000, Currency.GBP)).build(),
+                BalanceDelta.builder().accountId(CREDIT_ACCOUNT_ID).delta(Money.ofCents(1230, Currency.USD)).build());
+        verify(deltaRepository).applyDeltas(expectedDeltas);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_creditAccountWithLowerId_WHEN_apply_THEN_sendCreditFirst() {
+        var transfer = TRANSFER.toBuilder()
+                .debitAccountId(CREDIT_ACCOUNT_ID)
+                .creditAccountId(DEBIT_ACCOUNT_ID)
+                .build();
+        doReturn(new boolean[]{true, true}).when(deltaRepository).applyDeltas(anyList());
+
+        updater.apply(transfer);
+
+        var expectedDeltas = List.of(
+                BalanceDelta.builder().accountId(DEBIT_ACCOUNT_ID).delta(Money.ofCents(1230, Currency.USD)).build(),
+                BalanceDelta.builder().accountId(CREDIT_ACCOUNT_ID).delta(Money.ofCents(-1000, Currency.GBP)).build());
+        verify(deltaRepository).applyDeltas(expectedDeltas);
+    }
+
+    @Test
+    void GIVEN_creditAccountWithLowerIdAndDebitNotApplied_WHEN_apply_THEN_throwsIllegalTransfer() {
+        var transfer = TRANSFER.toBuilder()
+                .debitAccountId(CREDIT_ACCOUNT_ID)
+                .creditAccountId(DEBIT_ACCOUNT_ID)
+                .build();
+        doReturn(new boolean[]{true, false}).when(deltaRepository).applyDeltas(anyList());
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(transfer));
+    }
+
+    @Test
+    void GIVEN_debitNotApplied_WHEN_apply_THEN_throwsIllegalTransfer() {
+        doReturn(new boolean[]{false, true}).when(deltaRepository).applyDeltas(anyList());
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(TRANSFER));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_hotCreditAccount_WHEN_apply_THEN_creditAStripeAndSendOnlyTheDebit() {
+        doReturn(true).when(hotAccountService).credit(CREDIT_ACCOUNT_ID, Money.ofCents(1230, Currency.USD));
+        doReturn(new boolean[]{true}).when(deltaRepository).applyDeltas(anyList());
+
+        updater.apply(TRANSFER);
+
+        var expectedDeltas = List.of(
+                BalanceDelta.builder().accountId(DEBIT_ACCOUNT_ID).delta(Money.ofCents(-1000, Currency.GBP)).build());
+        var inOrder = inOrder(hotAccountService, deltaRepository);
+        inOrder.verify(hotAccountService).credit(CREDIT_ACCOUNT_ID, Money.ofCents(1230, Currency.USD));
+        inOrder.verify(deltaRepository).applyDeltas(expectedDeltas);
+    }
+
+    @Test
+    void GIVEN_hotCreditAccountAndDebitNotApplied_WHEN_apply_THEN_throwsIllegalTransfer() {
+        doReturn(true).when(hotAccountService).credit(CREDIT_ACCOUNT_ID, Money.ofCents(1230, Currency.USD));
+        doReturn(new boolean[]{false}).when(deltaRepository).applyDeltas(anyList());
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(TRANSFER));
+    }
+
+    @Test
+    void GIVEN_creditNotApplied_WHEN_apply_THEN_throwsIllegalTransfer() {
+        doReturn(new boolean[]{true, false}).when(deltaRepository).applyDeltas(anyList());
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(TRANSFER));
+    }
+}
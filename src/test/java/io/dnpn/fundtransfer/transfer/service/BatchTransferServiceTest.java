@@ -0,0 +1,241 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
+import io.dnpn.fundtransfer.currency.service.CurrencyConversionService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransferServiceTest {
+
+    private static final long GBP_ACCOUNT_ID = 1;
+    private static final long USD_ACCOUNT_ID = 2;
+    private static final long OTHER_USD_ACCOUNT_ID = 3;
+    private static final long NOT_EXISTING_ACCOUNT_ID = 999;
+    private static final BigDecimal GBP_TO_USD_RATE = new BigDecimal("1.23");
+
+    private AccountEntity gbpAccount;
+    private AccountEntity usdAccount;
+    private AccountEntity otherUsdAccount;
+
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private CurrencyConversionService conversionService;
+    @Mock
+    private TransferProperty transferProperty;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BatchTransferService service;
+
+    @BeforeEach
+    void beforeEach() {
+        this.gbpAccount = buildAccount(GBP_ACCOUNT_ID, Currency.GBP, "100.00");
+        this.usdAccount = buildAccount(USD_ACCOUNT_ID, Currency.USD, "10.00");
+        this.otherUsdAccount = buildAccount(OTHER_USD_ACCOUNT_ID, Currency.USD, "0.00");
+        var accounts = List.of(gbpAccount, usdAccount, otherUsdAccount);
+
+        lenient().doAnswer(invocation -> accounts.stream()
+                        .filter(account -> invocation.<Collection<Long>>getArgument(0).contains(account.getId()))
+                        .toList())
+                .when(accountService)
+                .getByIds(anyCollection());
+        lenient().doAnswer(invocation -> {
+                    invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                    return null;
+                })
+                .when(transactionTemplate)
+                .executeWithoutResult(any());
+        lenient().doReturn(Integer.MAX_VALUE).when(transferProperty).getBatchMaxSize();
+        lenient().doReturn(Integer.MAX_VALUE).when(transferProperty).getBatchChunkSize();
+
+        this.service = new BatchTransferService(accountService, conversionService, transferProperty,
+                transactionTemplate);
+    }
+
+    @Test
+    void GIVEN_nullRequests_WHEN_transfer_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> service.transfer(null));
+    }
+
+    @Test
+    void GIVEN_shardedLocking_WHEN_transfer_THEN_throwsIllegalTransfer() {
+        doReturn(true).when(transferProperty).isShardedLocking();
+        var requests = List.of(buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "1"));
+
+        assertThrows(IllegalTransferException.class, () -> service.transfer(requests));
+        verify(accountService, never()).getByIds(any());
+    }
+
+    @Test
+    void GIVEN_batchBiggerThanMaxSize_WHEN_transfer_THEN_throwsIllegalTransfer() {
+        doReturn(1).when(transferProperty).getBatchMaxSize();
+        var requests = List.of(buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "1"),
+                buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "1"));
+
+        assertThrows(IllegalTransferException.class, () -> service.transfer(requests));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_transfer_THEN_applyEachTransferAndRetrieveEachExchangeRateOnce() {
+        mockExchangeRates();
+        var requests = List.of(buildRequest(GBP_ACCOUNT_ID, USD_ACCOUNT_ID, "10"),
+                buildRequest(GBP_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "20"),
+                buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "5"));
+
+        var results = service.transfer(requests);
+
+        assertStatuses(results, TransferStatus.SUCCEEDED, TransferStatus.SUCCEEDED, TransferStatus.SUCCEEDED);
+        assertEquals(new BigDecimal("70.00"), gbpAccount.getBalance().toBigDecimal());
+        assertEquals(new BigDecimal("17.30"), usdAccount.getBalance().toBigDecimal());
+        assertEquals(new BigDecimal("29.60"), otherUsdAccount.getBalance().toBigDecimal());
+        verify(conversionService).getExchangeRateAsync(Currency.GBP, Currency.USD);
+        verify(conversionService).getExchangeRateAsync(Currency.USD, Currency.USD);
+        verify(accountService).updateAll(anyCollection());
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_transfer_THEN_transfersAreAppliedInOrder() {
+        mockExchangeRates();
+        var requests = List.of(buildRequest(OTHER_USD_ACCOUNT_ID, USD_ACCOUNT_ID, "5"),
+                buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "5"),
+                buildRequest(OTHER_USD_ACCOUNT_ID, USD_ACCOUNT_ID, "5"));
+
+        var results = service.transfer(requests);
+
+        assertStatuses(results, TransferStatus.DENIED, TransferStatus.SUCCEEDED, TransferStatus.SUCCEEDED);
+        assertEquals(new BigDecimal("10.00"), usdAccount.getBalance().toBigDecimal());
+        assertEquals(new BigDecimal("0.00"), otherUsdAccount.getBalance().toBigDecimal());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_illegalTransfers_WHEN_transfer_THEN_denyThemAndExecuteTheOthers() {
+        mockExchangeRates();
+        var requests = List.of(buildRequest(NOT_EXISTING_ACCOUNT_ID, USD_ACCOUNT_ID, "1"),
+                buildRequest(USD_ACCOUNT_ID, NOT_EXISTING_ACCOUNT_ID, "1"),
+                buildRequest(USD_ACCOUNT_ID, USD_ACCOUNT_ID, "1"),
+                buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "0"),
+                buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "10.01"),
+                buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "10"));
+
+        var results = service.transfer(requests);
+
+        assertStatuses(results, TransferStatus.DENIED, TransferStatus.DENIED, TransferStatus.DENIED,
+                TransferStatus.DENIED, TransferStatus.DENIED, TransferStatus.SUCCEEDED);
+        assertEquals(new BigDecimal("0.00"), usdAccount.getBalance().toBigDecimal());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_exchangeRateCannotBeRetrieved_WHEN_transfer_THEN_failOnlyTheTransfersOfThisPair() {
+        doReturn(CompletableFuture.failedFuture(new CurrencyConversionException("Some error.")))
+                .when(conversionService)
+                .getExchangeRateAsync(Currency.GBP, Currency.USD);
+        doReturn(CompletableFuture.completedFuture(BigDecimal.ONE))
+                .when(conversionService)
+                .getExchangeRateAsync(Currency.USD, Currency.USD);
+        var requests = List.of(buildRequest(GBP_ACCOUNT_ID, USD_ACCOUNT_ID, "10"),
+                buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "5"));
+
+        var results = service.transfer(requests);
+
+        assertStatuses(results, TransferStatus.FAILED, TransferStatus.SUCCEEDED);
+        assertEquals(new BigDecimal("100.00"), gbpAccount.getBalance().toBigDecimal());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_chunkSize_WHEN_transfer_THEN_useOneTransactionPerChunk() {
+        mockExchangeRates();
+        doReturn(2).when(transferProperty).getBatchChunkSize();
+        var requests = List.of(buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "1"),
+                buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "1"),
+                buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "1"));
+
+        var results = service.transfer(requests);
+
+        assertStatuses(results, TransferStatus.SUCCEEDED, TransferStatus.SUCCEEDED, TransferStatus.SUCCEEDED);
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(accountService, times(2)).updateAll(anyCollection());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_persistenceFailure_WHEN_transfer_THEN_failTheTransfersOfTheChunk() {
+        mockExchangeRates();
+        doThrow(OptimisticLockingFailureException.class).when(accountService).updateAll(anyCollection());
+        var requests = List.of(buildRequest(USD_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "1"),
+                buildRequest(NOT_EXISTING_ACCOUNT_ID, OTHER_USD_ACCOUNT_ID, "1"));
+
+        var results = service.transfer(requests);
+
+        assertStatuses(results, TransferStatus.FAILED, TransferStatus.DENIED);
+        assertEquals(BatchTransferService.FAILED_CHUNK_MESSAGE, results.get(0).message());
+    }
+
+    private void mockExchangeRates() {
+        lenient().doReturn(CompletableFuture.completedFuture(GBP_TO_USD_RATE))
+                .when(conversionService)
+                .getExchangeRateAsync(Currency.GBP, Currency.USD);
+        lenient().doReturn(CompletableFuture.completedFuture(BigDecimal.ONE))
+                .when(conversionService)
+                .getExchangeRateAsync(Currency.USD, Currency.USD);
+    }
+
+    private void assertStatuses(List<BatchTransferResult> results, TransferStatus... expectedStatuses) {
+        var actualStatuses = results.stream()
+                .map(BatchTransferResult::status)
+                .toList();
+        assertEquals(List.of(expectedStatuses), actualStatuses);
+    }
+
+    private static AccountEntity buildAccount(long id, Currency currency, String balance) {
+        return AccountEntity.builder()
+                .id(id)
+                .version(1)
+                .currency(currency)
+                .balanceInCents(Money.toCents(new BigDecimal(balance)))
+                .build();
+    }
+
+    private static TransferRequest buildRequest(long fromAccountId, long toAccountId, String amount) {
+        return TransferRequest.builder()
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
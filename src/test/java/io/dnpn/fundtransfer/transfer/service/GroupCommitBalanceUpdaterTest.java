@@ -0,0 +1,316 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitBalanceUpdaterTest {
+
+    private static final Duration LOCK_TIMEOUT = Duration.ofMillis(500);
+    private static final Duration LONG_LINGER = Duration.ofSeconds(30);
+    private static final long POISONED_ACCOUNT_ID = 99;
+
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private TransferProperty transferProperty;
+
+    private GroupCommitBalanceUpdater updater;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        lenient().doReturn(LOCK_TIMEOUT).when(transferProperty).getLockTimeout();
+        lenient().doReturn(Duration.ZERO).when(transferProperty).getGroupLinger();
+        lenient().doReturn(10).when(transferProperty).getGroupMaxSize();
+        lenient().doReturn(100).when(transferProperty).getGroupQueueCapacity();
+        lenient().doReturn(TransferProperty.DEFAULT_GROUP_RETRY_TIMEOUT).when(transferProperty).getGroupRetryTimeout();
+        this.executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void afterEach() {
+        if (updater != null) {
+            updater.stop();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void GIVEN_nullTransfer_WHEN_apply_THEN_throwsNullPointer() {
+        createUpdater();
+
+        assertThrows(NullPointerException.class, () -> updater.apply(null));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_apply_THEN_lockAndUpdateBothAccountsInATransaction() {
+        var debitAccount = buildAccount(2, 1500);
+        var creditAccount = buildAccount(1, 100);
+        doReturn(List.of(creditAccount, debitAccount)).when(accountService).lockByIds(List.of(1L, 2L), LOCK_TIMEOUT);
+        createUpdater();
+
+        updater.apply(buildTransfer(2, 1, 1000));
+
+        assertEquals(500, debitAccount.getBalance().amountInCents());
+        assertEquals(1100, creditAccount.getBalance().amountInCents());
+        verify(transactionTemplate).execute(any());
+        verify(accountService).updateAll(argThat(updated -> updated.containsAll(List.of(debitAccount, creditAccount))));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_accountNotFound_WHEN_apply_THEN_throwsIllegalTransfer() {
+        doReturn(List.of(buildAccount(2, 1500))).when(accountService).lockByIds(List.of(1L, 2L), LOCK_TIMEOUT);
+        createUpdater();
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(buildTransfer(2, 1, 1000)));
+        verify(accountService).updateAll(argThat(Collection::isEmpty));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_concurrentTransfers_WHEN_apply_THEN_commitThemInASingleTransaction() {
+        doReturn(LONG_LINGER).when(transferProperty).getGroupLinger();
+        doReturn(3).when(transferProperty).getGroupMaxSize();
+        var accounts = List.of(buildAccount(1, 1000), buildAccount(2, 1000), buildAccount(3, 1000));
+        doReturn(accounts).when(accountService).lockByIds(List.of(1L, 2L, 3L), LOCK_TIMEOUT);
+        createUpdater();
+
+        var results = applyConcurrently(buildTransfer(1, 2, 100), buildTransfer(2, 3, 100), buildTransfer(3, 1, 100));
+
+        for (var result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        verify(transactionTemplate).execute(any());
+        accounts.forEach(account -> assertEquals(1000, account.getBalance().amountInCents()));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_deniedTransferInTheGroup_WHEN_apply_THEN_commitTheOtherTransfers() {
+        doReturn(LONG_LINGER).when(transferProperty).getGroupLinger();
+        doReturn(2).when(transferProperty).getGroupMaxSize();
+        var poorAccount = buildAccount(1, 10);
+        var richAccount = buildAccount(3, 1000);
+        var creditAccount = buildAccount(2, 0);
+        doReturn(List.of(poorAccount, creditAccount, richAccount)).when(accountService)
+                .lockByIds(List.of(1L, 2L, 3L), LOCK_TIMEOUT);
+        createUpdater();
+
+        var results = applyConcurrently(buildTransfer(1, 2, 100), buildTransfer(3, 2, 100));
+
+        var failure = assertThrows(ExecutionException.class, () -> results.get(0).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalTransferException.class, failure.getCause());
+        results.get(1).get(10, TimeUnit.SECONDS);
+        assertEquals(10, poorAccount.getBalance().amountInCents());
+        assertEquals(900, richAccount.getBalance().amountInCents());
+        assertEquals(100, creditAccount.getBalance().amountInCents());
+        verify(transactionTemplate).execute(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_failedGroupTransaction_WHEN_apply_THEN_commitTheHalvesOfTheGroup() {
+        doReturn(LONG_LINGER).when(transferProperty).getGroupLinger();
+        doReturn(2).when(transferProperty).getGroupMaxSize();
+        doAnswer(invocation -> List.of(buildAccount(1, 1000), buildAccount(2, 1000), buildAccount(3, 1000)))
+                .when(accountService).lockByIds(anyCollection(), any());
+        doThrow(CannotAcquireLockException.class)
+                .doReturn(List.of())
+                .doThrow(CannotAcquireLockException.class)
+                .when(accountService).updateAll(anyCollection());
+        createUpdater();
+
+        var results = applyConcurrently(buildTransfer(1, 2, 100), buildTransfer(3, 2, 100));
+
+        var failures = 0;
+        for (var result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException exception) {
+                assertInstanceOf(ConcurrencyFailureException.class, exception.getCause());
+                failures++;
+            }
+        }
+        assertEquals(1, failures);
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_poisonedTransferInAFullGroup_WHEN_apply_THEN_failItAndBoundTheLatencyOfTheNextGroup() {
+        var groupSize = 32;
+        var failedTransactionTime = Duration.ofMillis(300);
+        var retryTimeout = Duration.ofMillis(300);
+        doReturn(Duration.ofMillis(200)).when(transferProperty).getGroupLinger();
+        doReturn(groupSize).when(transferProperty).getGroupMaxSize();
+        doReturn(retryTimeout).when(transferProperty).getGroupRetryTimeout();
+        var firstGroupCommitting = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (invocation.<Collection<Long>>getArgument(0).contains(POISONED_ACCOUNT_ID)) {
+                firstGroupCommitting.countDown();
+                Thread.sleep(failedTransactionTime.toMillis());
+                throw new CannotAcquireLockException("Lock wait timeout.");
+            }
+            return List.of(buildAccount(1, 1_000_000), buildAccount(2, 0));
+        }).when(accountService).lockByIds(anyCollection(), any());
+        createUpdater();
+        var transfers = new ArrayList<BalanceTransfer>();
+        transfers.add(buildTransfer(POISONED_ACCOUNT_ID, 2, 100));
+        for (int index = 1; index < groupSize; index++) {
+            transfers.add(buildTransfer(1, 2, 100));
+        }
+
+        var results = applyConcurrently(transfers.toArray(BalanceTransfer[]::new));
+        firstGroupCommitting.await();
+        var nextGroupStart = System.nanoTime();
+        applyConcurrently(buildTransfer(1, 2, 100)).get(0).get(10, TimeUnit.SECONDS);
+        var nextGroupLatency = Duration.ofNanos(System.nanoTime() - nextGroupStart);
+
+        // Committing again the group in halves without a deadline would take log2(32) + 1 failed transactions
+        var unboundedLatency = failedTransactionTime.multipliedBy(6);
+        assertTrue(nextGroupLatency.compareTo(unboundedLatency) < 0, "Next group latency: " + nextGroupLatency);
+        var poisonedFailure = assertThrows(ExecutionException.class, () -> results.get(0).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(ConcurrencyFailureException.class, poisonedFailure.getCause());
+        for (var result : results.subList(1, groupSize)) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException exception) {
+                // Not committed before the retry timeout
+                assertInstanceOf(ConcurrencyFailureException.class, exception.getCause());
+            }
+        }
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_transactionOpenByTheCaller_WHEN_apply_THEN_applyTheTransferInIt() {
+        doReturn(List.of(buildAccount(1, 100), buildAccount(2, 1500))).when(accountService)
+                .lockByIds(List.of(1L, 2L), LOCK_TIMEOUT);
+        createUpdater();
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            updater.apply(buildTransfer(2, 1, 1000));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        verify(transactionTemplate, never()).execute(any());
+        verify(accountService).updateAll(anyCollection());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_fullQueue_WHEN_apply_THEN_throwsConcurrencyFailure() {
+        doReturn(1).when(transferProperty).getGroupMaxSize();
+        doReturn(1).when(transferProperty).getGroupQueueCapacity();
+        var committing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            committing.countDown();
+            release.await();
+            return List.of(buildAccount(1, 1000), buildAccount(2, 1000));
+        }).when(accountService).lockByIds(anyCollection(), any());
+        createUpdater();
+
+        var committed = applyConcurrently(buildTransfer(1, 2, 100)).get(0);
+        committing.await();
+        var queued = applyConcurrently(buildTransfer(1, 2, 100)).get(0);
+        while (updater.getPendingCount() == 0) {
+            Thread.yield();
+        }
+
+        assertThrows(ConcurrencyFailureException.class, () -> updater.apply(buildTransfer(1, 2, 100)));
+        release.countDown();
+        committed.get(10, TimeUnit.SECONDS);
+        queued.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void GIVEN_stoppedUpdater_WHEN_apply_THEN_throwsIllegalState() {
+        createUpdater();
+        updater.stop();
+
+        assertThrows(IllegalStateException.class, () -> updater.apply(buildTransfer(1, 2, 100)));
+    }
+
+    private void createUpdater() {
+        this.updater = new GroupCommitBalanceUpdater(accountService, transactionTemplate, transferProperty);
+    }
+
+    private List<Future<Void>> applyConcurrently(BalanceTransfer... transfers) {
+        var results = new ArrayList<Future<Void>>();
+        for (var transfer : transfers) {
+            results.add(executor.submit(() -> {
+                updater.apply(transfer);
+                return null;
+            }));
+        }
+        return results;
+    }
+
+    private static AccountEntity buildAccount(long id, long balanceInCents) {
+        return AccountEntity.builder()
+                .id(id)
+                .version(1)
+                .currency(Currency.USD)
+                .balanceInCents(balanceInCents)
+                .build();
+    }
+
+    private static BalanceTransfer buildTransfer(long debitAccountId, long creditAccountId, long amountInCents) {
+        return BalanceTransfer.builder()
+                .debitAccountId(debitAccountId)
+                .debitedAmount(Money.ofCents(amountInCents, Currency.USD))
+                .creditAccountId(creditAccountId)
+                .creditedAmount(Money.ofCents(amountInCents, Currency.USD))
+                .build();
+    }
+}
@@ -0,0 +1,219 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotentTransferServiceTest {
+
+    private static final String KEY = "4f8b7c1e-retry";
+    private static final Instant NOW = Instant.parse("2022-08-31T12:00:00Z");
+    private static final Duration RETENTION = Duration.ofHours(24);
+    private static final TransferRequest REQUEST = buildRequest("25");
+    private static final ProcessedTransfer PROCESSED_TRANSFER = ProcessedTransfer.builder()
+            .idempotencyKey(KEY)
+            .request(REQUEST)
+            .processedAt(NOW)
+            .build();
+
+    @Mock
+    private TransferService transferService;
+    @Mock
+    private ProcessedTransferRepository repository;
+    @Mock
+    private ProcessedTransferCache cache;
+    @Mock
+    private TransferProperty transferProperty;
+    @Mock
+    private Clock clock;
+
+    private IdempotentTransferService service;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(Optional.empty()).when(cache).get(KEY);
+        lenient().doReturn(Optional.empty()).when(repository).findById(KEY);
+        lenient().doReturn(NOW).when(clock).instant();
+
+        this.service = new IdempotentTransferService(transferService, repository, cache, transferProperty, clock);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_newKey_WHEN_transfer_THEN_executeAndRecordTheTransfer() {
+        var processedTransfer = service.transfer(KEY, REQUEST);
+
+        assertEquals(PROCESSED_TRANSFER, processedTransfer);
+        verify(transferService).transfer(REQUEST, PROCESSED_TRANSFER);
+        verify(cache).put(PROCESSED_TRANSFER);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_cachedKey_WHEN_transfer_THEN_returnTheProcessedTransferWithoutExecutingIt() {
+        var retriedRequest = buildRequest("25.00");
+        doReturn(Optional.of(PROCESSED_TRANSFER)).when(cache).get(KEY);
+
+        assertEquals(PROCESSED_TRANSFER, service.transfer(KEY, retriedRequest));
+        verify(transferService, never()).transfer(any(), any(ProcessedTransfer.class));
+        verify(repository, never()).findById(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_keyRecordedInDatabase_WHEN_transfer_THEN_returnTheProcessedTransferWithoutExecutingIt() {
+        doReturn(Optional.of(ProcessedTransferEntity.from(PROCESSED_TRANSFER))).when(repository).findById(KEY);
+
+        assertEquals(PROCESSED_TRANSFER, service.transfer(KEY, REQUEST));
+        verify(transferService, never()).transfer(any(), any(ProcessedTransfer.class));
+        verify(cache).put(PROCESSED_TRANSFER);
+    }
+
+    @Test
+    void GIVEN_keyUsedForAnotherRequest_WHEN_transfer_THEN_throwsIllegalTransfer() {
+        var otherRequest = buildRequest("26");
+        doReturn(Optional.of(PROCESSED_TRANSFER)).when(cache).get(KEY);
+
+        assertThrows(IllegalTransferException.class, () -> service.transfer(KEY, otherRequest));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, IdempotentTransferService.MAX_IDEMPOTENCY_KEY_LENGTH + 1})
+    void GIVEN_invalidKey_WHEN_transfer_THEN_throwsIllegalTransfer(int keyLength) {
+        var key = keyLength == 0 ? " " : "k".repeat(keyLength);
+
+        assertThrows(IllegalTransferException.class, () -> service.transfer(key, REQUEST));
+    }
+
+    @Test
+    void GIVEN_shardedLocking_WHEN_transfer_THEN_throwsIllegalTransferWithoutExecutingIt() {
+        doReturn(true).when(transferProperty).isShardedLocking();
+
+        assertThrows(IllegalTransferException.class, () -> service.transfer(KEY, REQUEST));
+        verifyNoInteractions(transferService, repository);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_keyRecordedConcurrentlyByAnotherInstance_WHEN_transfer_THEN_returnTheRecordedTransfer() {
+        var concurrentTransfer = ProcessedTransfer.builder()
+                .idempotencyKey(KEY)
+                .request(REQUEST)
+                .processedAt(NOW.minusMillis(5))
+                .build();
+        doThrow(DataIntegrityViolationException.class).when(transferService).transfer(REQUEST, PROCESSED_TRANSFER);
+        doReturn(Optional.empty(), Optional.of(ProcessedTransferEntity.from(concurrentTransfer)))
+                .when(repository).findById(KEY);
+
+        assertEquals(concurrentTransfer, service.transfer(KEY, REQUEST));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_deniedTransfer_WHEN_transferAgain_THEN_executeItAgain() {
+        doThrow(IllegalTransferException.class).doNothing().when(transferService).transfer(REQUEST, PROCESSED_TRANSFER);
+
+        assertThrows(IllegalTransferException.class, () -> service.transfer(KEY, REQUEST));
+        service.transfer(KEY, REQUEST);
+
+        verify(transferService, times(2)).transfer(REQUEST, PROCESSED_TRANSFER);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_transferInFlight_WHEN_transfer_THEN_waitForItsOutcomeInsteadOfExecutingItAgain() {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(transferService).transfer(REQUEST, PROCESSED_TRANSFER);
+
+        var first = CompletableFuture.supplyAsync(() -> transferQuietly(KEY, REQUEST));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        var duplicate = CompletableFuture.supplyAsync(() -> transferQuietly(KEY, REQUEST));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals(PROCESSED_TRANSFER, first.get(5, TimeUnit.SECONDS));
+        assertEquals(PROCESSED_TRANSFER, duplicate.get(5, TimeUnit.SECONDS));
+        verify(transferService, times(1)).transfer(REQUEST, PROCESSED_TRANSFER);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_failingTransferInFlight_WHEN_transfer_THEN_propagateTheFailureToTheDuplicate() {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            throw new TransferConflictException("Conflict.", null);
+        }).when(transferService).transfer(REQUEST, PROCESSED_TRANSFER);
+
+        var first = CompletableFuture.supplyAsync(() -> transferQuietly(KEY, REQUEST));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        var duplicate = CompletableFuture.supplyAsync(() -> transferQuietly(KEY, REQUEST));
+        Thread.sleep(50);
+        release.countDown();
+
+        var failure = assertThrows(ExecutionException.class, () -> duplicate.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TransferConflictException.class, failure.getCause());
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        verify(transferService, times(1)).transfer(REQUEST, PROCESSED_TRANSFER);
+    }
+
+    @Test
+    void WHEN_purgeExpiredKeys_THEN_deleteTheKeysOlderThanTheRetention() {
+        doReturn(RETENTION).when(transferProperty).getIdempotencyRetention();
+
+        service.purgeExpiredKeys();
+
+        verify(repository).deleteProcessedBefore(NOW.minus(RETENTION));
+    }
+
+    private static TransferRequest buildRequest(String amount) {
+        return TransferRequest.builder()
+                .fromAccountId(123)
+                .toAccountId(456)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+
+    @SneakyThrows
+    private ProcessedTransfer transferQuietly(String key, TransferRequest request) {
+        return service.transfer(key, request);
+    }
+}
@@ -0,0 +1,100 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountDeltaRepository;
+import io.dnpn.fundtransfer.account.BalanceDelta;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerJournalTest {
+
+    @Mock
+    private AccountDeltaRepository deltaRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private LedgerJournal journal;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        this.journal = new LedgerJournal(deltaRepository, transactionTemplate);
+    }
+
+    @Test
+    void GIVEN_noDelta_WHEN_flush_THEN_doNothing() {
+        journal.flush();
+
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void WHEN_flush_THEN_applyTheMergedDeltasByAscendingAccount() {
+        doReturn(new boolean[]{true, true}).when(deltaRepository).applyDeltas(anyList());
+        journal.append(buildDelta(2, -100));
+        journal.append(buildDelta(1, 300));
+        journal.append(buildDelta(2, 250));
+        journal.append(buildDelta(3, 50));
+        journal.append(buildDelta(3, -50));
+
+        journal.flush();
+
+        verify(deltaRepository).applyDeltas(List.of(buildDelta(1, 300), buildDelta(2, 150)));
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    @Test
+    void GIVEN_failedFlush_WHEN_flush_THEN_retryTheDeltasMergedWithTheNewOnes() {
+        doThrow(CannotAcquireLockException.class).when(deltaRepository).applyDeltas(anyList());
+        journal.append(buildDelta(1, 300));
+        journal.flush();
+        assertEquals(1, journal.getPendingCount());
+
+        doReturn(new boolean[]{true}).when(deltaRepository).applyDeltas(anyList());
+        journal.append(buildDelta(1, -100));
+        journal.flush();
+
+        verify(deltaRepository).applyDeltas(List.of(buildDelta(1, 200)));
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    @Test
+    void GIVEN_deltaNotApplied_WHEN_flush_THEN_dropIt() {
+        doReturn(new boolean[]{false}).when(deltaRepository).applyDeltas(anyList());
+        journal.append(buildDelta(1, 300));
+
+        journal.flush();
+        journal.flush();
+
+        verify(deltaRepository).applyDeltas(anyList());
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    private static BalanceDelta buildDelta(long accountId, long deltaInCents) {
+        return BalanceDelta.builder()
+                .accountId(accountId)
+                .delta(Money.ofCents(deltaInCents, Currency.GBP))
+                .build();
+    }
+}
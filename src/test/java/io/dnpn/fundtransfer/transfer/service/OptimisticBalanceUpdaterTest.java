@@ -0,0 +1,113 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.account.HotAccountService;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticBalanceUpdaterTest {
+
+    private static final long DEBIT_ACCOUNT_ID = 123;
+    private static final long CREDIT_ACCOUNT_ID = 456;
+    private static final BalanceTransfer TRANSFER = BalanceTransfer.builder()
+            .debitAccountId(DEBIT_ACCOUNT_ID)
+            .debitedAmount(Money.ofCents(1000, Currency.GBP))
+            .creditAccountId(CREDIT_ACCOUNT_ID)
+            .creditedAmount(Money.ofCents(1230, Currency.USD))
+            .build();
+
+    private AccountEntity debitAccountEntity;
+    private AccountEntity creditAccountEntity;
+
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private HotAccountService hotAccountService;
+    @InjectMocks
+    private OptimisticBalanceUpdater updater;
+
+    @BeforeEach
+    void beforeEach() {
+        this.debitAccountEntity = AccountEntity.builder()
+                .id(DEBIT_ACCOUNT_ID)
+                .version(1)
+                .currency(Currency.GBP)
+                .balanceInCents(1500)
+                .build();
+        this.creditAccountEntity = AccountEntity.builder()
+                .id(CREDIT_ACCOUNT_ID)
+                .version(1)
+                .currency(Currency.USD)
+                .balanceInCents(100)
+                .build();
+    }
+
+    @Test
+    void GIVEN_nullTransfer_WHEN_apply_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> updater.apply(null));
+    }
+
+    @Test
+    void GIVEN_debitAccountNotFound_WHEN_apply_THEN_throwsIllegalTransfer() {
+        doReturn(Optional.empty()).when(accountService).getById(DEBIT_ACCOUNT_ID);
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(TRANSFER));
+        verify(accountService, never()).update(any());
+    }
+
+    @Test
+    void GIVEN_insufficientBalance_WHEN_apply_THEN_throwsIllegalTransfer() {
+        debitAccountEntity.setBalance(Money.ofCents(999, Currency.GBP));
+        doReturn(Optional.of(debitAccountEntity)).when(accountService).getById(DEBIT_ACCOUNT_ID);
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(TRANSFER));
+        verify(accountService, never()).update(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_apply_THEN_updateBothAccounts() {
+        doReturn(Optional.of(debitAccountEntity)).when(accountService).getById(DEBIT_ACCOUNT_ID);
+        doReturn(Optional.of(creditAccountEntity)).when(accountService).getById(CREDIT_ACCOUNT_ID);
+
+        updater.apply(TRANSFER);
+
+        assertEquals(Money.ofCents(500, Currency.GBP), debitAccountEntity.getBalance());
+        assertEquals(Money.ofCents(1330, Currency.USD), creditAccountEntity.getBalance());
+        verify(accountService).update(debitAccountEntity);
+        verify(accountService).update(creditAccountEntity);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_hotCreditAccount_WHEN_apply_THEN_creditAStripeInsteadOfTheAccount() {
+        doReturn(Optional.of(debitAccountEntity)).when(accountService).getById(DEBIT_ACCOUNT_ID);
+        doReturn(Optional.of(creditAccountEntity)).when(accountService).getById(CREDIT_ACCOUNT_ID);
+        doReturn(true).when(hotAccountService).credit(CREDIT_ACCOUNT_ID, Money.ofCents(1230, Currency.USD));
+
+        updater.apply(TRANSFER);
+
+        assertEquals(Money.ofCents(500, Currency.GBP), debitAccountEntity.getBalance());
+        assertEquals(Money.ofCents(100, Currency.USD), creditAccountEntity.getBalance());
+        verify(accountService).update(debitAccountEntity);
+        verify(accountService, never()).update(creditAccountEntity);
+    }
+}
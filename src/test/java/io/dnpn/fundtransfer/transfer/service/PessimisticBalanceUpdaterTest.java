@@ -0,0 +1,111 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PessimisticBalanceUpdaterTest {
+
+    private static final long DEBIT_ACCOUNT_ID = 456;
+    private static final long CREDIT_ACCOUNT_ID = 123;
+    private static final Duration LOCK_TIMEOUT = Duration.ofMillis(500);
+    private static final List<Long> ACCOUNT_IDS = List.of(DEBIT_ACCOUNT_ID, CREDIT_ACCOUNT_ID);
+    private static final BalanceTransfer TRANSFER = BalanceTransfer.builder()
+            .debitAccountId(DEBIT_ACCOUNT_ID)
+            .debitedAmount(Money.ofCents(1000, Currency.GBP))
+            .creditAccountId(CREDIT_ACCOUNT_ID)
+            .creditedAmount(Money.ofCents(1230, Currency.USD))
+            .build();
+
+    private AccountEntity debitAccountEntity;
+    private AccountEntity creditAccountEntity;
+
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private TransferProperty transferProperty;
+    @InjectMocks
+    private PessimisticBalanceUpdater updater;
+
+    @BeforeEach
+    void beforeEach() {
+        this.debitAccountEntity = AccountEntity.builder()
+                .id(DEBIT_ACCOUNT_ID)
+                .version(1)
+                .currency(Currency.GBP)
+                .balanceInCents(1500)
+                .build();
+        this.creditAccountEntity = AccountEntity.builder()
+                .id(CREDIT_ACCOUNT_ID)
+                .version(1)
+                .currency(Currency.USD)
+                .balanceInCents(100)
+                .build();
+        lenient().doReturn(LOCK_TIMEOUT).when(transferProperty).getLockTimeout();
+    }
+
+    @Test
+    void GIVEN_nullTransfer_WHEN_apply_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> updater.apply(null));
+    }
+
+    @Test
+    void GIVEN_debitAccountNotFound_WHEN_apply_THEN_throwsIllegalTransfer() {
+        doReturn(List.of(creditAccountEntity)).when(accountService).lockByIds(ACCOUNT_IDS, LOCK_TIMEOUT);
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(TRANSFER));
+        verify(accountService, never()).update(any());
+    }
+
+    @Test
+    void GIVEN_creditAccountNotFound_WHEN_apply_THEN_throwsIllegalTransfer() {
+        doReturn(List.of(debitAccountEntity)).when(accountService).lockByIds(ACCOUNT_IDS, LOCK_TIMEOUT);
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(TRANSFER));
+        verify(accountService, never()).update(any());
+    }
+
+    @Test
+    void GIVEN_insufficientBalance_WHEN_apply_THEN_throwsIllegalTransfer() {
+        debitAccountEntity.setBalance(Money.ofCents(999, Currency.GBP));
+        doReturn(List.of(creditAccountEntity, debitAccountEntity)).when(accountService)
+                .lockByIds(ACCOUNT_IDS, LOCK_TIMEOUT);
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(TRANSFER));
+        verify(accountService, never()).update(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_apply_THEN_lockAndUpdateBothAccounts() {
+        doReturn(List.of(creditAccountEntity, debitAccountEntity)).when(accountService)
+                .lockByIds(ACCOUNT_IDS, LOCK_TIMEOUT);
+
+        updater.apply(TRANSFER);
+
+        assertEquals(Money.ofCents(500, Currency.GBP), debitAccountEntity.getBalance());
+        assertEquals(Money.ofCents(1330, Currency.USD), creditAccountEntity.getBalance());
+        verify(accountService).update(debitAccountEntity);
+        verify(accountService).update(creditAccountEntity);
+    }
+}
@@ -0,0 +1,38 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PinnedExchangeRateTest {
+
+    private static final PinnedExchangeRate GBP_TO_USD = PinnedExchangeRate.builder()
+            .fromCurrency(Currency.GBP)
+            .toCurrency(Currency.USD)
+            .rate(new BigDecimal("1.1980173"))
+            .build();
+
+    @Test
+    void GIVEN_nullAmount_WHEN_convert_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> GBP_TO_USD.convert(null));
+    }
+
+    @Test
+    void WHEN_convert_THEN_roundDownToCents() {
+        var convertedAmount = GBP_TO_USD.convert(Money.ofCents(12345, Currency.GBP));
+
+        assertEquals(Money.ofCents(14789, Currency.USD), convertedAmount);
+    }
+
+    @Test
+    void GIVEN_amountInAnotherCurrency_WHEN_convert_THEN_throwsIllegalArgument() {
+        var amount = Money.ofCents(12345, Currency.USD);
+
+        assertThrows(IllegalArgumentException.class, () -> GBP_TO_USD.convert(amount));
+    }
+}
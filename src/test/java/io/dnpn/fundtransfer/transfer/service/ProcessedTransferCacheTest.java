@@ -0,0 +1,98 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedTransferCacheTest {
+
+    private static final Instant NOW = Instant.parse("2022-08-31T12:00:00Z");
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final int MAX_SIZE = 2;
+
+    @Mock
+    private TransferProperty transferProperty;
+    @Mock
+    private Clock clock;
+
+    private ProcessedTransferCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(MAX_SIZE).when(transferProperty).getIdempotencyCacheMaxSize();
+        lenient().doReturn(TTL).when(transferProperty).getIdempotencyCacheTtl();
+        lenient().doReturn(NOW).when(clock).instant();
+
+        this.cache = new ProcessedTransferCache(transferProperty, clock);
+    }
+
+    @Test
+    void WHEN_get_THEN_returnTheCachedTransfer() {
+        var transfer = buildTransfer("key");
+        cache.put(transfer);
+
+        assertEquals(Optional.of(transfer), cache.get("key"));
+        assertEquals(Optional.empty(), cache.get("other-key"));
+    }
+
+    @Test
+    void GIVEN_expiredTransfer_WHEN_get_THEN_evictIt() {
+        cache.put(buildTransfer("key"));
+        doReturn(NOW.plus(TTL).plusMillis(1)).when(clock).instant();
+
+        assertEquals(Optional.empty(), cache.get("key"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void GIVEN_fullCache_WHEN_put_THEN_evictTheOldestTransfer() {
+        cache.put(buildTransfer("first"));
+        cache.put(buildTransfer("second"));
+        cache.put(buildTransfer("first"));
+
+        cache.put(buildTransfer("third"));
+
+        assertEquals(MAX_SIZE, cache.size());
+        assertEquals(Optional.empty(), cache.get("second"));
+        assertEquals("first", cache.get("first").orElseThrow().idempotencyKey());
+        assertEquals("third", cache.get("third").orElseThrow().idempotencyKey());
+    }
+
+    @Test
+    void GIVEN_noTtl_WHEN_put_THEN_cacheNothing() {
+        doReturn(Duration.ZERO).when(transferProperty).getIdempotencyCacheTtl();
+        var disabledCache = new ProcessedTransferCache(transferProperty, clock);
+
+        disabledCache.put(buildTransfer("key"));
+
+        assertFalse(disabledCache.isEnabled());
+        assertEquals(Optional.empty(), disabledCache.get("key"));
+    }
+
+    private static ProcessedTransfer buildTransfer(String idempotencyKey) {
+        var request = TransferRequest.builder()
+                .fromAccountId(1)
+                .toAccountId(2)
+                .amount(BigDecimal.TEN)
+                .build();
+        return ProcessedTransfer.builder()
+                .idempotencyKey(idempotencyKey)
+                .request(request)
+                .processedAt(NOW)
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    @Test
+    void WHEN_created_THEN_canRetry() {
+        var budget = new RetryBudget(10, 0.1);
+
+        assertTrue(budget.canRetry());
+    }
+
+    @Test
+    void GIVEN_halfOfTheTokensSpent_WHEN_canRetry_THEN_returnFalse() {
+        var budget = new RetryBudget(10, 0.1);
+
+        recordConflicts(budget, 5);
+
+        assertFalse(budget.canRetry());
+    }
+
+    @Test
+    void GIVEN_budgetExhausted_WHEN_successesRecorded_THEN_canRetryAgain() {
+        var budget = new RetryBudget(10, 0.5);
+        recordConflicts(budget, 5);
+
+        budget.recordSuccess();
+
+        assertTrue(budget.canRetry());
+    }
+
+    @Test
+    void GIVEN_successesBeyondCapacity_WHEN_conflictsRecorded_THEN_tokensAreCapped() {
+        var budget = new RetryBudget(10, 1);
+        for (int index = 0; index < 100; index++) {
+            budget.recordSuccess();
+        }
+
+        recordConflicts(budget, 5);
+
+        assertFalse(budget.canRetry());
+    }
+
+    private void recordConflicts(RetryBudget budget, int count) {
+        for (int index = 0; index < count; index++) {
+            budget.recordConflict();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.account.AccountEntity;
+import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.account.BalanceDelta;
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedBalanceUpdaterTest {
+
+    private static final int SHARDS = 4;
+    private static final long INITIAL_BALANCE_IN_CENTS = 10_000;
+
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private LedgerJournal journal;
+    @Mock
+    private TransferJournal transferJournal;
+
+    private ShardedBalanceUpdater updater;
+
+    @AfterEach
+    void afterEach() {
+        if (updater != null) {
+            updater.stop();
+        }
+    }
+
+    @Test
+    void GIVEN_nullTransfer_WHEN_apply_THEN_throwsNullPointer() {
+        createUpdater();
+
+        assertThrows(NullPointerException.class, () -> updater.apply(null));
+    }
+
+    @Test
+    void WHEN_isBalanceInDatabaseCurrent_THEN_returnFalse() {
+        createUpdater();
+
+        assertFalse(updater.isBalanceInDatabaseCurrent());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_accountsOfTheSameShard_WHEN_apply_THEN_journalBothDeltas() {
+        createUpdater();
+        var accountIds = findAccounts(true);
+        mockAccounts();
+
+        updater.apply(buildTransfer(accountIds[0], accountIds[1], 1000));
+
+        verify(journal).append(buildDelta(accountIds[0], -1000));
+        verify(journal).append(buildDelta(accountIds[1], 1000));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_accountsOfDifferentShards_WHEN_apply_THEN_journalBothDeltas() {
+        createUpdater();
+        var accountIds = findAccounts(false);
+        mockAccounts();
+
+        updater.apply(buildTransfer(accountIds[0], accountIds[1], 1000));
+
+        verify(journal).append(buildDelta(accountIds[0], -1000));
+        verify(journal).append(buildDelta(accountIds[1], 1000));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_apply_THEN_recordTheOpeningBalancesAndTheTransferInTheTransferJournal() {
+        doReturn(true).when(transferJournal).isEnabled();
+        createUpdater();
+        var accountIds = findAccounts(false);
+        mockAccounts();
+        var transfer = buildTransfer(accountIds[0], accountIds[1], 1000);
+
+        updater.apply(transfer);
+
+        verify(transferJournal).recordOpening(accountIds[0], Money.ofCents(INITIAL_BALANCE_IN_CENTS, Currency.GBP));
+        verify(transferJournal).recordOpening(accountIds[1], Money.ofCents(INITIAL_BALANCE_IN_CENTS, Currency.GBP));
+        verify(transferJournal).recordTransfer(transfer);
+    }
+
+    @Test
+    void GIVEN_deniedTransfer_WHEN_apply_THEN_doNotRecordItInTheTransferJournal() {
+        doReturn(true).when(transferJournal).isEnabled();
+        createUpdater();
+        var accountIds = findAccounts(true);
+        mockAccounts();
+        var transfer = buildTransfer(accountIds[0], accountIds[1], INITIAL_BALANCE_IN_CENTS + 1);
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(transfer));
+        verify(transferJournal, never()).recordTransfer(any());
+    }
+
+    @SneakyThrows
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void GIVEN_failedTransferJournal_WHEN_apply_THEN_throwsWithoutChangingAnyBalance(boolean isSameShard) {
+        doReturn(true).when(transferJournal).isEnabled();
+        createUpdater();
+        var accountIds = findAccounts(isSameShard);
+        mockAccounts();
+        var transfer = buildTransfer(accountIds[0], accountIds[1], INITIAL_BALANCE_IN_CENTS);
+        doThrow(new IllegalStateException("The transfer journal failed")).when(transferJournal)
+                .recordTransfer(transfer);
+
+        assertThrows(IllegalStateException.class, () -> updater.apply(transfer));
+        verify(journal, never()).append(any());
+
+        doNothing().when(transferJournal).recordTransfer(transfer);
+        updater.apply(transfer);
+        verify(journal).append(buildDelta(accountIds[0], -INITIAL_BALANCE_IN_CENTS));
+        verify(journal).append(buildDelta(accountIds[1], INITIAL_BALANCE_IN_CENTS));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_accountRecoveredByTheTransferJournal_WHEN_loadRecoveredAccounts_THEN_restoreItsBalance() {
+        var recoveredBalance = Money.ofCents(2500, Currency.GBP);
+        doReturn(Set.of(7L)).when(transferJournal).getRecoveredAccountIds();
+        doReturn(Optional.of(recoveredBalance)).when(transferJournal).getRecoveredBalance(7L);
+        mockAccounts();
+        createUpdater();
+
+        updater.loadRecoveredAccounts();
+
+        verify(journal).append(buildDelta(7, 2500 - INITIAL_BALANCE_IN_CENTS));
+        var transfer = buildTransfer(7, 8, 2501);
+        assertThrows(IllegalTransferException.class, () -> updater.apply(transfer));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_successiveTransfers_WHEN_apply_THEN_loadTheAccountsOnceAndCheckTheBalanceInMemory() {
+        createUpdater();
+        var accountIds = findAccounts(false);
+        mockAccounts();
+
+        updater.apply(buildTransfer(accountIds[0], accountIds[1], 6000));
+        var secondTransfer = buildTransfer(accountIds[0], accountIds[1], 6000);
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(secondTransfer));
+        updater.apply(buildTransfer(accountIds[0], accountIds[1], 4000));
+        verify(accountService, times(1)).getById(accountIds[0]);
+        verify(accountService, times(1)).getById(accountIds[1]);
+    }
+
+    @Test
+    void GIVEN_debitAccountNotFound_WHEN_apply_THEN_throwsIllegalTransfer() {
+        createUpdater();
+        var accountIds = findAccounts(false);
+        doReturn(Optional.empty()).when(accountService).getById(accountIds[0]);
+        var transfer = buildTransfer(accountIds[0], accountIds[1], 1000);
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(transfer));
+        verify(journal, never()).append(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_creditAccountOfAnotherShardNotFound_WHEN_apply_THEN_releaseTheReservedAmount() {
+        createUpdater();
+        var accountIds = findAccounts(false);
+        mockAccount(accountIds[0]);
+        doReturn(Optional.empty()).when(accountService).getById(accountIds[1]);
+        var transfer = buildTransfer(accountIds[0], accountIds[1], INITIAL_BALANCE_IN_CENTS);
+
+        assertThrows(IllegalTransferException.class, () -> updater.apply(transfer));
+        verify(journal, never()).append(any());
+
+        mockAccount(accountIds[1]);
+        updater.apply(transfer);
+        verify(journal).append(buildDelta(accountIds[0], -INITIAL_BALANCE_IN_CENTS));
+    }
+
+    @Test
+    void WHEN_getShard_THEN_spreadConsecutiveAccountsOverAllShards() {
+        createUpdater();
+
+        var usedShards = LongStream.range(0, 100)
+                .mapToObj(updater::getShard)
+                .distinct()
+                .count();
+
+        assertEquals(SHARDS, usedShards);
+    }
+
+    @SneakyThrows
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void GIVEN_concurrentTransfers_WHEN_apply_THEN_keepTheTotalOfTheBalancesAndNeverOverdraw(boolean isJournaled) {
+        doReturn(isJournaled).when(transferJournal).isEnabled();
+        createUpdater();
+        var accountCount = 8;
+        mockAccounts();
+        var balances = new ConcurrentHashMap<Long, Long>();
+        doAnswer(invocation -> {
+            BalanceDelta delta = invocation.getArgument(0);
+            balances.merge(delta.accountId(), delta.delta().amountInCents(), Long::sum);
+            return null;
+        }).when(journal).append(any());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            var transfers = new ArrayList<CompletableFuture<Void>>();
+            for (int index = 0; index < 4_000; index++) {
+                var debitAccountId = (long) index % accountCount;
+                var creditAccountId = (long) (index * 3 + 1) % accountCount;
+                if (debitAccountId == creditAccountId) {
+                    continue;
+                }
+                var transfer = buildTransfer(debitAccountId, creditAccountId, 700 + index % 5 * 100);
+                transfers.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        updater.apply(transfer);
+                    } catch (IllegalTransferException exception) {
+                        // Expected when the balance is not sufficient
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(transfers.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, balances.values().stream().mapToLong(Long::longValue).sum());
+        for (long accountId = 0; accountId < accountCount; accountId++) {
+            var finalBalance = INITIAL_BALANCE_IN_CENTS + balances.getOrDefault(accountId, 0L);
+            assertFalse(finalBalance < 0, () -> "Negative balance: " + finalBalance);
+        }
+    }
+
+    @Test
+    void WHEN_getShard_THEN_returnTheSameShardForTheSameAccount() {
+        createUpdater();
+
+        assertSame(updater.getShard(42), updater.getShard(42));
+        var accountIds = findAccounts(false);
+        assertNotSame(updater.getShard(accountIds[0]), updater.getShard(accountIds[1]));
+    }
+
+    private void createUpdater() {
+        var transferProperty = mock(TransferProperty.class);
+        doReturn(SHARDS).when(transferProperty).getShardedShards();
+        doReturn(16).when(transferProperty).getShardedRingBufferSize();
+        doReturn(TransferProperty.DEFAULT_SHARDED_SUBMIT_TIMEOUT).when(transferProperty).getShardedSubmitTimeout();
+        this.updater = new ShardedBalanceUpdater(accountService, journal, transferJournal, transferProperty);
+    }
+
+    /**
+     * Finds two accounts handled by the same shard or by different shards.
+     */
+    private long[] findAccounts(boolean isSameShard) {
+        for (long accountId = 2; ; accountId++) {
+            if ((updater.getShard(1) == updater.getShard(accountId)) == isSameShard) {
+                return new long[]{1, accountId};
+            }
+        }
+    }
+
+    private void mockAccounts() {
+        doAnswer(invocation -> Optional.of(buildAccount(invocation.getArgument(0))))
+                .when(accountService).getById(anyLong());
+    }
+
+    private void mockAccount(long accountId) {
+        doReturn(Optional.of(buildAccount(accountId))).when(accountService).getById(accountId);
+    }
+
+    private static AccountEntity buildAccount(long accountId) {
+        return AccountEntity.builder()
+                .id(accountId)
+                .currency(Currency.GBP)
+                .balanceInCents(INITIAL_BALANCE_IN_CENTS)
+                .build();
+    }
+
+    private static BalanceTransfer buildTransfer(long debitAccountId, long creditAccountId, long amountInCents) {
+        return BalanceTransfer.builder()
+                .debitAccountId(debitAccountId)
+                .debitedAmount(Money.ofCents(amountInCents, Currency.GBP))
+                .creditAccountId(creditAccountId)
+                .creditedAmount(Money.ofCents(amountInCents, Currency.GBP))
+                .build();
+    }
+
+    private static BalanceDelta buildDelta(long accountId, long deltaInCents) {
+        return BalanceDelta.builder()
+                .accountId(accountId)
+                .delta(Money.ofCents(deltaInCents, Currency.GBP))
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class SubmittedTransferRegistryTest {
+
+    private static final Instant NOW = Instant.parse("2022-08-31T12:00:00Z");
+    private static final Duration RETENTION = Duration.ofMinutes(10);
+    private static final int MAX_SIZE = 2;
+
+    @Mock
+    private Clock clock;
+
+    private SubmittedTransferRegistry registry;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(NOW).when(clock).instant();
+
+        this.registry = new SubmittedTransferRegistry(MAX_SIZE, RETENTION, clock);
+    }
+
+    @Test
+    void WHEN_put_THEN_getTheLatestStatus() {
+        var pendingTransfer = buildPendingTransfer();
+        registry.put(pendingTransfer);
+        var completedTransfer = complete(pendingTransfer, NOW);
+        registry.put(completedTransfer);
+
+        assertEquals(Optional.of(completedTransfer), registry.get(pendingTransfer.id()));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void GIVEN_expiredCompletedTransfer_WHEN_get_THEN_evictIt() {
+        var completedTransfer = complete(buildPendingTransfer(), NOW);
+        registry.put(completedTransfer);
+        doReturn(NOW.plus(RETENTION).plusMillis(1)).when(clock).instant();
+
+        assertEquals(Optional.empty(), registry.get(completedTransfer.id()));
+    }
+
+    @Test
+    void GIVEN_oldPendingTransfer_WHEN_get_THEN_keepIt() {
+        var pendingTransfer = buildPendingTransfer();
+        registry.put(pendingTransfer);
+        doReturn(NOW.plus(RETENTION).plusMillis(1)).when(clock).instant();
+
+        assertEquals(Optional.of(pendingTransfer), registry.get(pendingTransfer.id()));
+    }
+
+    @Test
+    void GIVEN_fullRegistry_WHEN_put_THEN_evictTheOldestCompletedTransfer() {
+        var pendingTransfer = buildPendingTransfer();
+        var completedTransfer = complete(buildPendingTransfer(), NOW);
+        var newTransfer = buildPendingTransfer();
+        registry.put(pendingTransfer);
+        registry.put(completedTransfer);
+
+        registry.put(newTransfer);
+
+        assertEquals(MAX_SIZE, registry.size());
+        assertTrue(registry.get(pendingTransfer.id()).isPresent());
+        assertEquals(Optional.empty(), registry.get(completedTransfer.id()));
+        assertTrue(registry.get(newTransfer.id()).isPresent());
+    }
+
+    @Test
+    void WHEN_remove_THEN_forgetTheTransfer() {
+        var pendingTransfer = buildPendingTransfer();
+        registry.put(pendingTransfer);
+
+        registry.remove(pendingTransfer.id());
+
+        assertEquals(Optional.empty(), registry.get(pendingTransfer.id()));
+    }
+
+    private static SubmittedTransfer buildPendingTransfer() {
+        var request = TransferRequest.builder()
+                .fromAccountId(1)
+                .toAccountId(2)
+                .amount(BigDecimal.TEN)
+                .build();
+        return SubmittedTransfer.builder()
+                .id(UUID.randomUUID())
+                .request(request)
+                .status(TransferStatus.PENDING)
+                .submittedAt(NOW)
+                .build();
+    }
+
+    private static SubmittedTransfer complete(SubmittedTransfer transfer, Instant completedAt) {
+        return transfer.toBuilder()
+                .status(TransferStatus.SUCCEEDED)
+                .message("Transfer successful")
+                .completedAt(completedAt)
+                .build();
+    }
+}
@@ -0,0 +1,382 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import io.dnpn.fundtransfer.common.Money;
+import io.dnpn.fundtransfer.currency.Currency;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class TransferJournalTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+    private static final int SMALL_SEGMENT_SIZE = 4 * 1024;
+    private static final long ACCOUNT_A = 1;
+    private static final long ACCOUNT_B = 2;
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private TransferProperty transferProperty;
+
+    private final List<TransferJournal> openedJournals = new ArrayList<>();
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(Optional.of(directory)).when(transferProperty).getJournalDirectory();
+        lenient().doReturn(JournalFsyncPolicy.ALWAYS).when(transferProperty).getJournalFsyncPolicy();
+        lenient().doReturn(TransferProperty.DEFAULT_JOURNAL_SEGMENT_SIZE).when(transferProperty)
+                .getJournalSegmentSize();
+        lenient().doReturn(TransferProperty.DEFAULT_JOURNAL_SEGMENT_RETENTION).when(transferProperty)
+                .getJournalSegmentRetention();
+        lenient().doReturn(TransferProperty.DEFAULT_JOURNAL_FSYNC_INTERVAL).when(transferProperty)
+                .getJournalFsyncInterval();
+    }
+
+    @AfterEach
+    void afterEach() {
+        openedJournals.forEach(TransferJournal::close);
+    }
+
+    @Test
+    void GIVEN_noDirectory_WHEN_record_THEN_doNothing() {
+        doReturn(Optional.empty()).when(transferProperty).getJournalDirectory();
+        var journal = openJournal();
+
+        journal.recordOpening(ACCOUNT_A, gbp(1000));
+        journal.recordTransfer(buildTransfer(ACCOUNT_A, ACCOUNT_B, 100));
+        journal.snapshot();
+
+        assertFalse(journal.isEnabled());
+        assertEquals(Set.of(), journal.getRecoveredAccountIds());
+    }
+
+    @Test
+    void GIVEN_emptyDirectory_WHEN_open_THEN_recoverNothing() {
+        var journal = openJournal();
+
+        assertTrue(journal.isEnabled());
+        assertEquals(Set.of(), journal.getRecoveredAccountIds());
+        assertEquals(Optional.empty(), journal.getRecoveredBalance(ACCOUNT_A));
+    }
+
+    @ParameterizedTest
+    @EnumSource(JournalFsyncPolicy.class)
+    void GIVEN_journalNotClosed_WHEN_open_THEN_recoverTheBalancesByReplayingTheRecords(JournalFsyncPolicy policy) {
+        doReturn(policy).when(transferProperty).getJournalFsyncPolicy();
+        var crashedJournal = openJournal();
+        crashedJournal.recordOpening(ACCOUNT_A, gbp(1000));
+        crashedJournal.recordOpening(ACCOUNT_B, gbp(50));
+        crashedJournal.recordTransfer(buildTransfer(ACCOUNT_A, ACCOUNT_B, 300));
+        crashedJournal.syncPeriodically();
+
+        var journal = new TransferJournal(transferProperty, CLOCK);
+        openedJournals.add(journal);
+
+        assertEquals(Set.of(ACCOUNT_A, ACCOUNT_B), journal.getRecoveredAccountIds());
+        assertEquals(Optional.of(gbp(700)), journal.getRecoveredBalance(ACCOUNT_A));
+        assertEquals(Optional.of(gbp(350)), journal.getRecoveredBalance(ACCOUNT_B));
+    }
+
+    @Test
+    void GIVEN_accountAlreadyKnown_WHEN_recordOpening_THEN_keepTheJournalBalance() {
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(1000));
+        journal.recordTransfer(buildTransfer(ACCOUNT_A, ACCOUNT_B, 300));
+
+        journal.recordOpening(ACCOUNT_A, gbp(1000));
+
+        assertEquals(Optional.of(gbp(700)), reopen(journal).getRecoveredBalance(ACCOUNT_A));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_snapshot_THEN_keepTheSegmentsAndRecoverFromTheSnapshotAndTheTail() {
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(1000));
+        journal.recordOpening(ACCOUNT_B, gbp(0));
+        journal.recordTransfer(buildTransfer(ACCOUNT_A, ACCOUNT_B, 100));
+
+        journal.snapshot();
+        journal.recordTransfer(buildTransfer(ACCOUNT_B, ACCOUNT_A, 40));
+
+        assertEquals(List.of("journal-00000000000000000001.log", "journal-00000000000000000004.log",
+                "snapshot-00000000000000000003.bin"), listFileNames());
+        var reopenedJournal = new TransferJournal(transferProperty, CLOCK);
+        openedJournals.add(reopenedJournal);
+        assertEquals(Optional.of(gbp(940)), reopenedJournal.getRecoveredBalance(ACCOUNT_A));
+        assertEquals(Optional.of(gbp(60)), reopenedJournal.getRecoveredBalance(ACCOUNT_B));
+    }
+
+    @Test
+    void GIVEN_noRecordSinceTheLastSnapshot_WHEN_snapshot_THEN_doNotWriteAnotherOne() {
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(1000));
+        journal.snapshot();
+
+        journal.snapshot();
+
+        assertEquals(List.of("journal-00000000000000000001.log", "journal-00000000000000000002.log",
+                "snapshot-00000000000000000001.bin"), listFileNames());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_segmentPastItsRetention_WHEN_snapshot_THEN_deleteItAndKeepTheRecentSegments() {
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(1000));
+        journal.recordOpening(ACCOUNT_B, gbp(0));
+        journal.snapshot();
+        journal.recordTransfer(buildTransfer(ACCOUNT_A, ACCOUNT_B, 100));
+        var expiredTime = FileTime.from(CLOCK.instant().minus(TransferProperty.DEFAULT_JOURNAL_SEGMENT_RETENTION)
+                .minusSeconds(1));
+        Files.setLastModifiedTime(directory.resolve("journal-00000000000000000001.log"), expiredTime);
+
+        journal.snapshot();
+
+        assertEquals(List.of("journal-00000000000000000003.log", "journal-00000000000000000004.log",
+                "snapshot-00000000000000000003.bin"), listFileNames());
+        var reopenedJournal = reopen(journal);
+        assertEquals(Optional.of(gbp(900)), reopenedJournal.getRecoveredBalance(ACCOUNT_A));
+        assertEquals(Optional.of(gbp(100)), reopenedJournal.getRecoveredBalance(ACCOUNT_B));
+    }
+
+    @Test
+    void GIVEN_smallSegments_WHEN_recordManyTransfers_THEN_rollToNewSegmentsAndReplayThemAll() {
+        doReturn(SMALL_SEGMENT_SIZE).when(transferProperty).getJournalSegmentSize();
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(100_000));
+        journal.recordOpening(ACCOUNT_B, gbp(0));
+
+        for (int index = 0; index < 500; index++) {
+            journal.recordTransfer(buildTransfer(ACCOUNT_A, ACCOUNT_B, 1));
+        }
+
+        assertTrue(listFileNames().size() > 1);
+        var reopenedJournal = reopen(journal);
+        assertEquals(Optional.of(gbp(99_500)), reopenedJournal.getRecoveredBalance(ACCOUNT_A));
+        assertEquals(Optional.of(gbp(500)), reopenedJournal.getRecoveredBalance(ACCOUNT_B));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_recordCorruptedByACrash_WHEN_open_THEN_ignoreItAndTheFollowingOnes() {
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(1000));
+        journal.recordOpening(ACCOUNT_B, gbp(0));
+        journal.recordTransfer(buildTransfer(ACCOUNT_A, ACCOUNT_B, 100));
+        var endOfValidRecords = findEndOfRecords(directory.resolve("journal-00000000000000000001.log"));
+        journal.recordTransfer(buildTransfer(ACCOUNT_A, ACCOUNT_B, 200));
+        corruptByte(directory.resolve("journal-00000000000000000001.log"), endOfValidRecords + 20);
+
+        var reopenedJournal = openJournal();
+
+        assertEquals(Optional.of(gbp(900)), reopenedJournal.getRecoveredBalance(ACCOUNT_A));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_missingSegment_WHEN_open_THEN_throwsIllegalState() {
+        doReturn(SMALL_SEGMENT_SIZE).when(transferProperty).getJournalSegmentSize();
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(100_000));
+        journal.recordOpening(ACCOUNT_B, gbp(0));
+        for (int index = 0; index < 200; index++) {
+            journal.recordTransfer(buildTransfer(ACCOUNT_A, ACCOUNT_B, 1));
+        }
+        var segments = listFileNames();
+        Files.delete(directory.resolve(segments.get(1)));
+
+        assertThrows(IllegalStateException.class, () -> new TransferJournal(transferProperty, CLOCK));
+    }
+
+    @Test
+    void GIVEN_tooSmallSegmentSize_WHEN_open_THEN_throwsIllegalArgument() {
+        doReturn(1024).when(transferProperty).getJournalSegmentSize();
+
+        assertThrows(IllegalArgumentException.class, () -> new TransferJournal(transferProperty, CLOCK));
+    }
+
+    @Test
+    void GIVEN_zeroFsyncIntervalWithTheIntervalPolicy_WHEN_open_THEN_throwsIllegalArgument() {
+        doReturn(JournalFsyncPolicy.INTERVAL).when(transferProperty).getJournalFsyncPolicy();
+        doReturn(Duration.ZERO).when(transferProperty).getJournalFsyncInterval();
+
+        assertThrows(IllegalArgumentException.class, () -> new TransferJournal(transferProperty, CLOCK));
+    }
+
+    @Test
+    void GIVEN_closedJournal_WHEN_recordTransfer_THEN_throwsIllegalState() {
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(1000));
+        journal.close();
+        openedJournals.remove(journal);
+
+        var transfer = buildTransfer(ACCOUNT_A, ACCOUNT_B, 100);
+        assertThrows(IllegalStateException.class, () -> journal.recordTransfer(transfer));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_segmentNotCreated_WHEN_recordTransfer_THEN_failTheJournalAndRecordNothingAnymore() {
+        var journalDirectory = Files.createDirectory(directory.resolve("journal"));
+        doReturn(Optional.of(journalDirectory)).when(transferProperty).getJournalDirectory();
+        doReturn(SMALL_SEGMENT_SIZE).when(transferProperty).getJournalSegmentSize();
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(100_000));
+        journal.recordOpening(ACCOUNT_B, gbp(100_000));
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            for (var file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journalDirectory);
+
+        var transfer = buildTransfer(ACCOUNT_A, ACCOUNT_B, 1);
+        assertThrows(UncheckedIOException.class, () -> {
+            for (int index = 0; index < SMALL_SEGMENT_SIZE; index++) {
+                journal.recordTransfer(transfer);
+            }
+        });
+        assertThrows(IllegalStateException.class, () -> journal.recordTransfer(transfer));
+        assertThrows(IllegalStateException.class, () -> journal.recordOpening(3, gbp(1000)));
+    }
+
+    @Test
+    void GIVEN_fileInsteadOfDirectory_WHEN_open_THEN_throwsUncheckedIO() throws Exception {
+        var file = Files.createFile(directory.resolve("file"));
+        doReturn(Optional.of(file)).when(transferProperty).getJournalDirectory();
+
+        assertThrows(UncheckedIOException.class, () -> new TransferJournal(transferProperty, CLOCK));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_concurrentTransfers_WHEN_recordTransfer_THEN_recoverEveryTransfer() {
+        doReturn(SMALL_SEGMENT_SIZE).when(transferProperty).getJournalSegmentSize();
+        var journal = openJournal();
+        journal.recordOpening(ACCOUNT_A, gbp(100_000));
+        journal.recordOpening(ACCOUNT_B, gbp(100_000));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 4; thread++) {
+                final var isFromA = thread % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int index = 0; index < 250; index++) {
+                        journal.recordTransfer(isFromA
+                                ? buildTransfer(ACCOUNT_A, ACCOUNT_B, 3)
+                                : buildTransfer(ACCOUNT_B, ACCOUNT_A, 1));
+                        if (index % 100 == 0) {
+                            journal.snapshot();
+                        }
+                    }
+                }));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var reopenedJournal = reopen(journal);
+        assertEquals(Optional.of(gbp(100_000 - 1500 + 500)), reopenedJournal.getRecoveredBalance(ACCOUNT_A));
+        assertEquals(Optional.of(gbp(100_000 + 1500 - 500)), reopenedJournal.getRecoveredBalance(ACCOUNT_B));
+    }
+
+    private TransferJournal openJournal() {
+        var journal = new TransferJournal(transferProperty, CLOCK);
+        openedJournals.add(journal);
+        return journal;
+    }
+
+    /**
+     * Closes the journal, which writes a snapshot, and opens it again.
+     */
+    private TransferJournal reopen(TransferJournal journal) {
+        journal.close();
+        openedJournals.remove(journal);
+        return openJournal();
+    }
+
+    @SneakyThrows
+    private List<String> listFileNames() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @SneakyThrows
+    private static int findEndOfRecords(Path segment) {
+        try (var channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.getInt(buffer.position()) != 0) {
+                buffer.position(buffer.position() + 2 * Integer.BYTES + buffer.getInt(buffer.position()));
+            }
+            return buffer.position();
+        }
+    }
+
+    @SneakyThrows
+    private static void corruptByte(Path segment, int position) {
+        try (var channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.flip();
+            var corrupted = ByteBuffer.wrap(new byte[]{(byte) ~value.get()});
+            channel.write(corrupted, position);
+        }
+    }
+
+    private static Money gbp(long amountInCents) {
+        return Money.ofCents(amountInCents, Currency.GBP);
+    }
+
+    private static BalanceTransfer buildTransfer(long debitAccountId, long creditAccountId, long amountInCents) {
+        return BalanceTransfer.builder()
+                .debitAccountId(debitAccountId)
+                .debitedAmount(gbp(amountInCents))
+                .creditAccountId(creditAccountId)
+                .creditedAmount(gbp(amountInCents))
+                .build();
+    }
+}
@@ -0,0 +1,262 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith({MockitoExtension.class, OutputCaptureExtension.class})
+class TransferPropertyTest {
+
+    @Mock
+    private Environment environment;
+    @InjectMocks
+    private TransferProperty property;
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getLockTimeout_THEN_returnDefaultValue() {
+        doReturn(null).when(environment).getProperty(TransferProperty.LOCK_TIMEOUT);
+
+        assertEquals(TransferProperty.DEFAULT_LOCK_TIMEOUT, property.getLockTimeout());
+    }
+
+    @Test
+    void WHEN_getLockTimeout_THEN_returnPropertyValue() {
+        doReturn("250").when(environment).getProperty(TransferProperty.LOCK_TIMEOUT);
+
+        assertEquals(Duration.ofMillis(250), property.getLockTimeout());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getBatchMaxSize_THEN_returnDefaultValue() {
+        doReturn(null).when(environment).getProperty(TransferProperty.BATCH_MAX_SIZE);
+
+        assertEquals(TransferProperty.DEFAULT_BATCH_MAX_SIZE, property.getBatchMaxSize());
+    }
+
+    @Test
+    void WHEN_getBatchMaxSize_THEN_returnPropertyValue() {
+        doReturn("42").when(environment).getProperty(TransferProperty.BATCH_MAX_SIZE);
+
+        assertEquals(42, property.getBatchMaxSize());
+    }
+
+    @Test
+    void GIVEN_propertyNotSet_WHEN_getBatchChunkSize_THEN_returnDefaultValue() {
+        doReturn(null).when(environment).getProperty(TransferProperty.BATCH_CHUNK_SIZE);
+
+        assertEquals(TransferProperty.DEFAULT_BATCH_CHUNK_SIZE, property.getBatchChunkSize());
+    }
+
+    @Test
+    void WHEN_getBatchChunkSize_THEN_returnPropertyValue() {
+        doReturn("500").when(environment).getProperty(TransferProperty.BATCH_CHUNK_SIZE);
+
+        assertEquals(500, property.getBatchChunkSize());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abc", "0", "-1"})
+    void GIVEN_invalidProperty_WHEN_getBatchChunkSize_THEN_logErrorDetails(String value, CapturedOutput capturedOutput) {
+        doReturn(value).when(environment).getProperty(TransferProperty.BATCH_CHUNK_SIZE);
+
+        assertThrows(IllegalArgumentException.class, () -> property.getBatchChunkSize());
+
+        var log = capturedOutput.getOut();
+        assertTrue(log.contains(TransferProperty.BATCH_CHUNK_SIZE));
+        assertTrue(log.contains(value));
+    }
+
+    @Test
+    void GIVEN_propertiesNotSet_WHEN_getRetryProperties_THEN_returnDefaultValues() {
+        assertEquals(TransferProperty.DEFAULT_RETRY_MAX_ATTEMPTS, property.getRetryMaxAttempts());
+        assertEquals(TransferProperty.DEFAULT_RETRY_INITIAL_BACKOFF, property.getRetryInitialBackoff());
+        assertEquals(TransferProperty.DEFAULT_RETRY_MAX_BACKOFF, property.getRetryMaxBackoff());
+        assertEquals(TransferProperty.DEFAULT_RETRY_BUDGET_MAX_TOKENS, property.getRetryBudgetMaxTokens());
+        assertEquals(TransferProperty.DEFAULT_RETRY_BUDGET_TOKEN_RATIO, property.getRetryBudgetTokenRatio());
+    }
+
+    @Test
+    void WHEN_getRetryProperties_THEN_returnPropertyValues() {
+        doReturn("5").when(environment).getProperty(TransferProperty.RETRY_MAX_ATTEMPTS);
+        doReturn("0").when(environment).getProperty(TransferProperty.RETRY_INITIAL_BACKOFF);
+        doReturn("500").when(environment).getProperty(TransferProperty.RETRY_MAX_BACKOFF);
+        doReturn("20").when(environment).getProperty(TransferProperty.RETRY_BUDGET_MAX_TOKENS);
+        doReturn("0.5").when(environment).getProperty(TransferProperty.RETRY_BUDGET_TOKEN_RATIO);
+
+        assertEquals(5, property.getRetryMaxAttempts());
+        assertEquals(Duration.ZERO, property.getRetryInitialBackoff());
+        assertEquals(Duration.ofMillis(500), property.getRetryMaxBackoff());
+        assertEquals(20, property.getRetryBudgetMaxTokens());
+        assertEquals(0.5, property.getRetryBudgetTokenRatio());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abc", "-1"})
+    void GIVEN_invalidProperty_WHEN_getRetryMaxBackoff_THEN_logErrorDetails(String value, CapturedOutput capturedOutput) {
+        doReturn(value).when(environment).getProperty(TransferProperty.RETRY_MAX_BACKOFF);
+
+        assertThrows(IllegalArgumentException.class, () -> property.getRetryMaxBackoff());
+
+        var log = capturedOutput.getOut();
+        assertTrue(log.contains(TransferProperty.RETRY_MAX_BACKOFF));
+        assertTrue(log.contains(value));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abc", "0", "-0.1", "NaN"})
+    void GIVEN_invalidProperty_WHEN_getRetryBudgetTokenRatio_THEN_logErrorDetails(String value,
+                                                                               CapturedOutput capturedOutput) {
+        doReturn(value).when(environment).getProperty(TransferProperty.RETRY_BUDGET_TOKEN_RATIO);
+
+        assertThrows(IllegalArgumentException.class, () -> property.getRetryBudgetTokenRatio());
+
+        var log = capturedOutput.getOut();
+        assertTrue(log.contains(TransferProperty.RETRY_BUDGET_TOKEN_RATIO));
+        assertTrue(log.contains(value));
+    }
+
+    @Test
+    void GIVEN_propertiesNotSet_WHEN_getIdempotencyProperties_THEN_returnDefaultValues() {
+        assertEquals(TransferProperty.DEFAULT_IDEMPOTENCY_CACHE_MAX_SIZE, property.getIdempotencyCacheMaxSize());
+        assertEquals(TransferProperty.DEFAULT_IDEMPOTENCY_CACHE_TTL, property.getIdempotencyCacheTtl());
+        assertEquals(TransferProperty.DEFAULT_IDEMPOTENCY_RETENTION, property.getIdempotencyRetention());
+    }
+
+    @Test
+    void WHEN_getIdempotencyProperties_THEN_returnPropertyValues() {
+        doReturn("100").when(environment).getProperty(TransferProperty.IDEMPOTENCY_CACHE_MAX_SIZE);
+        doReturn("0").when(environment).getProperty(TransferProperty.IDEMPOTENCY_CACHE_TTL);
+        doReturn("3600000").when(environment).getProperty(TransferProperty.IDEMPOTENCY_RETENTION);
+
+        assertEquals(100, property.getIdempotencyCacheMaxSize());
+        assertEquals(Duration.ZERO, property.getIdempotencyCacheTtl());
+        assertEquals(Duration.ofHours(1), property.getIdempotencyRetention());
+    }
+
+    @Test
+    void GIVEN_propertiesNotSet_WHEN_getAsyncProperties_THEN_returnDefaultValues() {
+        assertEquals(TransferProperty.DEFAULT_ASYNC_WORKERS, property.getAsyncWorkers());
+        assertEquals(TransferProperty.DEFAULT_ASYNC_QUEUE_CAPACITY, property.getAsyncQueueCapacity());
+        assertEquals(TransferProperty.DEFAULT_ASYNC_RETRY_AFTER, property.getAsyncRetryAfter());
+        assertEquals(TransferProperty.DEFAULT_ASYNC_STATUS_MAX_SIZE, property.getAsyncStatusMaxSize());
+        assertEquals(TransferProperty.DEFAULT_ASYNC_STATUS_RETENTION, property.getAsyncStatusRetention());
+    }
+
+    @Test
+    void WHEN_getAsyncProperties_THEN_returnPropertyValues() {
+        doReturn("8").when(environment).getProperty(TransferProperty.ASYNC_WORKERS);
+        doReturn("50").when(environment).getProperty(TransferProperty.ASYNC_QUEUE_CAPACITY);
+        doReturn("2500").when(environment).getProperty(TransferProperty.ASYNC_RETRY_AFTER);
+        doReturn("200").when(environment).getProperty(TransferProperty.ASYNC_STATUS_MAX_SIZE);
+        doReturn("60000").when(environment).getProperty(TransferProperty.ASYNC_STATUS_RETENTION);
+
+        assertEquals(8, property.getAsyncWorkers());
+        assertEquals(50, property.getAsyncQueueCapacity());
+        assertEquals(Duration.ofMillis(2500), property.getAsyncRetryAfter());
+        assertEquals(200, property.getAsyncStatusMaxSize());
+        assertEquals(Duration.ofMinutes(1), property.getAsyncStatusRetention());
+    }
+
+    @Test
+    void GIVEN_propertiesNotSet_WHEN_getShardedProperties_THEN_returnDefaultValues() {
+        assertEquals(TransferProperty.DEFAULT_SHARDED_SHARDS, property.getShardedShards());
+        assertEquals(TransferProperty.DEFAULT_SHARDED_RING_BUFFER_SIZE, property.getShardedRingBufferSize());
+        assertEquals(TransferProperty.DEFAULT_SHARDED_SUBMIT_TIMEOUT, property.getShardedSubmitTimeout());
+    }
+
+    @Test
+    void WHEN_getShardedProperties_THEN_returnPropertyValues() {
+        doReturn("16").when(environment).getProperty(TransferProperty.SHARDED_SHARDS);
+        doReturn("4096").when(environment).getProperty(TransferProperty.SHARDED_RING_BUFFER_SIZE);
+        doReturn("250").when(environment).getProperty(TransferProperty.SHARDED_SUBMIT_TIMEOUT);
+
+        assertEquals(16, property.getShardedShards());
+        assertEquals(4096, property.getShardedRingBufferSize());
+        assertEquals(Duration.ofMillis(250), property.getShardedSubmitTimeout());
+    }
+
+    @Test
+    void GIVEN_propertiesNotSet_WHEN_getJournalProperties_THEN_returnDefaultValues() {
+        assertEquals(Optional.empty(), property.getJournalDirectory());
+        assertEquals(TransferProperty.DEFAULT_JOURNAL_FSYNC_POLICY, property.getJournalFsyncPolicy());
+        assertEquals(TransferProperty.DEFAULT_JOURNAL_FSYNC_INTERVAL, property.getJournalFsyncInterval());
+        assertEquals(TransferProperty.DEFAULT_JOURNAL_SEGMENT_SIZE, property.getJournalSegmentSize());
+        assertEquals(TransferProperty.DEFAULT_JOURNAL_SEGMENT_RETENTION, property.getJournalSegmentRetention());
+    }
+
+    @Test
+    void WHEN_getJournalProperties_THEN_returnPropertyValues() {
+        doReturn("/var/lib/journal").when(environment).getProperty(TransferProperty.JOURNAL_DIRECTORY);
+        doReturn("interval").when(environment).getProperty(TransferProperty.JOURNAL_FSYNC_POLICY);
+        doReturn("5").when(environment).getProperty(TransferProperty.JOURNAL_FSYNC_INTERVAL);
+        doReturn("1048576").when(environment).getProperty(TransferProperty.JOURNAL_SEGMENT_SIZE);
+        doReturn("86400000").when(environment).getProperty(TransferProperty.JOURNAL_SEGMENT_RETENTION);
+
+        assertEquals(Optional.of(Path.of("/var/lib/journal")), property.getJournalDirectory());
+        assertEquals(JournalFsyncPolicy.INTERVAL, property.getJournalFsyncPolicy());
+        assertEquals(Duration.ofMillis(5), property.getJournalFsyncInterval());
+        assertEquals(1048576, property.getJournalSegmentSize());
+        assertEquals(Duration.ofDays(1), property.getJournalSegmentRetention());
+    }
+
+    @Test
+    void GIVEN_blankDirectory_WHEN_getJournalDirectory_THEN_returnEmpty() {
+        doReturn(" ").when(environment).getProperty(TransferProperty.JOURNAL_DIRECTORY);
+
+        assertEquals(Optional.empty(), property.getJournalDirectory());
+    }
+
+    @Test
+    void GIVEN_invalidFsyncPolicy_WHEN_getJournalFsyncPolicy_THEN_throwsIllegalArgument() {
+        doReturn("sometimes").when(environment).getProperty(TransferProperty.JOURNAL_FSYNC_POLICY);
+
+        assertThrows(IllegalArgumentException.class, () -> property.getJournalFsyncPolicy());
+    }
+
+    @Test
+    void GIVEN_propertiesNotSet_WHEN_getGroupProperties_THEN_returnDefaultValues() {
+        assertEquals(TransferProperty.DEFAULT_GROUP_LINGER, property.getGroupLinger());
+        assertEquals(TransferProperty.DEFAULT_GROUP_MAX_SIZE, property.getGroupMaxSize());
+        assertEquals(TransferProperty.DEFAULT_GROUP_QUEUE_CAPACITY, property.getGroupQueueCapacity());
+        assertEquals(TransferProperty.DEFAULT_GROUP_RETRY_TIMEOUT, property.getGroupRetryTimeout());
+    }
+
+    @Test
+    void WHEN_getGroupProperties_THEN_returnPropertyValues() {
+        doReturn("5").when(environment).getProperty(TransferProperty.GROUP_LINGER);
+        doReturn("50").when(environment).getProperty(TransferProperty.GROUP_MAX_SIZE);
+        doReturn("500").when(environment).getProperty(TransferProperty.GROUP_QUEUE_CAPACITY);
+        doReturn("3000").when(environment).getProperty(TransferProperty.GROUP_RETRY_TIMEOUT);
+
+        assertEquals(Duration.ofMillis(5), property.getGroupLinger());
+        assertEquals(50, property.getGroupMaxSize());
+        assertEquals(500, property.getGroupQueueCapacity());
+        assertEquals(Duration.ofSeconds(3), property.getGroupRetryTimeout());
+    }
+
+    @Test
+    void WHEN_isShardedLocking_THEN_returnWhetherTheLockingIsSharded() {
+        assertFalse(property.isShardedLocking());
+
+        doReturn(TransferProperty.SHARDED_LOCKING).when(environment).getProperty(TransferProperty.LOCKING);
+
+        assertTrue(property.isShardedLocking());
+    }
+}
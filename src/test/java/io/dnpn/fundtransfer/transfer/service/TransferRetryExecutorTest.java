@@ -0,0 +1,153 @@
+package io.dnpn.fundtransfer.transfer.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransferRetryExecutorTest {
+
+    private static final long DEBIT_ACCOUNT_ID = 123;
+    private static final long CREDIT_ACCOUNT_ID = 456;
+    private static final List<Long> ACCOUNT_IDS = List.of(DEBIT_ACCOUNT_ID, CREDIT_ACCOUNT_ID);
+
+    @Mock
+    private TransferProperty transferProperty;
+
+    private TransferRetryExecutor.TransferOperation operation;
+    private TransferRetryExecutor executor;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().doReturn(3).when(transferProperty).getRetryMaxAttempts();
+        lenient().doReturn(Duration.ZERO).when(transferProperty).getRetryInitialBackoff();
+        lenient().doReturn(Duration.ZERO).when(transferProperty).getRetryMaxBackoff();
+        doReturn(100).when(transferProperty).getRetryBudgetMaxTokens();
+        doReturn(0.1).when(transferProperty).getRetryBudgetTokenRatio();
+
+        this.operation = mock(TransferRetryExecutor.TransferOperation.class);
+        this.executor = new TransferRetryExecutor(transferProperty);
+    }
+
+    @Test
+    void GIVEN_nullAccountIds_WHEN_execute_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> executor.execute(null, operation));
+    }
+
+    @Test
+    void GIVEN_nullOperation_WHEN_execute_THEN_throwsNullPointer() {
+        assertThrows(NullPointerException.class, () -> executor.execute(ACCOUNT_IDS, null));
+    }
+
+    @SneakyThrows
+    @Test
+    void WHEN_execute_THEN_runOperationOnce() {
+        executor.execute(ACCOUNT_IDS, operation);
+
+        verify(operation).run();
+        assertTrue(executor.getConflictCounts().isEmpty());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_illegalTransfer_WHEN_execute_THEN_doNotRetry() {
+        doThrow(IllegalTransferException.class).when(operation).run();
+
+        assertThrows(IllegalTransferException.class, () -> executor.execute(ACCOUNT_IDS, operation));
+        verify(operation).run();
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_transientConflict_WHEN_execute_THEN_retryAndRecordConflicts() {
+        doThrow(OptimisticLockingFailureException.class)
+                .doNothing()
+                .when(operation).run();
+
+        executor.execute(ACCOUNT_IDS, operation);
+
+        verify(operation, times(2)).run();
+        assertEquals(Map.of(DEBIT_ACCOUNT_ID, 1L, CREDIT_ACCOUNT_ID, 1L), executor.getConflictCounts());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_persistentConflict_WHEN_execute_THEN_throwsTransferConflictAfterMaxAttempts() {
+        doThrow(OptimisticLockingFailureException.class).when(operation).run();
+
+        assertThrows(TransferConflictException.class, () -> executor.execute(ACCOUNT_IDS, operation));
+        verify(operation, times(3)).run();
+        assertEquals(3L, executor.getConflictCounts().get(DEBIT_ACCOUNT_ID));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_retryBudgetExhausted_WHEN_execute_THEN_doNotRetry() {
+        doReturn(1000).when(transferProperty).getRetryMaxAttempts();
+        doThrow(OptimisticLockingFailureException.class).when(operation).run();
+        assertThrows(TransferConflictException.class, () -> executor.execute(ACCOUNT_IDS, operation));
+        verify(operation, times(50)).run();
+
+        assertThrows(TransferConflictException.class, () -> executor.execute(ACCOUNT_IDS, operation));
+        verify(operation, times(51)).run();
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_retryBudgetExhausted_WHEN_transfersSucceed_THEN_retryAgain() {
+        doReturn(1000).when(transferProperty).getRetryMaxAttempts();
+        doThrow(OptimisticLockingFailureException.class).when(operation).run();
+        assertThrows(TransferConflictException.class, () -> executor.execute(ACCOUNT_IDS, operation));
+
+        doNothing().when(operation).run();
+        for (int index = 0; index < 20; index++) {
+            executor.execute(ACCOUNT_IDS, operation);
+        }
+
+        doThrow(OptimisticLockingFailureException.class)
+                .doNothing()
+                .when(operation).run();
+        executor.execute(ACCOUNT_IDS, operation);
+    }
+
+    @Test
+    void WHEN_computeBackoff_THEN_returnDelayBetweenZeroAndExponentialBound() {
+        doReturn(Duration.ofMillis(10)).when(transferProperty).getRetryInitialBackoff();
+        doReturn(Duration.ofMillis(1000)).when(transferProperty).getRetryMaxBackoff();
+
+        for (int index = 0; index < 100; index++) {
+            var backoff = executor.computeBackoff(3).toMillis();
+            assertTrue(backoff >= 0 && backoff <= 40, "Unexpected backoff: " + backoff);
+        }
+    }
+
+    @Test
+    void WHEN_computeBackoff_THEN_returnDelayBoundedByMaxBackoff() {
+        doReturn(Duration.ofMillis(10)).when(transferProperty).getRetryInitialBackoff();
+        doReturn(Duration.ofMillis(50)).when(transferProperty).getRetryMaxBackoff();
+
+        for (int index = 0; index < 100; index++) {
+            var backoff = executor.computeBackoff(100).toMillis();
+            assertTrue(backoff >= 0 && backoff <= 50, "Unexpected backoff: " + backoff);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.dnpn.fundtransfer.transfer.service;
 
 import io.dnpn.fundtransfer.account.AccountEntity;
 import io.dnpn.fundtransfer.account.AccountService;
+import io.dnpn.fundtransfer.common.Money;
 import io.dnpn.fundtransfer.common.MoneyHandling;
 import io.dnpn.fundtransfer.currency.Currency;
 import io.dnpn.fundtransfer.currency.service.CurrencyConversionException;
@@ -17,12 +18,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.time.Instant;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,7 +39,9 @@ class TransferServiceTest {
 
     private static final long DEBIT_ACCOUNT_ID = 123;
     private static final long CREDIT_ACCOUNT_ID = 456;
+    private static final List<Long> ACCOUNT_IDS = List.of(DEBIT_ACCOUNT_ID, CREDIT_ACCOUNT_ID);
     private static final BigDecimal AMOUNT = new BigDecimal("123.45");
+    private static final BigDecimal EXCHANGE_RATE = new BigDecimal("1.1980173");
     private final TransferRequest REQUEST = TransferRequest.builder()
             .fromAccountId(DEBIT_ACCOUNT_ID)
             .toAccountId(CREDIT_ACCOUNT_ID)
@@ -44,6 +55,12 @@ class TransferServiceTest {
     private AccountService accountService;
     @Mock
     private CurrencyConversionService conversionService;
+    @Mock
+    private BalanceUpdater balanceUpdater;
+    @Mock
+    private TransferRetryExecutor retryExecutor;
+    @Mock
+    private ProcessedTransferRecorder recorder;
     @InjectMocks
     private TransferService transferService;
 
@@ -53,14 +70,15 @@ class TransferServiceTest {
                 .id(DEBIT_ACCOUNT_ID)
                 .version(123)
                 .currency(Currency.GBP)
-                .balance(AMOUNT.add(BigDecimal.ONE))
+                .balanceInCents(Money.toCents(AMOUNT.add(BigDecimal.ONE)))
                 .build();
         this.creditAccountEntity = AccountEntity.builder()
                 .id(CREDIT_ACCOUNT_ID)
                 .version(456)
                 .currency(Currency.USD)
-                .balance(BigDecimal.ONE)
+                .balanceInCents(Money.toCents(BigDecimal.ONE))
                 .build();
+        lenient().doReturn(true).when(balanceUpdater).isBalanceInDatabaseCurrent();
     }
 
     @Test
@@ -69,7 +87,7 @@ class TransferServiceTest {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"0", "-1.23"})
+    @ValueSource(strings = {"0", "-1.23", "1.234", "1234567890123456"})
     void GIVEN_invalidAmount_WHEN_transfer_THEN_throwsIllegalTransfer(String amount) {
         var request = TransferRequest.builder()
                 .amount(new BigDecimal(amount))
@@ -82,23 +100,36 @@ class TransferServiceTest {
 
     @Test
     void GIVEN_debitAccountNotFound_WHEN_transfer_THEN_throwsIllegalTransfer() {
-        doReturn(Optional.empty()).when(accountService).getById(DEBIT_ACCOUNT_ID);
+        doReturn(List.of(creditAccountEntity)).when(accountService).getByIds(ACCOUNT_IDS);
 
         assertThrows(IllegalTransferException.class, () -> transferService.transfer(REQUEST));
     }
 
     @Test
     void GIVEN_debitAccountWithNotEnoughMoney_WHEN_transfer_THEN_throwsIllegalTransfer() {
-        debitAccountEntity.setBalance(AMOUNT.subtract(BigDecimal.ONE));
-        doReturn(Optional.of(debitAccountEntity)).when(accountService).getById(DEBIT_ACCOUNT_ID);
+        debitAccountEntity.setBalance(Money.of(AMOUNT.subtract(BigDecimal.ONE), Currency.GBP));
+        mockValidAccountAccess();
 
         assertThrows(IllegalTransferException.class, () -> transferService.transfer(REQUEST));
     }
 
+    @SneakyThrows
+    @Test
+    void GIVEN_balanceInDatabaseNotCurrent_WHEN_transfer_THEN_letTheBalanceUpdaterCheckTheBalance() {
+        debitAccountEntity.setBalance(Money.of(AMOUNT.subtract(BigDecimal.ONE), Currency.GBP));
+        doReturn(false).when(balanceUpdater).isBalanceInDatabaseCurrent();
+        mockValidAccountAccess();
+        mockAmountConversion();
+        mockRetryExecutor();
+
+        transferService.transfer(REQUEST);
+
+        verify(balanceUpdater).apply(any());
+    }
+
     @Test
     void GIVEN_creditAccountNotFound_WHEN_transfer_THEN_throwsIllegalTransfer() {
-        doReturn(Optional.of(debitAccountEntity)).when(accountService).getById(DEBIT_ACCOUNT_ID);
-        doReturn(Optional.empty()).when(accountService).getById(CREDIT_ACCOUNT_ID);
+        doReturn(List.of(debitAccountEntity)).when(accountService).getByIds(ACCOUNT_IDS);
 
         assertThrows(IllegalTransferException.class, () -> transferService.transfer(REQUEST));
     }
@@ -110,58 +141,128 @@ class TransferServiceTest {
                 .fromAccountId(DEBIT_ACCOUNT_ID)
                 .toAccountId(DEBIT_ACCOUNT_ID)
                 .build();
-        doReturn(Optional.of(debitAccountEntity)).when(accountService).getById(DEBIT_ACCOUNT_ID);
+        doReturn(List.of(debitAccountEntity)).when(accountService)
+                .getByIds(List.of(DEBIT_ACCOUNT_ID, DEBIT_ACCOUNT_ID));
 
         assertThrows(IllegalTransferException.class, () -> transferService.transfer(request));
     }
 
+    @SneakyThrows
+    @Test
+    void WHEN_transfer_THEN_loadBothAccountsWithASingleQuery() {
+        mockValidAccountAccess();
+        mockRetryExecutor();
+        mockAmountConversion();
+
+        transferService.transfer(REQUEST);
+
+        verify(accountService).getByIds(ACCOUNT_IDS);
+        verify(accountService, never()).getById(anyLong());
+    }
+
     @SneakyThrows
     @Test
     void GIVEN_currencyConversionException_WHEN_transfer_THEN_throwsTransferFailure() {
         mockValidAccountAccess();
-        doThrow(CurrencyConversionException.class).when(conversionService).convert(any());
+        doThrow(CurrencyConversionException.class).when(conversionService).getExchangeRate(Currency.GBP, Currency.USD);
 
         assertThrows(TransferFailureException.class, () -> transferService.transfer(REQUEST));
     }
 
     @SneakyThrows
     @Test
-    void WHEN_transfer_THEN_executeDebit() {
+    void GIVEN_balanceUpdaterDeniesTheTransfer_WHEN_transfer_THEN_throwsIllegalTransfer() {
         mockValidAccountAccess();
         mockAmountConversion();
+        mockRetryExecutor();
+        doThrow(IllegalTransferException.class).when(balanceUpdater).apply(any());
 
-        transferService.transfer(REQUEST);
+        assertThrows(IllegalTransferException.class, () -> transferService.transfer(REQUEST));
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_persistentConflict_WHEN_transfer_THEN_throwsTransferConflict() {
+        mockValidAccountAccess();
+        mockAmountConversion();
+        doThrow(TransferConflictException.class).when(retryExecutor).execute(anyCollection(), any());
 
-        var updatedBalance = debitAccountEntity.getBalance().subtract(AMOUNT);
-        debitAccountEntity.setBalance(updatedBalance);
-        verify(accountService).update(debitAccountEntity);
+        assertThrows(TransferConflictException.class, () -> transferService.transfer(REQUEST));
     }
 
     @SneakyThrows
     @Test
-    void WHEN_transfer_THEN_executeCredit() {
+    void WHEN_transfer_THEN_applyDebitAndCredit() {
         mockValidAccountAccess();
+        mockRetryExecutor();
         var convertedAmount = mockAmountConversion();
         var convertedAmountScaled = convertedAmount.setScale(MoneyHandling.SCALE_FOR_MONEY,
                 MoneyHandling.ROUNDING_MODE_FOR_CLIENT_CREDIT);
 
         transferService.transfer(REQUEST);
 
-        var updatedBalance = creditAccountEntity.getBalance().add(convertedAmountScaled);
-        creditAccountEntity.setBalance(updatedBalance);
-        verify(accountService).update(creditAccountEntity);
+        verify(retryExecutor).execute(eq(ACCOUNT_IDS), any());
+        var expectedTransfer = BalanceTransfer.builder()
+                .debitAccountId(DEBIT_ACCOUNT_ID)
+                .debitedAmount(Money.of(AMOUNT, Currency.GBP))
+                .creditAccountId(CREDIT_ACCOUNT_ID)
+                .creditedAmount(Money.of(convertedAmountScaled, Currency.USD))
+                .build();
+        verify(balanceUpdater).apply(expectedTransfer);
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_retriedBalanceUpdate_WHEN_transfer_THEN_reuseThePinnedExchangeRate() {
+        mockValidAccountAccess();
+        mockAmountConversion();
+        doAnswer(invocation -> {
+            var operation = invocation.<TransferRetryExecutor.TransferOperation>getArgument(1);
+            operation.run();
+            operation.run();
+            return null;
+        }).when(retryExecutor).execute(anyCollection(), any());
+
+        transferService.transfer(REQUEST);
+
+        verify(conversionService, times(1)).getExchangeRate(Currency.GBP, Currency.USD);
+        verify(balanceUpdater, times(2)).apply(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void GIVEN_processedTransfer_WHEN_transfer_THEN_recordItWithTheBalanceUpdate() {
+        mockValidAccountAccess();
+        mockRetryExecutor();
+        mockAmountConversion();
+        var processedTransfer = ProcessedTransfer.builder()
+                .idempotencyKey("key")
+                .request(REQUEST)
+                .processedAt(Instant.EPOCH)
+                .build();
+
+        transferService.transfer(REQUEST, processedTransfer);
+
+        verify(recorder).applyAndRecord(eq(balanceUpdater), any(), eq(processedTransfer));
+        verify(balanceUpdater, never()).apply(any());
+    }
+
+    @SneakyThrows
+    private void mockRetryExecutor() {
+        doAnswer(invocation -> {
+            invocation.<TransferRetryExecutor.TransferOperation>getArgument(1).run();
+            return null;
+        }).when(retryExecutor).execute(anyCollection(), any());
     }
 
     private void mockValidAccountAccess() {
-        doReturn(Optional.of(debitAccountEntity)).when(accountService).getById(DEBIT_ACCOUNT_ID);
-        doReturn(Optional.of(creditAccountEntity)).when(accountService).getById(CREDIT_ACCOUNT_ID);
+        doReturn(List.of(debitAccountEntity, creditAccountEntity)).when(accountService).getByIds(ACCOUNT_IDS);
     }
 
 
     @SneakyThrows
     private BigDecimal mockAmountConversion() {
-        var convertedAmount = new BigDecimal("147.8952475");
-        doReturn(convertedAmount).when(conversionService).convert(any());
-        return convertedAmount;
+        doReturn(EXCHANGE_RATE).when(conversionService).getExchangeRate(Currency.GBP, Currency.USD);
+        return AMOUNT.multiply(EXCHANGE_RATE);
     }
 }
\ No newline at end of file